@@ -0,0 +1,130 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.integrationtests;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mifosplatform.integrationtests.common.CalendarHelper;
+import org.mifosplatform.integrationtests.common.ClientHelper;
+import org.mifosplatform.integrationtests.common.GroupHelper;
+import org.mifosplatform.integrationtests.common.Utils;
+import org.mifosplatform.integrationtests.common.charges.ChargesHelper;
+import org.mifosplatform.integrationtests.common.loans.LoanApplicationTestBuilder;
+import org.mifosplatform.integrationtests.common.loans.LoanProductTestBuilder;
+import org.mifosplatform.integrationtests.common.loans.LoanStatusChecker;
+import org.mifosplatform.integrationtests.common.loans.LoanTransactionHelper;
+
+import com.google.gson.Gson;
+import com.jayway.restassured.builder.RequestSpecBuilder;
+import com.jayway.restassured.builder.ResponseSpecBuilder;
+import com.jayway.restassured.http.ContentType;
+import com.jayway.restassured.specification.RequestSpecification;
+import com.jayway.restassured.specification.ResponseSpecification;
+
+/**
+ * Saves a group collection sheet for a loan carrying several charges, so that
+ * the loans of the sheet are read with their repayment schedules in one query.
+ */
+@SuppressWarnings({ "rawtypes" })
+public class CollectionSheetIntegrationTest {
+
+    private static final String GROUP_ACTIVATION_DATE = "1 September 2014";
+    private static final String MEETING_DATE = "8 September 2014";
+    private static final String NUMBER_OF_REPAYMENTS = "4";
+
+    private ResponseSpecification responseSpec;
+    private RequestSpecification requestSpec;
+    private LoanTransactionHelper loanTransactionHelper;
+
+    @Before
+    public void setup() {
+        Utils.initializeRESTAssured();
+        this.requestSpec = new RequestSpecBuilder().setContentType(ContentType.JSON).build();
+        this.requestSpec.header("Authorization", "Basic " + Utils.loginIntoServerAndGetBase64EncodedAuthenticationKey());
+        this.responseSpec = new ResponseSpecBuilder().expectStatusCode(200).build();
+        this.loanTransactionHelper = new LoanTransactionHelper(this.requestSpec, this.responseSpec);
+    }
+
+    @Test
+    public void saveCollectionSheetShouldRepayLoanWithSeveralChargesWithoutDuplicatingInstallments() {
+        final Integer groupId = GroupHelper.createGroup(this.requestSpec, this.responseSpec, GROUP_ACTIVATION_DATE);
+        GroupHelper.verifyGroupCreatedOnServer(this.requestSpec, this.responseSpec, groupId);
+
+        final String frequency = "2"; // 2:Weekly
+        final String interval = "1"; // Every one week
+        final String repeatsOnDay = "1"; // 1:Monday
+        final Integer calendarId = CalendarHelper.createMeetingCalendarForGroup(this.requestSpec, this.responseSpec, groupId,
+                GROUP_ACTIVATION_DATE, frequency, interval, repeatsOnDay);
+
+        final Integer clientId = ClientHelper.createClient(this.requestSpec, this.responseSpec, GROUP_ACTIVATION_DATE);
+        GroupHelper.associateClient(this.requestSpec, this.responseSpec, groupId.toString(), clientId.toString());
+        GroupHelper.verifyGroupMembers(this.requestSpec, this.responseSpec, groupId, clientId);
+
+        final String loanProductJSON = new LoanProductTestBuilder().withPrincipal("4000").withNumberOfRepayments(NUMBER_OF_REPAYMENTS)
+                .withRepaymentTypeAsWeek().withinterestRatePerPeriod("0").build(null);
+        final Integer loanProductId = this.loanTransactionHelper.getLoanProductId(loanProductJSON);
+
+        final String loanApplicationJSON = new LoanApplicationTestBuilder().withPrincipal("4000")
+                .withLoanTermFrequency(NUMBER_OF_REPAYMENTS).withLoanTermFrequencyAsWeeks().withNumberOfRepayments(NUMBER_OF_REPAYMENTS)
+                .withRepaymentEveryAfter("1").withRepaymentFrequencyTypeAsWeeks().withAmortizationTypeAsEqualInstallments()
+                .withInterestCalculationPeriodTypeAsDays().withInterestRatePerPeriod("0").withSubmittedOnDate(GROUP_ACTIVATION_DATE)
+                .withExpectedDisbursementDate(GROUP_ACTIVATION_DATE).build(clientId.toString(), loanProductId.toString(), null);
+        final Integer loanId = this.loanTransactionHelper.getLoanId(loanApplicationJSON);
+        Assert.assertNotNull(loanId);
+
+        final Integer firstChargeId = ChargesHelper.createCharges(this.requestSpec, this.responseSpec,
+                ChargesHelper.getLoanSpecifiedDueDateJSON(ChargesHelper.CHARGE_CALCULATION_TYPE_FLAT, "50", false));
+        final Integer secondChargeId = ChargesHelper.createCharges(this.requestSpec, this.responseSpec,
+                ChargesHelper.getLoanSpecifiedDueDateJSON(ChargesHelper.CHARGE_CALCULATION_TYPE_FLAT, "30", false));
+        this.loanTransactionHelper.addChargesForLoan(loanId,
+                LoanTransactionHelper.getSpecifiedDueDateChargesForLoanAsJSON(firstChargeId.toString(), MEETING_DATE, "50"));
+        this.loanTransactionHelper.addChargesForLoan(loanId,
+                LoanTransactionHelper.getSpecifiedDueDateChargesForLoanAsJSON(secondChargeId.toString(), "15 September 2014", "30"));
+        assertEquals(2, this.loanTransactionHelper.getLoanCharges(loanId).size());
+
+        this.loanTransactionHelper.approveLoan(GROUP_ACTIVATION_DATE, loanId);
+        this.loanTransactionHelper.disburseLoan(GROUP_ACTIVATION_DATE, loanId);
+        HashMap loanStatusHashMap = LoanStatusChecker.getStatusOfLoan(this.requestSpec, this.responseSpec, loanId);
+        LoanStatusChecker.verifyLoanIsActive(loanStatusHashMap);
+
+        saveCollectionSheet(groupId, calendarId, loanId, "1050");
+
+        final ArrayList<HashMap> loanSchedule = this.loanTransactionHelper.getLoanRepaymentSchedule(this.requestSpec, this.responseSpec,
+                loanId);
+        // the disbursement period followed by one period per installment
+        assertEquals(Integer.parseInt(NUMBER_OF_REPAYMENTS) + 1, loanSchedule.size());
+        final HashMap firstInstallment = loanSchedule.get(1);
+        assertEquals(Boolean.TRUE, firstInstallment.get("complete"));
+
+        final HashMap loanSummary = this.loanTransactionHelper.getLoanSummary(this.requestSpec, this.responseSpec, loanId);
+        assertEquals(new Float(1050), loanSummary.get("totalRepayment"));
+    }
+
+    private void saveCollectionSheet(final Integer groupId, final Integer calendarId, final Integer loanId, final String amount) {
+        final HashMap<String, String> repayment = new HashMap<>();
+        repayment.put("loanId", loanId.toString());
+        repayment.put("transactionAmount", amount);
+        final List<HashMap<String, String>> bulkRepaymentTransactions = new ArrayList<>();
+        bulkRepaymentTransactions.add(repayment);
+
+        final HashMap<String, Object> map = new HashMap<>();
+        map.put("locale", "en");
+        map.put("dateFormat", "dd MMMM yyyy");
+        map.put("transactionDate", MEETING_DATE);
+        map.put("calendarId", calendarId.toString());
+        map.put("bulkRepaymentTransactions", bulkRepaymentTransactions);
+
+        final String url = "/mifosng-provider/api/v1/groups/" + groupId + "?command=saveCollectionSheet&" + Utils.TENANT_IDENTIFIER;
+        Utils.performServerPost(this.requestSpec, this.responseSpec, url, new Gson().toJson(map), "groupId");
+    }
+}
@@ -0,0 +1,90 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.core.api;
+
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.mifosplatform.infrastructure.core.serialization.FromJsonHelper;
+import org.mifosplatform.portfolio.client.api.ClientApiConstants;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.gson.JsonElement;
+import com.google.gson.reflect.TypeToken;
+
+/**
+ * Cost of reading the body of a client create and a loan repayment command
+ * up to validation: parsed for the {@link JsonCommand}, read into a map to
+ * check for unsupported parameters and parsed again by the validator as
+ * before, against checking the element the command already holds.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CommandJsonParsingBenchmark {
+
+    private static final String CLIENT_CREATE_JSON = "{\"officeId\":1,\"firstname\":\"Petra\",\"lastname\":\"Yton\","
+            + "\"externalId\":\"786YYH7\",\"dateFormat\":\"dd MMMM yyyy\",\"locale\":\"en\",\"active\":true,"
+            + "\"activationDate\":\"04 March 2009\",\"submittedOnDate\":\"04 March 2009\",\"mobileNo\":\"0123456789\"}";
+
+    private static final String LOAN_REPAYMENT_JSON = "{\"dateFormat\":\"dd MMMM yyyy\",\"locale\":\"en\","
+            + "\"transactionDate\":\"29 April 2015\",\"transactionAmount\":\"1250.50\",\"paymentTypeId\":\"12\","
+            + "\"accountNumber\":\"acc123\",\"checkNumber\":\"che123\",\"receiptNumber\":\"rec123\",\"note\":\"repayment\"}";
+
+    private static final Set<String> REPAYMENT_PARAMETERS = new HashSet<>(Arrays.asList("transactionDate", "transactionAmount",
+            "externalId", "note", "locale", "dateFormat", "paymentTypeId", "accountNumber", "checkNumber", "routingCode",
+            "receiptNumber", "bankNumber"));
+
+    private final Type typeOfMap = new TypeToken<Map<String, Object>>() {}.getType();
+    private final FromJsonHelper fromJsonHelper = new FromJsonHelper();
+
+    @Benchmark
+    public JsonElement clientCreateReparsing() {
+        return reparse(CLIENT_CREATE_JSON, ClientApiConstants.CLIENT_CREATE_REQUEST_DATA_PARAMETERS);
+    }
+
+    @Benchmark
+    public JsonElement clientCreateParsedOnce() {
+        return parseOnce(CLIENT_CREATE_JSON, ClientApiConstants.CLIENT_CREATE_REQUEST_DATA_PARAMETERS);
+    }
+
+    @Benchmark
+    public JsonElement loanRepaymentReparsing() {
+        return reparse(LOAN_REPAYMENT_JSON, REPAYMENT_PARAMETERS);
+    }
+
+    @Benchmark
+    public JsonElement loanRepaymentParsedOnce() {
+        return parseOnce(LOAN_REPAYMENT_JSON, REPAYMENT_PARAMETERS);
+    }
+
+    private JsonElement reparse(final String json, final Set<String> supportedParameters) {
+        this.fromJsonHelper.parse(json);
+        this.fromJsonHelper.checkForUnsupportedParameters(this.typeOfMap, json, supportedParameters);
+        return this.fromJsonHelper.parse(json);
+    }
+
+    private JsonElement parseOnce(final String json, final Set<String> supportedParameters) {
+        final JsonElement element = this.fromJsonHelper.parse(json);
+        this.fromJsonHelper.checkForUnsupportedParameters(element, supportedParameters);
+        return element;
+    }
+}
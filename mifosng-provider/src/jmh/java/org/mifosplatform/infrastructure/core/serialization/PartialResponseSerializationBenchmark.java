@@ -0,0 +1,98 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.core.serialization;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.joda.time.LocalDate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of serializing a list response with <code>fields=</code>, with the
+ * partial response {@link com.google.gson.Gson} built for every request as
+ * before and taken from the {@link GoogleGsonSerializerHelper} cache.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PartialResponseSerializationBenchmark {
+
+    private static final Set<String> SUPPORTED_PARAMETERS = new HashSet<>(Arrays.asList("id", "accountNo", "clientName",
+            "principal", "submittedOnDate", "expectedMaturityDate", "status"));
+
+    @Param({ "1", "50" })
+    public int rows;
+
+    private final Set<String> fields = new HashSet<>(Arrays.asList("id", "accountNo", "principal"));
+    private GoogleGsonSerializerHelper cachingHelper;
+    private LoanRow[] data;
+
+    @Setup
+    public void setUp() {
+        this.cachingHelper = new GoogleGsonSerializerHelper();
+        this.data = new LoanRow[this.rows];
+        for (int i = 0; i < this.rows; i++) {
+            this.data[i] = new LoanRow(Long.valueOf(i), "00000" + i, "Client " + i, BigDecimal.valueOf(10000 + i), new LocalDate(2015, 1,
+                    1), new LocalDate(2016, 1, 1), "Active");
+        }
+    }
+
+    @Benchmark
+    public String serializeWithNewGson() {
+        // a fresh helper has an empty cache, which is what every request
+        // paid before the serializers were cached
+        final GoogleGsonSerializerHelper helper = new GoogleGsonSerializerHelper();
+        return helper.serializedJsonFrom(
+                helper.createGsonBuilderWithParameterExclusionSerializationStrategy(SUPPORTED_PARAMETERS, false, this.fields), this.data);
+    }
+
+    @Benchmark
+    public String serializeWithCachedGson() {
+        return this.cachingHelper.serializedJsonFrom(
+                this.cachingHelper.createGsonBuilderWithParameterExclusionSerializationStrategy(SUPPORTED_PARAMETERS, false, this.fields),
+                this.data);
+    }
+
+    @SuppressWarnings("unused")
+    private static final class LoanRow {
+
+        private final Long id;
+        private final String accountNo;
+        private final String clientName;
+        private final BigDecimal principal;
+        private final LocalDate submittedOnDate;
+        private final LocalDate expectedMaturityDate;
+        private final String status;
+
+        LoanRow(final Long id, final String accountNo, final String clientName, final BigDecimal principal, final LocalDate submittedOnDate,
+                final LocalDate expectedMaturityDate, final String status) {
+            this.id = id;
+            this.accountNo = accountNo;
+            this.clientName = clientName;
+            this.principal = principal;
+            this.submittedOnDate = submittedOnDate;
+            this.expectedMaturityDate = expectedMaturityDate;
+            this.status = status;
+        }
+    }
+}
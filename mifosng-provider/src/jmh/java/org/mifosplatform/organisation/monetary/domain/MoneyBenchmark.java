@@ -0,0 +1,89 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.organisation.monetary.domain;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of the {@link Money} arithmetic done for every installment by the
+ * schedule generators and repayment processors: interest on the outstanding
+ * balance, principal split, and running totals.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MoneyBenchmark {
+
+    @Param({ "12", "360" })
+    public int installments;
+
+    @Param({ "2", "0" })
+    public int digitsAfterDecimal;
+
+    private MonetaryCurrency currency;
+    private Money principal;
+    private BigDecimal periodicInterestRate;
+
+    @Setup
+    public void setUp() {
+        this.currency = new MonetaryCurrency("USD", this.digitsAfterDecimal, null);
+        this.principal = Money.of(this.currency, BigDecimal.valueOf(200000));
+        this.periodicInterestRate = BigDecimal.valueOf(0.02);
+    }
+
+    @Benchmark
+    public Money amortize() {
+        final Money installmentPrincipal = this.principal.dividedBy(this.installments, RoundingMode.HALF_EVEN);
+        Money outstanding = this.principal;
+        Money totalInterest = Money.zero(this.currency);
+        Money totalRepaid = Money.zero(this.currency);
+        for (int i = 0; i < this.installments; i++) {
+            final Money interest = outstanding.multipliedBy(this.periodicInterestRate);
+            final Money principalDue = i == this.installments - 1 ? outstanding : installmentPrincipal;
+            outstanding = outstanding.minus(principalDue);
+            totalInterest = totalInterest.plus(interest);
+            totalRepaid = totalRepaid.plus(principalDue).plus(interest);
+        }
+        return totalRepaid.minus(totalInterest);
+    }
+
+    /**
+     * Same amortization as {@link #amortize()} with the running totals kept in
+     * {@link MoneyAccumulator}s; both must return the same amount.
+     */
+    @Benchmark
+    public Money amortizeWithAccumulator() {
+        final Money installmentPrincipal = this.principal.dividedBy(this.installments, RoundingMode.HALF_EVEN);
+        Money outstanding = this.principal;
+        final MoneyAccumulator totalInterest = MoneyAccumulator.zero(this.currency);
+        final MoneyAccumulator totalRepaid = MoneyAccumulator.zero(this.currency);
+        for (int i = 0; i < this.installments; i++) {
+            final Money interest = outstanding.multipliedBy(this.periodicInterestRate);
+            final Money principalDue = i == this.installments - 1 ? outstanding : installmentPrincipal;
+            outstanding = outstanding.minus(principalDue);
+            totalInterest.plus(interest);
+            totalRepaid.plus(principalDue).plus(interest);
+        }
+        return totalRepaid.minus(totalInterest.toMoney()).toMoney();
+    }
+}
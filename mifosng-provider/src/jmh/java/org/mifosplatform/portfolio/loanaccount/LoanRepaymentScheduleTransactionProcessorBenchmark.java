@@ -0,0 +1,114 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.portfolio.loanaccount;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.mifosplatform.organisation.monetary.domain.MonetaryCurrency;
+import org.mifosplatform.portfolio.loanaccount.domain.ChangedTransactionDetail;
+import org.mifosplatform.portfolio.loanaccount.domain.LoanCharge;
+import org.mifosplatform.portfolio.loanaccount.domain.LoanRepaymentScheduleInstallment;
+import org.mifosplatform.portfolio.loanaccount.domain.LoanTransaction;
+import org.mifosplatform.portfolio.loanaccount.domain.transactionprocessor.LoanRepaymentScheduleTransactionProcessor;
+import org.mifosplatform.portfolio.loanaccount.domain.transactionprocessor.impl.CreocoreLoanRepaymentScheduleTransactionProcessor;
+import org.mifosplatform.portfolio.loanaccount.domain.transactionprocessor.impl.EarlyPaymentLoanRepaymentScheduleTransactionProcessor;
+import org.mifosplatform.portfolio.loanaccount.domain.transactionprocessor.impl.HeavensFamilyLoanRepaymentScheduleTransactionProcessor;
+import org.mifosplatform.portfolio.loanaccount.domain.transactionprocessor.impl.InterestPrincipalPenaltyFeesOrderLoanRepaymentScheduleTransactionProcessor;
+import org.mifosplatform.portfolio.loanaccount.domain.transactionprocessor.impl.MifosStyleLoanRepaymentScheduleTransactionProcessor;
+import org.mifosplatform.portfolio.loanaccount.domain.transactionprocessor.impl.PrincipalInterestPenaltyFeesOrderLoanRepaymentScheduleTransactionProcessor;
+import org.mifosplatform.portfolio.loanaccount.domain.transactionprocessor.impl.RBILoanRepaymentScheduleTransactionProcessor;
+import org.mifosplatform.portfolio.loanaccount.loanschedule.domain.DefaultLoanScheduleGeneratorFactory;
+import org.mifosplatform.portfolio.loanaccount.loanschedule.domain.LoanApplicationTerms;
+import org.mifosplatform.portfolio.loanaccount.loanschedule.domain.LoanScheduleModel;
+import org.mifosplatform.portfolio.loanproduct.domain.InterestMethod;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of replaying the repayments of a loan against its schedule, as
+ * done on every repayment, adjustment and reversal, for each repayment
+ * strategy.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LoanRepaymentScheduleTransactionProcessorBenchmark {
+
+    public enum Strategy {
+        MIFOS_STANDARD, HEAVENSFAMILY, EARLY_REPAYMENT, CREOCORE, RBI_INDIA, PRINCIPAL_INTEREST_PENALTIES_FEES, INTEREST_PRINCIPAL_PENALTIES_FEES;
+
+        LoanRepaymentScheduleTransactionProcessor processor() {
+            switch (this) {
+                case MIFOS_STANDARD:
+                    return new MifosStyleLoanRepaymentScheduleTransactionProcessor();
+                case HEAVENSFAMILY:
+                    return new HeavensFamilyLoanRepaymentScheduleTransactionProcessor();
+                case EARLY_REPAYMENT:
+                    return new EarlyPaymentLoanRepaymentScheduleTransactionProcessor();
+                case CREOCORE:
+                    return new CreocoreLoanRepaymentScheduleTransactionProcessor();
+                case RBI_INDIA:
+                    return new RBILoanRepaymentScheduleTransactionProcessor();
+                case INTEREST_PRINCIPAL_PENALTIES_FEES:
+                    return new InterestPrincipalPenaltyFeesOrderLoanRepaymentScheduleTransactionProcessor();
+                default:
+                    return new PrincipalInterestPenaltyFeesOrderLoanRepaymentScheduleTransactionProcessor();
+            }
+        }
+    }
+
+    @Param({ "12", "60", "360" })
+    public int numberOfRepayments;
+
+    @Param
+    public Strategy strategy;
+
+    private final Set<LoanCharge> loanCharges = new HashSet<>();
+    private final MonetaryCurrency currency = LoanScheduleBenchmarkFixtures.usDollarsMonetaryCurrency();
+    private LoanRepaymentScheduleTransactionProcessor processor;
+    private List<LoanRepaymentScheduleInstallment> installments;
+    private List<LoanTransaction> repayments;
+
+    @Setup(Level.Trial)
+    public void setUpSchedule() {
+        this.processor = this.strategy.processor();
+        final LoanApplicationTerms loanApplicationTerms = LoanScheduleBenchmarkFixtures.loanApplicationTerms(
+                InterestMethod.DECLINING_BALANCE, this.numberOfRepayments, false, false);
+        final LoanScheduleModel schedule = new DefaultLoanScheduleGeneratorFactory().create(InterestMethod.DECLINING_BALANCE).generate(
+                LoanScheduleBenchmarkFixtures.MATH_CONTEXT, loanApplicationTerms, this.loanCharges,
+                LoanScheduleBenchmarkFixtures.noHolidays());
+        // installments are reset by the processor before the repayments are
+        // applied again
+        this.installments = LoanScheduleBenchmarkFixtures.installments(schedule);
+    }
+
+    @Setup(Level.Invocation)
+    public void setUpRepayments() {
+        this.repayments = LoanScheduleBenchmarkFixtures.repayments(this.installments, this.currency, this.installments.size() * 3 / 4);
+    }
+
+    @Benchmark
+    public ChangedTransactionDetail handleTransactions() {
+        return this.processor.handleTransaction(LoanScheduleBenchmarkFixtures.DISBURSEMENT_DATE, this.repayments, this.currency,
+                this.installments, this.loanCharges, null);
+    }
+}
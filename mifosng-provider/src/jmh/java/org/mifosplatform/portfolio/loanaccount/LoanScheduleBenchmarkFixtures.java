@@ -0,0 +1,208 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.portfolio.loanaccount;
+
+import java.lang.reflect.Constructor;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import org.joda.time.LocalDate;
+import org.joda.time.LocalDateTime;
+import org.mifosplatform.infrastructure.core.api.JsonCommand;
+import org.mifosplatform.infrastructure.core.serialization.FromJsonHelper;
+import org.mifosplatform.organisation.holiday.domain.Holiday;
+import org.mifosplatform.organisation.monetary.domain.ApplicationCurrency;
+import org.mifosplatform.organisation.monetary.domain.MonetaryCurrency;
+import org.mifosplatform.organisation.monetary.domain.Money;
+import org.mifosplatform.organisation.office.domain.Office;
+import org.mifosplatform.organisation.workingdays.domain.RepaymentRescheduleType;
+import org.mifosplatform.organisation.workingdays.domain.WorkingDays;
+import org.mifosplatform.portfolio.calendar.domain.Calendar;
+import org.mifosplatform.portfolio.calendar.domain.CalendarEntityType;
+import org.mifosplatform.portfolio.calendar.domain.CalendarFrequencyType;
+import org.mifosplatform.portfolio.calendar.domain.CalendarInstance;
+import org.mifosplatform.portfolio.calendar.domain.CalendarType;
+import org.mifosplatform.portfolio.common.domain.DaysInMonthType;
+import org.mifosplatform.portfolio.common.domain.DaysInYearType;
+import org.mifosplatform.portfolio.common.domain.PeriodFrequencyType;
+import org.mifosplatform.portfolio.loanaccount.data.DisbursementData;
+import org.mifosplatform.portfolio.loanaccount.data.HolidayDetailDTO;
+import org.mifosplatform.portfolio.loanaccount.data.LoanTermVariationsData;
+import org.mifosplatform.portfolio.loanaccount.domain.LoanInterestRecalculationDetails;
+import org.mifosplatform.portfolio.loanaccount.domain.LoanRepaymentScheduleInstallment;
+import org.mifosplatform.portfolio.loanaccount.domain.LoanTransaction;
+import org.mifosplatform.portfolio.loanaccount.loanschedule.domain.LoanApplicationTerms;
+import org.mifosplatform.portfolio.loanaccount.loanschedule.domain.LoanScheduleModel;
+import org.mifosplatform.portfolio.loanaccount.loanschedule.domain.LoanScheduleModelPeriod;
+import org.mifosplatform.portfolio.loanproduct.domain.AmortizationMethod;
+import org.mifosplatform.portfolio.loanproduct.domain.InterestCalculationPeriodMethod;
+import org.mifosplatform.portfolio.loanproduct.domain.InterestMethod;
+import org.mifosplatform.portfolio.loanproduct.domain.InterestRecalculationCompoundingMethod;
+import org.mifosplatform.portfolio.loanproduct.domain.LoanProductRelatedDetail;
+import org.mifosplatform.portfolio.loanproduct.domain.LoanRescheduleStrategyMethod;
+import org.mifosplatform.portfolio.loanproduct.domain.RecalculationFrequencyType;
+
+/**
+ * Builds the loans used by the schedule and repayment benchmarks: a monthly
+ * loan of 12 to 360 installments, optionally disbursed in three tranches,
+ * with weekly interest recalculation and with weekends and yearly holidays
+ * moved to the next working day. Uses the same values as
+ * {@link LoanProductRelatedDetailTestHelper} where possible.
+ */
+public final class LoanScheduleBenchmarkFixtures {
+
+    public static final LocalDate DISBURSEMENT_DATE = new LocalDate(2015, 1, 5);
+
+    public static final MathContext MATH_CONTEXT = new MathContext(8, RoundingMode.HALF_EVEN);
+
+    private static final BigDecimal PRINCIPAL = BigDecimal.valueOf(200000);
+
+    private LoanScheduleBenchmarkFixtures() {
+        //
+    }
+
+    public static ApplicationCurrency usDollars() {
+        // no public factory, entities are normally loaded from m_currency
+        try {
+            final Constructor<ApplicationCurrency> constructor = ApplicationCurrency.class.getDeclaredConstructor(String.class,
+                    String.class, int.class, Integer.class, String.class, String.class);
+            constructor.setAccessible(true);
+            return constructor.newInstance("USD", "US Dollar", 2, null, "currency.USD", "$");
+        } catch (final ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static MonetaryCurrency usDollarsMonetaryCurrency() {
+        return new MonetaryCurrencyBuilder().withCode("USD").withDigitsAfterDecimal(2).build();
+    }
+
+    public static LoanApplicationTerms loanApplicationTerms(final InterestMethod interestMethod, final int numberOfRepayments,
+            final boolean multiDisbursement, final boolean interestRecalculation) {
+
+        final MonetaryCurrency currency = usDollarsMonetaryCurrency();
+        final Integer graceOnPrincipalPayment = Integer.valueOf(0);
+        final Integer graceOnInterestPayment = Integer.valueOf(0);
+        final Integer graceOnInterestCharged = Integer.valueOf(0);
+        final Integer graceOnArrearsAgeing = Integer.valueOf(0);
+
+        // 2% per month, 24% per year
+        final LoanProductRelatedDetail loanProductRelatedDetail = new LoanProductRelatedDetail(currency, PRINCIPAL, BigDecimal.valueOf(2),
+                PeriodFrequencyType.MONTHS, BigDecimal.valueOf(24), interestMethod, InterestCalculationPeriodMethod.DAILY,
+                Integer.valueOf(1), PeriodFrequencyType.MONTHS, Integer.valueOf(numberOfRepayments), graceOnPrincipalPayment,
+                graceOnInterestPayment, graceOnInterestCharged, AmortizationMethod.EQUAL_INSTALLMENTS, BigDecimal.ZERO,
+                graceOnArrearsAgeing, DaysInMonthType.ACTUAL.getValue(), DaysInYearType.ACTUAL.getValue(), interestRecalculation);
+
+        final List<DisbursementData> disbursementDatas = new ArrayList<>();
+        if (multiDisbursement) {
+            final BigDecimal tranche = PRINCIPAL.divide(BigDecimal.valueOf(4));
+            disbursementDatas.add(new DisbursementData(Long.valueOf(1), DISBURSEMENT_DATE, DISBURSEMENT_DATE, tranche.multiply(BigDecimal
+                    .valueOf(2)), PRINCIPAL));
+            disbursementDatas.add(new DisbursementData(Long.valueOf(2), DISBURSEMENT_DATE.plusMonths(1), null, tranche, PRINCIPAL));
+            disbursementDatas.add(new DisbursementData(Long.valueOf(3), DISBURSEMENT_DATE.plusMonths(3), null, tranche, PRINCIPAL));
+        }
+
+        LoanInterestRecalculationDetails interestRecalculationDetails = null;
+        CalendarInstance restCalendarInstance = null;
+        RecalculationFrequencyType recalculationFrequencyType = null;
+        if (interestRecalculation) {
+            interestRecalculationDetails = LoanInterestRecalculationDetails.createFrom(InterestRecalculationCompoundingMethod.NONE.getValue(),
+                    LoanRescheduleStrategyMethod.REDUCE_EMI_AMOUNT.getValue(), RecalculationFrequencyType.WEEKLY.getValue(),
+                    Integer.valueOf(1), null);
+            final Calendar restCalendar = Calendar.createRepeatingCalendar("interest recalculation rest", DISBURSEMENT_DATE,
+                    CalendarType.COLLECTION.getValue(), CalendarFrequencyType.WEEKLY, Integer.valueOf(1),
+                    Integer.valueOf(DISBURSEMENT_DATE.getDayOfWeek()));
+            restCalendarInstance = CalendarInstance.from(restCalendar, null, CalendarEntityType.LOAN_RECALCULATION_DETAIL.getValue());
+            recalculationFrequencyType = RecalculationFrequencyType.WEEKLY;
+        }
+
+        final List<LoanTermVariationsData> emiAmountVariations = new ArrayList<>();
+        final LocalDate repaymentsStartingFromDate = null;
+        final LocalDate calculatedRepaymentsStartingFromDate = null;
+        final LocalDate interestChargedFromDate = null;
+        final BigDecimal emiAmount = null;
+        return LoanApplicationTerms.assembleFrom(usDollars(), Integer.valueOf(numberOfRepayments), PeriodFrequencyType.MONTHS,
+                DISBURSEMENT_DATE, repaymentsStartingFromDate, calculatedRepaymentsStartingFromDate, Money.zero(currency),
+                loanProductRelatedDetail, multiDisbursement, emiAmount, disbursementDatas, PRINCIPAL, emiAmountVariations,
+                interestChargedFromDate, interestRecalculationDetails, restCalendarInstance, recalculationFrequencyType);
+    }
+
+    public static HolidayDetailDTO noHolidays() {
+        return new HolidayDetailDTO(false, Collections.<Holiday> emptyList(), mondayToFriday());
+    }
+
+    /**
+     * Weekends off and Christmas and New Year holidays for every year the
+     * longest schedule runs, repayments moved to the next working day.
+     */
+    public static HolidayDetailDTO holidays() {
+        final FromJsonHelper fromJsonHelper = new FromJsonHelper();
+        final List<Holiday> holidays = new ArrayList<>();
+        for (int year = DISBURSEMENT_DATE.getYear(); year <= DISBURSEMENT_DATE.getYear() + 31; year++) {
+            holidays.add(holiday(fromJsonHelper, "Christmas " + year, new LocalDate(year, 12, 24), new LocalDate(year, 12, 26),
+                    new LocalDate(year, 12, 28)));
+            holidays.add(holiday(fromJsonHelper, "New Year " + year, new LocalDate(year, 1, 1), new LocalDate(year, 1, 2),
+                    new LocalDate(year, 1, 5)));
+        }
+        return new HolidayDetailDTO(true, holidays, mondayToFriday());
+    }
+
+    private static Holiday holiday(final FromJsonHelper fromJsonHelper, final String name, final LocalDate fromDate,
+            final LocalDate toDate, final LocalDate repaymentsRescheduledTo) {
+        final String json = "{\"name\":\"" + name + "\",\"fromDate\":\"" + fromDate + "\",\"toDate\":\"" + toDate
+                + "\",\"repaymentsRescheduledTo\":\"" + repaymentsRescheduledTo + "\",\"dateFormat\":\"yyyy-MM-dd\",\"locale\":\"en\"}";
+        final JsonCommand command = JsonCommand.from(json, fromJsonHelper.parse(json), fromJsonHelper, null, null, null, null, null, null,
+                null, null, null, null);
+        final Holiday holiday = Holiday.createNew(new HashSet<Office>(), command);
+        holiday.activate();
+        return holiday;
+    }
+
+    private static WorkingDays mondayToFriday() {
+        return new WorkingDays("FREQ=WEEKLY;INTERVAL=1;BYDAY=MO,TU,WE,TH,FR",
+                RepaymentRescheduleType.MOVE_TO_NEXT_WORKING_DAY.getValue()) {
+            // constructor is only visible to subclasses
+        };
+    }
+
+    public static List<LoanRepaymentScheduleInstallment> installments(final LoanScheduleModel loanScheduleModel) {
+        final List<LoanRepaymentScheduleInstallment> installments = new ArrayList<>();
+        for (final LoanScheduleModelPeriod period : loanScheduleModel.getPeriods()) {
+            if (period.isRepaymentPeriod()) {
+                installments.add(new LoanRepaymentScheduleInstallment(null, period.periodNumber(), period.periodFromDate(), period
+                        .periodDueDate(), period.principalDue(), period.interestDue(), period.feeChargesDue(), period.penaltyChargesDue(),
+                        period.isRecalculatedInterestComponent()));
+            }
+        }
+        return installments;
+    }
+
+    /**
+     * One repayment of the amount due for each of the first
+     * <code>paidInstallments</code> installments, every third one paid ten
+     * days late and every fifth one short by a tenth.
+     */
+    public static List<LoanTransaction> repayments(final List<LoanRepaymentScheduleInstallment> installments,
+            final MonetaryCurrency currency, final int paidInstallments) {
+        final List<LoanTransaction> repayments = new ArrayList<>(paidInstallments);
+        final LocalDateTime createdDate = new LocalDateTime(2015, 1, 5, 10, 0);
+        for (int i = 0; i < paidInstallments && i < installments.size(); i++) {
+            final LoanRepaymentScheduleInstallment installment = installments.get(i);
+            Money amount = installment.getPrincipal(currency).plus(installment.getInterestCharged(currency));
+            if (i % 5 == 4) {
+                amount = amount.minus(amount.dividedBy(10, RoundingMode.HALF_EVEN));
+            }
+            final LocalDate paymentDate = i % 3 == 2 ? installment.getDueDate().plusDays(10) : installment.getDueDate();
+            repayments.add(LoanTransaction.repayment(null, amount, null, paymentDate, null, createdDate, null));
+        }
+        return repayments;
+    }
+}
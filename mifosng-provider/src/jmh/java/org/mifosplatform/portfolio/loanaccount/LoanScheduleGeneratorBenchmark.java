@@ -0,0 +1,114 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.portfolio.loanaccount;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.joda.time.LocalDate;
+import org.mifosplatform.portfolio.loanaccount.data.HolidayDetailDTO;
+import org.mifosplatform.portfolio.loanaccount.domain.LoanCharge;
+import org.mifosplatform.portfolio.loanaccount.domain.LoanRepaymentScheduleInstallment;
+import org.mifosplatform.portfolio.loanaccount.domain.LoanTransaction;
+import org.mifosplatform.portfolio.loanaccount.domain.transactionprocessor.LoanRepaymentScheduleTransactionProcessor;
+import org.mifosplatform.portfolio.loanaccount.domain.transactionprocessor.impl.MifosStyleLoanRepaymentScheduleTransactionProcessor;
+import org.mifosplatform.portfolio.loanaccount.loanschedule.domain.DefaultLoanScheduleGeneratorFactory;
+import org.mifosplatform.portfolio.loanaccount.loanschedule.domain.LoanApplicationTerms;
+import org.mifosplatform.portfolio.loanaccount.loanschedule.domain.LoanScheduleGenerator;
+import org.mifosplatform.portfolio.loanaccount.loanschedule.domain.LoanScheduleModel;
+import org.mifosplatform.portfolio.loanproduct.domain.InterestMethod;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of {@link LoanScheduleGenerator#generate} for flat and
+ * declining balance loans, and of regenerating an interest recalculation
+ * loan after half of its installments were repaid.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LoanScheduleGeneratorBenchmark {
+
+    @Param({ "12", "60", "360" })
+    public int numberOfRepayments;
+
+    @Param({ "FLAT", "DECLINING_BALANCE" })
+    public InterestMethod interestMethod;
+
+    @Param({ "false", "true" })
+    public boolean multiDisbursement;
+
+    @Param({ "false", "true" })
+    public boolean holidays;
+
+    private final Set<LoanCharge> loanCharges = new HashSet<>();
+    private LoanScheduleGenerator generator;
+    private HolidayDetailDTO holidayDetailDTO;
+
+    private LoanApplicationTerms loanApplicationTerms;
+    private LoanApplicationTerms recalculationTerms;
+    private List<LoanRepaymentScheduleInstallment> recalculationInstallments;
+    private List<LoanTransaction> recalculationRepayments;
+    private LocalDate lastTransactionDate;
+    private final LoanRepaymentScheduleTransactionProcessor processor = new MifosStyleLoanRepaymentScheduleTransactionProcessor();
+
+    @Setup(Level.Trial)
+    public void setUpGenerator() {
+        this.generator = new DefaultLoanScheduleGeneratorFactory().create(this.interestMethod);
+        this.holidayDetailDTO = this.holidays ? LoanScheduleBenchmarkFixtures.holidays() : LoanScheduleBenchmarkFixtures.noHolidays();
+    }
+
+    /**
+     * Terms, schedule and repayments are mutated by the generator and the
+     * processor, so they are rebuilt for every call; building them costs a
+     * small fraction of the generation itself.
+     */
+    @Setup(Level.Invocation)
+    public void setUpLoan() {
+        this.loanApplicationTerms = LoanScheduleBenchmarkFixtures.loanApplicationTerms(this.interestMethod, this.numberOfRepayments,
+                this.multiDisbursement, false);
+
+        this.recalculationTerms = LoanScheduleBenchmarkFixtures.loanApplicationTerms(this.interestMethod, this.numberOfRepayments,
+                this.multiDisbursement, true);
+        final LoanScheduleModel schedule = this.generator.generate(LoanScheduleBenchmarkFixtures.MATH_CONTEXT, this.recalculationTerms,
+                this.loanCharges, this.holidayDetailDTO);
+        this.recalculationInstallments = LoanScheduleBenchmarkFixtures.installments(schedule);
+        this.recalculationRepayments = LoanScheduleBenchmarkFixtures.repayments(this.recalculationInstallments,
+                LoanScheduleBenchmarkFixtures.usDollarsMonetaryCurrency(), this.recalculationInstallments.size() / 2);
+        this.lastTransactionDate = this.recalculationRepayments.isEmpty() ? LoanScheduleBenchmarkFixtures.DISBURSEMENT_DATE
+                : this.recalculationRepayments.get(this.recalculationRepayments.size() - 1).getTransactionDate();
+    }
+
+    @Benchmark
+    public LoanScheduleModel generate() {
+        return this.generator.generate(LoanScheduleBenchmarkFixtures.MATH_CONTEXT, this.loanApplicationTerms, this.loanCharges,
+                this.holidayDetailDTO);
+    }
+
+    @Benchmark
+    public LoanScheduleModel regenerateWithInterestRecalculation() {
+        final int penaltyWaitPeriod = 0;
+        return this.generator.rescheduleNextInstallments(LoanScheduleBenchmarkFixtures.MATH_CONTEXT, this.recalculationTerms,
+                this.loanCharges, this.holidayDetailDTO, this.recalculationRepayments, this.processor, this.recalculationInstallments,
+                LoanScheduleBenchmarkFixtures.DISBURSEMENT_DATE, this.lastTransactionDate, penaltyWaitPeriod);
+    }
+}
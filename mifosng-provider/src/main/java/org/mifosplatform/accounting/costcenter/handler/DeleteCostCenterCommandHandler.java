@@ -8,6 +8,7 @@ package org.mifosplatform.accounting.costcenter.handler;
 import org.mifosplatform.accounting.costcenter.command.CostCenterCommand;
 import org.mifosplatform.accounting.costcenter.service.CostCenterWritePlatformService;
 import org.mifosplatform.accounting.glaccount.service.GLAccountWritePlatformService;
+import org.mifosplatform.commands.annotation.CommandType;
 import org.mifosplatform.commands.handler.NewCommandSourceHandler;
 import org.mifosplatform.infrastructure.core.api.JsonCommand;
 import org.mifosplatform.infrastructure.core.data.CommandProcessingResult;
@@ -16,6 +17,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 @Service
+@CommandType(entity = "COSTCENTER", action = "DELETE")
 public class DeleteCostCenterCommandHandler implements NewCommandSourceHandler {
 
     private final CostCenterWritePlatformService writePlatformService;
@@ -17,8 +17,8 @@ import org.mifosplatform.infrastructure.core.data.CommandProcessingResult;
 import org.mifosplatform.infrastructure.core.exception.UnrecognizedQueryParamException;
 import org.mifosplatform.infrastructure.core.serialization.ApiRequestJsonSerializationSettings;
 import org.mifosplatform.infrastructure.core.serialization.DefaultToApiJsonSerializer;
-import org.mifosplatform.infrastructure.core.service.Page;
 import org.mifosplatform.infrastructure.core.service.SearchParameters;
+import org.mifosplatform.infrastructure.core.service.StreamingPage;
 import org.mifosplatform.infrastructure.security.service.PlatformSecurityContext;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Scope;
@@ -34,6 +34,7 @@ import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.StreamingOutput;
 import javax.ws.rs.core.UriInfo;
 import java.util.Arrays;
 import java.util.Date;
@@ -74,7 +75,7 @@ public class JournalEntriesApiResource {
 	@GET
 	@Consumes({MediaType.APPLICATION_JSON})
 	@Produces({MediaType.APPLICATION_JSON})
-	public String retrieveAll(@Context final UriInfo uriInfo, @QueryParam("officeId") final Long officeId,
+	public StreamingOutput retrieveAll(@Context final UriInfo uriInfo, @QueryParam("officeId") final Long officeId,
 	                          @QueryParam("glAccountId") final Long glAccountId, @QueryParam("manualEntriesOnly") final Boolean onlyManualEntries,
 	                          @QueryParam("fromDate") final DateParam fromDateParam, @QueryParam("toDate") final DateParam toDateParam,
 	                          @QueryParam("transactionId") final String transactionId, @QueryParam("entityType") final Integer entityType,
@@ -99,10 +100,10 @@ public class JournalEntriesApiResource {
 		JournalEntryAssociationParametersData associationParametersData = new JournalEntryAssociationParametersData(transactionDetails,
 				runningBalance, false, onlyUnidentifiedEntries);
 
-		final Page<JournalEntryData> glJournalEntries = this.journalEntryReadPlatformService.retrieveAll(searchParameters, glAccountId,
+		final StreamingPage<JournalEntryData> glJournalEntries = this.journalEntryReadPlatformService.streamAll(searchParameters, glAccountId,
 				onlyManualEntries, fromDate, toDate, transactionId, entityType, associationParametersData, onlyUnidentifiedEntries);
 		final ApiRequestJsonSerializationSettings settings = this.apiRequestParameterHelper.process(uriInfo.getQueryParameters());
-		return this.apiJsonSerializerService.serialize(settings, glJournalEntries, RESPONSE_DATA_PARAMETERS);
+		return this.apiJsonSerializerService.serializeStreaming(settings, glJournalEntries, RESPONSE_DATA_PARAMETERS);
 	}
 
 	@GET
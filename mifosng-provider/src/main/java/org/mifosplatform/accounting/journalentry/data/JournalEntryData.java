@@ -143,4 +143,8 @@ public class JournalEntryData {
     public Long getOfficeId() {
         return this.officeId;
     }
+
+    public LocalDate getTransactionDate() {
+        return this.transactionDate;
+    }
 }
\ No newline at end of file
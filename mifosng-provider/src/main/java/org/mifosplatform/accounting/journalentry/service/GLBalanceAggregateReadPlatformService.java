@@ -0,0 +1,24 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.accounting.journalentry.service;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+import org.joda.time.LocalDate;
+
+public interface GLBalanceAggregateReadPlatformService {
+
+    /**
+     * Debits less credits of every gl account with entries after the start
+     * date up to and including the end date, by gl code.
+     *
+     * @param officeId
+     *            office whose entries and those of the offices below it are
+     *            included, or null for all offices
+     */
+    Map<String, BigDecimal> retrieveBalancesByGLCode(LocalDate startDate, LocalDate endDate, Long officeId);
+}
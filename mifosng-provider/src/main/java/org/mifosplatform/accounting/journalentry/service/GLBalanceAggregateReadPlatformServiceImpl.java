@@ -0,0 +1,80 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.accounting.journalentry.service;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.joda.time.LocalDate;
+import org.mifosplatform.accounting.journalentry.domain.JournalEntryType;
+import org.mifosplatform.infrastructure.core.service.RoutingDataSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+
+/**
+ * Reads balances from <code>acc_gl_balance_aggregate</code> together with the
+ * journal entries the aggregates do not include yet. Both are read in one
+ * statement, so an aggregation committing meanwhile is either seen completely
+ * or not at all.
+ */
+@Service
+public class GLBalanceAggregateReadPlatformServiceImpl implements GLBalanceAggregateReadPlatformService {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public GLBalanceAggregateReadPlatformServiceImpl(final RoutingDataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Override
+    public Map<String, BigDecimal> retrieveBalancesByGLCode(final LocalDate startDate, final LocalDate endDate, final Long officeId) {
+
+        final List<Object> params = new ArrayList<>();
+        final String aggregateDates = dateCriteria("a.entry_date", startDate, endDate, params);
+        final String entryDates = dateCriteria("je.entry_date", startDate, endDate, params);
+
+        final StringBuilder sql = new StringBuilder(500);
+        sql.append("select gl.gl_code as glCode, sum(b.debit_amount) - sum(b.credit_amount) as balance from (");
+        sql.append("select a.account_id, a.office_id, a.debit_amount, a.credit_amount from acc_gl_balance_aggregate a where ");
+        sql.append(aggregateDates);
+        sql.append(" union all select je.account_id, je.office_id, if(je.type_enum = ").append(JournalEntryType.DEBIT.getValue());
+        sql.append(", je.amount, 0), if(je.type_enum = ").append(JournalEntryType.CREDIT.getValue());
+        sql.append(", je.amount, 0) from acc_gl_journal_entry je where je.is_aggregated = 0 and ").append(entryDates);
+        sql.append(") b join acc_gl_account gl on gl.id = b.account_id ");
+        if (officeId != null) {
+            sql.append("join m_office o on o.id = b.office_id join m_office parent on parent.id = ? ");
+            sql.append("and o.hierarchy like concat(parent.hierarchy, '%') ");
+            params.add(officeId);
+        }
+        sql.append("group by gl.gl_code");
+
+        final Map<String, BigDecimal> balances = new HashMap<>();
+        this.jdbcTemplate.query(sql.toString(), new RowCallbackHandler() {
+
+            @Override
+            public void processRow(final ResultSet rs) throws SQLException {
+                balances.put(rs.getString("glCode"), rs.getBigDecimal("balance"));
+            }
+        }, params.toArray());
+        return balances;
+    }
+
+    private static String dateCriteria(final String column, final LocalDate startDate, final LocalDate endDate, final List<Object> params) {
+        params.add(new Date(endDate.toDate().getTime()));
+        if (startDate == null) { return column + " <= ?"; }
+        params.add(new Date(startDate.toDate().getTime()));
+        return column + " <= ? and " + column + " > ?";
+    }
+}
@@ -0,0 +1,25 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.accounting.journalentry.service;
+
+import java.util.Collection;
+
+import org.mifosplatform.infrastructure.jobs.service.JobRunMetrics;
+
+public interface GLBalanceAggregateWritePlatformService {
+
+    /**
+     * Adds the journal entries posted since the last run to the balance
+     * aggregates.
+     */
+    JobRunMetrics updateBalanceAggregates();
+
+    /**
+     * Takes journal entries about to be deleted out of the balance aggregates
+     * again, must be called in the transaction deleting them.
+     */
+    void removeFromBalanceAggregates(Collection<Long> journalEntryIds);
+}
@@ -0,0 +1,246 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.accounting.journalentry.service;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+
+import org.apache.commons.lang.StringUtils;
+import org.mifosplatform.accounting.journalentry.domain.JournalEntryType;
+import org.mifosplatform.infrastructure.core.service.RoutingDataSource;
+import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
+import org.mifosplatform.infrastructure.jobs.annotation.CronTarget;
+import org.mifosplatform.infrastructure.jobs.domain.ScheduledJobDetail;
+import org.mifosplatform.infrastructure.jobs.domain.ScheduledJobDetailRepository;
+import org.mifosplatform.infrastructure.jobs.service.JobName;
+import org.mifosplatform.infrastructure.jobs.service.JobRunMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Keeps the debits and credits of every gl account, office, currency and day
+ * in <code>acc_gl_balance_aggregate</code>, so that balances over a period are
+ * read from one row per day rather than from every journal entry. Amounts are
+ * kept both as posted and converted with the exchange rate of each entry.
+ *
+ * Entries are written with <code>is_aggregated</code> 0 by all the ways
+ * journal entries are posted and added to the aggregates by the job in
+ * chunks, each committed together with flagging its entries. An entry whose
+ * transaction commits late is still picked up by a later run, and
+ * {@link GLBalanceAggregateReadPlatformServiceImpl} adds the entries not
+ * aggregated yet when reading, so balances are always up to date.
+ */
+@Service
+public class GLBalanceAggregateWritePlatformServiceImpl implements GLBalanceAggregateWritePlatformService {
+
+    private final static Logger logger = LoggerFactory.getLogger(GLBalanceAggregateWritePlatformServiceImpl.class);
+
+    private static final int DEFAULT_CHUNK_SIZE = 10000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ScheduledJobDetailRepository scheduledJobDetailRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final BalanceAggregateMapper aggregateMapper = new BalanceAggregateMapper();
+
+    private final String aggregateUpsertSql = "insert into acc_gl_balance_aggregate "
+            + "(account_id, office_id, currency_code, entry_date, debit_amount, credit_amount, base_debit_amount, base_credit_amount) "
+            + "values (?, ?, ?, ?, ?, ?, ?, ?) on duplicate key update debit_amount = debit_amount + values(debit_amount), "
+            + "credit_amount = credit_amount + values(credit_amount), base_debit_amount = base_debit_amount + values(base_debit_amount), "
+            + "base_credit_amount = base_credit_amount + values(base_credit_amount)";
+
+    // rows left without any entry, which reports would show with a zero balance
+    private final String emptyAggregateDeleteSql = "delete from acc_gl_balance_aggregate where account_id = ? and office_id = ? "
+            + "and currency_code = ? and entry_date = ? and debit_amount = 0 and credit_amount = 0";
+
+    @Autowired
+    public GLBalanceAggregateWritePlatformServiceImpl(final RoutingDataSource dataSource,
+            final ScheduledJobDetailRepository scheduledJobDetailRepository, final TransactionTemplate transactionTemplate) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.scheduledJobDetailRepository = scheduledJobDetailRepository;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @Override
+    @CronTarget(jobName = JobName.UPDATE_GL_BALANCE_AGGREGATES)
+    public JobRunMetrics updateBalanceAggregates() {
+        final JobRunMetrics metrics = new JobRunMetrics();
+        final int chunkSize = retrieveChunkSize();
+
+        boolean finished = false;
+        while (!finished) {
+            finished = this.transactionTemplate.execute(new TransactionCallback<Boolean>() {
+
+                @Override
+                public Boolean doInTransaction(@SuppressWarnings("unused") final TransactionStatus status) {
+                    return updateBalanceAggregatesChunk(chunkSize, metrics);
+                }
+            });
+        }
+
+        logger.info(ThreadLocalContextUtil.getTenant().getName() + ": GL balance aggregates update finished: " + metrics);
+        return metrics;
+    }
+
+    @Override
+    public void removeFromBalanceAggregates(final Collection<Long> journalEntryIds) {
+        if (journalEntryIds.isEmpty()) { return; }
+
+        // an entry being aggregated by the job right now must not be missed
+        lockAggregates();
+
+        // a locking read, a plain one would see the snapshot of the first read
+        // of the command and miss entries the job aggregated since
+        final List<BalanceAggregate> aggregates = this.jdbcTemplate.query(
+                this.aggregateMapper.schema("je.is_aggregated = 1 and je.id in (" + StringUtils.join(journalEntryIds, ',') + ")")
+                        + " for update", this.aggregateMapper);
+        writeAggregates(aggregates, true);
+        deleteEmptyAggregates(aggregates);
+    }
+
+    /**
+     * @return true when there is nothing left to aggregate
+     */
+    private boolean updateBalanceAggregatesChunk(final int chunkSize, final JobRunMetrics metrics) {
+        lockAggregates();
+
+        final List<Long> entryIds = this.jdbcTemplate.queryForList("select je.id from acc_gl_journal_entry je "
+                + "where je.is_aggregated = 0 order by je.id limit " + chunkSize, Long.class);
+        if (entryIds.isEmpty()) { return true; }
+
+        final String entryIdList = StringUtils.join(entryIds, ',');
+        final List<BalanceAggregate> aggregates = this.jdbcTemplate.query(this.aggregateMapper.schema("je.id in (" + entryIdList + ")"),
+                this.aggregateMapper);
+        writeAggregates(aggregates, false);
+        this.jdbcTemplate.update("update acc_gl_journal_entry set is_aggregated = 1 where id in (" + entryIdList + ")");
+
+        metrics.add("entriesAggregated", entryIds.size());
+        metrics.add("aggregatesWritten", aggregates.size());
+        metrics.increment("chunks");
+        return entryIds.size() < chunkSize;
+    }
+
+    /**
+     * Serializes the job, possibly running on other nodes, and the removal of
+     * deleted entries for the rest of the transaction.
+     */
+    private void lockAggregates() {
+        this.jdbcTemplate.queryForList("select j.id from job j where j.name = ? for update", Long.class,
+                JobName.UPDATE_GL_BALANCE_AGGREGATES.toString());
+    }
+
+    private void writeAggregates(final List<BalanceAggregate> aggregates, final boolean subtract) {
+        if (aggregates.isEmpty()) { return; }
+
+        this.jdbcTemplate.batchUpdate(this.aggregateUpsertSql, new BatchPreparedStatementSetter() {
+
+            @Override
+            public void setValues(final PreparedStatement ps, final int i) throws SQLException {
+                final BalanceAggregate aggregate = aggregates.get(i);
+                ps.setLong(1, aggregate.accountId);
+                ps.setLong(2, aggregate.officeId);
+                ps.setString(3, aggregate.currencyCode);
+                ps.setDate(4, aggregate.entryDate);
+                ps.setBigDecimal(5, subtract ? aggregate.debitAmount.negate() : aggregate.debitAmount);
+                ps.setBigDecimal(6, subtract ? aggregate.creditAmount.negate() : aggregate.creditAmount);
+                ps.setBigDecimal(7, subtract ? aggregate.baseDebitAmount.negate() : aggregate.baseDebitAmount);
+                ps.setBigDecimal(8, subtract ? aggregate.baseCreditAmount.negate() : aggregate.baseCreditAmount);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return aggregates.size();
+            }
+        });
+    }
+
+    private void deleteEmptyAggregates(final List<BalanceAggregate> aggregates) {
+        if (aggregates.isEmpty()) { return; }
+
+        this.jdbcTemplate.batchUpdate(this.emptyAggregateDeleteSql, new BatchPreparedStatementSetter() {
+
+            @Override
+            public void setValues(final PreparedStatement ps, final int i) throws SQLException {
+                final BalanceAggregate aggregate = aggregates.get(i);
+                ps.setLong(1, aggregate.accountId);
+                ps.setLong(2, aggregate.officeId);
+                ps.setString(3, aggregate.currencyCode);
+                ps.setDate(4, aggregate.entryDate);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return aggregates.size();
+            }
+        });
+    }
+
+    private int retrieveChunkSize() {
+        final ScheduledJobDetail jobDetail = this.scheduledJobDetailRepository.findByJobName(JobName.UPDATE_GL_BALANCE_AGGREGATES
+                .toString());
+        if (jobDetail != null && jobDetail.getChunkSize() != null && jobDetail.getChunkSize() > 0) { return jobDetail.getChunkSize(); }
+        return DEFAULT_CHUNK_SIZE;
+    }
+
+    private static final class BalanceAggregateMapper implements RowMapper<BalanceAggregate> {
+
+        public String schema(final String entryCriteria) {
+            return "select je.account_id as accountId, je.office_id as officeId, je.currency_code as currencyCode, "
+                    + "je.entry_date as entryDate, sum(if(je.type_enum = " + JournalEntryType.DEBIT.getValue()
+                    + ", je.amount, 0)) as debitAmount, sum(if(je.type_enum = " + JournalEntryType.CREDIT.getValue()
+                    + ", je.amount, 0)) as creditAmount, sum(if(je.type_enum = " + JournalEntryType.DEBIT.getValue()
+                    + ", ifnull(je.amount * je.exchange_rate, 0), 0)) as baseDebitAmount, sum(if(je.type_enum = "
+                    + JournalEntryType.CREDIT.getValue() + ", ifnull(je.amount * je.exchange_rate, 0), 0)) as baseCreditAmount "
+                    + "from acc_gl_journal_entry je where " + entryCriteria
+                    + " group by je.account_id, je.office_id, je.currency_code, je.entry_date";
+        }
+
+        @Override
+        public BalanceAggregate mapRow(final ResultSet rs, @SuppressWarnings("unused") final int rowNum) throws SQLException {
+            return new BalanceAggregate(rs.getLong("accountId"), rs.getLong("officeId"), rs.getString("currencyCode"),
+                    rs.getDate("entryDate"), rs.getBigDecimal("debitAmount"), rs.getBigDecimal("creditAmount"),
+                    rs.getBigDecimal("baseDebitAmount"), rs.getBigDecimal("baseCreditAmount"));
+        }
+    }
+
+    private static final class BalanceAggregate {
+
+        private final long accountId;
+        private final long officeId;
+        private final String currencyCode;
+        private final Date entryDate;
+        private final BigDecimal debitAmount;
+        private final BigDecimal creditAmount;
+        private final BigDecimal baseDebitAmount;
+        private final BigDecimal baseCreditAmount;
+
+        BalanceAggregate(final long accountId, final long officeId, final String currencyCode, final Date entryDate,
+                final BigDecimal debitAmount, final BigDecimal creditAmount, final BigDecimal baseDebitAmount,
+                final BigDecimal baseCreditAmount) {
+            this.accountId = accountId;
+            this.officeId = officeId;
+            this.currencyCode = currencyCode;
+            this.entryDate = entryDate;
+            this.debitAmount = debitAmount;
+            this.creditAmount = creditAmount;
+            this.baseDebitAmount = baseDebitAmount;
+            this.baseCreditAmount = baseCreditAmount;
+        }
+    }
+}
@@ -0,0 +1,303 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.accounting.journalentry.service;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang.StringUtils;
+import org.mifosplatform.accounting.journalentry.domain.JournalEntryRepository;
+import org.mifosplatform.accounting.journalentry.domain.JournalEntryType;
+import org.mifosplatform.accounting.producttoaccountmapping.domain.PortfolioProductType;
+import org.mifosplatform.infrastructure.core.service.RoutingDataSource;
+import org.mifosplatform.portfolio.loanaccount.domain.Loan;
+import org.mifosplatform.portfolio.loanaccount.domain.LoanTransaction;
+import org.mifosplatform.portfolio.loanaccount.domain.LoanTransactionRepository;
+import org.mifosplatform.portfolio.savings.domain.SavingsAccountTransaction;
+import org.mifosplatform.portfolio.savings.domain.SavingsAccountTransactionRepository;
+import org.mifosplatform.useradministration.domain.AppUser;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Writes the journal entries posted by the accounting bridge for loan and
+ * savings transactions.
+ *
+ * Between {@link #begin()} and {@link #flush()} the debit and credit legs are
+ * only collected; {@link #flush()} then flushes the persistence context once,
+ * so the transactions the entries refer to exist, and inserts all legs in a
+ * single JDBC batch with the same column values the <code>JournalEntry</code>
+ * entity would have been saved with, including the loan or savings
+ * transaction only when it exists. Legs added outside of a batch are written
+ * immediately.
+ *
+ * Batches nest: a batch begun while another one is open on the same thread
+ * joins it, and only the outermost {@link #flush()} writes, so a caller
+ * posting many accounts at once (e.g. a collection sheet) gets a single
+ * batch for all of them.
+ */
+@Component
+public class JournalEntryBatchWriter {
+
+    private static final String INSERT_SQL = "insert into acc_gl_journal_entry (account_id, office_id, currency_code, transaction_id,"
+            + " loan_transaction_id, savings_transaction_id, reversed, manual_entry, entry_date, type_enum, amount, exchange_rate,"
+            + " description, entity_type_enum, entity_id, createdby_id, lastmodifiedby_id, created_date, lastmodified_date,"
+            + " unidentified_entry, profit) values (?, ?, ?, ?, ?, ?, 0, 0, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0, 0)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JournalEntryRepository glJournalEntryRepository;
+    private final LoanTransactionRepository loanTransactionRepository;
+    private final SavingsAccountTransactionRepository savingsAccountTransactionRepository;
+    private final AuditorAware<AppUser> auditorAware;
+
+    private final ThreadLocal<Batch> batches = new ThreadLocal<>();
+
+    @Autowired
+    public JournalEntryBatchWriter(final RoutingDataSource dataSource, final JournalEntryRepository glJournalEntryRepository,
+            final LoanTransactionRepository loanTransactionRepository,
+            final SavingsAccountTransactionRepository savingsAccountTransactionRepository, final AuditorAware<AppUser> auditorAware) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.glJournalEntryRepository = glJournalEntryRepository;
+        this.loanTransactionRepository = loanTransactionRepository;
+        this.savingsAccountTransactionRepository = savingsAccountTransactionRepository;
+        this.auditorAware = auditorAware;
+    }
+
+    /**
+     * Starts collecting legs on the current thread, or joins the batch that
+     * is already open; must be paired with {@link #end()} in a finally block.
+     */
+    public void begin() {
+        final Batch batch = this.batches.get();
+        if (batch == null) {
+            this.batches.set(new Batch());
+        } else {
+            batch.depth++;
+        }
+    }
+
+    /**
+     * Writes the legs collected since {@link #begin()}, unless the batch was
+     * joined from an enclosing one.
+     */
+    public void flush() {
+        final Batch batch = this.batches.get();
+        if (batch == null || batch.depth > 0) { return; }
+        write(batch.entries);
+        batch.entries.clear();
+    }
+
+    /**
+     * Leaves the batch of the current thread, discarding legs that were not
+     * flushed because posting failed once the outermost batch ends.
+     */
+    public void end() {
+        final Batch batch = this.batches.get();
+        if (batch != null && batch.depth > 0) {
+            batch.depth--;
+        } else {
+            this.batches.remove();
+        }
+    }
+
+    public void addLoanEntry(final Long officeId, final Long glAccountId, final String currencyCode, final Long loanId,
+            final String transactionId, final Date transactionDate, final JournalEntryType type, final BigDecimal amount) {
+        final Batch batch = this.batches.get();
+        Long loanTransactionId = null;
+        String modifiedTransactionId = transactionId;
+        String description = null;
+        if (StringUtils.isNumeric(transactionId)) {
+            final Long id = Long.parseLong(transactionId);
+            modifiedTransactionId = AccountingProcessorHelper.LOAN_TRANSACTION_IDENTIFIER + transactionId;
+            LoanTransactionReference reference = batch == null ? null : batch.loanTransactions.get(id);
+            if (reference == null) {
+                final LoanTransaction loanTransaction = this.loanTransactionRepository.findOne(id);
+                reference = new LoanTransactionReference(loanTransaction == null ? null : id, getTransactionDescription(loanTransaction));
+                if (batch != null) {
+                    batch.loanTransactions.put(id, reference);
+                }
+            }
+            loanTransactionId = reference.id;
+            description = reference.description;
+        }
+        add(batch, new PendingEntry(officeId, glAccountId, currencyCode, modifiedTransactionId, loanTransactionId, null, transactionDate,
+                type, amount, description, PortfolioProductType.LOAN, loanId));
+    }
+
+    public void addSavingsEntry(final Long officeId, final Long glAccountId, final String currencyCode, final Long savingsId,
+            final String transactionId, final Date transactionDate, final JournalEntryType type, final BigDecimal amount) {
+        final Batch batch = this.batches.get();
+        Long savingsTransactionId = null;
+        String modifiedTransactionId = transactionId;
+        if (StringUtils.isNumeric(transactionId)) {
+            final Long id = Long.parseLong(transactionId);
+            modifiedTransactionId = AccountingProcessorHelper.SAVINGS_TRANSACTION_IDENTIFIER + transactionId;
+            // only reference transactions that exist, like the entity did
+            if (batch != null && batch.savingsTransactions.containsKey(id)) {
+                savingsTransactionId = batch.savingsTransactions.get(id);
+            } else {
+                final SavingsAccountTransaction savingsTransaction = this.savingsAccountTransactionRepository.findOne(id);
+                savingsTransactionId = savingsTransaction == null ? null : id;
+                if (batch != null) {
+                    batch.savingsTransactions.put(id, savingsTransactionId);
+                }
+            }
+        }
+        add(batch, new PendingEntry(officeId, glAccountId, currencyCode, modifiedTransactionId, null, savingsTransactionId,
+                transactionDate, type, amount, null, PortfolioProductType.SAVING, savingsId));
+    }
+
+    private void add(final Batch batch, final PendingEntry entry) {
+        if (batch != null) {
+            batch.entries.add(entry);
+        } else {
+            final List<PendingEntry> entries = new ArrayList<>(1);
+            entries.add(entry);
+            write(entries);
+        }
+    }
+
+    private void write(final List<PendingEntry> entries) {
+        if (entries.isEmpty()) { return; }
+
+        // loan and savings transactions referenced by the entries may still
+        // be pending in the persistence context
+        this.glJournalEntryRepository.flush();
+
+        final Long userId = this.auditorAware.getCurrentAuditor().getId();
+        final Timestamp now = new Timestamp(new Date().getTime());
+        this.jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+
+            @Override
+            public void setValues(final PreparedStatement ps, final int i) throws SQLException {
+                final PendingEntry entry = entries.get(i);
+                ps.setLong(1, entry.glAccountId);
+                ps.setLong(2, entry.officeId);
+                ps.setString(3, entry.currencyCode);
+                ps.setString(4, entry.transactionId);
+                setLongOrNull(ps, 5, entry.loanTransactionId);
+                setLongOrNull(ps, 6, entry.savingsTransactionId);
+                ps.setDate(7, entry.transactionDate == null ? null : new java.sql.Date(entry.transactionDate.getTime()));
+                ps.setInt(8, entry.type.getValue());
+                ps.setBigDecimal(9, entry.amount);
+                ps.setBigDecimal(10, BigDecimal.ONE);
+                ps.setString(11, entry.description);
+                ps.setInt(12, entry.entityType.getValue());
+                setLongOrNull(ps, 13, entry.entityId);
+                ps.setLong(14, userId);
+                ps.setLong(15, userId);
+                ps.setTimestamp(16, now);
+                ps.setTimestamp(17, now);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return entries.size();
+            }
+        });
+    }
+
+    private static void setLongOrNull(final PreparedStatement ps, final int index, final Long value) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, Types.BIGINT);
+        } else {
+            ps.setLong(index, value);
+        }
+    }
+
+    private static String getTransactionDescription(final LoanTransaction loanTransaction) {
+        String result = null;
+        if (loanTransaction != null) {
+            String loanInfo = "";
+            Loan loan = loanTransaction.getLoan();
+            if (loan != null) {
+                loanInfo = " (#" + loan.getAccountNumber() + ")";
+            }
+            if (loanTransaction.isDisbursement()) {
+                result = "Loan Disbursement" + loanInfo;
+            } else if (loanTransaction.isAnyTypeOfRepayment()) {
+                result = "Loan Repayment" + loanInfo;
+            } else if (loanTransaction.isAccrual()) {
+                result = "Loan Accrual" + loanInfo;
+            } else if (loanTransaction.isWriteOff()) {
+                result = "Loan Written Off" + loanInfo;
+            } else if (loanTransaction.isFromUnidentified()) {
+                result = "Loan Repayment from Unidentified" + loanInfo;
+            } else if (loanTransaction.isMoveToProfit()) {
+                result = "Overpaid moved to Profit" + loanInfo;
+            } else if (loanTransaction.isTransferOverpaid()) {
+                result = "Transfer Overpaid amount" + loanInfo;
+            } else if (loanTransaction.isFromTransferOverpaid()) {
+                result = "Loan repayment from Overpaid" + loanInfo;
+            }
+        }
+        return result;
+    }
+
+    private static final class Batch {
+
+        private final List<PendingEntry> entries = new ArrayList<>();
+        private final Map<Long, LoanTransactionReference> loanTransactions = new HashMap<>();
+        private final Map<Long, Long> savingsTransactions = new HashMap<>();
+        private int depth;
+    }
+
+    private static final class LoanTransactionReference {
+
+        private final Long id;
+        private final String description;
+
+        LoanTransactionReference(final Long id, final String description) {
+            this.id = id;
+            this.description = description;
+        }
+    }
+
+    private static final class PendingEntry {
+
+        private final Long officeId;
+        private final Long glAccountId;
+        private final String currencyCode;
+        private final String transactionId;
+        private final Long loanTransactionId;
+        private final Long savingsTransactionId;
+        private final Date transactionDate;
+        private final JournalEntryType type;
+        private final BigDecimal amount;
+        private final String description;
+        private final PortfolioProductType entityType;
+        private final Long entityId;
+
+        PendingEntry(final Long officeId, final Long glAccountId, final String currencyCode, final String transactionId,
+                final Long loanTransactionId, final Long savingsTransactionId, final Date transactionDate, final JournalEntryType type,
+                final BigDecimal amount, final String description, final PortfolioProductType entityType, final Long entityId) {
+            this.officeId = officeId;
+            this.glAccountId = glAccountId;
+            this.currencyCode = currencyCode;
+            this.transactionId = transactionId;
+            this.loanTransactionId = loanTransactionId;
+            this.savingsTransactionId = savingsTransactionId;
+            this.transactionDate = transactionDate;
+            this.type = type;
+            this.amount = amount;
+            // same normalisation as JournalEntry
+            this.description = StringUtils.defaultIfEmpty(description, null);
+            this.entityType = entityType;
+            this.entityId = entityId;
+        }
+    }
+}
@@ -9,6 +9,7 @@ import org.mifosplatform.accounting.journalentry.data.JournalEntryAssignment;
 import org.mifosplatform.accounting.journalentry.data.JournalEntryAssociationParametersData;
 import org.mifosplatform.accounting.journalentry.data.JournalEntryData;
 import org.mifosplatform.infrastructure.core.service.Page;
+import org.mifosplatform.infrastructure.core.service.StreamingPage;
 import org.mifosplatform.infrastructure.core.service.SearchParameters;
 
 import java.util.Collection;
@@ -21,6 +22,9 @@ public interface JournalEntryReadPlatformService {
 	Page<JournalEntryData> retrieveAll(SearchParameters searchParameters, Long glAccountId, Boolean onlyManualEntries, Date fromDate,
 	                                   Date toDate, String transactionId, Integer entityType, JournalEntryAssociationParametersData associationParametersData, Boolean onlyUnidentifiedEntries);
 
+	StreamingPage<JournalEntryData> streamAll(SearchParameters searchParameters, Long glAccountId, Boolean onlyManualEntries, Date fromDate,
+	                                   Date toDate, String transactionId, Integer entityType, JournalEntryAssociationParametersData associationParametersData, Boolean onlyUnidentifiedEntries);
+
 	Collection<JournalEntryAssignment> retrieveJournalEntryAssignments(Long journalEntryId);
 
 	Long getJournalEntriesCount(final String filter, final String search);
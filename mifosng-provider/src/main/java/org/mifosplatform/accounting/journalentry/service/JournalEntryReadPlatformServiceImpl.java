@@ -18,6 +18,7 @@ import org.mifosplatform.infrastructure.codes.data.CodeValueData;
 import org.mifosplatform.infrastructure.core.data.EnumOptionData;
 import org.mifosplatform.infrastructure.core.domain.JdbcSupport;
 import org.mifosplatform.infrastructure.core.service.Page;
+import org.mifosplatform.infrastructure.core.service.StreamingPage;
 import org.mifosplatform.infrastructure.core.service.PaginationHelper;
 import org.mifosplatform.infrastructure.core.service.RoutingDataSource;
 import org.mifosplatform.infrastructure.core.service.SearchParameters;
@@ -226,6 +227,14 @@ public class JournalEntryReadPlatformServiceImpl implements JournalEntryReadPlat
 	public Page<JournalEntryData> retrieveAll(final SearchParameters searchParameters, final Long glAccountId,
 	                                          final Boolean onlyManualEntries, final Date fromDate, final Date toDate, final String transactionId, final Integer entityType,
 	                                          final JournalEntryAssociationParametersData associationParametersData, final Boolean onlyUnidentifiedEntries) {
+		return streamAll(searchParameters, glAccountId, onlyManualEntries, fromDate, toDate, transactionId, entityType, associationParametersData,
+				onlyUnidentifiedEntries).fetch();
+	}
+
+	@Override
+	public StreamingPage<JournalEntryData> streamAll(final SearchParameters searchParameters, final Long glAccountId,
+	                                          final Boolean onlyManualEntries, final Date fromDate, final Date toDate, final String transactionId, final Integer entityType,
+	                                          final JournalEntryAssociationParametersData associationParametersData, final Boolean onlyUnidentifiedEntries) {
 
 		GLJournalEntryMapper rm = new GLJournalEntryMapper(associationParametersData);
 		final StringBuilder sqlBuilder = new StringBuilder(200);
@@ -337,7 +346,7 @@ public class JournalEntryReadPlatformServiceImpl implements JournalEntryReadPlat
 
 		final Object[] finalObjectArray = Arrays.copyOf(objectArray, arrayPos);
 		final String sqlCountRows = "SELECT FOUND_ROWS()";
-		return this.paginationHelper.fetchPage(this.jdbcTemplate, sqlCountRows, sqlBuilder.toString(), finalObjectArray, rm);
+		return this.paginationHelper.streamPage(this.jdbcTemplate, sqlCountRows, sqlBuilder.toString(), finalObjectArray, rm);
 	}
 
 	@Override
@@ -7,10 +7,11 @@ package org.mifosplatform.accounting.journalentry.service;
 
 import org.mifosplatform.infrastructure.core.api.JsonCommand;
 import org.mifosplatform.infrastructure.core.data.CommandProcessingResult;
+import org.mifosplatform.infrastructure.jobs.service.JobRunMetrics;
 
 public interface JournalEntryRunningBalanceUpdateService {
 
-    void updateRunningBalance();
+    JobRunMetrics updateRunningBalance();
 
     CommandProcessingResult updateOfficeRunningBalance(JsonCommand command);
 
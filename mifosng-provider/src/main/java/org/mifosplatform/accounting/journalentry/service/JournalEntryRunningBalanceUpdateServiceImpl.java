@@ -6,13 +6,17 @@
 package org.mifosplatform.accounting.journalentry.service;
 
 import java.math.BigDecimal;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.Date;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.apache.commons.lang.StringUtils;
+import org.joda.time.LocalDate;
 import org.mifosplatform.accounting.common.AccountingEnumerations;
 import org.mifosplatform.accounting.glaccount.domain.GLAccountType;
 import org.mifosplatform.accounting.journalentry.api.JournalEntryJsonInputParams;
@@ -26,25 +30,55 @@ import org.mifosplatform.infrastructure.core.data.EnumOptionData;
 import org.mifosplatform.infrastructure.core.domain.JdbcSupport;
 import org.mifosplatform.infrastructure.core.serialization.FromJsonHelper;
 import org.mifosplatform.infrastructure.core.service.RoutingDataSource;
+import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
 import org.mifosplatform.infrastructure.jobs.annotation.CronTarget;
+import org.mifosplatform.infrastructure.jobs.domain.ScheduledJobDetail;
+import org.mifosplatform.infrastructure.jobs.domain.ScheduledJobDetailRepository;
 import org.mifosplatform.infrastructure.jobs.service.JobName;
+import org.mifosplatform.infrastructure.jobs.service.JobRunMetrics;
 import org.mifosplatform.organisation.office.domain.Office;
 import org.mifosplatform.organisation.office.domain.OfficeRepository;
 import org.mifosplatform.organisation.office.exception.OfficeNotFoundException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
+/**
+ * Calculates the office and organization running balances of journal entries
+ * incrementally. The last calculated entry and balance of every office and gl
+ * account is kept in <code>acc_gl_running_balance_checkpoint</code>, so a run
+ * only reads the entries that are not calculated yet, in entry date and id
+ * order, in chunks that are committed one by one. An entry posted with a date
+ * before already calculated entries of its gl account marks those entries as
+ * not calculated again and drops the checkpoints of the account, which are
+ * then rebuilt from the last entry still calculated.
+ *
+ * Updating the running balance of a single office only recalculates the office
+ * running balances of its gl accounts that have entries not calculated yet,
+ * from the first of those entries. The organization running balances, the
+ * calculated flags and the checkpoints are left to the job.
+ */
 @Service
 public class JournalEntryRunningBalanceUpdateServiceImpl implements JournalEntryRunningBalanceUpdateService {
 
     private final static Logger logger = LoggerFactory.getLogger(JournalEntryRunningBalanceUpdateServiceImpl.class);
 
+    private static final int DEFAULT_CHUNK_SIZE = 1000;
+
+    /**
+     * Office id of the checkpoint rows holding organization running balances
+     */
+    private static final Long ORGANIZATION_CHECKPOINT_OFFICE_ID = Long.valueOf(0);
+
     private final JdbcTemplate jdbcTemplate;
 
     private final OfficeRepository officeRepository;
@@ -53,43 +87,64 @@ public class JournalEntryRunningBalanceUpdateServiceImpl implements JournalEntry
 
     private final FromJsonHelper fromApiJsonHelper;
 
+    private final ScheduledJobDetailRepository scheduledJobDetailRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
     private final GLJournalEntryMapper entryMapper = new GLJournalEntryMapper();
-    private final String officeRunningBalanceSql = "select je.office_running_balance as runningBalance,je.account_id as accountId from acc_gl_journal_entry je "
-            + "inner join (select max(id) as id from acc_gl_journal_entry where office_id=?  and entry_date < ? group by account_id,entry_date) je2 "
-            + "inner join (select max(entry_date) as date from acc_gl_journal_entry where office_id=? and entry_date < ? group by account_id) je3 "
-            + "where je2.id = je.id and je.entry_date = je3.date group by je.id order by je.entry_date DESC";
-
-    private final String organizationRunningBalanceSql = "select je.organization_running_balance as runningBalance,je.account_id as accountId from acc_gl_journal_entry je "
-            + "inner join (select max(id) as id from acc_gl_journal_entry where entry_date < ? group by account_id,entry_date) je2 "
-            + "inner join (select max(entry_date) as date from acc_gl_journal_entry where entry_date < ? group by account_id) je3 "
-            + "where je2.id = je.id and je.entry_date = je3.date group by je.id order by je.entry_date DESC";
-
-    private final String officesRunningBalanceSql = "select je.office_running_balance as runningBalance,je.account_id as accountId,je.office_id as officeId "
-            + "from acc_gl_journal_entry je "
-            + "inner join (select max(id) as id from acc_gl_journal_entry where entry_date < ? group by office_id,account_id,entry_date) je2 "
-            + "inner join (select max(entry_date) as date from acc_gl_journal_entry where entry_date < ? group by office_id,account_id) je3 "
-            + "where je2.id = je.id and je.entry_date = je3.date group by je.id order by je.entry_date DESC";
+    private final RunningBalanceCheckpointMapper checkpointMapper = new RunningBalanceCheckpointMapper();
+
+    private final String lastCalculatedOfficeEntrySql = "select je.office_id as officeId, je.account_id as accountId, je.entry_date as entryDate, "
+            + "je.id as entryId, je.office_running_balance as runningBalance from acc_gl_journal_entry je "
+            + "where je.office_id = ? and je.account_id = ? and je.is_running_balance_calculated = 1 "
+            + "order by je.entry_date desc, je.id desc limit 1";
+
+    private final String lastCalculatedOrganizationEntrySql = "select 0 as officeId, je.account_id as accountId, je.entry_date as entryDate, "
+            + "je.id as entryId, je.organization_running_balance as runningBalance from acc_gl_journal_entry je "
+            + "where je.account_id = ? and je.is_running_balance_calculated = 1 order by je.entry_date desc, je.id desc limit 1";
+
+    private final String entryUpdateSql = "update acc_gl_journal_entry set is_running_balance_calculated = 1, "
+            + "organization_running_balance = ?, office_running_balance = ? where id = ?";
+
+    private final String checkpointUpsertSql = "insert into acc_gl_running_balance_checkpoint "
+            + "(office_id, account_id, last_entry_date, last_entry_id, running_balance) values (?, ?, ?, ?, ?) "
+            + "on duplicate key update last_entry_date = values(last_entry_date), last_entry_id = values(last_entry_id), "
+            + "running_balance = values(running_balance)";
 
     @Autowired
     public JournalEntryRunningBalanceUpdateServiceImpl(final RoutingDataSource dataSource, final OfficeRepository officeRepository,
-            final JournalEntryDataValidator dataValidator, final FromJsonHelper fromApiJsonHelper) {
+            final JournalEntryDataValidator dataValidator, final FromJsonHelper fromApiJsonHelper,
+            final ScheduledJobDetailRepository scheduledJobDetailRepository, final PlatformTransactionManager transactionManager) {
         this.jdbcTemplate = new JdbcTemplate(dataSource);
         this.officeRepository = officeRepository;
         this.dataValidator = dataValidator;
         this.fromApiJsonHelper = fromApiJsonHelper;
+        this.scheduledJobDetailRepository = scheduledJobDetailRepository;
+        // chunks are committed one by one even when the update runs as part
+        // of a command, which has a transaction of its own
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
     }
 
     @Override
     @CronTarget(jobName = JobName.ACCOUNTING_RUNNING_BALANCE_UPDATE)
-    public void updateRunningBalance() {
-        String dateFinder = "select MIN(je.entry_date) as entityDate from acc_gl_journal_entry  je "
-                + "where je.is_running_balance_calculated=0 ";
-        try {
-            Date entityDate = this.jdbcTemplate.queryForObject(dateFinder, Date.class);
-            updateOrganizationRunningBalance(entityDate);
-        } catch (EmptyResultDataAccessException e) {
-            logger.debug("No results found for updation of running balance ");
+    public JobRunMetrics updateRunningBalance() {
+        final JobRunMetrics metrics = new JobRunMetrics();
+        final int chunkSize = retrieveChunkSize();
+
+        boolean finished = false;
+        while (!finished) {
+            finished = this.transactionTemplate.execute(new TransactionCallback<Boolean>() {
+
+                @Override
+                public Boolean doInTransaction(@SuppressWarnings("unused") final TransactionStatus status) {
+                    return updateRunningBalanceChunk(chunkSize, metrics);
+                }
+            });
         }
+
+        logger.info(ThreadLocalContextUtil.getTenant().getName() + ": Running balance update finished: " + metrics);
+        return metrics;
     }
 
     @Override
@@ -104,102 +159,245 @@ public class JournalEntryRunningBalanceUpdateServiceImpl implements JournalEntry
         } else {
             final Office office = this.officeRepository.findOne(officeId);
             if (office == null) { throw new OfficeNotFoundException(officeId); }
-
-            String dateFinder = "select MIN(je.entry_date) as entityDate " + "from acc_gl_journal_entry  je "
-                    + "where je.is_running_balance_calculated=0  and je.office_id=?";
-            try {
-                Date entityDate = this.jdbcTemplate.queryForObject(dateFinder, Date.class, officeId);
-                updateRunningBalance(officeId, entityDate);
-            } catch (EmptyResultDataAccessException e) {
-                logger.debug("No results found for updation of office running balance with office id:" + officeId);
-            }
+            updateOfficeRunningBalance(officeId);
             commandProcessingResultBuilder.withOfficeId(officeId);
         }
         return commandProcessingResultBuilder.build();
     }
 
-    @Transactional
-    private void updateOrganizationRunningBalance(Date entityDate) {
-        Map<Long, BigDecimal> runningBalanceMap = new HashMap<>(5);
-        Map<Long, Map<Long, BigDecimal>> officesRunningBalance = new HashMap<>();
+    private void updateOfficeRunningBalance(final Long officeId) {
+        final JobRunMetrics metrics = new JobRunMetrics();
+        final int chunkSize = retrieveChunkSize();
+
+        final List<Map<String, Object>> accounts = this.jdbcTemplate.queryForList("select je.account_id as accountId, "
+                + "min(je.entry_date) as entryDate from acc_gl_journal_entry je where je.office_id = ? "
+                + "and je.is_running_balance_calculated = 0 group by je.account_id", officeId);
+        for (final Map<String, Object> account : accounts) {
+            final Long accountId = ((Number) account.get("accountId")).longValue();
+            final LocalDate fromDate = new LocalDate(account.get("entryDate"));
+            final List<BigDecimal> balances = this.jdbcTemplate.queryForList("select je.office_running_balance "
+                    + "from acc_gl_journal_entry je where je.office_id = ? and je.account_id = ? and je.entry_date < ? "
+                    + "order by je.entry_date desc, je.id desc limit 1", BigDecimal.class, officeId, accountId, fromDate.toDate());
+            final RunningBalanceCheckpoint checkpoint = new RunningBalanceCheckpoint(officeId, accountId, fromDate, Long.valueOf(0),
+                    balances.isEmpty() ? null : balances.get(0));
+
+            boolean finished = false;
+            while (!finished) {
+                finished = this.transactionTemplate.execute(new TransactionCallback<Boolean>() {
 
-        List<Map<String, Object>> list = jdbcTemplate.queryForList(organizationRunningBalanceSql, entityDate, entityDate);
-        for (Map<String, Object> entries : list) {
-            Long accountId = (Long) entries.get("accountId");
-            if (!runningBalanceMap.containsKey(accountId)) {
-                runningBalanceMap.put(accountId, (BigDecimal) entries.get("runningBalance"));
+                    @Override
+                    public Boolean doInTransaction(@SuppressWarnings("unused") final TransactionStatus status) {
+                        return updateOfficeRunningBalanceChunk(checkpoint, chunkSize, metrics);
+                    }
+                });
             }
         }
 
-        List<Map<String, Object>> officesRunningBalanceList = jdbcTemplate.queryForList(officesRunningBalanceSql, entityDate, entityDate);
-        for (Map<String, Object> entries : officesRunningBalanceList) {
-            Long accountId = (Long) entries.get("accountId");
-            Long officeId = (Long) entries.get("officeId");
-            Map<Long, BigDecimal> runningBalance = null;
-            if (officesRunningBalance.containsKey(officeId)) {
-                runningBalance = officesRunningBalance.get(officeId);
-            } else {
-                runningBalance = new HashMap<>();
-                officesRunningBalance.put(officeId, runningBalance);
+        logger.info(ThreadLocalContextUtil.getTenant().getName() + ": Running balance update of office " + officeId + " finished: "
+                + metrics);
+    }
+
+    /**
+     * Calculates the office running balances of the next
+     * <code>chunkSize</code> entries of the office and gl account of the
+     * checkpoint, which starts before the first entry to calculate.
+     * 
+     * @return true when the last entry of the account was calculated
+     */
+    private boolean updateOfficeRunningBalanceChunk(final RunningBalanceCheckpoint checkpoint, final int chunkSize,
+            final JobRunMetrics metrics) {
+        // same lock as the job, which also writes office running balances
+        this.jdbcTemplate.queryForList("select j.id from job j where j.name = ? for update", Long.class,
+                JobName.ACCOUNTING_RUNNING_BALANCE_UPDATE.toString());
+
+        final java.sql.Date lastEntryDate = new java.sql.Date(checkpoint.lastEntryDate.toDate().getTime());
+        final List<JournalEntryData> entries = this.jdbcTemplate.query(this.entryMapper.officeEntriesSchema() + chunkSize,
+                this.entryMapper, checkpoint.officeId, checkpoint.accountId, lastEntryDate, lastEntryDate, checkpoint.lastEntryId);
+
+        final List<Object[]> updates = new ArrayList<>(entries.size());
+        for (final JournalEntryData entry : entries) {
+            updates.add(new Object[] { checkpoint.post(entry), entry.getId() });
+        }
+        if (!updates.isEmpty()) {
+            this.jdbcTemplate.batchUpdate("update acc_gl_journal_entry set office_running_balance = ? where id = ?", updates);
+        }
+
+        metrics.add("entriesUpdated", entries.size());
+        metrics.increment("chunks");
+        return entries.size() < chunkSize;
+    }
+
+    /**
+     * Calculates the running balances of the next <code>chunkSize</code>
+     * entries that are not calculated yet.
+     * 
+     * @return true when there is nothing left to calculate
+     */
+    private boolean updateRunningBalanceChunk(final int chunkSize, final JobRunMetrics metrics) {
+        // serializes concurrent runs (the job and the update running balance
+        // command, possibly on other nodes) for the rest of the transaction
+        this.jdbcTemplate.queryForList("select j.id from job j where j.name = ? for update", Long.class,
+                JobName.ACCOUNTING_RUNNING_BALANCE_UPDATE.toString());
+
+        final List<JournalEntryData> entries = this.jdbcTemplate.query(this.entryMapper.uncalculatedEntriesSchema() + chunkSize,
+                this.entryMapper);
+        if (entries.isEmpty()) { return true; }
+
+        final Map<Long, RunningBalanceCheckpoint> organizationCheckpoints = new HashMap<>();
+        final Map<Long, Map<Long, RunningBalanceCheckpoint>> officeCheckpoints = new HashMap<>();
+        retrieveCheckpoints(entries, organizationCheckpoints, officeCheckpoints);
+
+        // entries are read in order, the first one of each account is the
+        // earliest entry of that account not calculated yet
+        final Map<Long, JournalEntryData> backDatedEntries = new LinkedHashMap<>();
+        final List<Long> checkedAccountIds = new ArrayList<>();
+        for (final JournalEntryData entry : entries) {
+            final Long accountId = entry.getGlAccountId();
+            if (checkedAccountIds.contains(accountId)) {
+                continue;
+            }
+            checkedAccountIds.add(accountId);
+            RunningBalanceCheckpoint checkpoint = organizationCheckpoints.get(accountId);
+            if (checkpoint == null) {
+                checkpoint = retrieveLastCalculatedEntry(this.lastCalculatedOrganizationEntrySql, accountId);
+                organizationCheckpoints.put(accountId, checkpoint);
             }
-            if (!runningBalance.containsKey(accountId)) {
-                runningBalance.put(accountId, (BigDecimal) entries.get("runningBalance"));
+            if (checkpoint.isAfter(entry)) {
+                backDatedEntries.put(accountId, entry);
             }
         }
+        if (!backDatedEntries.isEmpty()) {
+            for (final JournalEntryData entry : backDatedEntries.values()) {
+                resetRunningBalance(entry);
+            }
+            metrics.add("accountsReset", backDatedEntries.size());
+            // the entries reset may belong before the end of this chunk
+            return false;
+        }
 
-        List<JournalEntryData> entryDatas = jdbcTemplate.query(entryMapper.organizationRunningBalanceSchema(), entryMapper,
-                new Object[] { entityDate });
-        if (entryDatas.size() > 0) {
-            String[] updateSql = new String[entryDatas.size()];
-            int i = 0;
-            for (JournalEntryData entryData : entryDatas) {
-                Map<Long, BigDecimal> officeRunningBalanceMap = null;
-                if (officesRunningBalance.containsKey(entryData.getOfficeId())) {
-                    officeRunningBalanceMap = officesRunningBalance.get(entryData.getOfficeId());
-                } else {
-                    officeRunningBalanceMap = new HashMap<>();
-                    officesRunningBalance.put(entryData.getOfficeId(), officeRunningBalanceMap);
-                }
-                BigDecimal officeRunningBalance = calculateRunningBalance(entryData, officeRunningBalanceMap);
-                BigDecimal runningBalance = calculateRunningBalance(entryData, runningBalanceMap);
-                String sql = "UPDATE acc_gl_journal_entry je SET je.is_running_balance_calculated=1, je.organization_running_balance="
-                        + runningBalance + ",je.office_running_balance=" + officeRunningBalance + " WHERE  je.id=" + entryData.getId();
-                updateSql[i++] = sql;
+        final List<JournalEntryData> updatedEntries = new ArrayList<>(entries.size());
+        final List<BigDecimal[]> runningBalances = new ArrayList<>(entries.size());
+        final Map<String, RunningBalanceCheckpoint> updatedCheckpoints = new LinkedHashMap<>();
+        for (final JournalEntryData entry : entries) {
+            final RunningBalanceCheckpoint organizationCheckpoint = organizationCheckpoints.get(entry.getGlAccountId());
+
+            Map<Long, RunningBalanceCheckpoint> accountCheckpoints = officeCheckpoints.get(entry.getOfficeId());
+            if (accountCheckpoints == null) {
+                accountCheckpoints = new HashMap<>();
+                officeCheckpoints.put(entry.getOfficeId(), accountCheckpoints);
+            }
+            RunningBalanceCheckpoint officeCheckpoint = accountCheckpoints.get(entry.getGlAccountId());
+            if (officeCheckpoint == null) {
+                officeCheckpoint = retrieveLastCalculatedEntry(this.lastCalculatedOfficeEntrySql, entry.getOfficeId(),
+                        entry.getGlAccountId());
+                accountCheckpoints.put(entry.getGlAccountId(), officeCheckpoint);
             }
-            this.jdbcTemplate.batchUpdate(updateSql);
+
+            final BigDecimal organizationRunningBalance = organizationCheckpoint.post(entry);
+            final BigDecimal officeRunningBalance = officeCheckpoint.post(entry);
+            updatedEntries.add(entry);
+            runningBalances.add(new BigDecimal[] { organizationRunningBalance, officeRunningBalance });
+            updatedCheckpoints.put(organizationCheckpoint.key(), organizationCheckpoint);
+            updatedCheckpoints.put(officeCheckpoint.key(), officeCheckpoint);
         }
 
-    }
+        this.jdbcTemplate.batchUpdate(this.entryUpdateSql, new BatchPreparedStatementSetter() {
 
-    @Transactional
-    private void updateRunningBalance(Long officeId, Date entityDate) {
-        Map<Long, BigDecimal> runningBalanceMap = new HashMap<>(5);
+            @Override
+            public void setValues(final PreparedStatement ps, final int i) throws SQLException {
+                final BigDecimal[] balances = runningBalances.get(i);
+                ps.setBigDecimal(1, balances[0]);
+                ps.setBigDecimal(2, balances[1]);
+                ps.setLong(3, updatedEntries.get(i).getId());
+            }
 
-        List<Map<String, Object>> list = jdbcTemplate.queryForList(officeRunningBalanceSql, officeId, entityDate, officeId, entityDate);
-        for (Map<String, Object> entries : list) {
-            Long accountId = (Long) entries.get("accountId");
-            if (!runningBalanceMap.containsKey(accountId)) {
-                runningBalanceMap.put(accountId, (BigDecimal) entries.get("runningBalance"));
+            @Override
+            public int getBatchSize() {
+                return updatedEntries.size();
+            }
+        });
+
+        final List<RunningBalanceCheckpoint> checkpoints = new ArrayList<>(updatedCheckpoints.values());
+        this.jdbcTemplate.batchUpdate(this.checkpointUpsertSql, new BatchPreparedStatementSetter() {
+
+            @Override
+            public void setValues(final PreparedStatement ps, final int i) throws SQLException {
+                final RunningBalanceCheckpoint checkpoint = checkpoints.get(i);
+                ps.setLong(1, checkpoint.officeId);
+                ps.setLong(2, checkpoint.accountId);
+                ps.setDate(3, new java.sql.Date(checkpoint.lastEntryDate.toDate().getTime()));
+                ps.setLong(4, checkpoint.lastEntryId);
+                ps.setBigDecimal(5, checkpoint.runningBalance);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return checkpoints.size();
+            }
+        });
+
+        metrics.add("entriesUpdated", updatedEntries.size());
+        metrics.add("checkpointsWritten", checkpoints.size());
+        metrics.increment("chunks");
+        return entries.size() < chunkSize;
+    }
+
+    private void retrieveCheckpoints(final List<JournalEntryData> entries, final Map<Long, RunningBalanceCheckpoint> organizationCheckpoints,
+            final Map<Long, Map<Long, RunningBalanceCheckpoint>> officeCheckpoints) {
+        final List<Long> accountIds = new ArrayList<>();
+        for (final JournalEntryData entry : entries) {
+            if (!accountIds.contains(entry.getGlAccountId())) {
+                accountIds.add(entry.getGlAccountId());
             }
         }
-        List<JournalEntryData> entryDatas = jdbcTemplate.query(entryMapper.officeRunningBalanceSchema(), entryMapper, new Object[] {
-                officeId, entityDate });
-        String[] updateSql = new String[entryDatas.size()];
-        int i = 0;
-        for (JournalEntryData entryData : entryDatas) {
-            BigDecimal runningBalance = calculateRunningBalance(entryData, runningBalanceMap);
-            String sql = "UPDATE acc_gl_journal_entry je SET je.office_running_balance=" + runningBalance + " WHERE  je.id="
-                    + entryData.getId();
-            updateSql[i++] = sql;
+        final String sql = this.checkpointMapper.schema() + " where cp.account_id in (" + StringUtils.join(accountIds, ',') + ")";
+        final List<RunningBalanceCheckpoint> checkpoints = this.jdbcTemplate.query(sql, this.checkpointMapper);
+        for (final RunningBalanceCheckpoint checkpoint : checkpoints) {
+            if (ORGANIZATION_CHECKPOINT_OFFICE_ID.equals(checkpoint.officeId)) {
+                organizationCheckpoints.put(checkpoint.accountId, checkpoint);
+            } else {
+                Map<Long, RunningBalanceCheckpoint> accountCheckpoints = officeCheckpoints.get(checkpoint.officeId);
+                if (accountCheckpoints == null) {
+                    accountCheckpoints = new HashMap<>();
+                    officeCheckpoints.put(checkpoint.officeId, accountCheckpoints);
+                }
+                accountCheckpoints.put(checkpoint.accountId, checkpoint);
+            }
         }
-        this.jdbcTemplate.batchUpdate(updateSql);
     }
 
-    private BigDecimal calculateRunningBalance(JournalEntryData entry, Map<Long, BigDecimal> runningBalanceMap) {
-        BigDecimal runningBalance = BigDecimal.ZERO;
-        if (runningBalanceMap.containsKey(entry.getGlAccountId())) {
-            runningBalance = runningBalanceMap.get(entry.getGlAccountId());
-        }
+    /**
+     * Builds a checkpoint from the last calculated entry, used the first time
+     * an office or account is seen and after its checkpoints were dropped.
+     */
+    private RunningBalanceCheckpoint retrieveLastCalculatedEntry(final String sql, final Long... params) {
+        final List<RunningBalanceCheckpoint> checkpoints = this.jdbcTemplate.query(sql, this.checkpointMapper, (Object[]) params);
+        if (!checkpoints.isEmpty()) { return checkpoints.get(0); }
+        final Long officeId = params.length == 1 ? ORGANIZATION_CHECKPOINT_OFFICE_ID : params[0];
+        return new RunningBalanceCheckpoint(officeId, params[params.length - 1], null, null, BigDecimal.ZERO);
+    }
+
+    /**
+     * Marks every calculated entry of the account after the back dated entry
+     * as not calculated and drops the checkpoints of the account.
+     */
+    private void resetRunningBalance(final JournalEntryData backDatedEntry) {
+        final java.sql.Date entryDate = new java.sql.Date(backDatedEntry.getTransactionDate().toDate().getTime());
+        this.jdbcTemplate.update("update acc_gl_journal_entry je set je.is_running_balance_calculated = 0 "
+                + "where je.account_id = ? and je.is_running_balance_calculated = 1 "
+                + "and (je.entry_date > ? or (je.entry_date = ? and je.id > ?))", backDatedEntry.getGlAccountId(), entryDate, entryDate,
+                backDatedEntry.getId());
+        this.jdbcTemplate.update("delete from acc_gl_running_balance_checkpoint where account_id = ?", backDatedEntry.getGlAccountId());
+    }
+
+    private int retrieveChunkSize() {
+        final ScheduledJobDetail jobDetail = this.scheduledJobDetailRepository.findByJobName(JobName.ACCOUNTING_RUNNING_BALANCE_UPDATE
+                .toString());
+        if (jobDetail != null && jobDetail.getChunkSize() != null && jobDetail.getChunkSize() > 0) { return jobDetail.getChunkSize(); }
+        return DEFAULT_CHUNK_SIZE;
+    }
+
+    private static BigDecimal calculateRunningBalance(final JournalEntryData entry, final BigDecimal currentRunningBalance) {
         GLAccountType accounttype = GLAccountType.fromInt(entry.getGlAccountType().getId().intValue());
         JournalEntryType entryType = JournalEntryType.fromInt(entry.getEntryType().getId().intValue());
         boolean isIncrease = false;
@@ -230,29 +428,85 @@ public class JournalEntryRunningBalanceUpdateServiceImpl implements JournalEntry
                 }
             break;
         }
-        if (isIncrease) {
-            runningBalance = runningBalance.add(entry.getAmount());
-        } else {
-            runningBalance = runningBalance.subtract(entry.getAmount());
+        if (isIncrease) { return currentRunningBalance.add(entry.getAmount()); }
+        return currentRunningBalance.subtract(entry.getAmount());
+    }
+
+    private static final class RunningBalanceCheckpoint {
+
+        private final Long officeId;
+        private final Long accountId;
+        private LocalDate lastEntryDate;
+        private Long lastEntryId;
+        private BigDecimal runningBalance;
+
+        public RunningBalanceCheckpoint(final Long officeId, final Long accountId, final LocalDate lastEntryDate, final Long lastEntryId,
+                final BigDecimal runningBalance) {
+            this.officeId = officeId;
+            this.accountId = accountId;
+            this.lastEntryDate = lastEntryDate;
+            this.lastEntryId = lastEntryId;
+            this.runningBalance = runningBalance == null ? BigDecimal.ZERO : runningBalance;
+        }
+
+        public String key() {
+            return this.officeId + ":" + this.accountId;
+        }
+
+        /**
+         * @return true when the last calculated entry comes after the entry
+         *         in entry date and id order
+         */
+        public boolean isAfter(final JournalEntryData entry) {
+            if (this.lastEntryId == null) { return false; }
+            final int dateComparison = this.lastEntryDate.compareTo(entry.getTransactionDate());
+            return dateComparison > 0 || (dateComparison == 0 && this.lastEntryId > entry.getId());
+        }
+
+        public BigDecimal post(final JournalEntryData entry) {
+            this.runningBalance = calculateRunningBalance(entry, this.runningBalance);
+            this.lastEntryDate = entry.getTransactionDate();
+            this.lastEntryId = entry.getId();
+            return this.runningBalance;
+        }
+    }
+
+    private static final class RunningBalanceCheckpointMapper implements RowMapper<RunningBalanceCheckpoint> {
+
+        public String schema() {
+            return "select cp.office_id as officeId, cp.account_id as accountId, cp.last_entry_date as entryDate, "
+                    + "cp.last_entry_id as entryId, cp.running_balance as runningBalance from acc_gl_running_balance_checkpoint cp";
+        }
+
+        @Override
+        public RunningBalanceCheckpoint mapRow(final ResultSet rs, @SuppressWarnings("unused") final int rowNum) throws SQLException {
+            final Long officeId = rs.getLong("officeId");
+            final Long accountId = rs.getLong("accountId");
+            final LocalDate entryDate = JdbcSupport.getLocalDate(rs, "entryDate");
+            final Long entryId = rs.getLong("entryId");
+            final BigDecimal runningBalance = rs.getBigDecimal("runningBalance");
+            return new RunningBalanceCheckpoint(officeId, accountId, entryDate, entryId, runningBalance);
         }
-        runningBalanceMap.put(entry.getGlAccountId(), runningBalance);
-        return runningBalance;
     }
 
     private static final class GLJournalEntryMapper implements RowMapper<JournalEntryData> {
 
-        public String officeRunningBalanceSchema() {
+        public String uncalculatedEntriesSchema() {
             return "select je.id as id,je.account_id as glAccountId,je.type_enum as entryType,je.amount as amount,je.exchange_rate as exchangeRate, "
-                    + "glAccount.classification_enum as classification,je.office_id as officeId "
+                    + "glAccount.classification_enum as classification,je.office_id as officeId,je.entry_date as entryDate "
                     + "from acc_gl_journal_entry je , acc_gl_account glAccount " + "where je.account_id = glAccount.id "
-                    + "and je.office_id=? and je.entry_date >= ? order by je.entry_date,je.id";
+                    + "and je.is_running_balance_calculated = 0 order by je.entry_date,je.id limit ";
         }
 
-        public String organizationRunningBalanceSchema() {
-            return "select je.id as id,je.account_id as glAccountId," + "je.type_enum as entryType,je.amount as amount,je.exchange_rate as exchangeRate, "
-                    + "glAccount.classification_enum as classification,je.office_id as officeId  "
+        /**
+         * Entries of an office and gl account after an entry date and id
+         */
+        public String officeEntriesSchema() {
+            return "select je.id as id,je.account_id as glAccountId,je.type_enum as entryType,je.amount as amount,je.exchange_rate as exchangeRate, "
+                    + "glAccount.classification_enum as classification,je.office_id as officeId,je.entry_date as entryDate "
                     + "from acc_gl_journal_entry je , acc_gl_account glAccount " + "where je.account_id = glAccount.id "
-                    + "and je.entry_date >= ? order by je.entry_date,je.id";
+                    + "and je.office_id = ? and je.account_id = ? and (je.entry_date > ? or (je.entry_date = ? and je.id > ?)) "
+                    + "order by je.entry_date,je.id limit ";
         }
 
         @Override
@@ -263,13 +517,15 @@ public class JournalEntryRunningBalanceUpdateServiceImpl implements JournalEntry
             final Long officeId = rs.getLong("officeId");
             final int accountTypeId = JdbcSupport.getInteger(rs, "classification");
             final EnumOptionData accountType = AccountingEnumerations.gLAccountType(accountTypeId);
+            final LocalDate entryDate = JdbcSupport.getLocalDate(rs, "entryDate");
             final BigDecimal amount = rs.getBigDecimal("amount");
             final BigDecimal exchangeRate = rs.getBigDecimal("exchangeRate");
             final int entryTypeId = JdbcSupport.getInteger(rs, "entryType");
             final EnumOptionData entryType = AccountingEnumerations.journalEntryType(entryTypeId);
 
-            return new JournalEntryData(id, officeId, null, null, glAccountId, null, accountType, null, entryType, amount, exchangeRate, null, null,
-                    null, null, null, null, null, null, null, null, null, null, null, null, null, null, null, null, null, null, null);
+            return new JournalEntryData(id, officeId, null, null, glAccountId, null, accountType, entryDate, entryType, amount, exchangeRate,
+                    null, null, null, null, null, null, null, null, null, null, null, null, null, null, null, null, null, null, null, null,
+                    null);
         }
     }
 
@@ -79,6 +79,8 @@ public class JournalEntryWritePlatformServiceJpaRepositoryImpl implements Journa
     private final PlatformSecurityContext context;
     private final PaymentDetailWritePlatformService paymentDetailWritePlatformService;
     private final LoanTransactionRepository loanTransactionRepository;
+    private final JournalEntryBatchWriter journalEntryBatchWriter;
+    private final GLBalanceAggregateWritePlatformService glBalanceAggregateWritePlatformService;
     private final JdbcTemplate jdbcTemplate;
 
     @Autowired
@@ -92,7 +94,9 @@ public class JournalEntryWritePlatformServiceJpaRepositoryImpl implements Journa
                                                              final OrganisationCurrencyRepository organisationCurrencyRepo,
                                                              final OrganisationCurrencyRepositoryWrapper organisationCurrencyRepository, final PlatformSecurityContext context,
                                                              final PaymentDetailWritePlatformService paymentDetailWritePlatformService, final RoutingDataSource dataSource,
-                                                             final LoanTransactionRepository loanTransactionRepository) {
+                                                             final LoanTransactionRepository loanTransactionRepository,
+                                                             final JournalEntryBatchWriter journalEntryBatchWriter,
+                                                             final GLBalanceAggregateWritePlatformService glBalanceAggregateWritePlatformService) {
         this.glClosureRepository = glClosureRepository;
         this.officeRepository = officeRepository;
         this.glJournalEntryRepository = glJournalEntryRepository;
@@ -109,6 +113,8 @@ public class JournalEntryWritePlatformServiceJpaRepositoryImpl implements Journa
         this.context = context;
         this.paymentDetailWritePlatformService = paymentDetailWritePlatformService;
         this.loanTransactionRepository = loanTransactionRepository;
+        this.journalEntryBatchWriter = journalEntryBatchWriter;
+        this.glBalanceAggregateWritePlatformService = glBalanceAggregateWritePlatformService;
         this.jdbcTemplate = new JdbcTemplate(dataSource);
     }
 
@@ -490,6 +496,11 @@ public class JournalEntryWritePlatformServiceJpaRepositoryImpl implements Journa
 	public CommandProcessingResult deleteJournalEntry(Long journalId) {
 		JournalEntry journalEntry = this.glJournalEntryRepository.findById(journalId);
 		List<JournalEntry> journalEntries = this.glJournalEntryRepository.findManualJournalEntriesByTransactionId(journalEntry.getTransactionId());
+		final List<Long> journalEntryIds = new ArrayList<>(journalEntries.size());
+		for (final JournalEntry entry : journalEntries) {
+			journalEntryIds.add(entry.getId());
+		}
+		this.glBalanceAggregateWritePlatformService.removeFromBalanceAggregates(journalEntryIds);
 		this.glJournalEntryRepository.delete(journalEntries);
 		return CommandProcessingResult.empty();
 	}
@@ -571,7 +582,14 @@ public class JournalEntryWritePlatformServiceJpaRepositoryImpl implements Journa
                     upfrontAccrualBasedAccountingEnabled, periodicAccrualBasedAccountingEnabled);
             final AccountingProcessorForLoan accountingProcessorForLoan = this.accountingProcessorForLoanFactory
                     .determineProcessor(loanDTO);
-            accountingProcessorForLoan.createJournalEntriesForLoan(loanDTO);
+            // all debits and credits of the bridge call are inserted together
+            this.journalEntryBatchWriter.begin();
+            try {
+                accountingProcessorForLoan.createJournalEntriesForLoan(loanDTO);
+                this.journalEntryBatchWriter.flush();
+            } finally {
+                this.journalEntryBatchWriter.end();
+            }
         }
     }
 
@@ -587,7 +605,13 @@ public class JournalEntryWritePlatformServiceJpaRepositoryImpl implements Journa
                     accrualBasedAccountingEnabled);
             final AccountingProcessorForSavings accountingProcessorForSavings = this.accountingProcessorForSavingsFactory
                     .determineProcessor(savingsDTO);
-            accountingProcessorForSavings.createJournalEntriesForSavings(savingsDTO);
+            this.journalEntryBatchWriter.begin();
+            try {
+                accountingProcessorForSavings.createJournalEntriesForSavings(savingsDTO);
+                this.journalEntryBatchWriter.flush();
+            } finally {
+                this.journalEntryBatchWriter.end();
+            }
         }
 
     }
@@ -0,0 +1,214 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.accounting.producttoaccountmapping.service;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.mifosplatform.accounting.producttoaccountmapping.domain.PortfolioProductType;
+import org.mifosplatform.infrastructure.cache.data.CacheStatisticsData;
+import org.mifosplatform.infrastructure.cache.service.CacheStatisticsProvider;
+import org.mifosplatform.infrastructure.core.domain.JdbcSupport;
+import org.mifosplatform.infrastructure.core.domain.MifosPlatformTenant;
+import org.mifosplatform.infrastructure.core.service.RoutingDataSource;
+import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Per tenant in-memory copy of the GL accounts mapped to each loan and savings
+ * product, so the accounting bridge does not query
+ * <code>acc_product_mapping</code> for every debit and credit it posts. The
+ * mappings of a product are loaded with a single query the first time one of
+ * them is needed, and dropped through {@link #invalidate()} whenever product
+ * to GL account mappings are created or updated.
+ * 
+ * Mappings are loaded in a new read committed transaction, so mappings read
+ * by a repeatable read transaction that started before a mapping change was
+ * committed are never cached. A transaction that changed mappings reads
+ * them in place, without caching, until it completes.
+ */
+@Component
+public class ProductToGLAccountMappingCache implements CacheStatisticsProvider {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate committedReadTemplate;
+
+    private final ConcurrentMap<Long, ConcurrentMap<String, Map<String, Long>>> mappings = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    @Autowired
+    public ProductToGLAccountMappingCache(final RoutingDataSource dataSource, final PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.committedReadTemplate = new TransactionTemplate(transactionManager);
+        this.committedReadTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.committedReadTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+        this.committedReadTemplate.setReadOnly(true);
+    }
+
+    /**
+     * @return id of the GL account mapped to the product for the account type
+     *         without any payment type or charge, <code>null</code> when there
+     *         is no such mapping
+     */
+    public Long retrieveGLAccountId(final Long productId, final PortfolioProductType productType, final int financialAccountType) {
+        return productMappings(productId, productType).get(coreKey(financialAccountType));
+    }
+
+    /**
+     * @return id of the GL account mapped to the product for the account type
+     *         and payment type, <code>null</code> when there is no such
+     *         mapping
+     */
+    public Long retrieveGLAccountIdForPaymentType(final Long productId, final PortfolioProductType productType,
+            final int financialAccountType, final Long paymentTypeId) {
+        if (paymentTypeId == null) { return retrieveGLAccountId(productId, productType, financialAccountType); }
+        return productMappings(productId, productType).get(paymentTypeKey(financialAccountType, paymentTypeId));
+    }
+
+    /**
+     * @return id of the GL account mapped to the product for the account type
+     *         and charge, <code>null</code> when there is no such mapping
+     */
+    public Long retrieveGLAccountIdForCharge(final Long productId, final PortfolioProductType productType, final int financialAccountType,
+            final Long chargeId) {
+        if (chargeId == null) { return retrieveGLAccountId(productId, productType, financialAccountType); }
+        return productMappings(productId, productType).get(chargeKey(financialAccountType, chargeId));
+    }
+
+    public void invalidate() {
+        final MifosPlatformTenant tenant = ThreadLocalContextUtil.getTenant();
+        if (tenant == null) { return; }
+        final Long tenantId = tenant.getId();
+        evict(tenantId);
+        // evict again once the change is committed so mappings read by
+        // another thread before the commit do not stay cached
+        if (TransactionSynchronizationManager.isSynchronizationActive() && !TransactionSynchronizationManager.hasResource(this)) {
+            TransactionSynchronizationManager.bindResource(this, tenantId);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+
+                @Override
+                public void afterCompletion(@SuppressWarnings("unused") final int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(ProductToGLAccountMappingCache.this);
+                    evict(tenantId);
+                }
+            });
+        }
+    }
+
+    @Override
+    public CacheStatisticsData retrieveCacheStatistics() {
+        long size = 0;
+        for (final Map<String, Map<String, Long>> tenantMappings : this.mappings.values()) {
+            size += tenantMappings.size();
+        }
+        return CacheStatisticsData.instance("productToGLAccountMapping", size, this.hits.get(), this.misses.get());
+    }
+
+    private void evict(final Long tenantId) {
+        this.generation.incrementAndGet();
+        this.mappings.remove(tenantId);
+    }
+
+    private Map<String, Long> productMappings(final Long productId, final PortfolioProductType productType) {
+        // uncommitted mapping changes of this transaction are only visible to
+        // it
+        if (TransactionSynchronizationManager.hasResource(this)) { return loadProductMappings(productId, productType); }
+
+        final String productKey = productType.getValue() + ":" + productId;
+        final MifosPlatformTenant tenant = ThreadLocalContextUtil.getTenant();
+        ConcurrentMap<String, Map<String, Long>> tenantMappings = null;
+        if (tenant != null) {
+            tenantMappings = this.mappings.get(tenant.getId());
+            if (tenantMappings == null) {
+                final ConcurrentMap<String, Map<String, Long>> created = new ConcurrentHashMap<>();
+                tenantMappings = this.mappings.putIfAbsent(tenant.getId(), created);
+                if (tenantMappings == null) {
+                    tenantMappings = created;
+                }
+            }
+            final Map<String, Long> cached = tenantMappings.get(productKey);
+            if (cached != null) {
+                this.hits.incrementAndGet();
+                return cached;
+            }
+        }
+        this.misses.incrementAndGet();
+
+        final long generationAtLoad = this.generation.get();
+        final Map<String, Long> loaded = this.committedReadTemplate.execute(new TransactionCallback<Map<String, Long>>() {
+
+            @Override
+            public Map<String, Long> doInTransaction(@SuppressWarnings("unused") final TransactionStatus status) {
+                return loadProductMappings(productId, productType);
+            }
+        });
+
+        // do not cache mappings that may have been read before an
+        // invalidation happened while they were loading
+        if (tenantMappings != null && this.generation.get() == generationAtLoad) {
+            tenantMappings.put(productKey, loaded);
+        }
+        return loaded;
+    }
+
+    private Map<String, Long> loadProductMappings(final Long productId, final PortfolioProductType productType) {
+        final Map<String, Long> loaded = new HashMap<>();
+        final String sql = "select pm.financial_account_type as financialAccountType, pm.payment_type as paymentTypeId,"
+                + " pm.charge_id as chargeId, pm.gl_account_id as glAccountId"
+                + " from acc_product_mapping pm where pm.product_id = ? and pm.product_type = ? order by pm.id";
+        this.jdbcTemplate.query(sql, new RowCallbackHandler() {
+
+            @Override
+            public void processRow(final ResultSet rs) throws SQLException {
+                final int financialAccountType = rs.getInt("financialAccountType");
+                final Long paymentTypeId = JdbcSupport.getLong(rs, "paymentTypeId");
+                final Long chargeId = JdbcSupport.getLong(rs, "chargeId");
+                final Long glAccountId = JdbcSupport.getLong(rs, "glAccountId");
+                final String key;
+                if (paymentTypeId != null) {
+                    key = paymentTypeKey(financialAccountType, paymentTypeId);
+                } else if (chargeId != null) {
+                    key = chargeKey(financialAccountType, chargeId);
+                } else {
+                    key = coreKey(financialAccountType);
+                }
+                if (!loaded.containsKey(key)) {
+                    loaded.put(key, glAccountId);
+                }
+            }
+        }, productId, productType.getValue());
+        return loaded;
+    }
+
+    private static String coreKey(final int financialAccountType) {
+        return Integer.toString(financialAccountType);
+    }
+
+    private static String paymentTypeKey(final int financialAccountType, final Long paymentTypeId) {
+        return financialAccountType + ":p" + paymentTypeId;
+    }
+
+    private static String chargeKey(final int financialAccountType, final Long chargeId) {
+        return financialAccountType + ":c" + chargeId;
+    }
+}
@@ -36,6 +36,19 @@ public interface BatchApiService {
      */
     List<BatchResponse> handleBatchRequestsWithoutEnclosingTransaction(List<BatchRequest> requestList, UriInfo uriInfo);
 
+    /**
+     * Same as
+     * {@link #handleBatchRequestsWithoutEnclosingTransaction(List, UriInfo)}
+     * except that requests that do not depend on each other are executed
+     * concurrently. Responses are still ordered by request id. It will be used
+     * when the "X-Mifos-Batch-Parallel" header is set to 'true'.
+     * 
+     * @param requestList
+     * @param uriInfo
+     * @return List<BatchResponse>
+     */
+    List<BatchResponse> handleBatchRequestsInParallelWithoutEnclosingTransaction(List<BatchRequest> requestList, UriInfo uriInfo);
+
     /**
      * returns a list of {@link org.mifosplatform.batch.domain.BatchResponse}s
      * by getting the appropriate CommandStrategy for every
@@ -8,7 +8,13 @@ package org.mifosplatform.batch.service;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+import javax.annotation.PreDestroy;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
 import javax.ws.rs.core.UriInfo;
@@ -21,6 +27,7 @@ import org.mifosplatform.batch.domain.BatchResponse;
 import org.mifosplatform.batch.exception.ErrorHandler;
 import org.mifosplatform.batch.exception.ErrorInfo;
 import org.mifosplatform.batch.service.ResolutionHelper.BatchRequestNode;
+import org.mifosplatform.infrastructure.core.service.TenantAwareCallable;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.TransactionException;
@@ -46,10 +53,16 @@ import edu.emory.mathcs.backport.java.util.Collections;
 @Service
 public class BatchApiServiceImpl implements BatchApiService {
 
+    /**
+     * Number of worker threads shared by all parallel batches, which is also
+     * the most request trees a single parallel batch has in flight at a time.
+     */
+    private static final int PARALLEL_BATCH_THREADS = 8;
+
     private final CommandStrategyProvider strategyProvider;
     private final ResolutionHelper resolutionHelper;
     private final TransactionTemplate transactionTemplate;
-    private List<BatchResponse> checkList = new ArrayList<>();
+    private final ExecutorService parallelBatchExecutor;
 
     /**
      * Constructs a 'BatchApiServiceImpl' with an argument of
@@ -65,6 +78,12 @@ public class BatchApiServiceImpl implements BatchApiService {
         this.strategyProvider = strategyProvider;
         this.resolutionHelper = resolutionHelper;
         this.transactionTemplate = transactionTemplate;
+        this.parallelBatchExecutor = Executors.newFixedThreadPool(PARALLEL_BATCH_THREADS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        this.parallelBatchExecutor.shutdownNow();
     }
 
     /**
@@ -81,18 +100,110 @@ public class BatchApiServiceImpl implements BatchApiService {
         final List<BatchResponse> responseList = new ArrayList<>(requestList.size());
 
         final List<BatchRequestNode> batchRequestNodes = this.resolutionHelper.getDependingRequests(requestList);
-        checkList.clear();
 
         for (BatchRequestNode rootNode : batchRequestNodes) {
-            final BatchRequest rootRequest = rootNode.getRequest();
-            final CommandStrategy commandStrategy = this.strategyProvider.getCommandStrategy(CommandContext
-                    .resource(rootRequest.getRelativeUrl()).method(rootRequest.getMethod()).build());
-            final BatchResponse rootResponse = commandStrategy.execute(rootRequest, uriInfo);
+            responseList.addAll(this.processRequestTree(rootNode, uriInfo));
+        }
+
+        sortByRequestId(responseList);
+        return responseList;
+
+    }
+
+    /**
+     * Same as {@link #handleBatchRequests(List, UriInfo)} but the independent
+     * request trees are executed concurrently on the shared batch executor.
+     * Requests within one tree still run one after another as children depend
+     * on the response of their parent.
+     * 
+     * @param requestList
+     * @param uriInfo
+     * @return List<BatchResponse>
+     */
+    private List<BatchResponse> handleBatchRequestsInParallel(final List<BatchRequest> requestList, final UriInfo uriInfo) {
+
+        final List<BatchResponse> responseList = new ArrayList<>(requestList.size());
+
+        final List<BatchRequestNode> batchRequestNodes = this.resolutionHelper.getDependingRequests(requestList);
+        final List<BatchRequestNode> pendingNodes = new ArrayList<>(PARALLEL_BATCH_THREADS);
+        final List<Future<List<BatchResponse>>> pending = new ArrayList<>(PARALLEL_BATCH_THREADS);
+
+        try {
+            for (final BatchRequestNode rootNode : batchRequestNodes) {
+                pendingNodes.add(rootNode);
+                pending.add(this.parallelBatchExecutor.submit(new TenantAwareCallable<>(new Callable<List<BatchResponse>>() {
+
+                    @Override
+                    public List<BatchResponse> call() {
+                        return processRequestTree(rootNode, uriInfo);
+                    }
+                })));
+
+                // bound the trees in flight so one large batch cannot occupy
+                // the queue of the shared executor
+                if (pending.size() >= PARALLEL_BATCH_THREADS) {
+                    responseList.addAll(collectRequestTree(pendingNodes.remove(0), pending.remove(0), uriInfo));
+                }
+            }
+            while (!pending.isEmpty()) {
+                responseList.addAll(collectRequestTree(pendingNodes.remove(0), pending.remove(0), uriInfo));
+            }
+        } finally {
+            for (final Future<List<BatchResponse>> future : pending) {
+                future.cancel(true);
+            }
+        }
 
-            responseList.add(rootResponse);
-            responseList.addAll(this.processChildRequests(rootNode, rootResponse, uriInfo));
+        sortByRequestId(responseList);
+        return responseList;
+    }
+
+    private List<BatchResponse> collectRequestTree(final BatchRequestNode rootNode, final Future<List<BatchResponse>> future,
+            final UriInfo uriInfo) {
+        try {
+            return future.get();
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for batch request " + rootNode.getRequest().getRequestId(), ex);
+        } catch (final ExecutionException ex) {
+            // the root request itself failed, report it and every request
+            // depending on it as erroneous like the sequential path does for
+            // children
+            final List<BatchResponse> failedResponses = new ArrayList<>();
+            final Throwable cause = ex.getCause();
+            final BatchResponse rootResponse = new BatchResponse();
+            rootResponse.setRequestId(rootNode.getRequest().getRequestId());
+            if (cause instanceof RuntimeException) {
+                final ErrorInfo e = ErrorHandler.handler((RuntimeException) cause);
+                rootResponse.setStatusCode(e.getStatusCode());
+                rootResponse.setBody(e.getMessage());
+            } else {
+                rootResponse.setStatusCode(Response.Status.INTERNAL_SERVER_ERROR.getStatusCode());
+                rootResponse.setBody(cause.getMessage());
+            }
+            failedResponses.add(rootResponse);
+            failedResponses.addAll(this.processChildRequests(rootNode, rootResponse, uriInfo));
+            return failedResponses;
         }
+    }
+
+    private List<BatchResponse> processRequestTree(final BatchRequestNode rootNode, final UriInfo uriInfo) {
+
+        final List<BatchResponse> responseList = new ArrayList<>();
 
+        final BatchRequest rootRequest = rootNode.getRequest();
+        final CommandStrategy commandStrategy = this.strategyProvider.getCommandStrategy(CommandContext
+                .resource(rootRequest.getRelativeUrl()).method(rootRequest.getMethod()).build());
+        final BatchResponse rootResponse = commandStrategy.execute(rootRequest, uriInfo);
+
+        responseList.add(rootResponse);
+        responseList.addAll(this.processChildRequests(rootNode, rootResponse, uriInfo));
+
+        return responseList;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void sortByRequestId(final List<BatchResponse> responseList) {
         Collections.sort(responseList, new Comparator<BatchResponse>() {
 
             @Override
@@ -100,10 +211,6 @@ public class BatchApiServiceImpl implements BatchApiService {
                 return source.getRequestId().compareTo(testee.getRequestId());
             }
         });
-
-        checkList = responseList;
-        return responseList;
-
     }
 
     private List<BatchResponse> processChildRequests(final BatchRequestNode rootRequest, BatchResponse rootResponse, UriInfo uriInfo) {
@@ -160,16 +267,29 @@ public class BatchApiServiceImpl implements BatchApiService {
         return handleBatchRequests(requestList, uriInfo);
     }
 
+    @Override
+    public List<BatchResponse> handleBatchRequestsInParallelWithoutEnclosingTransaction(final List<BatchRequest> requestList,
+            final UriInfo uriInfo) {
+
+        return handleBatchRequestsInParallel(requestList, uriInfo);
+    }
+
     @Override
     public List<BatchResponse> handleBatchRequestsWithEnclosingTransaction(final List<BatchRequest> requestList, final UriInfo uriInfo) {
 
+        // responses of this invocation, used to report the first erroneous
+        // request when the transaction is rolled back
+        final List<BatchResponse> checkList = new ArrayList<>();
+
         try {
             return this.transactionTemplate.execute(new TransactionCallback<List<BatchResponse>>() {
 
                 @Override
                 public List<BatchResponse> doInTransaction(TransactionStatus status) {
                     try {
-                        return handleBatchRequests(requestList, uriInfo);
+                        final List<BatchResponse> responseList = handleBatchRequests(requestList, uriInfo);
+                        checkList.addAll(responseList);
+                        return responseList;
                     } catch (RuntimeException ex) {
 
                         ErrorInfo e = ErrorHandler.handler(ex);
@@ -198,7 +318,6 @@ public class BatchApiServiceImpl implements BatchApiService {
                 }
             }
 
-            checkList.clear();
             List<BatchResponse> errResponseList = new ArrayList<>();
             errResponseList.add(errResponse);
 
@@ -0,0 +1,33 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.commands.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a {@link org.mifosplatform.commands.handler.NewCommandSourceHandler}
+ * as the one processing commands with the given entity and action names, as
+ * set on the command by
+ * {@link org.mifosplatform.commands.service.CommandWrapperBuilder}; names are
+ * matched ignoring case.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface CommandType {
+
+    /**
+     * Entity names, several when one handler serves a family of entities such
+     * as notes.
+     */
+    String[] entity();
+
+    String action();
+}
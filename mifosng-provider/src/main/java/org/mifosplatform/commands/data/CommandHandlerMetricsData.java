@@ -0,0 +1,39 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.commands.data;
+
+/**
+ * Immutable data object representing the timings of a command handler since
+ * startup; percentiles are taken over its most recent commands.
+ */
+public class CommandHandlerMetricsData {
+
+    @SuppressWarnings("unused")
+    private final String handler;
+    @SuppressWarnings("unused")
+    private final long count;
+    @SuppressWarnings("unused")
+    private final long errorCount;
+    @SuppressWarnings("unused")
+    private final double errorRate;
+    @SuppressWarnings("unused")
+    private final double p50Millis;
+    @SuppressWarnings("unused")
+    private final double p99Millis;
+    @SuppressWarnings("unused")
+    private final long totalMillis;
+
+    public CommandHandlerMetricsData(final String handler, final long count, final long errorCount, final double errorRate,
+            final double p50Millis, final double p99Millis, final long totalMillis) {
+        this.handler = handler;
+        this.count = count;
+        this.errorCount = errorCount;
+        this.errorRate = errorRate;
+        this.p50Millis = p50Millis;
+        this.p99Millis = p99Millis;
+        this.totalMillis = totalMillis;
+    }
+}
@@ -11,6 +11,7 @@ import org.mifosplatform.commands.data.AuditData;
 import org.mifosplatform.commands.data.AuditSearchData;
 import org.mifosplatform.infrastructure.core.data.PaginationParameters;
 import org.mifosplatform.infrastructure.core.service.Page;
+import org.mifosplatform.infrastructure.core.service.StreamingPage;
 
 public interface AuditReadPlatformService {
 
@@ -18,6 +19,8 @@ public interface AuditReadPlatformService {
 
     Page<AuditData> retrievePaginatedAuditEntries(String extraCriteria, boolean includeJson, PaginationParameters parameters);
 
+    StreamingPage<AuditData> streamPaginatedAuditEntries(String extraCriteria, boolean includeJson, PaginationParameters parameters);
+
     Collection<AuditData> retrieveAllEntriesToBeChecked(String extraCriteria, boolean includeJson);
 
     AuditData retrieveAuditEntry(Long auditId);
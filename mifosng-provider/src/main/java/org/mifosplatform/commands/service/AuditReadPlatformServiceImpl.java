@@ -26,6 +26,7 @@ import org.mifosplatform.infrastructure.core.domain.JdbcSupport;
 import org.mifosplatform.infrastructure.core.exception.PlatformDataIntegrityException;
 import org.mifosplatform.infrastructure.core.serialization.FromJsonHelper;
 import org.mifosplatform.infrastructure.core.service.Page;
+import org.mifosplatform.infrastructure.core.service.StreamingPage;
 import org.mifosplatform.infrastructure.core.service.PaginationHelper;
 import org.mifosplatform.infrastructure.core.service.RoutingDataSource;
 import org.mifosplatform.infrastructure.security.service.PlatformSecurityContext;
@@ -183,6 +184,12 @@ public class AuditReadPlatformServiceImpl implements AuditReadPlatformService {
     @Override
     public Page<AuditData> retrievePaginatedAuditEntries(final String extraCriteria, final boolean includeJson,
             final PaginationParameters parameters) {
+        return streamPaginatedAuditEntries(extraCriteria, includeJson, parameters).fetch();
+    }
+
+    @Override
+    public StreamingPage<AuditData> streamPaginatedAuditEntries(final String extraCriteria, final boolean includeJson,
+            final PaginationParameters parameters) {
 
         this.paginationParametersDataValidator.validateParameterValues(parameters, supportedOrderByValues, "audits");
         final AppUser currentUser = this.context.authenticatedUser();
@@ -212,7 +219,7 @@ public class AuditReadPlatformServiceImpl implements AuditReadPlatformService {
         logger.info("sql: " + sqlBuilder.toString());
 
         final String sqlCountRows = "SELECT FOUND_ROWS()";
-        return this.paginationHelper.fetchPage(this.jdbcTemplate, sqlCountRows, sqlBuilder.toString(), new Object[] {}, rm);
+        return this.paginationHelper.streamPage(this.jdbcTemplate, sqlCountRows, sqlBuilder.toString(), new Object[] {}, rm);
     }
 
     @Override
@@ -0,0 +1,131 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.commands.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.mifosplatform.commands.data.CommandHandlerMetricsData;
+import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
+import org.springframework.stereotype.Component;
+
+/**
+ * In memory count, error rate and latency of each command handler, kept apart
+ * per tenant and lost on restart.
+ */
+@Component
+public class CommandHandlerMetrics {
+
+    /**
+     * Number of most recent timings of a handler its percentiles are taken
+     * from.
+     */
+    private static final int SAMPLE_SIZE = 1024;
+
+    private final ConcurrentMap<String, ConcurrentMap<String, HandlerStatistics>> statisticsByTenant = new ConcurrentHashMap<>();
+
+    public void record(final String handlerName, final long elapsedNanos, final boolean succeeded) {
+        final String tenantIdentifier = ThreadLocalContextUtil.getTenant().getTenantIdentifier();
+
+        ConcurrentMap<String, HandlerStatistics> statistics = this.statisticsByTenant.get(tenantIdentifier);
+        if (statistics == null) {
+            this.statisticsByTenant.putIfAbsent(tenantIdentifier, new ConcurrentHashMap<String, HandlerStatistics>());
+            statistics = this.statisticsByTenant.get(tenantIdentifier);
+        }
+
+        HandlerStatistics handlerStatistics = statistics.get(handlerName);
+        if (handlerStatistics == null) {
+            statistics.putIfAbsent(handlerName, new HandlerStatistics());
+            handlerStatistics = statistics.get(handlerName);
+        }
+        handlerStatistics.record(elapsedNanos, succeeded);
+    }
+
+    /**
+     * @return handlers of the current tenant, most time spent first
+     */
+    public List<CommandHandlerMetricsData> retrieveMetrics() {
+        final Map<String, HandlerStatistics> statistics = this.statisticsByTenant.get(ThreadLocalContextUtil.getTenant()
+                .getTenantIdentifier());
+        if (statistics == null) { return Collections.emptyList(); }
+
+        final List<Map.Entry<String, HandlerStatistics>> entries = new ArrayList<>(statistics.entrySet());
+        final long[] totalNanos = new long[entries.size()];
+        final List<Integer> order = new ArrayList<>(entries.size());
+        for (int i = 0; i < entries.size(); i++) {
+            totalNanos[i] = entries.get(i).getValue().totalNanos.get();
+            order.add(i);
+        }
+        Collections.sort(order, new Comparator<Integer>() {
+
+            @Override
+            public int compare(final Integer first, final Integer second) {
+                return Long.compare(totalNanos[second], totalNanos[first]);
+            }
+        });
+
+        final List<CommandHandlerMetricsData> metrics = new ArrayList<>(entries.size());
+        for (final Integer index : order) {
+            metrics.add(entries.get(index).getValue().toData(entries.get(index).getKey(), totalNanos[index]));
+        }
+        return metrics;
+    }
+
+    private static final class HandlerStatistics {
+
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong errorCount = new AtomicLong();
+        private final AtomicLong totalNanos = new AtomicLong();
+
+        private final long[] samples = new long[SAMPLE_SIZE];
+        private int sampleCount;
+        private int nextSample;
+
+        void record(final long elapsedNanos, final boolean succeeded) {
+            this.count.incrementAndGet();
+            if (!succeeded) {
+                this.errorCount.incrementAndGet();
+            }
+            this.totalNanos.addAndGet(elapsedNanos);
+
+            synchronized (this.samples) {
+                this.samples[this.nextSample] = elapsedNanos;
+                this.nextSample = (this.nextSample + 1) % SAMPLE_SIZE;
+                if (this.sampleCount < SAMPLE_SIZE) {
+                    this.sampleCount++;
+                }
+            }
+        }
+
+        CommandHandlerMetricsData toData(final String handlerName, final long total) {
+            final long[] sorted;
+            synchronized (this.samples) {
+                sorted = Arrays.copyOf(this.samples, this.sampleCount);
+            }
+            Arrays.sort(sorted);
+
+            final long commands = this.count.get();
+            final long errors = this.errorCount.get();
+            final double errorRate = commands == 0 ? 0 : (double) errors / commands;
+            return new CommandHandlerMetricsData(handlerName, commands, errors, errorRate, percentileMillis(sorted, 50),
+                    percentileMillis(sorted, 99), TimeUnit.NANOSECONDS.toMillis(total));
+        }
+
+        private static double percentileMillis(final long[] sorted, final int percentile) {
+            if (sorted.length == 0) { return 0; }
+            final int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+            return sorted[Math.max(index, 0)] / 1000000.0;
+        }
+    }
+}
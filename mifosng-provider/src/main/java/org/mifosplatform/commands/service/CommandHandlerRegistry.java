@@ -0,0 +1,68 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.commands.service;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import javax.annotation.PostConstruct;
+
+import org.mifosplatform.commands.annotation.CommandType;
+import org.mifosplatform.commands.handler.NewCommandSourceHandler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationContext;
+import org.springframework.stereotype.Component;
+
+/**
+ * Names of the command handler beans by the entity and action of the commands
+ * they process, collected from their {@link CommandType} annotations when the
+ * application starts so that a command is dispatched with a single lookup.
+ *
+ * Startup fails when two handlers claim the same entity and action.
+ */
+@Component
+public class CommandHandlerRegistry {
+
+    private final ApplicationContext applicationContext;
+
+    private final Map<String, String> handlerNames = new HashMap<>();
+
+    @Autowired
+    public CommandHandlerRegistry(final ApplicationContext applicationContext) {
+        this.applicationContext = applicationContext;
+    }
+
+    @PostConstruct
+    public void registerHandlers() {
+        // only bean definitions are looked at, handlers are created on use
+        for (final String beanName : this.applicationContext.getBeanNamesForAnnotation(CommandType.class)) {
+            if (!this.applicationContext.isTypeMatch(beanName, NewCommandSourceHandler.class)) { throw new IllegalStateException(
+                    "Bean " + beanName + " is annotated with @CommandType but is not a NewCommandSourceHandler"); }
+
+            final CommandType commandType = this.applicationContext.findAnnotationOnBean(beanName, CommandType.class);
+            for (final String entity : commandType.entity()) {
+                final String key = keyOf(entity, commandType.action());
+                final String existing = this.handlerNames.put(key, beanName);
+                if (existing != null && !existing.equals(beanName)) { throw new IllegalStateException("Commands " + key
+                        + " are claimed by both " + existing + " and " + beanName); }
+            }
+        }
+    }
+
+    /**
+     * @return name of the handler bean for the entity and action,
+     *         <code>null</code> when none is registered
+     */
+    public String findHandlerName(final String entityName, final String actionName) {
+        if (entityName == null || actionName == null) { return null; }
+        return this.handlerNames.get(keyOf(entityName, actionName));
+    }
+
+    private static String keyOf(final String entityName, final String actionName) {
+        return actionName.toUpperCase(Locale.ENGLISH) + "_" + entityName.toUpperCase(Locale.ENGLISH);
+    }
+}
@@ -0,0 +1,29 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.cache.data;
+
+public class CacheStatisticsData {
+
+    @SuppressWarnings("unused")
+    private final String name;
+    @SuppressWarnings("unused")
+    private final long size;
+    @SuppressWarnings("unused")
+    private final long hits;
+    @SuppressWarnings("unused")
+    private final long misses;
+
+    public static CacheStatisticsData instance(final String name, final long size, final long hits, final long misses) {
+        return new CacheStatisticsData(name, size, hits, misses);
+    }
+
+    private CacheStatisticsData(final String name, final long size, final long hits, final long misses) {
+        this.name = name;
+        this.size = size;
+        this.hits = hits;
+        this.misses = misses;
+    }
+}
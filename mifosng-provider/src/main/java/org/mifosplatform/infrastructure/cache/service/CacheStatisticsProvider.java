@@ -0,0 +1,17 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.cache.service;
+
+import org.mifosplatform.infrastructure.cache.data.CacheStatisticsData;
+
+/**
+ * Implemented by beans keeping their own in-memory cache so its hit and miss
+ * counters are listed by <code>GET /caches/statistics</code>.
+ */
+public interface CacheStatisticsProvider {
+
+    CacheStatisticsData retrieveCacheStatistics();
+}
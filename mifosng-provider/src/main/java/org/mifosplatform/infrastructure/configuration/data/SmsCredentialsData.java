@@ -12,16 +12,18 @@ public class SmsCredentialsData {
     private final String senderName;
     private final String senderAddress;
     private final Long outboundMaxPerDay;
+    private final Long outboundMaxPerSecond;
     private final String notifyUrl;
     private final String debugPhone;
     private final boolean debug;
 
-    public SmsCredentialsData(final String authUsername, final String authPassword, final String senderName, final String senderAddress, final Long outboundMaxPerDay, final String notifyUrl, final boolean debug, final String debugPhone) {
+    public SmsCredentialsData(final String authUsername, final String authPassword, final String senderName, final String senderAddress, final Long outboundMaxPerDay, final Long outboundMaxPerSecond, final String notifyUrl, final boolean debug, final String debugPhone) {
         this.authUsername = authUsername;
         this.authPassword = authPassword;
         this.senderName = senderName;
         this.senderAddress = senderAddress;
         this.outboundMaxPerDay = outboundMaxPerDay;
+        this.outboundMaxPerSecond = outboundMaxPerSecond;
         this.notifyUrl = notifyUrl;
         this.debug = debug;
         this.debugPhone = debugPhone;
@@ -47,6 +49,10 @@ public class SmsCredentialsData {
         return outboundMaxPerDay;
     }
 
+    public Long getOutboundMaxPerSecond() {
+        return outboundMaxPerSecond;
+    }
+
     public String getNotifyUrl() {
         return notifyUrl;
     }
@@ -67,6 +73,7 @@ public class SmsCredentialsData {
                 ", senderName='" + senderName + '\'' +
                 ", senderAddress='" + senderAddress + '\'' +
                 ", outboundMaxPerDay=" + outboundMaxPerDay +
+                ", outboundMaxPerSecond=" + outboundMaxPerSecond +
                 ", notifyUrl='" + notifyUrl + '\'' +
                 ", debugPhone='" + debugPhone + '\'' +
                 ", debug=" + debug +
@@ -27,6 +27,13 @@ public interface ConfigurationDomainService {
 
     void updateCache(CacheType cacheType);
 
+    /**
+     * Drops the cached configuration of the current tenant; to be called
+     * whenever <code>c_configuration</code>, the maker checker flags of
+     * <code>m_permission</code> or <code>m_cache</code> are changed.
+     */
+    void invalidateConfigurationCache();
+
     Long retrievePenaltyWaitPeriod();
 
     boolean isPasswordForcedResetEnable();
@@ -45,4 +52,8 @@ public interface ConfigurationDomainService {
 
     boolean isMeetingMandatoryForJLGLoans();
 
+    Long retrieveReportExportMaxRows();
+
+    Long retrieveReportExportTimeoutSeconds();
+
 }
\ No newline at end of file
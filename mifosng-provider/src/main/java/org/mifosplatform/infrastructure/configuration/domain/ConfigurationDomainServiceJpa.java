@@ -5,57 +5,91 @@
  */
 package org.mifosplatform.infrastructure.configuration.domain;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
 import org.apache.commons.lang.StringUtils;
+import org.mifosplatform.infrastructure.cache.data.CacheStatisticsData;
 import org.mifosplatform.infrastructure.cache.domain.CacheType;
 import org.mifosplatform.infrastructure.cache.domain.PlatformCache;
 import org.mifosplatform.infrastructure.cache.domain.PlatformCacheRepository;
-import org.mifosplatform.useradministration.domain.Permission;
+import org.mifosplatform.infrastructure.cache.service.CacheStatisticsProvider;
+import org.mifosplatform.infrastructure.core.domain.MifosPlatformTenant;
+import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
 import org.mifosplatform.useradministration.domain.PermissionRepository;
 import org.mifosplatform.useradministration.exception.PermissionNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+/**
+ * Configuration lookups are answered from a per tenant in-memory
+ * {@link ConfigurationSnapshot} of <code>c_configuration</code>, the
+ * <code>m_permission</code> maker checker flags and <code>m_cache</code>, so
+ * the checks done on every write command do not hit the database. The
+ * snapshot is dropped through {@link #invalidateConfigurationCache()} by the
+ * services that change any of these tables.
+ * 
+ * Snapshots are loaded in a new read committed transaction: one loaded in
+ * the caller's repeatable read transaction could miss a change committed
+ * after that transaction started, and be cached after the change was
+ * invalidated. A transaction that changed the configuration itself reads
+ * it in place, without caching, until it completes.
+ */
 @Service
-public class ConfigurationDomainServiceJpa implements ConfigurationDomainService {
+public class ConfigurationDomainServiceJpa implements ConfigurationDomainService, CacheStatisticsProvider {
 
     private final PermissionRepository permissionRepository;
     private final GlobalConfigurationRepositoryWrapper globalConfigurationRepository;
     private final PlatformCacheRepository cacheTypeRepository;
+    private final TransactionTemplate committedReadTemplate;
+
+    private final ConcurrentMap<Long, ConfigurationSnapshot> snapshots = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
 
     @Autowired
     public ConfigurationDomainServiceJpa(final PermissionRepository permissionRepository,
-            final GlobalConfigurationRepositoryWrapper globalConfigurationRepository, final PlatformCacheRepository cacheTypeRepository) {
+            final GlobalConfigurationRepositoryWrapper globalConfigurationRepository, final PlatformCacheRepository cacheTypeRepository,
+            final PlatformTransactionManager transactionManager) {
         this.permissionRepository = permissionRepository;
         this.globalConfigurationRepository = globalConfigurationRepository;
         this.cacheTypeRepository = cacheTypeRepository;
+        this.committedReadTemplate = new TransactionTemplate(transactionManager);
+        this.committedReadTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.committedReadTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+        this.committedReadTemplate.setReadOnly(true);
     }
 
     @Override
     public boolean isMakerCheckerEnabledForTask(final String taskPermissionCode) {
         if (StringUtils.isBlank(taskPermissionCode)) { throw new PermissionNotFoundException(taskPermissionCode); }
 
-        final Permission thisTask = this.permissionRepository.findOneByCode(taskPermissionCode);
-        if (thisTask == null) { throw new PermissionNotFoundException(taskPermissionCode); }
+        final ConfigurationSnapshot snapshot = snapshot();
+        final boolean taskMakerCheckerEnabled = snapshot.hasMakerCheckerEnabled(taskPermissionCode);
 
         final String makerCheckerConfigurationProperty = "maker-checker";
-        final GlobalConfigurationProperty property = this.globalConfigurationRepository
-                .findOneByNameWithNotFoundDetection(makerCheckerConfigurationProperty);
-
-        return thisTask.hasMakerCheckerEnabled() && property.isEnabled();
+        return taskMakerCheckerEnabled && snapshot.isEnabled(makerCheckerConfigurationProperty);
     }
 
     @Override
     public boolean isAmazonS3Enabled() {
-        return this.globalConfigurationRepository.findOneByNameWithNotFoundDetection("amazon-S3").isEnabled();
+        return snapshot().isEnabled("amazon-S3");
     }
 
     @Override
     public boolean isRescheduleFutureRepaymentsEnabled() {
         final String rescheduleRepaymentsConfigurationProperty = "reschedule-future-repayments";
-        final GlobalConfigurationProperty property = this.globalConfigurationRepository
-                .findOneByNameWithNotFoundDetection(rescheduleRepaymentsConfigurationProperty);
-        return property.isEnabled();
+        return snapshot().isEnabled(rescheduleRepaymentsConfigurationProperty);
     }
 
     /*
@@ -67,36 +101,30 @@ public class ConfigurationDomainServiceJpa implements ConfigurationDomainService
     @Override
     public boolean isRescheduleRepaymentsOnHolidaysEnabled() {
         final String holidaysConfigurationProperty = "reschedule-repayments-on-holidays";
-        final GlobalConfigurationProperty property = this.globalConfigurationRepository
-                .findOneByNameWithNotFoundDetection(holidaysConfigurationProperty);
-        return property.isEnabled();
+        return snapshot().isEnabled(holidaysConfigurationProperty);
     }
 
     @Override
     public boolean allowTransactionsOnHolidayEnabled() {
         final String allowTransactionsOnHolidayProperty = "allow-transactions-on-holiday";
-        final GlobalConfigurationProperty property = this.globalConfigurationRepository
-                .findOneByNameWithNotFoundDetection(allowTransactionsOnHolidayProperty);
-        return property.isEnabled();
+        return snapshot().isEnabled(allowTransactionsOnHolidayProperty);
     }
 
     @Override
     public boolean allowTransactionsOnNonWorkingDayEnabled() {
         final String propertyName = "allow-transactions-on-non_workingday";
-        final GlobalConfigurationProperty property = this.globalConfigurationRepository.findOneByNameWithNotFoundDetection(propertyName);
-        return property.isEnabled();
+        return snapshot().isEnabled(propertyName);
     }
 
     @Override
     public boolean isConstraintApproachEnabledForDatatables() {
         final String propertyName = "constraint_approach_for_datatables";
-        final GlobalConfigurationProperty property = this.globalConfigurationRepository.findOneByNameWithNotFoundDetection(propertyName);
-        return property.isEnabled();
+        return snapshot().isEnabled(propertyName);
     }
 
     @Override
     public boolean isEhcacheEnabled() {
-        return this.cacheTypeRepository.findOne(Long.valueOf(1)).isEhcacheEnabled();
+        return snapshot().isEhcacheEnabled();
     }
 
     @Transactional
@@ -105,72 +133,159 @@ public class ConfigurationDomainServiceJpa implements ConfigurationDomainService
         final PlatformCache cache = this.cacheTypeRepository.findOne(Long.valueOf(1));
         cache.update(cacheType);
         this.cacheTypeRepository.save(cache);
+        invalidateConfigurationCache();
+    }
+
+    @Override
+    public void invalidateConfigurationCache() {
+        final MifosPlatformTenant tenant = ThreadLocalContextUtil.getTenant();
+        if (tenant == null) { return; }
+        final Long tenantId = tenant.getId();
+        evict(tenantId);
+        // evict again once the change is committed so a snapshot read by
+        // another thread before the commit does not stay cached
+        if (TransactionSynchronizationManager.isSynchronizationActive() && !TransactionSynchronizationManager.hasResource(this)) {
+            TransactionSynchronizationManager.bindResource(this, tenantId);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+
+                @Override
+                public void afterCompletion(@SuppressWarnings("unused") final int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(ConfigurationDomainServiceJpa.this);
+                    evict(tenantId);
+                }
+            });
+        }
+    }
+
+    @Override
+    public CacheStatisticsData retrieveCacheStatistics() {
+        long size = 0;
+        for (final ConfigurationSnapshot snapshot : this.snapshots.values()) {
+            size += snapshot.size();
+        }
+        return CacheStatisticsData.instance("configuration", size, this.hits.get(), this.misses.get());
+    }
+
+    private void evict(final Long tenantId) {
+        this.generation.incrementAndGet();
+        this.snapshots.remove(tenantId);
+    }
+
+    /**
+     * Returns the configuration snapshot of the current tenant, loading it
+     * with three queries on first use or after it was invalidated.
+     */
+    private ConfigurationSnapshot snapshot() {
+        // uncommitted changes of this transaction are only visible to itself
+        if (TransactionSynchronizationManager.hasResource(this)) { return loadSnapshot(); }
+
+        final MifosPlatformTenant tenant = ThreadLocalContextUtil.getTenant();
+        if (tenant != null) {
+            final ConfigurationSnapshot cached = this.snapshots.get(tenant.getId());
+            if (cached != null) {
+                this.hits.incrementAndGet();
+                return cached;
+            }
+        }
+        this.misses.incrementAndGet();
+
+        final long generationAtLoad = this.generation.get();
+        final ConfigurationSnapshot loaded = this.committedReadTemplate.execute(new TransactionCallback<ConfigurationSnapshot>() {
+
+            @Override
+            public ConfigurationSnapshot doInTransaction(@SuppressWarnings("unused") final TransactionStatus status) {
+                return loadSnapshot();
+            }
+        });
+
+        // do not cache a snapshot that may have been read before an
+        // invalidation happened while it was loading
+        if (tenant != null && this.generation.get() == generationAtLoad) {
+            this.snapshots.put(tenant.getId(), loaded);
+        }
+        return loaded;
+    }
+
+    private ConfigurationSnapshot loadSnapshot() {
+        final PlatformCache cache = this.cacheTypeRepository.findOne(Long.valueOf(1));
+        return new ConfigurationSnapshot(this.globalConfigurationRepository.findAll(), this.permissionRepository.findAll(),
+                cache.isEhcacheEnabled());
     }
 
     @Override
     public Long retrievePenaltyWaitPeriod() {
         final String propertyName = "penalty-wait-period";
-        final GlobalConfigurationProperty property = this.globalConfigurationRepository.findOneByNameWithNotFoundDetection(propertyName);
-        return property.getValue();
+        return snapshot().getValue(propertyName);
     }
 
     @Override
     public Long retrieveGraceOnPenaltyPostingPeriod() {
         final String propertyName = "grace-on-penalty-posting";
-        final GlobalConfigurationProperty property = this.globalConfigurationRepository.findOneByNameWithNotFoundDetection(propertyName);
-        return property.getValue();
+        return snapshot().getValue(propertyName);
     }
 
     @Override
     public boolean isPasswordForcedResetEnable() {
         final String propertyName = "force-password-reset-days";
-        final GlobalConfigurationProperty property = this.globalConfigurationRepository.findOneByNameWithNotFoundDetection(propertyName);
-        return property.isEnabled();
+        return snapshot().isEnabled(propertyName);
     }
 
     @Override
     public Long retrievePasswordLiveTime() {
         final String propertyName = "force-password-reset-days";
-        final GlobalConfigurationProperty property = this.globalConfigurationRepository.findOneByNameWithNotFoundDetection(propertyName);
-        return property.getValue();
+        return snapshot().getValue(propertyName);
     }
 
     @Override
     public boolean isSavingsInterestPostingAtCurrentPeriodEnd() {
         final String propertyName = "savings-interest-posting-current-period-end";
-        final GlobalConfigurationProperty property = this.globalConfigurationRepository.findOneByNameWithNotFoundDetection(propertyName);
-        return property.isEnabled();
+        return snapshot().isEnabled(propertyName);
     }
 
     @Override
     public Integer retrieveFinancialYearBeginningMonth() {
         final String propertyName = "financial-year-beginning-month";
-        final GlobalConfigurationProperty property = this.globalConfigurationRepository.findOneByNameWithNotFoundDetection(propertyName);
-        if (property.isEnabled()) return property.getValue().intValue();
+        final ConfigurationSnapshot snapshot = snapshot();
+        if (snapshot.isEnabled(propertyName)) return snapshot.getValue(propertyName).intValue();
         return 1;
     }
 
     @Override
     public Integer retrieveMinAllowedClientsInGroup() {
         final String propertyName = "min-clients-in-group";
-        final GlobalConfigurationProperty property = this.globalConfigurationRepository.findOneByNameWithNotFoundDetection(propertyName);
-        if (property.isEnabled()) { return property.getValue().intValue(); }
+        final ConfigurationSnapshot snapshot = snapshot();
+        if (snapshot.isEnabled(propertyName)) { return snapshot.getValue(propertyName).intValue(); }
         return null;
     }
 
     @Override
     public Integer retrieveMaxAllowedClientsInGroup() {
         final String propertyName = "max-clients-in-group";
-        final GlobalConfigurationProperty property = this.globalConfigurationRepository.findOneByNameWithNotFoundDetection(propertyName);
-        if (property.isEnabled()) { return property.getValue().intValue(); }
+        final ConfigurationSnapshot snapshot = snapshot();
+        if (snapshot.isEnabled(propertyName)) { return snapshot.getValue(propertyName).intValue(); }
         return null;
     }
 
     @Override
     public boolean isMeetingMandatoryForJLGLoans() {
         final String propertyName = "meetings-mandatory-for-jlg-loans";
-        final GlobalConfigurationProperty property = this.globalConfigurationRepository.findOneByNameWithNotFoundDetection(propertyName);
-        return property.isEnabled();
+        return snapshot().isEnabled(propertyName);
+    }
+
+    @Override
+    public Long retrieveReportExportMaxRows() {
+        final String propertyName = "report-export-max-rows";
+        final ConfigurationSnapshot snapshot = snapshot();
+        if (snapshot.isEnabled(propertyName)) { return snapshot.getValue(propertyName); }
+        return null;
+    }
+
+    @Override
+    public Long retrieveReportExportTimeoutSeconds() {
+        final String propertyName = "report-export-timeout-seconds";
+        final ConfigurationSnapshot snapshot = snapshot();
+        if (snapshot.isEnabled(propertyName)) { return snapshot.getValue(propertyName); }
+        return null;
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,67 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.configuration.domain;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.mifosplatform.infrastructure.configuration.exception.GlobalConfigurationPropertyNotFoundException;
+import org.mifosplatform.useradministration.domain.Permission;
+import org.mifosplatform.useradministration.exception.PermissionNotFoundException;
+
+/**
+ * Immutable copy of a tenant's <code>c_configuration</code> rows, the maker
+ * checker flag of every <code>m_permission</code> row and the
+ * <code>m_cache</code> setting, as read by {@link ConfigurationDomainServiceJpa}.
+ */
+final class ConfigurationSnapshot {
+
+    private final Map<String, Boolean> enabledByName;
+    private final Map<String, Long> valueByName;
+    private final Map<String, Boolean> makerCheckerByPermissionCode;
+    private final boolean ehcacheEnabled;
+
+    ConfigurationSnapshot(final Collection<GlobalConfigurationProperty> properties, final Collection<Permission> permissions,
+            final boolean ehcacheEnabled) {
+        this.enabledByName = new HashMap<>(properties.size());
+        this.valueByName = new HashMap<>(properties.size());
+        for (final GlobalConfigurationProperty property : properties) {
+            this.enabledByName.put(property.getName(), property.isEnabled());
+            this.valueByName.put(property.getName(), property.getValue());
+        }
+        this.makerCheckerByPermissionCode = new HashMap<>(permissions.size());
+        for (final Permission permission : permissions) {
+            this.makerCheckerByPermissionCode.put(permission.getCode(), permission.hasMakerCheckerEnabled());
+        }
+        this.ehcacheEnabled = ehcacheEnabled;
+    }
+
+    boolean isEnabled(final String propertyName) {
+        final Boolean enabled = this.enabledByName.get(propertyName);
+        if (enabled == null) { throw new GlobalConfigurationPropertyNotFoundException(propertyName); }
+        return enabled;
+    }
+
+    Long getValue(final String propertyName) {
+        if (!this.valueByName.containsKey(propertyName)) { throw new GlobalConfigurationPropertyNotFoundException(propertyName); }
+        return this.valueByName.get(propertyName);
+    }
+
+    boolean hasMakerCheckerEnabled(final String permissionCode) {
+        final Boolean makerChecker = this.makerCheckerByPermissionCode.get(permissionCode);
+        if (makerChecker == null) { throw new PermissionNotFoundException(permissionCode); }
+        return makerChecker;
+    }
+
+    boolean isEhcacheEnabled() {
+        return this.ehcacheEnabled;
+    }
+
+    int size() {
+        return this.enabledByName.size() + this.makerCheckerByPermissionCode.size();
+    }
+}
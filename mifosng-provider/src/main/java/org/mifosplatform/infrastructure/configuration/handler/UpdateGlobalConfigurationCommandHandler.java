@@ -5,7 +5,9 @@
  */
 package org.mifosplatform.infrastructure.configuration.handler;
 
+import org.mifosplatform.commands.annotation.CommandType;
 import org.mifosplatform.commands.handler.NewCommandSourceHandler;
+import org.mifosplatform.infrastructure.configuration.domain.ConfigurationDomainService;
 import org.mifosplatform.infrastructure.configuration.service.GlobalConfigurationWritePlatformService;
 import org.mifosplatform.infrastructure.core.api.JsonCommand;
 import org.mifosplatform.infrastructure.core.data.CommandProcessingResult;
@@ -14,19 +16,25 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 @Service
+@CommandType(entity = "CONFIGURATION", action = "UPDATE")
 public class UpdateGlobalConfigurationCommandHandler implements NewCommandSourceHandler {
 
     private final GlobalConfigurationWritePlatformService writePlatformService;
+    private final ConfigurationDomainService configurationDomainService;
 
     @Autowired
-    public UpdateGlobalConfigurationCommandHandler(final GlobalConfigurationWritePlatformService writePlatformService) {
+    public UpdateGlobalConfigurationCommandHandler(final GlobalConfigurationWritePlatformService writePlatformService,
+            final ConfigurationDomainService configurationDomainService) {
         this.writePlatformService = writePlatformService;
+        this.configurationDomainService = configurationDomainService;
     }
 
     @Transactional
     @Override
     public CommandProcessingResult processCommand(final JsonCommand command) {
 
-        return this.writePlatformService.update(command.entityId(), command);
+        final CommandProcessingResult result = this.writePlatformService.update(command.entityId(), command);
+        this.configurationDomainService.invalidateConfigurationCache();
+        return result;
     }
 }
\ No newline at end of file
@@ -23,6 +23,7 @@ public class ExternalServicesConstants {
     public static final String SMS_AUTH_USERNAME = "sms_auth_username";
     public static final String SMS_AUTH_PASSWORD = "sms_auth_password";
     public static final String SMS_OUTBOUND_MAX_PER_DAY = "sms_outbound_max_per_day";
+    public static final String SMS_OUTBOUND_MAX_PER_SECOND = "sms_outbound_max_per_second";
     public static final String SMS_SENDER_NAME = "sms_sender_name";
     public static final String SMS_SENDER_ADDRESS = "sms_sender_address";
     public static final String SMS_NOTIFY_URL = "sms_notify_url";
@@ -105,6 +105,7 @@ public class ExternalServicesReadPlatformServiceImpl implements ExternalServices
             String senderName = null;
             String senderAddress = null;
             Long outboundMaxPerDay = -1L;
+            Long outboundMaxPerSecond = -1L;
             String notifyUrl = null;
             boolean debug = false;
             String debugPhone = null;
@@ -119,6 +120,8 @@ public class ExternalServicesReadPlatformServiceImpl implements ExternalServices
                     senderAddress = rs.getString("value");
                 } else if (rs.getString("name").equalsIgnoreCase(ExternalServicesConstants.SMS_OUTBOUND_MAX_PER_DAY)) {
                     outboundMaxPerDay = Long.valueOf(rs.getString("value"));
+                } else if (rs.getString("name").equalsIgnoreCase(ExternalServicesConstants.SMS_OUTBOUND_MAX_PER_SECOND)) {
+                    outboundMaxPerSecond = Long.valueOf(rs.getString("value"));
                 } else if (rs.getString("name").equalsIgnoreCase(ExternalServicesConstants.SMS_NOTIFY_URL)) {
                     notifyUrl = rs.getString("value");
                 } else if (rs.getString("name").equalsIgnoreCase(ExternalServicesConstants.SMS_DEBUG)) {
@@ -127,7 +130,8 @@ public class ExternalServicesReadPlatformServiceImpl implements ExternalServices
                     debugPhone = rs.getString("value");
                 }
             }
-            return new SmsCredentialsData(authUsername, authPassword, senderName, senderAddress, outboundMaxPerDay, notifyUrl, debug, debugPhone);
+            return new SmsCredentialsData(authUsername, authPassword, senderName, senderAddress, outboundMaxPerDay, outboundMaxPerSecond, notifyUrl, debug,
+                    debugPhone);
         }
     }
 
@@ -0,0 +1,44 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.core.data;
+
+/**
+ * Immutable data object representing the state of a tenant connection pool.
+ */
+public class DataSourcePoolData {
+
+    @SuppressWarnings("unused")
+    private final String tenantIdentifier;
+    @SuppressWarnings("unused")
+    private final String poolName;
+    @SuppressWarnings("unused")
+    private final int maxActive;
+    @SuppressWarnings("unused")
+    private final int active;
+    @SuppressWarnings("unused")
+    private final int idle;
+    @SuppressWarnings("unused")
+    private final int waiting;
+    @SuppressWarnings("unused")
+    private final long borrowCount;
+    @SuppressWarnings("unused")
+    private final long averageWaitMillis;
+    @SuppressWarnings("unused")
+    private final long maxWaitMillis;
+
+    public DataSourcePoolData(final String tenantIdentifier, final String poolName, final int maxActive, final int active,
+            final int idle, final int waiting, final long borrowCount, final long averageWaitMillis, final long maxWaitMillis) {
+        this.tenantIdentifier = tenantIdentifier;
+        this.poolName = poolName;
+        this.maxActive = maxActive;
+        this.active = active;
+        this.idle = idle;
+        this.waiting = waiting;
+        this.borrowCount = borrowCount;
+        this.averageWaitMillis = averageWaitMillis;
+        this.maxWaitMillis = maxWaitMillis;
+    }
+}
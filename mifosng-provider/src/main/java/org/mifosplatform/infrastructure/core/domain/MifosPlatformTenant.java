@@ -132,6 +132,14 @@ public class MifosPlatformTenant {
         return this.schemaName;
     }
 
+    public String getSchemaServer() {
+        return this.schemaServer;
+    }
+
+    public String getSchemaServerPort() {
+        return this.schemaServerPort;
+    }
+
     public String getSchemaUsername() {
         return this.schemaUsername;
     }
@@ -5,14 +5,24 @@
  */
 package org.mifosplatform.infrastructure.core.serialization;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
 import java.util.Collection;
 import java.util.Set;
 
+import javax.ws.rs.core.StreamingOutput;
+
 import org.mifosplatform.infrastructure.core.service.Page;
+import org.mifosplatform.infrastructure.core.service.StreamingPage;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonIOException;
+import com.google.gson.stream.JsonWriter;
 
 /**
  * An abstract helper implementation of {@link ToApiJsonSerializer} for
@@ -98,6 +108,95 @@ public final class DefaultToApiJsonSerializer<T> implements ToApiJsonSerializer<
         return serializeWithSettings(delegatedSerializer, settings, singleObject);
     }
 
+    @Override
+    public StreamingOutput serializeStreaming(final ApiRequestJsonSerializationSettings settings, final Collection<T> collection,
+            final Set<String> supportedResponseParameters) {
+        final Gson gson = findStreamingSerializer(settings, supportedResponseParameters);
+        return new StreamingOutput() {
+
+            @Override
+            public void write(final OutputStream output) throws IOException {
+                final JsonWriter writer = newJsonWriter(output, settings);
+                try {
+                    writer.beginArray();
+                    for (final T item : collection) {
+                        writeItem(gson, writer, item);
+                    }
+                    writer.endArray();
+                } catch (final JsonIOException e) {
+                    throw ioExceptionOf(e);
+                }
+                writer.flush();
+            }
+        };
+    }
+
+    @Override
+    public StreamingOutput serializeStreaming(final ApiRequestJsonSerializationSettings settings, final StreamingPage<T> page,
+            final Set<String> supportedResponseParameters) {
+        final Gson gson = findStreamingSerializer(settings, supportedResponseParameters);
+        return new StreamingOutput() {
+
+            @Override
+            public void write(final OutputStream output) throws IOException {
+                final JsonWriter writer = newJsonWriter(output, settings);
+                try {
+                    // the rows are written before the total as the total of
+                    // SQL_CALC_FOUND_ROWS queries is only known once they are read
+                    writer.beginObject();
+                    writer.name("pageItems");
+                    writer.beginArray();
+                    final StreamingPage.Summary summary = page.stream(new StreamingPage.RowHandler<T>() {
+
+                        @Override
+                        public void handle(final T item) {
+                            writeItem(gson, writer, item);
+                        }
+                    });
+                    writer.endArray();
+                    if (summary.getTotalFilteredRecords() != null) {
+                        writer.name("totalFilteredRecords").value(summary.getTotalFilteredRecords());
+                    }
+                    if (summary.getNextCursor() != null) {
+                        writer.name("nextCursor").value(summary.getNextCursor());
+                    }
+                    writer.endObject();
+                } catch (final JsonIOException e) {
+                    throw ioExceptionOf(e);
+                }
+                writer.flush();
+            }
+        };
+    }
+
+    private Gson findStreamingSerializer(final ApiRequestJsonSerializationSettings settings, final Set<String> supportedResponseParameters) {
+        // resolved before streaming starts so that unsupported fields are
+        // still reported as a bad request
+        final Gson gson = findAppropriateSerializer(settings, supportedResponseParameters);
+        return gson == null ? this.excludeNothingWithPrettyPrintingOff.gson() : gson;
+    }
+
+    private static JsonWriter newJsonWriter(final OutputStream output, final ApiRequestJsonSerializationSettings settings) {
+        final JsonWriter writer = new JsonWriter(new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8)));
+        if (settings.isPrettyPrint()) {
+            writer.setIndent("  ");
+        }
+        return writer;
+    }
+
+    private static void writeItem(final Gson gson, final JsonWriter writer, final Object item) {
+        if (item == null) {
+            gson.toJson(null, Object.class, writer);
+        } else {
+            gson.toJson(item, item.getClass(), writer);
+        }
+    }
+
+    private static IOException ioExceptionOf(final JsonIOException e) {
+        if (e.getCause() instanceof IOException) { return (IOException) e.getCause(); }
+        return new IOException(e);
+    }
+
     private String serializeWithSettings(final Gson gson, final ApiRequestJsonSerializationSettings settings, final Object[] dataObject) {
         String json = null;
         if (gson != null) {
@@ -40,6 +40,10 @@ public final class ExcludeNothingWithPrettyPrintingOffJsonSerializerGoogleGson {
         this.gson = builder.create();
     }
 
+    Gson gson() {
+        return this.gson;
+    }
+
     public String serialize(final Object result) {
         String returnedResult = null;
         final String serializedResult = this.gson.toJson(result);
@@ -29,6 +29,7 @@ import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
+import com.google.gson.JsonSyntaxException;
 
 @Primary
 @Component
@@ -83,6 +84,18 @@ public class FromJsonHelper {
         if (!unsupportedParameterList.isEmpty()) { throw new UnsupportedParameterException(unsupportedParameterList); }
     }
 
+    /**
+     * Same check as {@link #checkForUnsupportedParameters(Type, String, Set)}
+     * on a request body that was already parsed, such as the one of a
+     * command, so that it does not have to be read again.
+     */
+    public void checkForUnsupportedParameters(final JsonElement element, final Set<String> supportedParams) {
+        if (element == null || element.isJsonNull()) { throw new InvalidJsonException(); }
+        if (!element.isJsonObject()) { throw new JsonSyntaxException("Expected a JSON object"); }
+
+        checkForUnsupportedParameters(element.getAsJsonObject(), supportedParams);
+    }
+
     public void checkForUnsupportedParameters(final JsonObject object, final Set<String> supportedParams) {
         if (object == null) { throw new InvalidParameterException(); }
 
@@ -6,12 +6,19 @@
 package org.mifosplatform.infrastructure.core.serialization;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.joda.time.DateTime;
 import org.joda.time.LocalDate;
 import org.joda.time.MonthDay;
+import org.mifosplatform.infrastructure.cache.data.CacheStatisticsData;
+import org.mifosplatform.infrastructure.cache.service.CacheStatisticsProvider;
 import org.mifosplatform.infrastructure.core.api.JodaDateTimeAdapter;
 import org.mifosplatform.infrastructure.core.api.JodaLocalDateAdapter;
 import org.mifosplatform.infrastructure.core.api.JodaMonthDayAdapter;
@@ -26,9 +33,26 @@ import com.google.gson.GsonBuilder;
 
 /**
  * Helper class for serialization of java objects into JSON using google-gson.
+ *
+ * The serializers used for partial responses (<code>fields=</code>) are kept
+ * in a bounded LRU cache keyed by pretty printing and the parameter sets they
+ * filter on, as building a {@link Gson} and warming up its reflective type
+ * adapters costs more than serializing a typical response.
  */
 @Service
-public final class GoogleGsonSerializerHelper {
+public final class GoogleGsonSerializerHelper implements CacheStatisticsProvider {
+
+    private static final int MAX_CACHED_SERIALIZERS = 256;
+
+    private final Map<List<Object>, Gson> partialResponseSerializers = new LinkedHashMap<List<Object>, Gson>(64, 0.75f, true) {
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<List<Object>, Gson> eldest) {
+            return size() > MAX_CACHED_SERIALIZERS;
+        }
+    };
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
 
     public Gson createGsonBuilder(final boolean prettyPrint) {
         final GsonBuilder builder = new GsonBuilder();
@@ -43,6 +67,16 @@ public final class GoogleGsonSerializerHelper {
 
     public Gson createGsonBuilderForPartialResponseFiltering(final boolean prettyPrint, final Set<String> responseParameters) {
 
+        final List<Object> key = Arrays.<Object> asList("include", prettyPrint, new HashSet<>(responseParameters));
+        Gson gson = cachedSerializer(key);
+        if (gson == null) {
+            gson = cacheSerializer(key, buildGsonForPartialResponseFiltering(prettyPrint, new HashSet<>(responseParameters)));
+        }
+        return gson;
+    }
+
+    private Gson buildGsonForPartialResponseFiltering(final boolean prettyPrint, final Set<String> responseParameters) {
+
         final ExclusionStrategy strategy = new ParameterListInclusionStrategy(responseParameters);
 
         final GsonBuilder builder = new GsonBuilder().addSerializationExclusionStrategy(strategy);
@@ -58,6 +92,21 @@ public final class GoogleGsonSerializerHelper {
     public Gson createGsonBuilderWithParameterExclusionSerializationStrategy(final Set<String> supportedParameters,
             final boolean prettyPrint, final Set<String> responseParameters) {
 
+        // only serializers for valid parameters get cached, so a hit needs
+        // no further checks
+        final List<Object> key = Arrays.<Object> asList("exclude", prettyPrint, new HashSet<>(responseParameters), new HashSet<>(
+                supportedParameters));
+        Gson gson = cachedSerializer(key);
+        if (gson == null) {
+            gson = cacheSerializer(key, buildGsonWithParameterExclusionSerializationStrategy(supportedParameters, prettyPrint,
+                    responseParameters));
+        }
+        return gson;
+    }
+
+    private Gson buildGsonWithParameterExclusionSerializationStrategy(final Set<String> supportedParameters, final boolean prettyPrint,
+            final Set<String> responseParameters) {
+
         final Set<String> parameterNamesToSkip = new HashSet<>();
 
         if (!responseParameters.isEmpty()) {
@@ -86,6 +135,37 @@ public final class GoogleGsonSerializerHelper {
         return builder.create();
     }
 
+    @Override
+    public CacheStatisticsData retrieveCacheStatistics() {
+        final int size;
+        synchronized (this.partialResponseSerializers) {
+            size = this.partialResponseSerializers.size();
+        }
+        return CacheStatisticsData.instance("partialResponseSerializer", size, this.hits.get(), this.misses.get());
+    }
+
+    private Gson cachedSerializer(final List<Object> key) {
+        final Gson gson;
+        synchronized (this.partialResponseSerializers) {
+            gson = this.partialResponseSerializers.get(key);
+        }
+        if (gson == null) {
+            this.misses.incrementAndGet();
+        } else {
+            this.hits.incrementAndGet();
+        }
+        return gson;
+    }
+
+    private Gson cacheSerializer(final List<Object> key, final Gson gson) {
+        synchronized (this.partialResponseSerializers) {
+            final Gson cached = this.partialResponseSerializers.get(key);
+            if (cached != null) { return cached; }
+            this.partialResponseSerializers.put(key, gson);
+        }
+        return gson;
+    }
+
     public String serializedJsonFrom(final Gson serializer, final Object[] dataObjects) {
         return serializer.toJson(dataObjects);
     }
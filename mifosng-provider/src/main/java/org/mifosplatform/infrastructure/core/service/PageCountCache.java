@@ -0,0 +1,100 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.core.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.mifosplatform.infrastructure.cache.data.CacheStatisticsData;
+import org.mifosplatform.infrastructure.cache.service.CacheStatisticsProvider;
+import org.mifosplatform.infrastructure.core.domain.MifosPlatformTenant;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the totals of paged list queries for a few minutes so that lists
+ * requested with <code>count=approximate</code> only count the matching rows
+ * once in a while instead of on every page. Totals may therefore lag behind
+ * rows created or deleted in the meantime.
+ */
+@Component
+public class PageCountCache implements CacheStatisticsProvider {
+
+    private static final int MAX_CACHED_COUNTS = 1000;
+    private static final long TIME_TO_LIVE_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    private final Map<List<Object>, CachedCount> counts = new LinkedHashMap<List<Object>, CachedCount>(64, 0.75f, true) {
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<List<Object>, CachedCount> eldest) {
+            return size() > MAX_CACHED_COUNTS;
+        }
+    };
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * @return recent total of the count query with these arguments,
+     *         <code>null</code> when there is none
+     */
+    public Integer get(final String sqlCountRows, final Object[] args) {
+        final List<Object> key = keyOf(sqlCountRows, args);
+        synchronized (this.counts) {
+            final CachedCount cached = this.counts.get(key);
+            if (cached != null && cached.expiresAt > System.currentTimeMillis()) {
+                this.hits.incrementAndGet();
+                return cached.total;
+            }
+            if (cached != null) {
+                this.counts.remove(key);
+            }
+        }
+        this.misses.incrementAndGet();
+        return null;
+    }
+
+    public void put(final String sqlCountRows, final Object[] args, final int total) {
+        final List<Object> key = keyOf(sqlCountRows, args);
+        synchronized (this.counts) {
+            this.counts.put(key, new CachedCount(total, System.currentTimeMillis() + TIME_TO_LIVE_MILLIS));
+        }
+    }
+
+    @Override
+    public CacheStatisticsData retrieveCacheStatistics() {
+        final int size;
+        synchronized (this.counts) {
+            size = this.counts.size();
+        }
+        return CacheStatisticsData.instance("pageCount", size, this.hits.get(), this.misses.get());
+    }
+
+    private static List<Object> keyOf(final String sqlCountRows, final Object[] args) {
+        final MifosPlatformTenant tenant = ThreadLocalContextUtil.getTenant();
+        final List<Object> key = new ArrayList<>();
+        key.add(tenant == null ? null : tenant.getId());
+        key.add(sqlCountRows);
+        if (args != null) {
+            key.addAll(Arrays.asList(args));
+        }
+        return key;
+    }
+
+    private static final class CachedCount {
+
+        private final int total;
+        private final long expiresAt;
+
+        CachedCount(final int total, final long expiresAt) {
+            this.total = total;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.core.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.lang.StringUtils;
+import org.mifosplatform.infrastructure.core.data.ApiParameterError;
+import org.mifosplatform.infrastructure.core.exception.PlatformApiDataValidationException;
+
+/**
+ * How the total of a paged list is worked out, as requested through the
+ * <code>count</code> query parameter of list resources.
+ */
+public enum PageCountMode {
+
+    /** counts every matching row for each page */
+    EXACT("exact"), //
+    /** reuses a recent count of the same query, see {@link PageCountCache} */
+    APPROXIMATE("approximate"), //
+    /** leaves the total out of the page */
+    NONE("none");
+
+    private final String code;
+
+    private PageCountMode(final String code) {
+        this.code = code;
+    }
+
+    public String getCode() {
+        return this.code;
+    }
+
+    public static PageCountMode fromCode(final String code) {
+        if (StringUtils.isBlank(code)) { return EXACT; }
+        for (final PageCountMode mode : values()) {
+            if (mode.code.equalsIgnoreCase(code.trim())) { return mode; }
+        }
+        final List<ApiParameterError> dataValidationErrors = new ArrayList<>();
+        dataValidationErrors.add(ApiParameterError.parameterError("validation.msg.count.invalid",
+                "The parameter count must be one of exact, approximate or none.", "count", code));
+        throw new PlatformApiDataValidationException(dataValidationErrors);
+    }
+}
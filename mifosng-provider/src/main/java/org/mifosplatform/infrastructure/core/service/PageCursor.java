@@ -0,0 +1,51 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.core.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.bind.DatatypeConverter;
+
+import org.mifosplatform.infrastructure.core.data.ApiParameterError;
+import org.mifosplatform.infrastructure.core.exception.PlatformApiDataValidationException;
+
+/**
+ * Opaque, URL safe token handed out as <code>nextCursor</code> by keyset
+ * paginated lists; it holds the key of the last row of a page so the next
+ * page can seek straight past it.
+ */
+public final class PageCursor {
+
+    private static final String PREFIX = "k1:";
+
+    private PageCursor() {
+        //
+    }
+
+    public static String encode(final long lastKey) {
+        final String base64 = DatatypeConverter.printBase64Binary((PREFIX + lastKey).getBytes(StandardCharsets.UTF_8));
+        return base64.replace('+', '-').replace('/', '_').replace("=", "");
+    }
+
+    public static long decode(final String cursor) {
+        try {
+            final StringBuilder base64 = new StringBuilder(cursor.trim().replace('-', '+').replace('_', '/'));
+            while (base64.length() % 4 != 0) {
+                base64.append('=');
+            }
+            final String value = new String(DatatypeConverter.parseBase64Binary(base64.toString()), StandardCharsets.UTF_8);
+            if (value.startsWith(PREFIX)) { return Long.parseLong(value.substring(PREFIX.length())); }
+        } catch (final IllegalArgumentException e) {
+            // reported below
+        }
+        final List<ApiParameterError> dataValidationErrors = new ArrayList<>();
+        dataValidationErrors.add(ApiParameterError.parameterError("validation.msg.cursor.invalid",
+                "The parameter cursor is not a value returned as nextCursor.", "cursor", cursor));
+        throw new PlatformApiDataValidationException(dataValidationErrors);
+    }
+}
@@ -5,13 +5,32 @@
  */
 package org.mifosplatform.infrastructure.core.service;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
+import org.mifosplatform.infrastructure.core.data.ApiParameterError;
+import org.mifosplatform.infrastructure.core.exception.PlatformApiDataValidationException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
 
 public class PaginationHelper<E> {
 
+    private final PageCountCache pageCountCache;
+
+    public PaginationHelper() {
+        this(null);
+    }
+
+    /**
+     * @param pageCountCache
+     *            used for lists requested with <code>count=approximate</code>,
+     *            without it their totals are always exact
+     */
+    public PaginationHelper(final PageCountCache pageCountCache) {
+        this.pageCountCache = pageCountCache;
+    }
+
     public Page<E> fetchPage(final JdbcTemplate jt, final String sqlCountRows, final String sqlFetchRows, final Object args[],
             final RowMapper<E> rowMapper) {
 
@@ -23,4 +42,108 @@ public class PaginationHelper<E> {
 
         return new Page<>(items, totalFilteredRecords);
     }
-}
\ No newline at end of file
+
+    /**
+     * Same as {@link #fetchPage} but defers the queries until the page is
+     * streamed, see {@link StreamingPage}.
+     */
+    public StreamingPage<E> streamPage(final JdbcTemplate jt, final String sqlCountRows, final String sqlFetchRows, final Object args[],
+            final RowMapper<E> rowMapper) {
+        return new StreamingPage<>(jt, sqlCountRows, sqlFetchRows, args, rowMapper);
+    }
+
+    /**
+     * Pages through the rows of a query without <code>SQL_CALC_FOUND_ROWS</code>.
+     *
+     * When neither an order nor an offset is requested the rows are ordered
+     * by <code>keyColumn</code> and the page seeks past the key held by the
+     * cursor of the search parameters, so each page costs about as much as
+     * the first one; otherwise the requested order, limit and offset are
+     * applied as usual. The total is worked out by a separate count query as
+     * asked for through {@link SearchParameters#getCountMode()}.
+     *
+     * @param sqlFetchRows
+     *            <code>select ... from ... where ...</code> query without
+     *            <code>group by</code>, <code>order by</code> or
+     *            <code>limit</code>
+     * @param keyColumn
+     *            unique, numeric column such as <code>c.id</code>, selected
+     *            under the label that follows the table alias
+     */
+    public StreamingPage<E> streamPage(final JdbcTemplate jt, final String sqlFetchRows, final Object args[], final String keyColumn,
+            final SearchParameters searchParameters, final RowMapper<E> rowMapper) {
+
+        final boolean keyset = searchParameters.isLimited() && !searchParameters.isOrderByRequested() && !searchParameters.isOffset();
+        if (searchParameters.isCursorPassed() && !keyset) {
+            final List<ApiParameterError> dataValidationErrors = new ArrayList<>();
+            dataValidationErrors.add(ApiParameterError.parameterError("validation.msg.cursor.cannot.be.combined",
+                    "The parameter cursor cannot be combined with offset, orderBy or an unlimited limit.", "cursor",
+                    searchParameters.getCursor()));
+            throw new PlatformApiDataValidationException(dataValidationErrors);
+        }
+
+        final StringBuilder sqlBuilder = new StringBuilder(sqlFetchRows);
+        final List<Object> fetchArgs = new ArrayList<>(Arrays.asList(args));
+        if (keyset) {
+            if (searchParameters.isCursorPassed()) {
+                sqlBuilder.append(" and ").append(keyColumn).append(" > ?");
+                fetchArgs.add(PageCursor.decode(searchParameters.getCursor()));
+            }
+            sqlBuilder.append(" order by ").append(keyColumn);
+            // one more row than asked for tells whether there is a next page
+            sqlBuilder.append(" limit ").append(searchParameters.getLimit() + 1);
+        } else {
+            if (searchParameters.isOrderByRequested()) {
+                sqlBuilder.append(" order by ").append(searchParameters.getOrderBy());
+
+                if (searchParameters.isSortOrderProvided()) {
+                    sqlBuilder.append(' ').append(searchParameters.getSortOrder());
+                }
+            }
+
+            if (searchParameters.isLimited()) {
+                sqlBuilder.append(" limit ").append(searchParameters.getLimit());
+                if (searchParameters.isOffset()) {
+                    sqlBuilder.append(" offset ").append(searchParameters.getOffset());
+                }
+            }
+        }
+
+        String sqlCountRows = null;
+        PageCountCache countCache = null;
+        if (searchParameters.getCountMode() != PageCountMode.NONE) {
+            sqlCountRows = "select count(*) " + sqlFetchRows.substring(indexOfFrom(sqlFetchRows));
+            if (searchParameters.getCountMode() == PageCountMode.APPROXIMATE) {
+                countCache = this.pageCountCache;
+            }
+        }
+
+        final String keyLabel = keyset ? keyColumn.substring(keyColumn.lastIndexOf('.') + 1) : null;
+        final int pageSize = keyset ? searchParameters.getLimit() : 0;
+        return new StreamingPage<>(jt, sqlBuilder.toString(), fetchArgs.toArray(), rowMapper, sqlCountRows, args, countCache, keyLabel,
+                pageSize);
+    }
+
+    /**
+     * @return position of the <code>from</code> keyword of the outer query,
+     *         skipping those of sub queries in the select list
+     */
+    static int indexOfFrom(final String sql) {
+        final String lowerCaseSql = sql.toLowerCase();
+        int depth = 0;
+        for (int i = 0; i < lowerCaseSql.length(); i++) {
+            final char c = lowerCaseSql.charAt(i);
+            if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (depth == 0 && lowerCaseSql.startsWith("from", i) && isBoundary(lowerCaseSql, i - 1)
+                    && isBoundary(lowerCaseSql, i + 4)) { return i; }
+        }
+        throw new IllegalArgumentException("No from clause in " + sql);
+    }
+
+    private static boolean isBoundary(final String sql, final int index) {
+        return index < 0 || index >= sql.length() || !Character.isLetterOrDigit(sql.charAt(index)) && sql.charAt(index) != '_';
+    }
+}
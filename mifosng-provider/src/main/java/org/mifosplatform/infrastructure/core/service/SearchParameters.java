@@ -23,6 +23,8 @@ public final class SearchParameters {
     private final String accountNo;
 
     private final Long staffId;
+    private final String cursor;
+    private final PageCountMode countMode;
 
     public static SearchParameters from(final String sqlSearch, final Long officeId, final String externalId, final String name,
             final String hierarchy) {
@@ -113,6 +115,14 @@ public final class SearchParameters {
     private SearchParameters(final String sqlSearch, final Long officeId, final String externalId, final String name,
             final String hierarchy, final String firstname, final String lastname, final Integer offset, final Integer limit,
             final String orderBy, final String sortOrder, final Long staffId, final String accountNo) {
+        this(sqlSearch, officeId, externalId, name, hierarchy, firstname, lastname, offset, limit, orderBy, sortOrder, staffId, accountNo,
+                null, PageCountMode.EXACT);
+    }
+
+    private SearchParameters(final String sqlSearch, final Long officeId, final String externalId, final String name,
+            final String hierarchy, final String firstname, final String lastname, final Integer offset, final Integer limit,
+            final String orderBy, final String sortOrder, final Long staffId, final String accountNo, final String cursor,
+            final PageCountMode countMode) {
         this.sqlSearch = sqlSearch;
         this.officeId = officeId;
         this.externalId = externalId;
@@ -126,6 +136,19 @@ public final class SearchParameters {
         this.sortOrder = sortOrder;
         this.staffId = staffId;
         this.accountNo = accountNo;
+        this.cursor = cursor;
+        this.countMode = countMode;
+    }
+
+    /**
+     * @return a copy of these parameters that continues after the page whose
+     *         <code>nextCursor</code> is given and works out the total as
+     *         requested through the <code>count</code> query parameter
+     */
+    public SearchParameters withCursorAndCount(final String cursor, final String count) {
+        return new SearchParameters(this.sqlSearch, this.officeId, this.externalId, this.name, this.hierarchy, this.firstname,
+                this.lastname, this.offset, this.limit, this.orderBy, this.sortOrder, this.staffId, this.accountNo,
+                StringUtils.trimToNull(cursor), PageCountMode.fromCode(count));
     }
 
     public boolean isOrderByRequested() {
@@ -224,4 +247,16 @@ public final class SearchParameters {
         return this.accountNo;
     }
 
+    public boolean isCursorPassed() {
+        return this.cursor != null;
+    }
+
+    public String getCursor() {
+        return this.cursor;
+    }
+
+    public PageCountMode getCountMode() {
+        return this.countMode;
+    }
+
 }
\ No newline at end of file
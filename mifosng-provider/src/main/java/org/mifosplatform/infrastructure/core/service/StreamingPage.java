@@ -0,0 +1,192 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.core.service;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.JdbcUtils;
+
+/**
+ * A {@link Page} whose query only runs when its items are handed one by one to
+ * a {@link RowHandler}, so that a response can be written while the rows are
+ * read instead of holding the whole page in memory.
+ *
+ * The rows are read with a forward only, streaming result set and the count
+ * query is run right after it on the same connection, which keeps
+ * <code>SELECT FOUND_ROWS()</code> counts correct.
+ *
+ * Pages built by {@link PaginationHelper} for keyset pagination fetch one row
+ * more than they return; when it is there the key of the last returned row
+ * becomes the {@link Summary#getNextCursor() next cursor}.
+ */
+public class StreamingPage<E> {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String sqlFetchRows;
+    private final Object[] args;
+    private final RowMapper<E> rowMapper;
+    private final String sqlCountRows;
+    private final Object[] countArgs;
+    private final PageCountCache pageCountCache;
+    private final String keyLabel;
+    private final int pageSize;
+
+    public StreamingPage(final JdbcTemplate jdbcTemplate, final String sqlCountRows, final String sqlFetchRows, final Object[] args,
+            final RowMapper<E> rowMapper) {
+        this(jdbcTemplate, sqlFetchRows, args, rowMapper, sqlCountRows, null, null, null, 0);
+    }
+
+    /**
+     * @param sqlCountRows
+     *            count query run with <code>countArgs</code>, no total is
+     *            worked out when <code>null</code>
+     * @param pageCountCache
+     *            when given, recent totals of the count query are reused
+     * @param keyLabel
+     *            label of the key column of keyset paginated queries, which
+     *            fetch <code>pageSize + 1</code> rows ordered by that key
+     */
+    StreamingPage(final JdbcTemplate jdbcTemplate, final String sqlFetchRows, final Object[] args, final RowMapper<E> rowMapper,
+            final String sqlCountRows, final Object[] countArgs, final PageCountCache pageCountCache, final String keyLabel,
+            final int pageSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.sqlFetchRows = sqlFetchRows;
+        this.args = args;
+        this.rowMapper = rowMapper;
+        this.sqlCountRows = sqlCountRows;
+        this.countArgs = countArgs;
+        this.pageCountCache = pageCountCache;
+        this.keyLabel = keyLabel;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Reads the whole page into memory.
+     */
+    public Page<E> fetch() {
+        final List<E> items = new ArrayList<>();
+        final Summary summary = stream(new RowHandler<E>() {
+
+            @Override
+            public void handle(final E item) {
+                items.add(item);
+            }
+        });
+        return new Page<>(items, summary.getTotalFilteredRecords(), summary.getNextCursor());
+    }
+
+    /**
+     * Passes every row of the page to the handler as it is read.
+     */
+    public Summary stream(final RowHandler<E> handler) {
+        return this.jdbcTemplate.execute(new ConnectionCallback<Summary>() {
+
+            @Override
+            public Summary doInConnection(final Connection connection) throws SQLException, DataAccessException {
+                final String nextCursor = streamRows(connection, handler);
+                return new Summary(countRows(connection), nextCursor);
+            }
+        });
+    }
+
+    private String streamRows(final Connection connection, final RowHandler<E> handler) throws SQLException {
+        PreparedStatement statement = null;
+        ResultSet rs = null;
+        try {
+            statement = connection.prepareStatement(this.sqlFetchRows, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            new ArgumentPreparedStatementSetter(this.args).setValues(statement);
+            // makes MySQL Connector/J fetch rows as they are read instead of
+            // buffering the whole result
+            statement.setFetchSize(Integer.MIN_VALUE);
+            rs = statement.executeQuery();
+            int rowNum = 0;
+            long lastKey = 0;
+            while (rs.next()) {
+                if (this.keyLabel != null) {
+                    // the extra row only tells that there is a next page
+                    if (rowNum == this.pageSize) { return PageCursor.encode(lastKey); }
+                    lastKey = rs.getLong(this.keyLabel);
+                }
+                handler.handle(this.rowMapper.mapRow(rs, rowNum++));
+            }
+            return null;
+        } finally {
+            JdbcUtils.closeResultSet(rs);
+            JdbcUtils.closeStatement(statement);
+        }
+    }
+
+    private Integer countRows(final Connection connection) throws SQLException {
+        if (this.sqlCountRows == null) { return null; }
+        if (this.pageCountCache != null) {
+            final Integer cached = this.pageCountCache.get(this.sqlCountRows, this.countArgs);
+            if (cached != null) { return cached; }
+        }
+
+        PreparedStatement statement = null;
+        ResultSet rs = null;
+        try {
+            statement = connection.prepareStatement(this.sqlCountRows);
+            if (this.countArgs != null) {
+                new ArgumentPreparedStatementSetter(this.countArgs).setValues(statement);
+            }
+            rs = statement.executeQuery();
+            final int total = rs.next() ? rs.getInt(1) : 0;
+            if (this.pageCountCache != null) {
+                this.pageCountCache.put(this.sqlCountRows, this.countArgs, total);
+            }
+            return total;
+        } finally {
+            JdbcUtils.closeResultSet(rs);
+            JdbcUtils.closeStatement(statement);
+        }
+    }
+
+    public interface RowHandler<E> {
+
+        void handle(E item);
+    }
+
+    /**
+     * What is known about the page once all of its rows were streamed.
+     */
+    public static final class Summary {
+
+        private final Integer totalFilteredRecords;
+        private final String nextCursor;
+
+        Summary(final Integer totalFilteredRecords, final String nextCursor) {
+            this.totalFilteredRecords = totalFilteredRecords;
+            this.nextCursor = nextCursor;
+        }
+
+        /**
+         * @return total number of rows matching the query,
+         *         <code>null</code> when counting was skipped
+         */
+        public Integer getTotalFilteredRecords() {
+            return this.totalFilteredRecords;
+        }
+
+        /**
+         * @return cursor of the next page, <code>null</code> on the last
+         *         page and for lists that are not keyset paginated
+         */
+        public String getNextCursor() {
+            return this.nextCursor;
+        }
+    }
+}
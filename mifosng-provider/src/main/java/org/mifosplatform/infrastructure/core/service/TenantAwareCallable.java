@@ -0,0 +1,53 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.core.service;
+
+import java.util.concurrent.Callable;
+
+import org.mifosplatform.infrastructure.core.domain.MifosPlatformTenant;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+/**
+ * Wraps a {@link Callable} so it runs on a pooled thread with the tenant,
+ * data source context, auth token and spring security context of the thread
+ * that created it. The worker thread's context is cleared again once the
+ * delegate returns so nothing leaks into the next task run on that thread.
+ */
+public class TenantAwareCallable<T> implements Callable<T> {
+
+    private final Callable<T> delegate;
+    private final MifosPlatformTenant tenant;
+    private final String dataSourceContext;
+    private final String authToken;
+    private final SecurityContext securityContext;
+
+    public TenantAwareCallable(final Callable<T> delegate) {
+        this.delegate = delegate;
+        this.tenant = ThreadLocalContextUtil.getTenant();
+        this.dataSourceContext = ThreadLocalContextUtil.getDataSourceContext();
+        this.authToken = ThreadLocalContextUtil.getAuthToken();
+        this.securityContext = SecurityContextHolder.getContext();
+    }
+
+    @Override
+    public T call() throws Exception {
+        try {
+            if (this.tenant != null) {
+                ThreadLocalContextUtil.setTenant(this.tenant);
+            }
+            ThreadLocalContextUtil.setDataSourceContext(this.dataSourceContext);
+            ThreadLocalContextUtil.setAuthToken(this.authToken);
+            SecurityContextHolder.setContext(this.securityContext);
+            return this.delegate.call();
+        } finally {
+            SecurityContextHolder.clearContext();
+            ThreadLocalContextUtil.setAuthToken(null);
+            ThreadLocalContextUtil.clearDataSourceContext();
+            ThreadLocalContextUtil.clearTenant();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.core.service;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.lang.ObjectUtils;
+import org.apache.tomcat.jdbc.pool.DataSource;
+import org.mifosplatform.infrastructure.core.data.DataSourcePoolData;
+import org.mifosplatform.infrastructure.core.domain.MifosPlatformTenant;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * The tomcat jdbc connection pool of one tenant together with the tenant
+ * details it was built from, so a change of connection or pool settings can be
+ * detected, and borrow counters for the pool metrics API.
+ */
+public class TenantDataSourcePool extends DelegatingDataSource {
+
+    private final MifosPlatformTenant tenant;
+    private final DataSource pool;
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    public TenantDataSourcePool(final MifosPlatformTenant tenant, final DataSource pool) {
+        super(pool);
+        this.tenant = tenant;
+        this.pool = pool;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        final long start = System.nanoTime();
+        final Connection connection = super.getConnection();
+        recordBorrow(System.nanoTime() - start);
+        return connection;
+    }
+
+    @Override
+    public Connection getConnection(final String username, final String password) throws SQLException {
+        final long start = System.nanoTime();
+        final Connection connection = super.getConnection(username, password);
+        recordBorrow(System.nanoTime() - start);
+        return connection;
+    }
+
+    private void recordBorrow(final long waitNanos) {
+        this.borrowCount.incrementAndGet();
+        this.totalWaitNanos.addAndGet(waitNanos);
+        long currentMax = this.maxWaitNanos.get();
+        while (waitNanos > currentMax && !this.maxWaitNanos.compareAndSet(currentMax, waitNanos)) {
+            currentMax = this.maxWaitNanos.get();
+        }
+    }
+
+    /**
+     * @return true when the pool was built with the same connection and pool
+     *         settings as the ones now stored for the tenant
+     */
+    public boolean isUpToDateWith(final MifosPlatformTenant current) {
+        if (this.tenant == current) { return true; }
+        return ObjectUtils.equals(this.tenant.getSchemaServer(), current.getSchemaServer())
+                && ObjectUtils.equals(this.tenant.getSchemaServerPort(), current.getSchemaServerPort())
+                && ObjectUtils.equals(this.tenant.getSchemaName(), current.getSchemaName())
+                && ObjectUtils.equals(this.tenant.getSchemaUsername(), current.getSchemaUsername())
+                && ObjectUtils.equals(this.tenant.getSchemaPassword(), current.getSchemaPassword())
+                && this.tenant.getInitialSize() == current.getInitialSize() && this.tenant.getMaxActive() == current.getMaxActive()
+                && this.tenant.getMinIdle() == current.getMinIdle() && this.tenant.getMaxIdle() == current.getMaxIdle()
+                && this.tenant.isTestOnBorrow() == current.isTestOnBorrow()
+                && this.tenant.getValidationInterval() == current.getValidationInterval()
+                && this.tenant.isRemoveAbandoned() == current.isRemoveAbandoned()
+                && this.tenant.getRemoveAbandonedTimeout() == current.getRemoveAbandonedTimeout()
+                && this.tenant.isLogAbandoned() == current.isLogAbandoned()
+                && this.tenant.getAbandonWhenPercentageFull() == current.getAbandonWhenPercentageFull()
+                && this.tenant.getSuspectTimeout() == current.getSuspectTimeout()
+                && this.tenant.getTimeBetweenEvictionRunsMillis() == current.getTimeBetweenEvictionRunsMillis()
+                && this.tenant.getMinEvictableIdleTimeMillis() == current.getMinEvictableIdleTimeMillis();
+    }
+
+    /**
+     * Closes idle connections straight away; connections still borrowed are
+     * closed when they are returned.
+     */
+    public void close() {
+        this.pool.close(false);
+    }
+
+    public DataSourcePoolData toData() {
+        final long borrows = this.borrowCount.get();
+        final long averageWaitMillis = borrows == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(this.totalWaitNanos.get() / borrows);
+        return new DataSourcePoolData(this.tenant.getTenantIdentifier(), this.pool.getPoolName(), this.pool.getMaxActive(),
+                this.pool.getActive(), this.pool.getIdle(), this.pool.getWaitCount(), borrows, averageWaitMillis,
+                TimeUnit.NANOSECONDS.toMillis(this.maxWaitNanos.get()));
+    }
+}
@@ -5,14 +5,17 @@
  */
 package org.mifosplatform.infrastructure.core.service;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.sql.DataSource;
 
 import org.apache.tomcat.jdbc.pool.PoolConfiguration;
 import org.apache.tomcat.jdbc.pool.PoolProperties;
+import org.mifosplatform.infrastructure.core.data.DataSourcePoolData;
 import org.mifosplatform.infrastructure.core.domain.MifosPlatformTenant;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
@@ -28,7 +31,9 @@ import org.springframework.stereotype.Service;
 @Service
 public class TomcatJdbcDataSourcePerTenantService implements RoutingDataSourceService {
 
-    private final Map<Long, DataSource> tenantToDataSourceMap = new HashMap<>(1);
+    private final static Logger logger = LoggerFactory.getLogger(TomcatJdbcDataSourcePerTenantService.class);
+
+    private final ConcurrentMap<Long, TenantDataSourcePool> tenantToDataSourceMap = new ConcurrentHashMap<>();
     private final DataSource tenantDataSource;
 
     @Autowired
@@ -39,28 +44,43 @@ public class TomcatJdbcDataSourcePerTenantService implements RoutingDataSourceSe
     @Override
     public DataSource retrieveDataSource() {
 
+        final MifosPlatformTenant tenant = ThreadLocalContextUtil.getTenant();
+
         // default to tenant database datasource
-        DataSource tenantDataSource = this.tenantDataSource;
+        if (tenant == null) { return this.tenantDataSource; }
 
-        final MifosPlatformTenant tenant = ThreadLocalContextUtil.getTenant();
-        if (tenant != null) {
-            synchronized (this.tenantToDataSourceMap) {
-                // if tenant information available switch to appropriate
-                // datasource
-                // for that tenant.
-                if (this.tenantToDataSourceMap.containsKey(tenant.getId())) {
-                    tenantDataSource = this.tenantToDataSourceMap.get(tenant.getId());
-                } else {
-                    tenantDataSource = createNewDataSourceFor(tenant);
-                    this.tenantToDataSourceMap.put(tenant.getId(), tenantDataSource);
-                }
-            }
+        // if tenant information available switch to appropriate datasource
+        // for that tenant; the common case is a lock free map lookup.
+        final TenantDataSourcePool existing = this.tenantToDataSourceMap.get(tenant.getId());
+        if (existing != null && existing.isUpToDateWith(tenant)) { return existing; }
+
+        return createOrRefreshDataSourceFor(tenant);
+    }
+
+    /**
+     * Builds the pool for a tenant the first time it is used, or replaces it
+     * when the connection or pool settings stored for the tenant have changed.
+     * Only this slow path is synchronized so each pool is built once.
+     */
+    private synchronized TenantDataSourcePool createOrRefreshDataSourceFor(final MifosPlatformTenant tenant) {
+        final TenantDataSourcePool existing = this.tenantToDataSourceMap.get(tenant.getId());
+        if (existing != null && existing.isUpToDateWith(tenant)) { return existing; }
+
+        final TenantDataSourcePool created = new TenantDataSourcePool(tenant, createNewDataSourceFor(tenant));
+        this.tenantToDataSourceMap.put(tenant.getId(), created);
+        if (existing != null) {
+            logger.info("Connection details of tenant " + tenant.getTenantIdentifier() + " changed, replacing its connection pool");
+            existing.close();
         }
+        return created;
+    }
 
-        return tenantDataSource;
+    public DataSourcePoolData retrievePoolData(final Long tenantId) {
+        final TenantDataSourcePool existing = this.tenantToDataSourceMap.get(tenantId);
+        return existing == null ? null : existing.toData();
     }
 
-    private DataSource createNewDataSourceFor(final MifosPlatformTenant tenant) {
+    private org.apache.tomcat.jdbc.pool.DataSource createNewDataSourceFor(final MifosPlatformTenant tenant) {
         // see
         // http://www.tomcatexpert.com/blog/2010/04/01/configuring-jdbc-pool-high-concurrency
 
@@ -86,20 +106,21 @@ public class TomcatJdbcDataSourcePerTenantService implements RoutingDataSourceSe
         poolConfiguration.setLogAbandoned(tenant.isLogAbandoned());
         poolConfiguration.setAbandonWhenPercentageFull(tenant.getAbandonWhenPercentageFull());
 
-        /**
-         * Vishwas- Do we need to enable the below properties and add
-         * ResetAbandonedTimer for long running batch Jobs?
-         **/
-        // poolConfiguration.setMaxActive(tenant.getMaxActive());
-        // poolConfiguration.setMinIdle(tenant.getMinIdle());
-        // poolConfiguration.setMaxIdle(tenant.getMaxIdle());
+        poolConfiguration.setMaxActive(tenant.getMaxActive());
+        poolConfiguration.setMinIdle(tenant.getMinIdle());
+        // tomcat would raise maxIdle itself, do it here to avoid the warning
+        poolConfiguration.setMaxIdle(Math.max(tenant.getMaxIdle(), tenant.getMinIdle()));
 
-        // poolConfiguration.setSuspectTimeout(tenant.getSuspectTimeout());
-        // poolConfiguration.setTimeBetweenEvictionRunsMillis(tenant.getTimeBetweenEvictionRunsMillis());
-        // poolConfiguration.setMinEvictableIdleTimeMillis(tenant.getMinEvictableIdleTimeMillis());
+        poolConfiguration.setSuspectTimeout(tenant.getSuspectTimeout());
+        poolConfiguration.setTimeBetweenEvictionRunsMillis(tenant.getTimeBetweenEvictionRunsMillis());
+        poolConfiguration.setMinEvictableIdleTimeMillis(tenant.getMinEvictableIdleTimeMillis());
 
+        // long running batch jobs keep a connection past removeAbandonedTimeout
+        // while still using it, ResetAbandonedTimer stops those from being
+        // reclaimed as abandoned
         poolConfiguration.setJdbcInterceptors("org.apache.tomcat.jdbc.pool.interceptor.ConnectionState;"
-                + "org.apache.tomcat.jdbc.pool.interceptor.StatementFinalizer;org.apache.tomcat.jdbc.pool.interceptor.SlowQueryReport");
+                + "org.apache.tomcat.jdbc.pool.interceptor.StatementFinalizer;org.apache.tomcat.jdbc.pool.interceptor.SlowQueryReport;"
+                + "org.apache.tomcat.jdbc.pool.interceptor.ResetAbandonedTimer");
 
         return new org.apache.tomcat.jdbc.pool.DataSource(poolConfiguration);
     }
@@ -68,6 +68,7 @@ public class RunreportsApiResource {
         final boolean exportCsv = ApiParameterHelper.exportCsv(uriInfo.getQueryParameters());
         final boolean parameterType = ApiParameterHelper.parameterType(uriInfo.getQueryParameters());
         final boolean exportPdf = ApiParameterHelper.exportPdf(uriInfo.getQueryParameters());
+        final boolean streamResult = ApiParameterHelper.streamResult(uriInfo.getQueryParameters());
 
         checkUserPermissionForReport(reportName, parameterType);
 
@@ -101,6 +102,16 @@ public class RunreportsApiResource {
 
         }
 
+        if (!exportCsv && streamResult) {
+            // large reports, rows are written to the response as they are
+            // read in the same format as genericResultSet=false
+            final Map<String, String> reportParams = getReportParams(queryParams, false);
+            final StreamingOutput result = this.readExtraDataAndReportingService.retrieveReportJSON(reportName, parameterTypeValue,
+                    reportParams);
+
+            return Response.ok().entity(result).type(MediaType.APPLICATION_JSON).build();
+        }
+
         if (!exportCsv) {
             final Map<String, String> reportParams = getReportParams(queryParams, false);
 
@@ -0,0 +1,209 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.dataqueries.service;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.lang.StringUtils;
+import org.joda.time.LocalDate;
+import org.joda.time.LocalDateTime;
+import org.mifosplatform.infrastructure.core.exception.PlatformDataIntegrityException;
+import org.mifosplatform.infrastructure.dataqueries.data.ResultsetColumnHeaderData;
+import org.springframework.jdbc.core.ResultSetExtractor;
+
+/**
+ * Writes the rows of a report query straight to the response as CSV or as a
+ * JSON array, one row at a time, so the memory used does not depend on the
+ * size of the report. Values are formatted the same way as the buffered
+ * {@link GenericDataService#generateJsonFromGenericResultsetData} and CSV
+ * export. Returns the number of rows written.
+ */
+public class GenericResultsetStreamWriter implements ResultSetExtractor<Long> {
+
+    public enum Format {
+        CSV, JSON
+    }
+
+    private final Writer writer;
+    private final Format format;
+    private final Long maxRows;
+    private final long deadline;
+
+    /**
+     * @param maxRows
+     *            rows after which the export is aborted, no limit when null
+     * @param timeoutSeconds
+     *            seconds after which the export is aborted, no limit when null
+     */
+    public GenericResultsetStreamWriter(final Writer writer, final Format format, final Long maxRows, final Long timeoutSeconds) {
+        this.writer = writer;
+        this.format = format;
+        this.maxRows = maxRows;
+        this.deadline = timeoutSeconds == null ? Long.MAX_VALUE : System.currentTimeMillis() + timeoutSeconds * 1000;
+    }
+
+    @Override
+    public Long extractData(final ResultSet rs) throws SQLException {
+        final List<ResultsetColumnHeaderData> columnHeaders = readColumnHeaders(rs.getMetaData());
+        long rowCount = 0;
+        try {
+            if (this.format == Format.CSV) {
+                appendCsvHeader(this.writer, columnHeaders);
+            } else {
+                this.writer.append('[');
+            }
+
+            final List<String> row = new ArrayList<>(columnHeaders.size());
+            while (rs.next()) {
+                rowCount++;
+                if (this.maxRows != null && rowCount > this.maxRows) { throw new PlatformDataIntegrityException(
+                        "error.msg.report.export.row.limit.exceeded", "Report has more than " + this.maxRows
+                                + " rows, use report parameters to narrow it down", this.maxRows); }
+                if (System.currentTimeMillis() > this.deadline) { throw new PlatformDataIntegrityException(
+                        "error.msg.report.export.time.limit.exceeded", "Report export was aborted after " + rowCount
+                                + " rows as it took too long"); }
+
+                row.clear();
+                for (int i = 0; i < columnHeaders.size(); i++) {
+                    row.add(rs.getString(i + 1));
+                }
+                if (this.format == Format.CSV) {
+                    appendCsvRow(this.writer, columnHeaders, row);
+                } else {
+                    if (rowCount > 1) {
+                        this.writer.append(',');
+                    }
+                    appendJsonRow(this.writer, columnHeaders, row);
+                }
+            }
+
+            if (this.format == Format.JSON) {
+                this.writer.append("\n]");
+            }
+            this.writer.flush();
+        } catch (final IOException e) {
+            throw new PlatformDataIntegrityException("error.msg.report.export.write.failed", e.getMessage());
+        }
+        return rowCount;
+    }
+
+    private static List<ResultsetColumnHeaderData> readColumnHeaders(final ResultSetMetaData rsmd) throws SQLException {
+        final List<ResultsetColumnHeaderData> columnHeaders = new ArrayList<>(rsmd.getColumnCount());
+        for (int i = 0; i < rsmd.getColumnCount(); i++) {
+            columnHeaders.add(ResultsetColumnHeaderData.basic(rsmd.getColumnLabel(i + 1), rsmd.getColumnTypeName(i + 1)));
+        }
+        return columnHeaders;
+    }
+
+    static void appendCsvHeader(final Appendable writer, final List<ResultsetColumnHeaderData> columnHeaders) throws IOException {
+        final int chSize = columnHeaders.size();
+        for (int i = 0; i < chSize; i++) {
+            writer.append('"').append(columnHeaders.get(i).getColumnName()).append('"');
+            if (i < (chSize - 1)) {
+                writer.append(',');
+            }
+        }
+        writer.append('\n');
+    }
+
+    static void appendCsvRow(final Appendable writer, final List<ResultsetColumnHeaderData> columnHeaders, final List<String> row)
+            throws IOException {
+        final int rSize = row.size();
+        for (int j = 0; j < rSize; j++) {
+            final String currColType = columnHeaders.get(j).getColumnType();
+            final String currVal = row.get(j);
+            if (currVal != null) {
+                if (currColType.equals("DECIMAL") || currColType.equals("DOUBLE") || currColType.equals("BIGINT")
+                        || currColType.equals("SMALLINT") || currColType.equals("INT")) {
+                    writer.append(currVal);
+                } else {
+                    writer.append('"').append(StringUtils.replace(currVal, "\"", "\"\"")).append('"');
+                }
+            }
+            if (j < (rSize - 1)) {
+                writer.append(',');
+            }
+        }
+        writer.append('\n');
+    }
+
+    static void appendJsonRow(final Appendable writer, final List<ResultsetColumnHeaderData> columnHeaders, final List<String> row)
+            throws IOException {
+        writer.append("\n{");
+        final int rSize = row.size();
+        for (int j = 0; j < rSize; j++) {
+
+            writer.append('"').append(columnHeaders.get(j).getColumnName()).append("\": ");
+            String currColType = columnHeaders.get(j).getColumnDisplayType();
+            final String colType = columnHeaders.get(j).getColumnType();
+            if (currColType == null && colType.equalsIgnoreCase("INT")) {
+                currColType = "INTEGER";
+            }
+            if (currColType == null && colType.equalsIgnoreCase("VARCHAR")) {
+                currColType = "VARCHAR";
+            }
+            if (currColType == null && colType.equalsIgnoreCase("DATE")) {
+                currColType = "DATE";
+            }
+            final String currVal = row.get(j);
+            if (currVal != null && currColType != null) {
+                if (currColType.equals("DECIMAL") || currColType.equals("INTEGER")) {
+                    writer.append(currVal);
+                } else {
+                    if (currColType.equals("DATE")) {
+                        final LocalDate localDate = new LocalDate(currVal);
+                        writer.append("[" + localDate.getYear() + ", " + localDate.getMonthOfYear() + ", " + localDate.getDayOfMonth()
+                                + "]");
+                    } else if (currColType.equals("DATETIME")) {
+                        final LocalDateTime localDateTime = new LocalDateTime(currVal);
+                        writer.append("[" + localDateTime.getYear() + ", " + localDateTime.getMonthOfYear() + ", "
+                                + localDateTime.getDayOfMonth() + " " + localDateTime.getHourOfDay() + ", "
+                                + localDateTime.getMinuteOfHour() + ", " + localDateTime.getSecondOfMinute() + ", "
+                                + localDateTime.getMillisOfSecond() + "]");
+                    } else {
+                        writer.append(prepareString(currVal));
+                    }
+                }
+            } else {
+                writer.append("null");
+            }
+            if (j < (rSize - 1)) {
+                writer.append(",\n");
+            }
+        }
+        writer.append('}');
+    }
+
+    /**
+     * Ends an export that failed after part of it was sent: a last CSV line
+     * starting with ERROR, or an error object after the last row of a JSON
+     * array that is left unclosed so it does not parse.
+     */
+    static void appendAbortMarker(final Appendable writer, final Format format, final String errorCode, final String message)
+            throws IOException {
+        final String userMessage = message == null ? "" : message;
+        if (format == Format.CSV) {
+            writer.append("\"ERROR\",\"").append(errorCode).append("\",\"").append(StringUtils.replace(userMessage, "\"", "\"\""))
+                    .append("\"\n");
+        } else {
+            writer.append(",\n{\"error\": ").append(prepareString(errorCode)).append(", \"message\": ").append(prepareString(userMessage))
+                    .append('}');
+        }
+    }
+
+    private static String prepareString(final String value) {
+        String result = value;
+        result = StringUtils.replace(result, "\"", "\\\"");
+        result = StringUtils.replace(result, "\n", "\\n");
+        return "\"" + result + "\"";
+    }
+}
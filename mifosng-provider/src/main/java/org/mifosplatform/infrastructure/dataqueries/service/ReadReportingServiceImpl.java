@@ -5,15 +5,17 @@
  */
 package org.mifosplatform.infrastructure.dataqueries.service;
 
-import java.io.ByteArrayInputStream;
+import java.io.BufferedWriter;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.sql.Connection;
 import java.sql.Date;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
@@ -27,7 +29,9 @@ import javax.sql.DataSource;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.StreamingOutput;
 
+import org.apache.commons.io.output.CountingOutputStream;
 import org.apache.commons.lang.StringUtils;
+import org.mifosplatform.infrastructure.configuration.domain.ConfigurationDomainService;
 import org.mifosplatform.infrastructure.core.domain.JdbcSupport;
 import org.mifosplatform.infrastructure.core.domain.MifosPlatformTenant;
 import org.mifosplatform.infrastructure.core.exception.PlatformDataIntegrityException;
@@ -61,6 +65,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.support.rowset.SqlRowSet;
 import org.springframework.stereotype.Service;
@@ -79,11 +84,12 @@ public class ReadReportingServiceImpl implements ReadReportingService {
     private final DataSource dataSource;
     private final PlatformSecurityContext context;
     private final GenericDataService genericDataService;
+    private final ConfigurationDomainService configurationDomainService;
     private boolean noPentaho = false;
 
     @Autowired
     public ReadReportingServiceImpl(final PlatformSecurityContext context, final RoutingDataSource dataSource,
-            final GenericDataService genericDataService) {
+            final GenericDataService genericDataService, final ConfigurationDomainService configurationDomainService) {
         // kick off pentaho reports server
         ClassicEngineBoot.getInstance().start();
         this.noPentaho = false;
@@ -92,87 +98,109 @@ public class ReadReportingServiceImpl implements ReadReportingService {
         this.dataSource = dataSource;
         this.jdbcTemplate = new JdbcTemplate(this.dataSource);
         this.genericDataService = genericDataService;
+        this.configurationDomainService = configurationDomainService;
     }
 
     @Override
     public StreamingOutput retrieveReportCSV(final String name, final String type, final Map<String, String> queryParams) {
+        return streamReport(name, type, queryParams, GenericResultsetStreamWriter.Format.CSV);
+    }
+
+    @Override
+    public StreamingOutput retrieveReportJSON(final String name, final String type, final Map<String, String> queryParams) {
+        return streamReport(name, type, queryParams, GenericResultsetStreamWriter.Format.JSON);
+    }
+
+    private StreamingOutput streamReport(final String name, final String type, final Map<String, String> queryParams,
+            final GenericResultsetStreamWriter.Format format) {
 
         return new StreamingOutput() {
 
             @Override
             public void write(final OutputStream out) {
+                final CountingOutputStream sent = new CountingOutputStream(out);
+                Writer writer = null;
                 try {
-
-                    final GenericResultsetData result = retrieveGenericResultset(name, type, queryParams);
-                    final StringBuffer sb = generateCsvFileBuffer(result);
-
-                    final InputStream in = new ByteArrayInputStream(sb.toString().getBytes("UTF-8"));
-
-                    final byte[] outputByte = new byte[4096];
-                    Integer readLen = in.read(outputByte, 0, 4096);
-
-                    while (readLen != -1) {
-                        out.write(outputByte, 0, readLen);
-                        readLen = in.read(outputByte, 0, 4096);
-                    }
-                    // in.close();
-                    // out.flush();
-                    // out.close();
+                    final long startTime = System.currentTimeMillis();
+                    logger.info("STARTING REPORT: " + name + "   Type: " + type + "   Streamed as: " + format);
+
+                    final String sql = getSQLtoRun(name, type, queryParams);
+                    final Long maxRows = ReadReportingServiceImpl.this.configurationDomainService.retrieveReportExportMaxRows();
+                    final Long timeoutSeconds = ReadReportingServiceImpl.this.configurationDomainService
+                            .retrieveReportExportTimeoutSeconds();
+
+                    writer = new BufferedWriter(new OutputStreamWriter(sent, "UTF-8"));
+                    final Long rows = ReadReportingServiceImpl.this.jdbcTemplate.query(
+                            new StreamingStatementCreator(sql, maxRows, timeoutSeconds), new GenericResultsetStreamWriter(writer, format,
+                                    maxRows, timeoutSeconds));
+
+                    final long elapsed = System.currentTimeMillis() - startTime;
+                    logger.info("FINISHING Report/Request Name: " + name + " - " + type + "     Rows: " + rows + "     Elapsed Time: "
+                            + elapsed);
+                } catch (final PlatformDataIntegrityException e) {
+                    abortStream(writer, sent, format, e);
+                    throw e;
                 } catch (final Exception e) {
-                    throw new PlatformDataIntegrityException("error.msg.exception.error", e.getMessage());
+                    final PlatformDataIntegrityException failure = new PlatformDataIntegrityException("error.msg.exception.error",
+                            e.getMessage());
+                    abortStream(writer, sent, format, failure);
+                    throw failure;
                 }
             }
         };
 
     }
 
-    private StringBuffer generateCsvFileBuffer(final GenericResultsetData result) {
-        final StringBuffer writer = new StringBuffer();
+    /**
+     * Nothing has reached the client while the rows still fit in the buffer
+     * of the writer, so the exception is turned into an error response as
+     * usual. Otherwise a 200 response has already started: the error is
+     * written after the last row so the export cannot be mistaken for a
+     * complete one, and the exception is still thrown so the container drops
+     * the connection instead of ending the response.
+     */
+    private static void abortStream(final Writer writer, final CountingOutputStream sent, final GenericResultsetStreamWriter.Format format,
+            final PlatformDataIntegrityException e) {
+        if (writer == null || sent.getByteCount() == 0) { return; }
+        logger.warn("Streamed report aborted after " + sent.getByteCount() + " bytes: " + e.getDefaultUserMessage());
+        try {
+            GenericResultsetStreamWriter.appendAbortMarker(writer, format, e.getGlobalisationMessageCode(), e.getDefaultUserMessage());
+            writer.flush();
+        } catch (final IOException ignored) {
+            // the client is gone
+        }
+    }
 
-        final List<ResultsetColumnHeaderData> columnHeaders = result.getColumnHeaders();
-        logger.info("NO. of Columns: " + columnHeaders.size());
-        final Integer chSize = columnHeaders.size();
-        for (int i = 0; i < chSize; i++) {
-            writer.append('"' + columnHeaders.get(i).getColumnName() + '"');
-            if (i < (chSize - 1)) {
-                writer.append(",");
-            }
+    /**
+     * Creates a forward only, read only statement with a fetch size of
+     * Integer.MIN_VALUE, which makes the MySQL driver hand out rows one at a
+     * time instead of reading the whole result into memory first.
+     */
+    private static final class StreamingStatementCreator implements PreparedStatementCreator {
+
+        private final String sql;
+        private final Long maxRows;
+        private final Long timeoutSeconds;
+
+        public StreamingStatementCreator(final String sql, final Long maxRows, final Long timeoutSeconds) {
+            this.sql = sql;
+            this.maxRows = maxRows;
+            this.timeoutSeconds = timeoutSeconds;
         }
-        writer.append('\n');
-
-        final List<ResultsetRowData> data = result.getData();
-        List<String> row;
-        Integer rSize;
-        // String currCol;
-        String currColType;
-        String currVal;
-        final String doubleQuote = "\"";
-        final String twoDoubleQuotes = doubleQuote + doubleQuote;
-        logger.info("NO. of Rows: " + data.size());
-        for (int i = 0; i < data.size(); i++) {
-            row = data.get(i).getRow();
-            rSize = row.size();
-            for (int j = 0; j < rSize; j++) {
-                // currCol = columnHeaders.get(j).getColumnName();
-                currColType = columnHeaders.get(j).getColumnType();
-                currVal = row.get(j);
-                if (currVal != null) {
-                    if (currColType.equals("DECIMAL") || currColType.equals("DOUBLE") || currColType.equals("BIGINT")
-                            || currColType.equals("SMALLINT") || currColType.equals("INT")) {
-                        writer.append(currVal);
-                    } else {
-                        writer.append('"' + this.genericDataService.replace(currVal, doubleQuote, twoDoubleQuotes) + '"');
-                    }
 
-                }
-                if (j < (rSize - 1)) {
-                    writer.append(",");
-                }
+        @Override
+        public PreparedStatement createPreparedStatement(final Connection con) throws SQLException {
+            final PreparedStatement ps = con.prepareStatement(this.sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(Integer.MIN_VALUE);
+            if (this.maxRows != null) {
+                // one more than allowed so going over the limit is noticed
+                ps.setMaxRows((int) Math.min(this.maxRows + 1, Integer.MAX_VALUE));
             }
-            writer.append('\n');
+            if (this.timeoutSeconds != null) {
+                ps.setQueryTimeout((int) Math.min(this.timeoutSeconds, Integer.MAX_VALUE));
+            }
+            return ps;
         }
-
-        return writer;
     }
 
     @Override
@@ -30,6 +30,8 @@ import org.mifosplatform.infrastructure.core.data.CommandProcessingResult;
 import org.mifosplatform.infrastructure.core.serialization.ApiRequestJsonSerializationSettings;
 import org.mifosplatform.infrastructure.core.serialization.DefaultToApiJsonSerializer;
 import org.mifosplatform.infrastructure.hooks.data.HookData;
+import org.mifosplatform.infrastructure.hooks.data.HookDeliveryStatisticsData;
+import org.mifosplatform.infrastructure.hooks.service.HookEventDispatchService;
 import org.mifosplatform.infrastructure.hooks.service.HookReadPlatformService;
 import org.mifosplatform.infrastructure.security.service.PlatformSecurityContext;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -48,6 +50,8 @@ public class HookApiResource {
 	private final DefaultToApiJsonSerializer<HookData> toApiJsonSerializer;
 	private final ApiRequestParameterHelper apiRequestParameterHelper;
 	private final PortfolioCommandSourceWritePlatformService commandsSourceWritePlatformService;
+	private final HookEventDispatchService hookEventDispatchService;
+	private final DefaultToApiJsonSerializer<HookDeliveryStatisticsData> statisticsToApiJsonSerializer;
 
 	@Autowired
 	public HookApiResource(
@@ -55,12 +59,16 @@ public class HookApiResource {
 			final HookReadPlatformService readPlatformService,
 			final DefaultToApiJsonSerializer<HookData> toApiJsonSerializer,
 			final ApiRequestParameterHelper apiRequestParameterHelper,
-			final PortfolioCommandSourceWritePlatformService commandsSourceWritePlatformService) {
+			final PortfolioCommandSourceWritePlatformService commandsSourceWritePlatformService,
+			final HookEventDispatchService hookEventDispatchService,
+			final DefaultToApiJsonSerializer<HookDeliveryStatisticsData> statisticsToApiJsonSerializer) {
 		this.context = context;
 		this.readPlatformService = readPlatformService;
 		this.toApiJsonSerializer = toApiJsonSerializer;
 		this.apiRequestParameterHelper = apiRequestParameterHelper;
 		this.commandsSourceWritePlatformService = commandsSourceWritePlatformService;
+		this.hookEventDispatchService = hookEventDispatchService;
+		this.statisticsToApiJsonSerializer = statisticsToApiJsonSerializer;
 	}
 
 	@GET
@@ -117,6 +125,19 @@ public class HookApiResource {
 				RESPONSE_DATA_PARAMETERS);
 	}
 
+	@GET
+	@Path("deliverystatistics")
+	public String retrieveDeliveryStatistics() {
+
+		this.context.authenticatedUser().validateHasReadPermission(
+				HOOK_RESOURCE_NAME);
+
+		final Collection<HookDeliveryStatisticsData> statistics = this.hookEventDispatchService
+				.retrieveDeliveryStatistics();
+
+		return this.statisticsToApiJsonSerializer.serialize(statistics);
+	}
+
 	@POST
 	public String createHook(final String apiRequestBodyAsJson) {
 
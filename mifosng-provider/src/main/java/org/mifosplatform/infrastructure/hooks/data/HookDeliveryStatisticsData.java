@@ -0,0 +1,37 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.hooks.data;
+
+import java.io.Serializable;
+
+/**
+ * Delivery counters of one hook since the server was started, together with
+ * the number of events still waiting in the outbox.
+ */
+@SuppressWarnings("unused")
+public class HookDeliveryStatisticsData implements Serializable {
+
+	private final Long hookId;
+	private final long delivered;
+	private final long failedAttempts;
+	private final long abandoned;
+	private final long pending;
+	private final long averageLatencyMillis;
+	private final String lastError;
+
+	public HookDeliveryStatisticsData(final Long hookId, final long delivered,
+			final long failedAttempts, final long abandoned,
+			final long pending, final long averageLatencyMillis,
+			final String lastError) {
+		this.hookId = hookId;
+		this.delivered = delivered;
+		this.failedAttempts = failedAttempts;
+		this.abandoned = abandoned;
+		this.pending = pending;
+		this.averageLatencyMillis = averageLatencyMillis;
+		this.lastError = lastError;
+	}
+}
@@ -109,6 +109,10 @@ public class Hook extends AbstractAuditableCustom<AppUser, Long> {
 		return events;
 	}
 
+	public boolean isActive() {
+		return this.isActive != null && this.isActive;
+	}
+
 	public HookTemplate getHookTemplate() {
 		return this.template;
 	}
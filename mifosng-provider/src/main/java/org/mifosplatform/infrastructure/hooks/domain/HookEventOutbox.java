@@ -0,0 +1,165 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.hooks.domain;
+
+import java.util.Date;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Table;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
+
+import org.apache.commons.lang.StringUtils;
+import org.springframework.data.jpa.domain.AbstractPersistable;
+
+/**
+ * One pending delivery of a command event to a hook. Rows are written in the
+ * transaction of the command, so an event is only ever delivered for a command
+ * that was committed, and survive a restart until the delivery succeeds or
+ * runs out of attempts.
+ */
+@Entity
+@Table(name = "m_hook_event_outbox")
+public class HookEventOutbox extends AbstractPersistable<Long> {
+
+	private static final int MAX_ERROR_LENGTH = 500;
+
+	@Column(name = "hook_id", nullable = false)
+	private Long hookId;
+
+	@Column(name = "entity_name", nullable = false, length = 45)
+	private String entityName;
+
+	@Column(name = "action_name", nullable = false, length = 45)
+	private String actionName;
+
+	@Column(name = "payload", nullable = false)
+	private String payload;
+
+	@Column(name = "appuser_id", nullable = true)
+	private Long appUserId;
+
+	@Column(name = "status_enum", nullable = false)
+	private Integer status;
+
+	@Column(name = "attempts", nullable = false)
+	private Integer attempts;
+
+	@Temporal(TemporalType.TIMESTAMP)
+	@Column(name = "next_attempt_on", nullable = false)
+	private Date nextAttemptOn;
+
+	@Column(name = "claim_token", nullable = true, length = 36)
+	private String claimToken;
+
+	@Column(name = "last_error", nullable = true, length = MAX_ERROR_LENGTH)
+	private String lastError;
+
+	@Temporal(TemporalType.TIMESTAMP)
+	@Column(name = "created_on", nullable = false)
+	private Date createdOn;
+
+	@Temporal(TemporalType.TIMESTAMP)
+	@Column(name = "delivered_on", nullable = true)
+	private Date deliveredOn;
+
+	protected HookEventOutbox() {
+		//
+	}
+
+	/**
+	 * @param claimToken
+	 *            claim of the dispatch worker meant to deliver the event
+	 * @param firstAttemptOn
+	 *            time after which the delivery job may pick the row up, the
+	 *            event is meant to be delivered by the dispatch worker before
+	 */
+	public static HookEventOutbox pending(final Long hookId,
+			final String entityName, final String actionName,
+			final String payload, final Long appUserId,
+			final String claimToken, final Date firstAttemptOn) {
+		return new HookEventOutbox(hookId, entityName, actionName, payload,
+				appUserId, claimToken, firstAttemptOn);
+	}
+
+	private HookEventOutbox(final Long hookId, final String entityName,
+			final String actionName, final String payload,
+			final Long appUserId, final String claimToken,
+			final Date firstAttemptOn) {
+		this.hookId = hookId;
+		this.entityName = entityName;
+		this.actionName = actionName;
+		this.payload = payload;
+		this.appUserId = appUserId;
+		this.status = HookEventOutboxStatus.PENDING.getValue();
+		this.attempts = 0;
+		this.createdOn = new Date();
+		this.claimToken = claimToken;
+		this.nextAttemptOn = firstAttemptOn;
+	}
+
+	public boolean isPending() {
+		return HookEventOutboxStatus.PENDING.getValue().equals(this.status);
+	}
+
+	public void markDelivered() {
+		this.attempts++;
+		this.status = HookEventOutboxStatus.DELIVERED.getValue();
+		this.deliveredOn = new Date();
+		this.lastError = null;
+		this.claimToken = null;
+	}
+
+	/**
+	 * Records a failed attempt and schedules the next one after
+	 * <code>backoffMillis</code>, or gives up once <code>maxAttempts</code> have
+	 * been made.
+	 */
+	public void markAttemptFailed(final String error, final int maxAttempts,
+			final long backoffMillis) {
+		this.attempts++;
+		this.claimToken = null;
+		this.lastError = StringUtils.abbreviate(error == null ? "unknown error"
+				: error, MAX_ERROR_LENGTH);
+		if (this.attempts >= maxAttempts) {
+			this.status = HookEventOutboxStatus.FAILED.getValue();
+		} else {
+			this.nextAttemptOn = new Date(System.currentTimeMillis()
+					+ backoffMillis);
+		}
+	}
+
+	public void markFailed(final String error) {
+		this.status = HookEventOutboxStatus.FAILED.getValue();
+		this.lastError = StringUtils.abbreviate(error, MAX_ERROR_LENGTH);
+		this.claimToken = null;
+	}
+
+	public Long getHookId() {
+		return this.hookId;
+	}
+
+	public String getEntityName() {
+		return this.entityName;
+	}
+
+	public String getActionName() {
+		return this.actionName;
+	}
+
+	public String getPayload() {
+		return this.payload;
+	}
+
+	public Long getAppUserId() {
+		return this.appUserId;
+	}
+
+	public Integer getAttempts() {
+		return this.attempts;
+	}
+}
@@ -0,0 +1,26 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.hooks.domain;
+
+import java.util.Date;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface HookEventOutboxRepository extends
+		JpaRepository<HookEventOutbox, Long> {
+
+	@Query("select outbox.id from HookEventOutbox outbox where outbox.status = :status and outbox.nextAttemptOn <= :now order by outbox.id")
+	List<Long> findIdsDueForDelivery(@Param("status") Integer status,
+			@Param("now") Date now, Pageable pageable);
+
+	@Query("select outbox.hookId, count(outbox.id) from HookEventOutbox outbox where outbox.status = :status group by outbox.hookId")
+	List<Object[]> countByHookWithStatus(@Param("status") Integer status);
+
+}
@@ -0,0 +1,30 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.hooks.domain;
+
+public enum HookEventOutboxStatus {
+
+	PENDING(100), //
+	DELIVERED(300), //
+	FAILED(400);
+
+	private final Integer value;
+
+	private HookEventOutboxStatus(final Integer value) {
+		this.value = value;
+	}
+
+	public Integer getValue() {
+		return this.value;
+	}
+
+	public static HookEventOutboxStatus fromInt(final Integer value) {
+		for (final HookEventOutboxStatus status : values()) {
+			if (status.value.equals(value)) { return status; }
+		}
+		return null;
+	}
+}
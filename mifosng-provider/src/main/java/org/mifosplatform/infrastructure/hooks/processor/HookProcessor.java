@@ -8,9 +8,16 @@ package org.mifosplatform.infrastructure.hooks.processor;
 import org.mifosplatform.infrastructure.hooks.domain.Hook;
 import org.mifosplatform.useradministration.domain.AppUser;
 
+import com.google.gson.JsonObject;
+
 public interface HookProcessor {
 
-	void process(Hook hook, AppUser appUser, String payload, String entityName,
-			String actionName, String tenantIdentifier, String authToken);
+	/**
+	 * Delivers the event to the hook target, throwing an exception when the
+	 * delivery failed and should be retried.
+	 */
+	void process(Hook hook, AppUser appUser, JsonObject payload,
+			String entityName, String actionName, String tenantIdentifier,
+			String authToken);
 
 }
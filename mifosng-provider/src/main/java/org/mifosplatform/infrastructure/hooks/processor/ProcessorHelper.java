@@ -8,6 +8,7 @@ package org.mifosplatform.infrastructure.hooks.processor;
 import java.security.SecureRandom;
 import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
+import java.util.concurrent.TimeUnit;
 
 import javax.net.ssl.HostnameVerifier;
 import javax.net.ssl.SSLContext;
@@ -18,11 +19,8 @@ import javax.net.ssl.X509TrustManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import retrofit.Callback;
 import retrofit.RestAdapter;
-import retrofit.RetrofitError;
 import retrofit.client.OkClient;
-import retrofit.client.Response;
 
 import com.squareup.okhttp.OkHttpClient;
 
@@ -32,6 +30,12 @@ public class ProcessorHelper {
 	private final static Logger logger = LoggerFactory
 			.getLogger(ProcessorHelper.class);
 
+	private static final long CONNECT_TIMEOUT_SECONDS = 10;
+	private static final long READ_TIMEOUT_SECONDS = 30;
+
+	// the client and its connection pool are shared by all hook deliveries
+	private static final OkHttpClient sharedClient = createClient();
+
 	@SuppressWarnings("null")
 	public static OkHttpClient configureClient(final OkHttpClient client) {
 		final TrustManager[] certs = new TrustManager[] { new X509TrustManager() {
@@ -77,32 +81,18 @@ public class ProcessorHelper {
 
 	public static OkHttpClient createClient() {
 		final OkHttpClient client = new OkHttpClient();
+		// a slow hook target only holds up one dispatch worker for a bounded
+		// time, failed deliveries are retried later
+		client.setConnectTimeout(CONNECT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+		client.setReadTimeout(READ_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+		client.setWriteTimeout(READ_TIMEOUT_SECONDS, TimeUnit.SECONDS);
 		return configureClient(client);
 	}
 
-	@SuppressWarnings("rawtypes")
-	public static Callback createCallback(final String url) {
-
-		return new Callback() {
-			@Override
-			public void success(final Object o, final Response response) {
-				logger.info("URL : " + url + "\tStatus : "
-						+ response.getStatus());
-			}
-
-			@Override
-			public void failure(final RetrofitError retrofitError) {
-				logger.info(retrofitError.getMessage());
-			}
-		};
-	}
-
 	public static WebHookService createWebHookService(final String url) {
 
-		final OkHttpClient client = ProcessorHelper.createClient();
-
 		final RestAdapter restAdapter = new RestAdapter.Builder()
-				.setEndpoint(url).setClient(new OkClient(client)).build();
+				.setEndpoint(url).setClient(new OkClient(sharedClient)).build();
 
 		return restAdapter.create(WebHookService.class);
 	}
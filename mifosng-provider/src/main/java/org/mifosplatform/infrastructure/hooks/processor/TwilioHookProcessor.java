@@ -12,17 +12,21 @@ import org.mifosplatform.infrastructure.hooks.domain.HookConfiguration;
 import org.mifosplatform.infrastructure.hooks.domain.HookConfigurationRepository;
 import org.mifosplatform.infrastructure.hooks.processor.data.SmsProviderData;
 import org.mifosplatform.useradministration.domain.AppUser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import retrofit.Callback;
+import retrofit.client.Response;
 
 import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
 
 @Service
 public class TwilioHookProcessor implements HookProcessor {
 
+	private final static Logger logger = LoggerFactory
+			.getLogger(TwilioHookProcessor.class);
+
 	private final HookConfigurationRepository hookConfigurationRepository;
 
 	@Autowired
@@ -34,7 +38,7 @@ public class TwilioHookProcessor implements HookProcessor {
 	@Override
 	public void process(final Hook hook,
 			@SuppressWarnings("unused") final AppUser appUser,
-			final String payload, final String entityName,
+			final JsonObject payload, final String entityName,
 			final String actionName, final String tenantIdentifier,
 			final String authToken) {
 
@@ -45,19 +49,14 @@ public class TwilioHookProcessor implements HookProcessor {
 				tenantIdentifier, authToken, hook);
 	}
 
-	@SuppressWarnings("unchecked")
 	private void sendRequest(final SmsProviderData smsProviderData,
-			final String payload, final String entityName,
+			final JsonObject payload, final String entityName,
 			final String actionName, final String tenantIdentifier,
 			final String authToken, final Hook hook) {
 
 		final WebHookService service = ProcessorHelper
 				.createWebHookService(smsProviderData.getUrl());
 
-		@SuppressWarnings("rawtypes")
-		final Callback callback = ProcessorHelper
-				.createCallback(smsProviderData.getUrl());
-
 		String apiKey = this.hookConfigurationRepository
 				.findOneByHookIdAndFieldName(hook.getId(), apiKeyName);
 		if (apiKey == null) {
@@ -72,10 +71,10 @@ public class TwilioHookProcessor implements HookProcessor {
 		}
 
 		if (apiKey != null && !apiKey.equals("")) {
-			final JsonObject json = new JsonParser().parse(payload)
-					.getAsJsonObject();
-			service.sendSmsBridgeRequest(entityName, actionName,
-					tenantIdentifier, apiKey, json, callback);
+			final Response response = service.sendSmsBridgeRequest(entityName,
+					actionName, tenantIdentifier, apiKey, payload);
+			logger.info("URL : " + smsProviderData.getUrl() + "\tStatus : "
+					+ response.getStatus());
 		}
 
 	}
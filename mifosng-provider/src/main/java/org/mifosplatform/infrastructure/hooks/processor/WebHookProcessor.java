@@ -15,21 +15,27 @@ import java.util.Set;
 import org.mifosplatform.infrastructure.hooks.domain.Hook;
 import org.mifosplatform.infrastructure.hooks.domain.HookConfiguration;
 import org.mifosplatform.useradministration.domain.AppUser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
-import retrofit.Callback;
+import retrofit.client.Response;
 
 import com.google.gson.Gson;
 import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
 
 @Service
 public class WebHookProcessor implements HookProcessor {
 
+	private final static Logger logger = LoggerFactory
+			.getLogger(WebHookProcessor.class);
+
+	private static final Gson gson = new Gson();
+
 	@Override
 	public void process(final Hook hook,
 			@SuppressWarnings("unused") final AppUser appUser,
-			final String payload, final String entityName,
+			final JsonObject payload, final String entityName,
 			final String actionName, final String tenantIdentifier,
 			final String authToken) {
 
@@ -55,7 +61,7 @@ public class WebHookProcessor implements HookProcessor {
 
 	@SuppressWarnings("unchecked")
 	private void sendRequest(final String url, final String contentType,
-			final String payload, final String entityName,
+			final JsonObject payload, final String entityName,
 			final String actionName, final String tenantIdentifier,
 			@SuppressWarnings("unused") final String authToken) {
 
@@ -63,21 +69,18 @@ public class WebHookProcessor implements HookProcessor {
 		final WebHookService service = ProcessorHelper
 				.createWebHookService(url);
 
-		@SuppressWarnings("rawtypes")
-		final Callback callback = ProcessorHelper.createCallback(url);
-
+		final Response response;
 		if (contentType.equalsIgnoreCase("json")
 				|| contentType.contains("json")) {
-			final JsonObject json = new JsonParser().parse(payload)
-					.getAsJsonObject();
-			service.sendJsonRequest(entityName, actionName, tenantIdentifier,
-					mifosEndpointUrl, json, callback);
+			response = service.sendJsonRequest(entityName, actionName,
+					tenantIdentifier, mifosEndpointUrl, payload);
 		} else {
 			Map<String, String> map = new HashMap<>();
-			map = new Gson().fromJson(payload, map.getClass());
-			service.sendFormRequest(entityName, actionName, tenantIdentifier,
-					mifosEndpointUrl, map, callback);
+			map = gson.fromJson(payload, map.getClass());
+			response = service.sendFormRequest(entityName, actionName,
+					tenantIdentifier, mifosEndpointUrl, map);
 		}
+		logger.info("URL : " + url + "\tStatus : " + response.getStatus());
 
 	}
 
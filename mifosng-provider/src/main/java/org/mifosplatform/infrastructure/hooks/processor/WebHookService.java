@@ -9,7 +9,6 @@ import java.util.Map;
 
 import org.mifosplatform.infrastructure.hooks.processor.data.SmsProviderData;
 
-import retrofit.Callback;
 import retrofit.client.Response;
 import retrofit.http.Body;
 import retrofit.http.FieldMap;
@@ -32,29 +31,33 @@ public interface WebHookService {
 	@GET("/")
 	Response sendEmptyRequest();
 
+	// Requests below are synchronous, they run on the hook dispatch workers
+	// and throw a RetrofitError when the target fails so the delivery is
+	// retried
+
 	// Template - Web
 	@POST("/")
-	void sendJsonRequest(@Header(ENTITY_HEADER) String entityHeader,
+	Response sendJsonRequest(@Header(ENTITY_HEADER) String entityHeader,
 			@Header(ACTION_HEADER) String actionHeader,
 			@Header(TENANT_HEADER) String tenantHeader,
 			@Header(ENDPOINT_HEADER) String endpointHeader,
-			@Body JsonObject result, Callback<Response> callBack);
+			@Body JsonObject result);
 
 	@FormUrlEncoded
 	@POST("/")
-	void sendFormRequest(@Header(ENTITY_HEADER) String entityHeader,
+	Response sendFormRequest(@Header(ENTITY_HEADER) String entityHeader,
 			@Header(ACTION_HEADER) String actionHeader,
 			@Header(TENANT_HEADER) String tenantHeader,
 			@Header(ENDPOINT_HEADER) String endpointHeader,
-			@FieldMap Map<String, String> params, Callback<Response> callBack);
+			@FieldMap Map<String, String> params);
 
 	// Template - SMS Bridge
 	@POST("/")
-	void sendSmsBridgeRequest(@Header(ENTITY_HEADER) String entityHeader,
+	Response sendSmsBridgeRequest(@Header(ENTITY_HEADER) String entityHeader,
 			@Header(ACTION_HEADER) String actionHeader,
 			@Header(TENANT_HEADER) String tenantHeader,
 			@Header(API_KEY_HEADER) String apiKeyHeader,
-			@Body JsonObject result, Callback<Response> callBack);
+			@Body JsonObject result);
 
 	@POST("/configuration")
 	String sendSmsBridgeConfigRequest(@Body SmsProviderData config);
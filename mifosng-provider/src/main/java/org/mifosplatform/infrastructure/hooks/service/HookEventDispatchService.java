@@ -0,0 +1,30 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.hooks.service;
+
+import java.util.Collection;
+
+import org.mifosplatform.infrastructure.hooks.data.HookDeliveryStatisticsData;
+import org.mifosplatform.infrastructure.hooks.event.HookEvent;
+import org.mifosplatform.infrastructure.jobs.service.JobRunMetrics;
+
+public interface HookEventDispatchService {
+
+	/**
+	 * Stores the event in the outbox for every hook listening to it, as part
+	 * of the current transaction, and hands it to the dispatch workers of the
+	 * tenant once that transaction has committed.
+	 */
+	void enqueue(HookEvent event);
+
+	/**
+	 * Delivers outbox events that are due for a retry or were never picked up
+	 * by a dispatch worker.
+	 */
+	JobRunMetrics deliverPendingHookEvents();
+
+	Collection<HookDeliveryStatisticsData> retrieveDeliveryStatistics();
+}
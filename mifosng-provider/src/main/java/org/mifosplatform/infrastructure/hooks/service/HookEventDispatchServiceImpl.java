@@ -0,0 +1,419 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.hooks.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PreDestroy;
+
+import org.mifosplatform.infrastructure.core.domain.MifosPlatformTenant;
+import org.mifosplatform.infrastructure.core.service.RoutingDataSource;
+import org.mifosplatform.infrastructure.core.service.TenantAwareCallable;
+import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
+import org.mifosplatform.infrastructure.hooks.data.HookDeliveryStatisticsData;
+import org.mifosplatform.infrastructure.hooks.domain.Hook;
+import org.mifosplatform.infrastructure.hooks.domain.HookEventOutbox;
+import org.mifosplatform.infrastructure.hooks.domain.HookEventOutboxRepository;
+import org.mifosplatform.infrastructure.hooks.domain.HookEventOutboxStatus;
+import org.mifosplatform.infrastructure.hooks.domain.HookRepository;
+import org.mifosplatform.infrastructure.hooks.event.HookEvent;
+import org.mifosplatform.infrastructure.hooks.event.HookEventSource;
+import org.mifosplatform.infrastructure.hooks.processor.HookProcessor;
+import org.mifosplatform.infrastructure.hooks.processor.HookProcessorProvider;
+import org.mifosplatform.infrastructure.jobs.annotation.CronTarget;
+import org.mifosplatform.infrastructure.jobs.service.JobName;
+import org.mifosplatform.infrastructure.jobs.service.JobRunMetrics;
+import org.mifosplatform.useradministration.domain.AppUser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+/**
+ * Hook events are written to <code>m_hook_event_outbox</code> in the
+ * transaction of the command that raised them and, after the commit, queued
+ * on a small bounded worker pool of the tenant, so a slow hook target can
+ * neither block command processing nor pile up threads. Failed deliveries are
+ * retried with exponential backoff by the {@link JobName#DELIVER_HOOK_EVENTS}
+ * job, which also picks up events whose worker never ran because the queue was
+ * full or the server was restarted. A row is only delivered by the worker or
+ * job run that claimed it with a conditional update, and its outcome is only
+ * written back while the claim is still held. Delivery is at least once.
+ */
+@Service
+public class HookEventDispatchServiceImpl implements HookEventDispatchService {
+
+	private final static Logger logger = LoggerFactory
+			.getLogger(HookEventDispatchServiceImpl.class);
+
+	private static final int WORKER_THREADS_PER_TENANT = 2;
+	private static final int QUEUE_CAPACITY_PER_TENANT = 1000;
+	// time the delivery job leaves a new or claimed row to its worker
+	private static final long LEASE_MILLIS = TimeUnit.MINUTES.toMillis(5);
+	private static final int MAX_ATTEMPTS = 10;
+	private static final long INITIAL_BACKOFF_MILLIS = TimeUnit.SECONDS
+			.toMillis(30);
+	private static final long MAX_BACKOFF_MILLIS = TimeUnit.HOURS.toMillis(6);
+	private static final int JOB_BATCH_SIZE = 500;
+
+	private final HookRegistryCache hookRegistryCache;
+	private final HookEventOutboxRepository outboxRepository;
+	private final HookRepository hookRepository;
+	private final HookProcessorProvider hookProcessorProvider;
+	private final JdbcTemplate jdbcTemplate;
+
+	private final ConcurrentMap<String, ThreadPoolExecutor> executors = new ConcurrentHashMap<>();
+	private final ConcurrentMap<String, ConcurrentMap<Long, DeliveryCounters>> counters = new ConcurrentHashMap<>();
+
+	@Autowired
+	public HookEventDispatchServiceImpl(
+			final HookRegistryCache hookRegistryCache,
+			final HookEventOutboxRepository outboxRepository,
+			final HookRepository hookRepository,
+			final HookProcessorProvider hookProcessorProvider,
+			final RoutingDataSource dataSource) {
+		this.hookRegistryCache = hookRegistryCache;
+		this.outboxRepository = outboxRepository;
+		this.hookRepository = hookRepository;
+		this.hookProcessorProvider = hookProcessorProvider;
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		for (final ExecutorService executor : this.executors.values()) {
+			executor.shutdownNow();
+		}
+	}
+
+	@Override
+	public void enqueue(final HookEvent event) {
+
+		final HookEventSource source = event.getSource();
+		final List<Long> hookIds = this.hookRegistryCache
+				.retrieveHookIdsListeningTo(source.getEntityName(),
+						source.getActionName());
+		if (hookIds.isEmpty()) { return; }
+
+		final AppUser appUser = event.getAppUser();
+		final Long appUserId = appUser == null ? null : appUser.getId();
+		final String claimToken = UUID.randomUUID().toString();
+		final Date leaseUntil = new Date(System.currentTimeMillis()
+				+ LEASE_MILLIS);
+		final List<Long> outboxIds = new ArrayList<>(hookIds.size());
+		for (final Long hookId : hookIds) {
+			final HookEventOutbox outbox = HookEventOutbox.pending(hookId,
+					source.getEntityName(), source.getActionName(),
+					event.getPayload(), appUserId, claimToken, leaseUntil);
+			this.outboxRepository.save(outbox);
+			outboxIds.add(outbox.getId());
+		}
+
+		final DeliveryTask task = new DeliveryTask(outboxIds, claimToken,
+				event.getPayload(), appUser, event.getAuthToken());
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			// nothing is delivered for a command that is rolled back
+			TransactionSynchronizationManager
+					.registerSynchronization(new TransactionSynchronizationAdapter() {
+
+						@Override
+						public void afterCommit() {
+							submit(task);
+						}
+					});
+		} else {
+			submit(task);
+		}
+	}
+
+	private void submit(final DeliveryTask task) {
+		final String tenantIdentifier = ThreadLocalContextUtil.getTenant()
+				.getTenantIdentifier();
+		try {
+			executorFor(tenantIdentifier).submit(
+					new TenantAwareCallable<>(task));
+		} catch (final RejectedExecutionException e) {
+			// the events stay in the outbox and are delivered by the job
+			// once their lease is over
+			logger.warn("Hook dispatch queue of tenant " + tenantIdentifier
+					+ " is full, " + task.outboxIds.size()
+					+ " events are left to the delivery job");
+		}
+	}
+
+	private ThreadPoolExecutor executorFor(final String tenantIdentifier) {
+		ThreadPoolExecutor executor = this.executors.get(tenantIdentifier);
+		if (executor == null) {
+			final ThreadPoolExecutor created = new ThreadPoolExecutor(
+					WORKER_THREADS_PER_TENANT, WORKER_THREADS_PER_TENANT, 0L,
+					TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(
+							QUEUE_CAPACITY_PER_TENANT),
+					new ThreadPoolExecutor.AbortPolicy());
+			executor = this.executors.putIfAbsent(tenantIdentifier, created);
+			if (executor == null) {
+				executor = created;
+			} else {
+				created.shutdown();
+			}
+		}
+		return executor;
+	}
+
+	@Override
+	@CronTarget(jobName = JobName.DELIVER_HOOK_EVENTS)
+	public JobRunMetrics deliverPendingHookEvents() {
+		final JobRunMetrics metrics = new JobRunMetrics();
+		final Date now = new Date();
+		final List<Long> outboxIds = this.outboxRepository
+				.findIdsDueForDelivery(
+						HookEventOutboxStatus.PENDING.getValue(), now,
+						new PageRequest(0, JOB_BATCH_SIZE));
+		final String claimToken = UUID.randomUUID().toString();
+		for (final Long outboxId : outboxIds) {
+			if (!claim(outboxId, claimToken, new Date())) {
+				metrics.increment("skipped");
+				continue;
+			}
+			if (deliver(outboxId, claimToken, null, null, null)) {
+				metrics.increment("delivered");
+			} else {
+				metrics.increment("failed");
+			}
+		}
+		return metrics;
+	}
+
+	/**
+	 * Takes a pending row that is due, or already claimed with the given
+	 * token, and moves its next attempt past the lease, so no other worker or
+	 * job run, also on another node, delivers it meanwhile.
+	 *
+	 * @return true when the row is now claimed with the given token
+	 */
+	private boolean claim(final Long outboxId, final String claimToken,
+			final Date now) {
+		final String sql = "update m_hook_event_outbox set claim_token = ?, next_attempt_on = ? where id = ? and status_enum = ?"
+				+ " and (next_attempt_on <= ? or claim_token = ?)";
+		return this.jdbcTemplate.update(sql, claimToken,
+				new Date(now.getTime() + LEASE_MILLIS), outboxId,
+				HookEventOutboxStatus.PENDING.getValue(), now, claimToken) == 1;
+	}
+
+	/**
+	 * Gives up the claim before the outcome is saved, which is skipped when
+	 * the lease ran out and another run took the row over.
+	 */
+	private boolean release(final HookEventOutbox outbox,
+			final String claimToken) {
+		final String sql = "update m_hook_event_outbox set claim_token = null where id = ? and claim_token = ?";
+		if (this.jdbcTemplate.update(sql, outbox.getId(), claimToken) == 1) {
+			this.outboxRepository.save(outbox);
+			return true;
+		}
+		logger.warn("Claim of hook event " + outbox.getId()
+				+ " expired, its outcome is left to the run that holds it");
+		return false;
+	}
+
+	/**
+	 * @param claimToken
+	 *            token the row was claimed with
+	 * @param payload
+	 *            the already parsed payload of the event, read from the outbox
+	 *            row when null
+	 * @return true when the event was delivered
+	 */
+	private boolean deliver(final Long outboxId, final String claimToken,
+			final JsonObject payload, final AppUser appUser,
+			final String authToken) {
+
+		final HookEventOutbox outbox = this.outboxRepository.findOne(outboxId);
+		if (outbox == null || !outbox.isPending()) { return false; }
+
+		final DeliveryCounters deliveryCounters = countersFor(outbox
+				.getHookId());
+		final Hook hook = this.hookRepository.findOne(outbox.getHookId());
+		final HookProcessor processor = hook == null ? null
+				: this.hookProcessorProvider.getProcessor(hook);
+		if (hook == null || !hook.isActive() || processor == null) {
+			outbox.markFailed("Hook " + outbox.getHookId()
+					+ " no longer exists or is not active");
+			if (release(outbox, claimToken)) {
+				deliveryCounters.abandoned.incrementAndGet();
+			}
+			return false;
+		}
+
+		final long start = System.nanoTime();
+		try {
+			final JsonObject json = payload == null ? new JsonParser().parse(
+					outbox.getPayload()).getAsJsonObject() : payload;
+			processor.process(hook, appUser, json, outbox.getEntityName(),
+					outbox.getActionName(), ThreadLocalContextUtil.getTenant()
+							.getTenantIdentifier(), authToken);
+			outbox.markDelivered();
+			release(outbox, claimToken);
+			deliveryCounters.delivered.incrementAndGet();
+			deliveryCounters.totalLatencyNanos.addAndGet(System.nanoTime()
+					- start);
+			return true;
+		} catch (final RuntimeException e) {
+			final int attempt = outbox.getAttempts() + 1;
+			logger.warn("Delivery of hook event " + outboxId + " to hook "
+					+ outbox.getHookId() + " failed on attempt " + attempt
+					+ ": " + e.getMessage());
+			outbox.markAttemptFailed(e.getMessage(), MAX_ATTEMPTS,
+					backoffMillis(attempt));
+			if (!release(outbox, claimToken)) { return false; }
+			deliveryCounters.failedAttempts.incrementAndGet();
+			deliveryCounters.lastError = e.getMessage();
+			if (!outbox.isPending()) {
+				deliveryCounters.abandoned.incrementAndGet();
+			}
+			return false;
+		}
+	}
+
+	private static long backoffMillis(final int attempt) {
+		final int exponent = Math.min(attempt - 1, 20);
+		return Math.min(INITIAL_BACKOFF_MILLIS << exponent, MAX_BACKOFF_MILLIS);
+	}
+
+	private DeliveryCounters countersFor(final Long hookId) {
+		final String tenantIdentifier = ThreadLocalContextUtil.getTenant()
+				.getTenantIdentifier();
+		ConcurrentMap<Long, DeliveryCounters> tenantCounters = this.counters
+				.get(tenantIdentifier);
+		if (tenantCounters == null) {
+			this.counters.putIfAbsent(tenantIdentifier,
+					new ConcurrentHashMap<Long, DeliveryCounters>());
+			tenantCounters = this.counters.get(tenantIdentifier);
+		}
+		DeliveryCounters hookCounters = tenantCounters.get(hookId);
+		if (hookCounters == null) {
+			tenantCounters.putIfAbsent(hookId, new DeliveryCounters());
+			hookCounters = tenantCounters.get(hookId);
+		}
+		return hookCounters;
+	}
+
+	@Override
+	public Collection<HookDeliveryStatisticsData> retrieveDeliveryStatistics() {
+		final MifosPlatformTenant tenant = ThreadLocalContextUtil.getTenant();
+
+		final Map<Long, Long> pendingByHook = new HashMap<>();
+		for (final Object[] row : this.outboxRepository
+				.countByHookWithStatus(HookEventOutboxStatus.PENDING
+						.getValue())) {
+			pendingByHook.put((Long) row[0], (Long) row[1]);
+		}
+
+		final Map<Long, DeliveryCounters> tenantCounters = this.counters
+				.get(tenant.getTenantIdentifier());
+		final Set<Long> hookIds = new HashSet<>(pendingByHook.keySet());
+		if (tenantCounters != null) {
+			hookIds.addAll(tenantCounters.keySet());
+		}
+
+		final Collection<HookDeliveryStatisticsData> statistics = new ArrayList<>();
+		for (final Long hookId : hookIds) {
+			final Long pending = pendingByHook.get(hookId);
+			final DeliveryCounters hookCounters = tenantCounters == null ? null
+					: tenantCounters.get(hookId);
+			if (hookCounters == null) {
+				statistics.add(new HookDeliveryStatisticsData(hookId, 0, 0, 0,
+						pending, 0, null));
+				continue;
+			}
+			final long delivered = hookCounters.delivered.get();
+			final long averageLatencyMillis = delivered == 0 ? 0
+					: TimeUnit.NANOSECONDS
+							.toMillis(hookCounters.totalLatencyNanos.get()
+									/ delivered);
+			statistics.add(new HookDeliveryStatisticsData(hookId, delivered,
+					hookCounters.failedAttempts.get(), hookCounters.abandoned
+							.get(), pending == null ? 0 : pending,
+					averageLatencyMillis, hookCounters.lastError));
+		}
+		return statistics;
+	}
+
+	private static final class DeliveryCounters {
+
+		private final AtomicLong delivered = new AtomicLong();
+		private final AtomicLong failedAttempts = new AtomicLong();
+		private final AtomicLong abandoned = new AtomicLong();
+		private final AtomicLong totalLatencyNanos = new AtomicLong();
+		private volatile String lastError;
+	}
+
+	/**
+	 * Delivers one event to all its hooks, parsing the payload only once.
+	 */
+	private final class DeliveryTask implements Callable<Void> {
+
+		private final List<Long> outboxIds;
+		private final String claimToken;
+		private final String payload;
+		private final AppUser appUser;
+		private final String authToken;
+
+		public DeliveryTask(final List<Long> outboxIds,
+				final String claimToken, final String payload,
+				final AppUser appUser, final String authToken) {
+			this.outboxIds = outboxIds;
+			this.claimToken = claimToken;
+			this.payload = payload;
+			this.appUser = appUser;
+			this.authToken = authToken;
+		}
+
+		@Override
+		public Void call() {
+			final JsonObject json = new JsonParser().parse(this.payload)
+					.getAsJsonObject();
+			for (final Long outboxId : this.outboxIds) {
+				try {
+					// renews the lease, or skips a row the job has taken
+					// over because this worker started too late
+					if (claim(outboxId, this.claimToken, new Date())) {
+						deliver(outboxId, this.claimToken, json, this.appUser,
+								this.authToken);
+					}
+				} catch (final RuntimeException e) {
+					// left pending, the delivery job retries it after the
+					// lease
+					logger.error("Could not deliver hook event " + outboxId, e);
+				}
+			}
+			return null;
+		}
+	}
+}
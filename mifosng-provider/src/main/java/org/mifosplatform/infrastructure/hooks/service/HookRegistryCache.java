@@ -0,0 +1,184 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.hooks.service;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.mifosplatform.infrastructure.cache.data.CacheStatisticsData;
+import org.mifosplatform.infrastructure.cache.service.CacheStatisticsProvider;
+import org.mifosplatform.infrastructure.core.domain.MifosPlatformTenant;
+import org.mifosplatform.infrastructure.core.service.RoutingDataSource;
+import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Per tenant in-memory map of the active hooks registered for each entity and
+ * action, so the lookup done for every processed command does not hit the
+ * database. It is loaded with a single query and dropped through
+ * {@link #invalidate()} whenever a hook is created, updated or deleted.
+ * 
+ * The registry is loaded in a new read committed transaction, so a registry
+ * read by a repeatable read transaction that started before a hook change
+ * was committed is never cached. A transaction that changed hooks reads the
+ * registry in place, without caching, until it completes.
+ */
+@Component
+public class HookRegistryCache implements CacheStatisticsProvider {
+
+	private final JdbcTemplate jdbcTemplate;
+	private final TransactionTemplate committedReadTemplate;
+
+	private final ConcurrentMap<Long, Map<String, List<Long>>> registries = new ConcurrentHashMap<>();
+	private final AtomicLong generation = new AtomicLong();
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+
+	@Autowired
+	public HookRegistryCache(final RoutingDataSource dataSource,
+			final PlatformTransactionManager transactionManager) {
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+		this.committedReadTemplate = new TransactionTemplate(transactionManager);
+		this.committedReadTemplate
+				.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		this.committedReadTemplate
+				.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+		this.committedReadTemplate.setReadOnly(true);
+	}
+
+	/**
+	 * @return ids of the active hooks listening to the event, empty when there
+	 *         are none
+	 */
+	public List<Long> retrieveHookIdsListeningTo(final String entityName,
+			final String actionName) {
+		final List<Long> hookIds = registry().get(key(entityName, actionName));
+		if (hookIds == null) { return Collections.emptyList(); }
+		return hookIds;
+	}
+
+	public void invalidate() {
+		final MifosPlatformTenant tenant = ThreadLocalContextUtil.getTenant();
+		if (tenant == null) { return; }
+		final Long tenantId = tenant.getId();
+		evict(tenantId);
+		// evict again once the change is committed so a registry read by
+		// another thread before the commit does not stay cached
+		if (TransactionSynchronizationManager.isSynchronizationActive()
+				&& !TransactionSynchronizationManager.hasResource(this)) {
+			TransactionSynchronizationManager.bindResource(this, tenantId);
+			TransactionSynchronizationManager
+					.registerSynchronization(new TransactionSynchronizationAdapter() {
+
+						@Override
+						public void afterCompletion(
+								@SuppressWarnings("unused") final int status) {
+							TransactionSynchronizationManager
+									.unbindResourceIfPossible(HookRegistryCache.this);
+							evict(tenantId);
+						}
+					});
+		}
+	}
+
+	@Override
+	public CacheStatisticsData retrieveCacheStatistics() {
+		long size = 0;
+		for (final Map<String, List<Long>> registry : this.registries.values()) {
+			size += registry.size();
+		}
+		return CacheStatisticsData.instance("hookRegistry", size, this.hits.get(),
+				this.misses.get());
+	}
+
+	private void evict(final Long tenantId) {
+		this.generation.incrementAndGet();
+		this.registries.remove(tenantId);
+	}
+
+	private Map<String, List<Long>> registry() {
+		// uncommitted hook changes of this transaction are only visible to it
+		if (TransactionSynchronizationManager.hasResource(this)) { return loadRegistry(); }
+
+		final MifosPlatformTenant tenant = ThreadLocalContextUtil.getTenant();
+		if (tenant != null) {
+			final Map<String, List<Long>> cached = this.registries.get(tenant
+					.getId());
+			if (cached != null) {
+				this.hits.incrementAndGet();
+				return cached;
+			}
+		}
+		this.misses.incrementAndGet();
+
+		final long generationAtLoad = this.generation.get();
+		final Map<String, List<Long>> loaded = this.committedReadTemplate
+				.execute(new TransactionCallback<Map<String, List<Long>>>() {
+
+					@Override
+					public Map<String, List<Long>> doInTransaction(
+							@SuppressWarnings("unused") final TransactionStatus status) {
+						return loadRegistry();
+					}
+				});
+
+		// do not cache a registry that may have been read before an
+		// invalidation happened while it was loading
+		if (tenant != null && this.generation.get() == generationAtLoad) {
+			this.registries.put(tenant.getId(), loaded);
+		}
+		return loaded;
+	}
+
+	private Map<String, List<Long>> loadRegistry() {
+		final Map<String, List<Long>> loaded = new HashMap<>();
+		final String sql = "select re.hook_id as hookId, re.entity_name as entityName, re.action_name as actionName"
+				+ " from m_hook_registered_events re join m_hook h on h.id = re.hook_id"
+				+ " where h.is_active = 1 order by re.hook_id";
+		this.jdbcTemplate.query(sql, new RowCallbackHandler() {
+
+			@Override
+			public void processRow(final ResultSet rs) throws SQLException {
+				final String key = key(rs.getString("entityName"),
+						rs.getString("actionName"));
+				List<Long> hookIds = loaded.get(key);
+				if (hookIds == null) {
+					hookIds = new ArrayList<>();
+					loaded.put(key, hookIds);
+				}
+				final Long hookId = rs.getLong("hookId");
+				if (!hookIds.contains(hookId)) {
+					hookIds.add(hookId);
+				}
+			}
+		});
+		return loaded;
+	}
+
+	private static String key(final String entityName, final String actionName) {
+		// matches the case insensitive comparison the database did before
+		return (entityName + ":" + actionName).toUpperCase(Locale.ENGLISH);
+	}
+}
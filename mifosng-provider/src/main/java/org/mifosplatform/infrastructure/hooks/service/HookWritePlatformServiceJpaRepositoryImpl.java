@@ -62,6 +62,7 @@ public class HookWritePlatformServiceJpaRepositoryImpl implements
 	private final HookTemplateRepository hookTemplateRepository;
 	private final HookCommandFromApiJsonDeserializer fromApiJsonDeserializer;
 	private final FromJsonHelper fromApiJsonHelper;
+	private final HookRegistryCache hookRegistryCache;
 
 	@Autowired
 	public HookWritePlatformServiceJpaRepositoryImpl(
@@ -69,12 +70,14 @@ public class HookWritePlatformServiceJpaRepositoryImpl implements
 			final HookRepository hookRepository,
 			final HookTemplateRepository hookTemplateRepository,
 			final HookCommandFromApiJsonDeserializer fromApiJsonDeserializer,
-			final FromJsonHelper fromApiJsonHelper) {
+			final FromJsonHelper fromApiJsonHelper,
+			final HookRegistryCache hookRegistryCache) {
 		this.context = context;
 		this.hookRepository = hookRepository;
 		this.hookTemplateRepository = hookTemplateRepository;
 		this.fromApiJsonDeserializer = fromApiJsonDeserializer;
 		this.fromApiJsonHelper = fromApiJsonHelper;
+		this.hookRegistryCache = hookRegistryCache;
 	}
 
 	@Transactional
@@ -101,6 +104,7 @@ public class HookWritePlatformServiceJpaRepositoryImpl implements
 			validateHookRules(template, config, allEvents);
 
 			this.hookRepository.save(hook);
+			this.hookRegistryCache.invalidate();
 
 			return new CommandProcessingResultBuilder()
 					.withCommandId(command.commandId())
@@ -150,6 +154,7 @@ public class HookWritePlatformServiceJpaRepositoryImpl implements
 				}
 
 				this.hookRepository.saveAndFlush(hook);
+				this.hookRegistryCache.invalidate();
 			}
 
 			return new CommandProcessingResultBuilder() //
@@ -175,6 +180,7 @@ public class HookWritePlatformServiceJpaRepositoryImpl implements
 		try {
 			this.hookRepository.delete(hook);
 			this.hookRepository.flush();
+			this.hookRegistryCache.invalidate();
 		} catch (final DataIntegrityViolationException e) {
 			throw new PlatformDataIntegrityException(
 					"error.msg.unknown.data.integrity.issue",
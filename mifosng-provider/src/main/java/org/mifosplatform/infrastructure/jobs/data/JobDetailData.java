@@ -33,8 +33,15 @@ public class JobDetailData {
     @SuppressWarnings("unused")
     private final JobDetailHistoryData lastRunHistory;
 
+    @SuppressWarnings("unused")
+    private final Integer chunkSize;
+
+    @SuppressWarnings("unused")
+    private final Integer threadCount;
+
     public JobDetailData(final Long jobId, final String displayName, final Date nextRunTime, final String initializingError,
-            final String cronExpression, final boolean active, final boolean currentlyRunning, final JobDetailHistoryData lastRunHistory) {
+            final String cronExpression, final boolean active, final boolean currentlyRunning, final JobDetailHistoryData lastRunHistory,
+            final Integer chunkSize, final Integer threadCount) {
         this.jobId = jobId;
         this.displayName = displayName;
         this.nextRunTime = nextRunTime;
@@ -43,5 +50,7 @@ public class JobDetailData {
         this.active = active;
         this.lastRunHistory = lastRunHistory;
         this.currentlyRunning = currentlyRunning;
+        this.chunkSize = chunkSize;
+        this.threadCount = threadCount;
     }
 }
@@ -64,6 +64,20 @@ public class JobDetailDataValidator {
             baseDataValidator.reset().parameter(SchedulerJobApiConstants.jobActiveStatusParamName).value(status).notBlank()
                     .validateForBooleanValue();
         }
+        if (this.fromApiJsonHelper.parameterExists(SchedulerJobApiConstants.chunkSizeParamName, element)) {
+            atLeastOneParameterPassedForUpdate = true;
+            final Integer chunkSize = this.fromApiJsonHelper.extractIntegerSansLocaleNamed(SchedulerJobApiConstants.chunkSizeParamName,
+                    element);
+            baseDataValidator.reset().parameter(SchedulerJobApiConstants.chunkSizeParamName).value(chunkSize).ignoreIfNull()
+                    .integerGreaterThanZero();
+        }
+        if (this.fromApiJsonHelper.parameterExists(SchedulerJobApiConstants.threadCountParamName, element)) {
+            atLeastOneParameterPassedForUpdate = true;
+            final Integer threadCount = this.fromApiJsonHelper.extractIntegerSansLocaleNamed(
+                    SchedulerJobApiConstants.threadCountParamName, element);
+            baseDataValidator.reset().parameter(SchedulerJobApiConstants.threadCountParamName).value(threadCount).ignoreIfNull()
+                    .integerGreaterThanZero();
+        }
 
         if (!atLeastOneParameterPassedForUpdate) {
             final Object forceError = null;
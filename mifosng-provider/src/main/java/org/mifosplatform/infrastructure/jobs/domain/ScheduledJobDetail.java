@@ -72,6 +72,12 @@ public class ScheduledJobDetail extends AbstractPersistable<Long> {
     @Column(name = "is_misfired")
     private boolean triggerMisfired;
 
+    @Column(name = "chunk_size")
+    private Integer chunkSize;
+
+    @Column(name = "thread_count")
+    private Integer threadCount;
+
     protected ScheduledJobDetail() {
 
     }
@@ -156,6 +162,18 @@ public class ScheduledJobDetail extends AbstractPersistable<Long> {
             this.activeSchedular = newValue;
         }
 
+        if (command.isChangeInIntegerSansLocaleParameterNamed(SchedulerJobApiConstants.chunkSizeParamName, this.chunkSize)) {
+            final Integer newValue = command.integerValueSansLocaleOfParameterNamed(SchedulerJobApiConstants.chunkSizeParamName);
+            actualChanges.put(SchedulerJobApiConstants.chunkSizeParamName, newValue);
+            this.chunkSize = newValue;
+        }
+
+        if (command.isChangeInIntegerSansLocaleParameterNamed(SchedulerJobApiConstants.threadCountParamName, this.threadCount)) {
+            final Integer newValue = command.integerValueSansLocaleOfParameterNamed(SchedulerJobApiConstants.threadCountParamName);
+            actualChanges.put(SchedulerJobApiConstants.threadCountParamName, newValue);
+            this.threadCount = newValue;
+        }
+
         return actualChanges;
     }
 
@@ -167,4 +185,12 @@ public class ScheduledJobDetail extends AbstractPersistable<Long> {
         this.triggerMisfired = triggerMisfired;
     }
 
+    public Integer getChunkSize() {
+        return this.chunkSize;
+    }
+
+    public Integer getThreadCount() {
+        return this.threadCount;
+    }
+
 }
@@ -5,9 +5,27 @@
  */
 package org.mifosplatform.infrastructure.jobs.exception;
 
+import org.mifosplatform.infrastructure.jobs.service.JobRunMetrics;
+
 public class JobExecutionException extends Exception {
 
+    private final JobRunMetrics runMetrics;
+
     public JobExecutionException(final String msg) {
+        this(msg, null);
+    }
+
+    /**
+     * @param runMetrics
+     *            what the run got done before failing, stored with the run
+     *            history like the metrics of a successful run
+     */
+    public JobExecutionException(final String msg, final JobRunMetrics runMetrics) {
         super(msg);
+        this.runMetrics = runMetrics;
+    }
+
+    public JobRunMetrics getRunMetrics() {
+        return this.runMetrics;
     }
 }
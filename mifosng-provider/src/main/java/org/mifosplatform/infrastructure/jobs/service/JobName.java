@@ -32,7 +32,11 @@ public enum JobName {
     PAYMENT_REMINDER_SMS_NOTIFICATION("Payment Reminder SMS Notification"),
     EXPIRED_LOAN_PAYMENT_REMINDER_EMAIL_NOTIFICATION("Expired Loans Payment Reminder Email Notification"),
     EXPIRED_LOAN_PAYMENT_REMINDER_SMS_NOTIFICATION("Expired Loans Payment Reminder SMS Notification"),
-    CREATE_NEW_FINANCIALYEAR("Create New Financial Year");
+    CREATE_NEW_FINANCIALYEAR("Create New Financial Year"),
+    DELIVER_HOOK_EVENTS("Deliver Hook Events"), //
+    UPDATE_SEARCH_INDEX("Update Search Index"), //
+    SEND_NOTIFICATIONS("Send Notifications"), //
+    UPDATE_GL_BALANCE_AGGREGATES("Update GL Balance Aggregates");
 
     private final String name;
 
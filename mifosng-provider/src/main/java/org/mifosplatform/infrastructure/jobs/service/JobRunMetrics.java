@@ -0,0 +1,52 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.jobs.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Named counters collected by a batch job during one run. A
+ * {@link org.mifosplatform.infrastructure.jobs.annotation.CronTarget} method
+ * returns an instance of this class, quartz keeps it as the job execution
+ * result and {@link SchedulerJobListener} stores it with the run history.
+ */
+public class JobRunMetrics {
+
+    private final Map<String, Long> metrics = new LinkedHashMap<>();
+    private final long startedAt;
+
+    public JobRunMetrics() {
+        this.startedAt = System.currentTimeMillis();
+    }
+
+    public void increment(final String name) {
+        add(name, 1L);
+    }
+
+    public void add(final String name, final long value) {
+        final Long current = this.metrics.get(name);
+        this.metrics.put(name, current == null ? value : current + value);
+    }
+
+    public Long get(final String name) {
+        return this.metrics.get(name);
+    }
+
+    public long elapsedMillis() {
+        return System.currentTimeMillis() - this.startedAt;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        for (final Map.Entry<String, Long> entry : this.metrics.entrySet()) {
+            sb.append(entry.getKey()).append('=').append(entry.getValue()).append(", ");
+        }
+        sb.append("elapsedMillis=").append(elapsedMillis());
+        return sb.toString();
+    }
+}
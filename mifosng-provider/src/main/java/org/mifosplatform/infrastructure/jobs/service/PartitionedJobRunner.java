@@ -0,0 +1,179 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.jobs.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.mifosplatform.infrastructure.core.service.TenantAwareCallable;
+import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
+import org.mifosplatform.infrastructure.jobs.domain.ScheduledJobDetail;
+import org.mifosplatform.infrastructure.jobs.domain.ScheduledJobDetailRepository;
+import org.mifosplatform.infrastructure.jobs.exception.JobExecutionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs a batch job over a set of entity ids without loading the entities up
+ * front. Ids are read in keyset paginated chunks, the chunks are spread over a
+ * worker pool and every id is handed to an {@link IdProcessor}, which is
+ * expected to do its work in its own short transaction. A failure for one id
+ * is recorded and does not stop the others; the run then ends with a
+ * {@link JobExecutionException} carrying the metrics of the ids that did go
+ * through.
+ *
+ * The chunk size and number of worker threads come from the
+ * <code>chunk_size</code> and <code>thread_count</code> columns of the job.
+ */
+@Component
+public class PartitionedJobRunner {
+
+    private final static Logger logger = LoggerFactory.getLogger(PartitionedJobRunner.class);
+
+    public static final int DEFAULT_CHUNK_SIZE = 100;
+    public static final int DEFAULT_THREAD_COUNT = 1;
+    private static final int MAX_REPORTED_FAILURES = 50;
+
+    public interface IdChunkReader {
+
+        /**
+         * @return at most <code>chunkSize</code> ids greater than
+         *         <code>lastId</code> in ascending order, empty when done
+         */
+        List<Long> readChunk(Long lastId, int chunkSize);
+    }
+
+    public interface IdProcessor {
+
+        void process(Long id);
+    }
+
+    private final ScheduledJobDetailRepository scheduledJobDetailRepository;
+
+    @Autowired
+    public PartitionedJobRunner(final ScheduledJobDetailRepository scheduledJobDetailRepository) {
+        this.scheduledJobDetailRepository = scheduledJobDetailRepository;
+    }
+
+    public JobRunMetrics run(final JobName jobName, final IdChunkReader reader, final IdProcessor processor) throws JobExecutionException {
+
+        final ScheduledJobDetail jobDetail = this.scheduledJobDetailRepository.findByJobName(jobName.toString());
+        int chunkSize = DEFAULT_CHUNK_SIZE;
+        int threadCount = DEFAULT_THREAD_COUNT;
+        if (jobDetail != null) {
+            if (jobDetail.getChunkSize() != null && jobDetail.getChunkSize() > 0) {
+                chunkSize = jobDetail.getChunkSize();
+            }
+            if (jobDetail.getThreadCount() != null && jobDetail.getThreadCount() > 0) {
+                threadCount = jobDetail.getThreadCount();
+            }
+        }
+
+        final JobRunMetrics metrics = new JobRunMetrics();
+        final List<String> failures = new ArrayList<>();
+        final ExecutorService executorService = Executors.newFixedThreadPool(threadCount);
+        try {
+            final List<Future<ChunkResult>> pending = new ArrayList<>();
+            Long lastId = Long.valueOf(0);
+            List<Long> ids = reader.readChunk(lastId, chunkSize);
+            while (!ids.isEmpty()) {
+                pending.add(executorService.submit(new TenantAwareCallable<>(new ChunkTask(ids, processor))));
+                metrics.increment("chunks");
+                lastId = ids.get(ids.size() - 1);
+
+                // keep at most two chunks per worker in flight so ids are
+                // streamed instead of being read all at once
+                if (pending.size() >= threadCount * 2) {
+                    collect(pending.remove(0), metrics, failures);
+                }
+                ids = reader.readChunk(lastId, chunkSize);
+            }
+            for (final Future<ChunkResult> future : pending) {
+                collect(future, metrics, failures);
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        logger.info(ThreadLocalContextUtil.getTenant().getName() + ": " + jobName + " finished: " + metrics);
+
+        if (!failures.isEmpty()) {
+            final StringBuilder errorMsg = new StringBuilder(metrics.toString());
+            for (final String failure : failures) {
+                errorMsg.append('\n').append(failure);
+            }
+            final Long failed = metrics.get("failed");
+            if (failed != null && failed > failures.size()) {
+                errorMsg.append("\n... ").append(failed - failures.size()).append(" more failures");
+            }
+            throw new JobExecutionException(errorMsg.toString(), metrics);
+        }
+        return metrics;
+    }
+
+    private void collect(final Future<ChunkResult> future, final JobRunMetrics metrics, final List<String> failures)
+            throws JobExecutionException {
+        final ChunkResult result;
+        try {
+            result = future.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new JobExecutionException("Interrupted while waiting for job chunk: " + e.getMessage(), metrics);
+        } catch (final ExecutionException e) {
+            throw new JobExecutionException("Job chunk failed: " + e.getCause().getMessage(), metrics);
+        }
+        metrics.add("processed", result.processed);
+        metrics.add("failed", result.failures.size());
+        for (final String failure : result.failures) {
+            if (failures.size() < MAX_REPORTED_FAILURES) {
+                failures.add(failure);
+            }
+        }
+    }
+
+    private static final class ChunkResult {
+
+        private int processed;
+        private final List<String> failures = new ArrayList<>();
+    }
+
+    private static final class ChunkTask implements Callable<ChunkResult> {
+
+        private final List<Long> ids;
+        private final IdProcessor processor;
+
+        public ChunkTask(final List<Long> ids, final IdProcessor processor) {
+            this.ids = ids;
+            this.processor = processor;
+        }
+
+        @Override
+        public ChunkResult call() {
+            final ChunkResult result = new ChunkResult();
+            for (final Long id : this.ids) {
+                try {
+                    this.processor.process(id);
+                    result.processed++;
+                } catch (final Exception e) {
+                    Throwable realCause = e;
+                    if (e.getCause() != null) {
+                        realCause = e.getCause();
+                    }
+                    logger.error("Job failed for id " + id, e);
+                    result.failures.add("failed for id " + id + " with message " + realCause.getMessage());
+                }
+            }
+            return result;
+        }
+    }
+}
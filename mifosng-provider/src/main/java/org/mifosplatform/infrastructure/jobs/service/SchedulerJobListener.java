@@ -91,14 +91,35 @@ public class SchedulerJobListener implements JobListener {
         scheduledJobDetails.updatePreviousRunStartTime(context.getFireTime());
         scheduledJobDetails.updateCurrentlyRunningStatus(false);
 
+        String runMetrics = null;
+        if (context.getResult() instanceof JobRunMetrics) {
+            runMetrics = context.getResult().toString();
+        } else if (jobException != null) {
+            final JobRunMetrics failedRunMetrics = getRunMetricsFromException(jobException);
+            if (failedRunMetrics != null) {
+                runMetrics = failedRunMetrics.toString();
+            }
+        }
+
         final ScheduledJobRunHistory runHistory = new ScheduledJobRunHistory(scheduledJobDetails, version, context.getFireTime(),
-                new Date(), status, errorMessage, triggerType, errorLog);
+                new Date(), status, errorMessage, triggerType, errorLog, runMetrics);
         // scheduledJobDetails.addRunHistory(runHistory);
 
         this.schedularService.saveOrUpdate(scheduledJobDetails, runHistory);
 
     }
 
+    private JobRunMetrics getRunMetricsFromException(final Throwable exception) {
+        Throwable cause = exception;
+        while (cause != null) {
+            if (cause instanceof org.mifosplatform.infrastructure.jobs.exception.JobExecutionException) {
+                return ((org.mifosplatform.infrastructure.jobs.exception.JobExecutionException) cause).getRunMetrics();
+            }
+            cause = cause.getCause();
+        }
+        return null;
+    }
+
     private Throwable getCauseFromException(final Throwable exception) {
         if (this.stackTraceLevel <= SchedulerServiceConstants.STACK_TRACE_LEVEL
                 && exception.getCause() != null
@@ -0,0 +1,28 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.notification.data;
+
+/**
+ * What the gateway answered for one message of a send.
+ */
+public class NotificationDeliveryData {
+
+    private final String messageId;
+    private final String status;
+
+    public NotificationDeliveryData(final String messageId, final String status) {
+        this.messageId = messageId;
+        this.status = status;
+    }
+
+    public String getMessageId() {
+        return this.messageId;
+    }
+
+    public String getStatus() {
+        return this.status;
+    }
+}
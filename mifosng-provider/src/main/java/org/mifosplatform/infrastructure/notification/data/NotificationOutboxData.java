@@ -0,0 +1,59 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.notification.data;
+
+/**
+ * A message in <code>notification_outbox</code>, about the entity it was
+ * raised for.
+ */
+public class NotificationOutboxData {
+
+    private final Long id;
+    private final String recipient;
+    private final String message;
+    private final String entityName;
+    private final Long entityId;
+    private final int attempts;
+
+    public static NotificationOutboxData newMessage(final String recipient, final String message, final String entityName,
+            final Long entityId) {
+        return new NotificationOutboxData(null, recipient, message, entityName, entityId, 0);
+    }
+
+    public NotificationOutboxData(final Long id, final String recipient, final String message, final String entityName,
+            final Long entityId, final int attempts) {
+        this.id = id;
+        this.recipient = recipient;
+        this.message = message;
+        this.entityName = entityName;
+        this.entityId = entityId;
+        this.attempts = attempts;
+    }
+
+    public Long getId() {
+        return this.id;
+    }
+
+    public String getRecipient() {
+        return this.recipient;
+    }
+
+    public String getMessage() {
+        return this.message;
+    }
+
+    public String getEntityName() {
+        return this.entityName;
+    }
+
+    public Long getEntityId() {
+        return this.entityId;
+    }
+
+    public int getAttempts() {
+        return this.attempts;
+    }
+}
@@ -0,0 +1,30 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.notification.domain;
+
+public enum NotificationOutboxStatus {
+
+    PENDING(100), //
+    SENT(300), //
+    FAILED(400);
+
+    private final Integer value;
+
+    private NotificationOutboxStatus(final Integer value) {
+        this.value = value;
+    }
+
+    public Integer getValue() {
+        return this.value;
+    }
+
+    public static NotificationOutboxStatus fromInt(final Integer value) {
+        for (final NotificationOutboxStatus status : values()) {
+            if (status.value.equals(value)) { return status; }
+        }
+        return null;
+    }
+}
@@ -35,7 +35,19 @@ public abstract class AbstractNotificationService implements NotificationService
     protected static final String queryFollowUpOfficers = "SELECT MAX(n.id) AS note_id, n.createdByUserName AS username,u.email, u.firstname, u.lastname FROM notes n, m_appuser u WHERE n.createdByUserName=u.username AND (SELECT COUNT(id) FROM notification_log WHERE id=n.notification_id)=0 AND n.followUpDate = CURRENT_DATE() GROUP BY email, firstname, lastname";
     protected static final String queryFollowUpClients = "SELECT l.client_id, c.firstname, c.lastname, c.account_no, ifnull(c.external_id,'') file_no, c.mobile_no FROM notes n, m_loan l, m_client c WHERE n.loan_id=l.id AND l.client_id=c.id AND n.followUpDate = CURRENT_DATE() AND n.createdByUserName = ?";
     protected static final String updateNotes = "UPDATE notes SET notification_id=? WHERE followUpDate = CURRENT_DATE() AND createdByUserName = ?";
-    protected static final String queryPaymentReminderClients = "SELECT lrs.id AS loan_repayment_schedule_id, c.firstname, c.lastname, c.mobile_no FROM m_loan_repayment_schedule lrs, m_loan l, m_client c WHERE lrs.loan_id = l.id AND l.client_id = c.id AND l.loan_status_id IN (800, 900) AND lrs.principal_amount > 0 AND (SELECT count(entity_id) FROM notification_log WHERE entity_name='m_loan_repayment_schedule' AND entity_id=lrs.id)=0 AND lrs.duedate = DATE_ADD(CURDATE(), INTERVAL ? DAY)";
+    // reminders already logged or queued are anti-joined instead of being
+    // looked up per row
+    protected static final String queryPaymentReminderClients = "SELECT lrs.id AS loan_repayment_schedule_id, c.firstname, c.lastname, c.mobile_no " +
+            "FROM m_loan_repayment_schedule lrs " +
+            "JOIN m_loan l ON lrs.loan_id = l.id " +
+            "JOIN m_client c ON l.client_id = c.id " +
+            "LEFT JOIN notification_log nl ON nl.entity_name = 'm_loan_repayment_schedule' AND nl.entity_id = lrs.id " +
+            "LEFT JOIN notification_outbox nob ON nob.entity_name = 'm_loan_repayment_schedule' AND nob.entity_id = lrs.id " +
+            "WHERE l.loan_status_id IN (800, 900) " +
+            "AND lrs.principal_amount > 0 " +
+            "AND lrs.duedate = DATE_ADD(CURDATE(), INTERVAL ? DAY) " +
+            "AND c.mobile_no IS NOT NULL AND c.mobile_no <> '' " +
+            "AND nl.id IS NULL AND nob.id IS NULL";
     protected static final String queryExpiredLoans = "SELECT " +
             "l.id AS loan_id, " +
             "c.firstname, " +
@@ -43,15 +55,19 @@ public abstract class AbstractNotificationService implements NotificationService
             "c.mobile_no, " +
             "l.total_outstanding_derived as amount, " +
             "l.maturedon_date as maturityDate, " +
-            "(SELECT MAX(sent_at) FROM notification_log WHERE entity_name = 'm_loan' AND entity_id = l.id) as lastMessageDate, " +
+            "nl.last_sent_at as lastMessageDate, " +
             "rc.display_symbol as currencyDisplaySymbol " +
             "FROM m_loan l " +
             "left join m_client c on l.client_id = c.id " +
             "left join m_currency rc on rc.`code` = l.currency_code " +
+            "left join (SELECT entity_id, MAX(sent_at) AS last_sent_at FROM notification_log WHERE entity_name = 'm_loan' GROUP BY entity_id) nl on nl.entity_id = l.id " +
+            "left join notification_outbox nob on nob.entity_name = 'm_loan' AND nob.entity_id = l.id AND nob.status_enum = 100 " +
             "WHERE " +
             "l.loan_status_id IN (300, 800, 900) " +
             "AND l.maturedon_date < DATE_ADD(CURDATE(), INTERVAL ? DAY) " +
-            "AND l.total_outstanding_derived > 0";
+            "AND l.total_outstanding_derived > 0 " +
+            "AND c.mobile_no IS NOT NULL AND c.mobile_no <> '' " +
+            "AND nob.id IS NULL";
 
     protected static final String CONFIG_NOTIFICATION_PAYMENT_REMINDER_DAYS_IN_ADVANCE = "notification-payment-reminder-days-in-advance";
 
@@ -8,6 +8,7 @@ import org.mifosplatform.infrastructure.configuration.data.EmailCredentialsData;
 import org.mifosplatform.infrastructure.configuration.domain.GlobalConfigurationRepository;
 import org.mifosplatform.infrastructure.configuration.service.ExternalServicesReadPlatformService;
 import org.mifosplatform.infrastructure.core.service.RoutingDataSource;
+import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
 import org.mifosplatform.infrastructure.jobs.annotation.CronTarget;
 import org.mifosplatform.infrastructure.jobs.service.JobName;
 import org.mifosplatform.infrastructure.notification.domain.NotificationLog;
@@ -18,10 +19,12 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 public class EmailNotificationService extends AbstractNotificationService {
@@ -33,7 +36,7 @@ public class EmailNotificationService extends AbstractNotificationService {
 
     private EmailCredentialsData credentials;
 
-    private AtomicBoolean running = new AtomicBoolean(false);
+    private final Set<String> runningTenants = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
 
     @Autowired
     public EmailNotificationService(final RoutingDataSource dataSource, final NotificationLogRepository notificationLogRepository, final ExternalServicesReadPlatformService externalServicesReadPlatformService, final GlobalConfigurationRepository globalConfigurationRepository) {
@@ -57,48 +60,46 @@ public class EmailNotificationService extends AbstractNotificationService {
     @Override
     @CronTarget(jobName = JobName.FOLLOW_UP_EMAIL_NOTIFICATION)
     public void notifyFollowUps() {
-        if(!running.get()) {
-            running.set(true);
-
-            List<Map<String, Object>> officers = getFollowUpLoanOfficers();
-
-            for(Map<String, Object> officer : officers) {
-                boolean sent = false;
-
-                String name = officer.get("firstname") + " " + officer.get("lastname");
-                String email = officer.get("email").toString();
-                String messageId = null;
-
-                StringBuilder message = new StringBuilder();
-                message.append(String.format(template, name, df.format(new Date())));
-                message.append(formatClients(getFollowUpClients(officer.get("username").toString())));
-                String errorMessage = "";
-
-                try {
-                    messageId = send(email, name, followUpSubject, message.toString());
-                    sent = true;
-                } catch (EmailException e) {
-                    if (e.getCause() != null && e.getCause().toString() != null) {
-                        errorMessage = e.getCause().toString();
-                    } else {
-                        errorMessage = e.toString();
+        final String tenantIdentifier = ThreadLocalContextUtil.getTenant().getTenantIdentifier();
+        if (runningTenants.add(tenantIdentifier)) {
+            try {
+                List<Map<String, Object>> officers = getFollowUpLoanOfficers();
+
+                for(Map<String, Object> officer : officers) {
+                    boolean sent = false;
+
+                    String name = officer.get("firstname") + " " + officer.get("lastname");
+                    String email = officer.get("email").toString();
+                    String messageId = null;
+
+                    StringBuilder message = new StringBuilder();
+                    message.append(String.format(template, name, df.format(new Date())));
+                    message.append(formatClients(getFollowUpClients(officer.get("username").toString())));
+                    String errorMessage = "";
+
+                    try {
+                        messageId = send(email, name, followUpSubject, message.toString());
+                        sent = true;
+                    } catch (EmailException e) {
+                        if (e.getCause() != null && e.getCause().toString() != null) {
+                            errorMessage = e.getCause().toString();
+                        } else {
+                            errorMessage = e.toString();
+                        }
+                        logger.error(e.toString(), e);
                     }
-                    logger.error(e.toString(), e);
-                }
 
-                NotificationLog log = notificationLogRepository.save(new NotificationLog(NotificationType.EMAIL, email, new Date(), sent, "m_note", (Long)officer.get("note_id"), errorMessage, messageId));
+                    NotificationLog log = notificationLogRepository.save(new NotificationLog(NotificationType.EMAIL, email, new Date(), sent, "m_note", (Long)officer.get("note_id"), errorMessage, messageId));
 
-                if(sent) {
-                    jdbcTemplate.update(updateNotes, log.getId(), officer.get("username"));
+                    if(sent) {
+                        jdbcTemplate.update(updateNotes, log.getId(), officer.get("username"));
+                    }
                 }
-
-                // TODO: remove this in production
-                logger.info("############### Email notification sent: {}", sent);
+            } finally {
+                runningTenants.remove(tenantIdentifier);
             }
-
-            running.set(false);
         } else {
-            logger.warn("############### Email notification job is already running!");
+            logger.warn("############### Email notification job is already running for tenant {}!", tenantIdentifier);
         }
     }
 
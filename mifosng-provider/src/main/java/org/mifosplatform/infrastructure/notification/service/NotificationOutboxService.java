@@ -0,0 +1,30 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.notification.service;
+
+import java.util.Collection;
+
+import org.mifosplatform.infrastructure.jobs.service.JobRunMetrics;
+import org.mifosplatform.infrastructure.notification.data.NotificationOutboxData;
+import org.mifosplatform.infrastructure.notification.domain.NotificationType;
+
+public interface NotificationOutboxService {
+
+    /**
+     * Queues messages in <code>notification_outbox</code>. A message for an
+     * entity that already got one of the same type today is dropped.
+     *
+     * @return number of messages queued
+     */
+    int enqueue(NotificationType type, Collection<NotificationOutboxData> messages);
+
+    /**
+     * Sends the due messages of the current tenant through the
+     * {@link NotificationSender} of their type and records the outcome in
+     * <code>notification_log</code>.
+     */
+    JobRunMetrics sendPendingNotifications();
+}
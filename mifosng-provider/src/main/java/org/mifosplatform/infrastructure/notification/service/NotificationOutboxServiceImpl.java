@@ -0,0 +1,400 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.notification.service;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang.StringUtils;
+import org.mifosplatform.infrastructure.core.service.RoutingDataSource;
+import org.mifosplatform.infrastructure.core.service.TenantAwareCallable;
+import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
+import org.mifosplatform.infrastructure.jobs.annotation.CronTarget;
+import org.mifosplatform.infrastructure.jobs.service.JobName;
+import org.mifosplatform.infrastructure.jobs.service.JobRunMetrics;
+import org.mifosplatform.infrastructure.notification.data.NotificationDeliveryData;
+import org.mifosplatform.infrastructure.notification.data.NotificationOutboxData;
+import org.mifosplatform.infrastructure.notification.domain.NotificationOutboxStatus;
+import org.mifosplatform.infrastructure.notification.domain.NotificationType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+
+/**
+ * Messages are claimed from <code>notification_outbox</code> in blocks, grouped
+ * into the batches their {@link NotificationSender} can send in one request
+ * and sent from a small worker pool, throttled to the messages per second the
+ * gateway allows. Each batch renews the claim of its messages right before it
+ * is sent and outcomes are written back per block, both with updates that
+ * only touch rows still holding the claim, so messages another run took over
+ * after the lease ran out are neither sent nor written back twice. A failed
+ * send is retried with exponential backoff until {@link #MAX_ATTEMPTS}, and so
+ * is a batch whose task failed, without holding back the rest of its block.
+ */
+@Service
+public class NotificationOutboxServiceImpl implements NotificationOutboxService {
+
+    private final static Logger logger = LoggerFactory.getLogger(NotificationOutboxServiceImpl.class);
+
+    private static final int WORKER_THREADS = 4;
+    private static final int CLAIM_SIZE = 500;
+    // time a claimed block is left to the run that claimed it
+    private static final long LEASE_MILLIS = TimeUnit.MINUTES.toMillis(5);
+    private static final int MAX_ATTEMPTS = 5;
+    private static final long INITIAL_BACKOFF_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    private static final long MAX_BACKOFF_MILLIS = TimeUnit.HOURS.toMillis(6);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final List<NotificationSender> senders;
+
+    private final Set<String> runningTenants = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    @Autowired
+    public NotificationOutboxServiceImpl(final RoutingDataSource dataSource, final List<NotificationSender> senders) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.senders = senders;
+    }
+
+    @Override
+    public int enqueue(final NotificationType type, final Collection<NotificationOutboxData> messages) {
+        if (messages.isEmpty()) { return 0; }
+
+        final Date now = new Date();
+        final List<Object[]> batch = new ArrayList<>(messages.size());
+        for (final NotificationOutboxData message : messages) {
+            batch.add(new Object[] { type.name(), message.getRecipient(), message.getMessage(), message.getEntityName(),
+                    message.getEntityId(), NotificationOutboxStatus.PENDING.getValue(), now, now });
+        }
+        final String sql = "insert ignore into notification_outbox (type, recipient, message, entity_name, entity_id, scheduled_on,"
+                + " status_enum, attempts, next_attempt_on, created_on) values (?, ?, ?, ?, ?, CURDATE(), ?, 0, ?, ?)";
+        int queued = 0;
+        for (final int updated : this.jdbcTemplate.batchUpdate(sql, batch)) {
+            if (updated > 0) {
+                queued += updated;
+            }
+        }
+        return queued;
+    }
+
+    @Override
+    @CronTarget(jobName = JobName.SEND_NOTIFICATIONS)
+    public JobRunMetrics sendPendingNotifications() {
+        final JobRunMetrics metrics = new JobRunMetrics();
+        final String tenantIdentifier = ThreadLocalContextUtil.getTenant().getTenantIdentifier();
+        if (!this.runningTenants.add(tenantIdentifier)) {
+            logger.warn("Notifications of tenant " + tenantIdentifier + " are already being sent");
+            metrics.increment("skipped");
+            return metrics;
+        }
+        try {
+            for (final NotificationSender sender : this.senders) {
+                send(sender, metrics);
+            }
+        } finally {
+            this.runningTenants.remove(tenantIdentifier);
+        }
+        return metrics;
+    }
+
+    private void send(final NotificationSender sender, final JobRunMetrics metrics) {
+        long remainingToday = sender.getRemainingToday();
+        final int maxPerSecond = sender.getMaxPerSecond();
+        final RateLimiter rateLimiter = new RateLimiter(maxPerSecond);
+        // a block has to be sent well within its lease
+        final int claimSize = maxPerSecond > 0 ? (int) Math.min(CLAIM_SIZE, maxPerSecond * TimeUnit.MILLISECONDS.toSeconds(LEASE_MILLIS)
+                / 2) : CLAIM_SIZE;
+
+        final ExecutorService executorService = Executors.newFixedThreadPool(WORKER_THREADS);
+        try {
+            while (remainingToday > 0) {
+                final int size = (int) Math.min(claimSize, remainingToday);
+                final String claimToken = UUID.randomUUID().toString();
+                final List<NotificationOutboxData> claimed = claim(sender.getType(), size, claimToken);
+                if (claimed.isEmpty()) {
+                    break;
+                }
+                remainingToday -= claimed.size();
+
+                final List<List<NotificationOutboxData>> batches = batch(sender, claimed);
+                final List<Future<SendOutcome>> pending = new ArrayList<>(batches.size());
+                for (final List<NotificationOutboxData> batch : batches) {
+                    pending.add(executorService.submit(new TenantAwareCallable<>(new SendTask(sender, batch, claimToken, rateLimiter))));
+                }
+                final List<SendOutcome> outcomes = new ArrayList<>(pending.size());
+                final List<Throwable> failures = new ArrayList<>();
+                boolean interrupted = false;
+                for (int i = 0; i < pending.size(); i++) {
+                    final Future<SendOutcome> future = pending.get(i);
+                    if (interrupted && !future.isDone()) {
+                        // sent again once its lease is over
+                        continue;
+                    }
+                    try {
+                        outcomes.add(future.get());
+                    } catch (final InterruptedException e) {
+                        interrupted = true;
+                    } catch (final ExecutionException e) {
+                        // retried like a batch the gateway refused
+                        outcomes.add(new SendOutcome(batches.get(i), null, describe(e.getCause())));
+                        failures.add(e.getCause());
+                    }
+                }
+                // batches that went out are written back even when others failed
+                writeBack(sender.getType(), claimToken, outcomes, metrics);
+
+                for (final Throwable failure : failures) {
+                    logger.error("Sending " + sender.getType() + " notifications failed", failure);
+                }
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                if (!failures.isEmpty() || claimed.size() < size) {
+                    break;
+                }
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    /**
+     * Takes due messages away from other runs, also on other nodes, for the
+     * time of the lease.
+     */
+    private List<NotificationOutboxData> claim(final NotificationType type, final int size, final String claimToken) {
+        final Date now = new Date();
+        final String claimSql = "update notification_outbox set claim_token = ?, next_attempt_on = ? where status_enum = ? and type = ?"
+                + " and next_attempt_on <= ? order by next_attempt_on, id limit " + size;
+        final int claimed = this.jdbcTemplate.update(claimSql, claimToken, new Date(now.getTime() + LEASE_MILLIS),
+                NotificationOutboxStatus.PENDING.getValue(), type.name(), now);
+        if (claimed == 0) { return Collections.emptyList(); }
+
+        final String sql = "select id, recipient, message, entity_name, entity_id, attempts from notification_outbox"
+                + " where claim_token = ? and status_enum = ? order by id";
+        return this.jdbcTemplate.query(sql, new RowMapper<NotificationOutboxData>() {
+
+            @Override
+            public NotificationOutboxData mapRow(final ResultSet rs, @SuppressWarnings("unused") final int rowNum) throws SQLException {
+                return new NotificationOutboxData(rs.getLong("id"), rs.getString("recipient"), rs.getString("message"),
+                        rs.getString("entity_name"), rs.getLong("entity_id"), rs.getInt("attempts"));
+            }
+        }, claimToken, NotificationOutboxStatus.PENDING.getValue());
+    }
+
+    private static List<List<NotificationOutboxData>> batch(final NotificationSender sender, final List<NotificationOutboxData> messages) {
+        final List<List<NotificationOutboxData>> batches = new ArrayList<>();
+        for (final NotificationOutboxData message : messages) {
+            List<NotificationOutboxData> target = null;
+            for (final List<NotificationOutboxData> batch : batches) {
+                if (sender.canBatch(batch.get(0), message, batch.size())) {
+                    target = batch;
+                    break;
+                }
+            }
+            if (target == null) {
+                target = new ArrayList<>();
+                batches.add(target);
+            }
+            target.add(message);
+        }
+        return batches;
+    }
+
+    /**
+     * Renews the lease of the messages that still hold the claim and returns
+     * them, the others were taken over by another run.
+     */
+    private List<NotificationOutboxData> renewClaim(final List<NotificationOutboxData> batch, final String claimToken) {
+        final Date leaseUntil = new Date(System.currentTimeMillis() + LEASE_MILLIS);
+        final List<Object[]> renewals = new ArrayList<>(batch.size());
+        for (final NotificationOutboxData message : batch) {
+            renewals.add(new Object[] { leaseUntil, message.getId(), claimToken, NotificationOutboxStatus.PENDING.getValue() });
+        }
+        final int[] renewed = this.jdbcTemplate.batchUpdate(
+                "update notification_outbox set next_attempt_on = ? where id = ? and claim_token = ? and status_enum = ?", renewals);
+        final List<NotificationOutboxData> claimed = new ArrayList<>(batch.size());
+        for (int i = 0; i < renewed.length; i++) {
+            if (renewed[i] != 0) {
+                claimed.add(batch.get(i));
+            }
+        }
+        return claimed;
+    }
+
+    /**
+     * Updates the outbox rows that still hold the claim, then logs the sent
+     * and abandoned ones in <code>notification_log</code>, where the reminder
+     * queries look for them.
+     */
+    private void writeBack(final NotificationType type, final String claimToken, final List<SendOutcome> outcomes,
+            final JobRunMetrics metrics) {
+        final Date now = new Date();
+        final List<Object[]> sent = new ArrayList<>();
+        final List<Object[]> sentLogs = new ArrayList<>();
+        final List<Object[]> retried = new ArrayList<>();
+        final List<Object[]> abandoned = new ArrayList<>();
+        final List<Object[]> abandonedLogs = new ArrayList<>();
+
+        for (final SendOutcome outcome : outcomes) {
+            if (outcome.batch.isEmpty()) {
+                continue;
+            }
+            metrics.increment("batches");
+            for (int i = 0; i < outcome.batch.size(); i++) {
+                final NotificationOutboxData message = outcome.batch.get(i);
+                if (outcome.deliveries != null) {
+                    final NotificationDeliveryData delivery = outcome.deliveries.get(i);
+                    sent.add(new Object[] { NotificationOutboxStatus.SENT.getValue(), now, message.getId(), claimToken });
+                    sentLogs.add(new Object[] { type.name(), message.getRecipient(), message.getEntityName(), message.getEntityId(), now,
+                            true, delivery.getStatus(), delivery.getMessageId() });
+                    continue;
+                }
+
+                final int attempt = message.getAttempts() + 1;
+                final String error = StringUtils.abbreviate(outcome.error, 500);
+                if (attempt >= MAX_ATTEMPTS) {
+                    abandoned.add(new Object[] { NotificationOutboxStatus.FAILED.getValue(), error, message.getId(), claimToken });
+                    abandonedLogs.add(new Object[] { type.name(), message.getRecipient(), message.getEntityName(), message.getEntityId(),
+                            now, false, StringUtils.abbreviate(outcome.error, 255), null });
+                } else {
+                    retried.add(new Object[] { new Date(now.getTime() + backoffMillis(attempt)), error, message.getId(), claimToken });
+                }
+            }
+        }
+
+        final List<Object[]> logged = new ArrayList<>();
+        logged.addAll(updateClaimed("update notification_outbox set status_enum = ?, sent_on = ?, attempts = attempts + 1,"
+                + " claim_token = null, last_error = null where id = ? and claim_token = ?", sent, sentLogs, metrics, "sent"));
+        updateClaimed("update notification_outbox set next_attempt_on = ?, last_error = ?, attempts = attempts + 1,"
+                + " claim_token = null where id = ? and claim_token = ?", retried, retried, metrics, "retried");
+        logged.addAll(updateClaimed("update notification_outbox set status_enum = ?, last_error = ?, attempts = attempts + 1,"
+                + " claim_token = null where id = ? and claim_token = ?", abandoned, abandonedLogs, metrics, "abandoned"));
+        if (!logged.isEmpty()) {
+            this.jdbcTemplate.batchUpdate("insert into notification_log (type, recipient, entity_name, entity_id, sent_at, sent,"
+                    + " sms_error, message_id) values (?, ?, ?, ?, ?, ?, ?, ?)", logged);
+        }
+    }
+
+    /**
+     * Runs the update for each row and counts it under <code>metric</code>,
+     * rows whose claim was lost meanwhile are counted as taken over.
+     *
+     * @return the entries of <code>related</code> whose row was updated
+     */
+    private List<Object[]> updateClaimed(final String sql, final List<Object[]> updates, final List<Object[]> related,
+            final JobRunMetrics metrics, final String metric) {
+        if (updates.isEmpty()) { return Collections.emptyList(); }
+        final int[] updated = this.jdbcTemplate.batchUpdate(sql, updates);
+        final List<Object[]> updatedRelated = new ArrayList<>(updates.size());
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] != 0) {
+                updatedRelated.add(related.get(i));
+            } else {
+                metrics.increment("takenOver");
+            }
+        }
+        metrics.add(metric, updatedRelated.size());
+        return updatedRelated;
+    }
+
+    private static String describe(final Throwable failure) {
+        return failure.getMessage() == null ? failure.toString() : failure.getMessage();
+    }
+
+    private static long backoffMillis(final int attempt) {
+        final int exponent = Math.min(attempt - 1, 20);
+        return Math.min(INITIAL_BACKOFF_MILLIS << exponent, MAX_BACKOFF_MILLIS);
+    }
+
+    private static final class SendOutcome {
+
+        private final List<NotificationOutboxData> batch;
+        private final List<NotificationDeliveryData> deliveries;
+        private final String error;
+
+        SendOutcome(final List<NotificationOutboxData> batch, final List<NotificationDeliveryData> deliveries, final String error) {
+            this.batch = batch;
+            this.deliveries = deliveries;
+            this.error = error;
+        }
+    }
+
+    private final class SendTask implements Callable<SendOutcome> {
+
+        private final NotificationSender sender;
+        private final List<NotificationOutboxData> batch;
+        private final String claimToken;
+        private final RateLimiter rateLimiter;
+
+        SendTask(final NotificationSender sender, final List<NotificationOutboxData> batch, final String claimToken,
+                final RateLimiter rateLimiter) {
+            this.sender = sender;
+            this.batch = batch;
+            this.claimToken = claimToken;
+            this.rateLimiter = rateLimiter;
+        }
+
+        @Override
+        public SendOutcome call() throws InterruptedException {
+            this.rateLimiter.acquire(this.batch.size());
+            final List<NotificationOutboxData> claimed = renewClaim(this.batch, this.claimToken);
+            if (claimed.isEmpty()) { return new SendOutcome(claimed, null, null); }
+            try {
+                final List<NotificationDeliveryData> deliveries = this.sender.send(claimed);
+                return new SendOutcome(claimed, deliveries, null);
+            } catch (final RuntimeException e) {
+                logger.warn("Sending " + claimed.size() + " " + this.sender.getType() + " notifications failed: " + e.getMessage());
+                return new SendOutcome(claimed, null, describe(e));
+            }
+        }
+    }
+
+    /**
+     * Spaces sends out so that no more than the given number of messages per
+     * second leave, a batch takes as many slots as it has messages.
+     */
+    private static final class RateLimiter {
+
+        private final long nanosPerMessage;
+        private long nextFreeNanos = System.nanoTime();
+
+        RateLimiter(final int maxPerSecond) {
+            this.nanosPerMessage = maxPerSecond > 0 ? TimeUnit.SECONDS.toNanos(1) / maxPerSecond : 0;
+        }
+
+        void acquire(final int messages) throws InterruptedException {
+            if (this.nanosPerMessage == 0) { return; }
+            final long waitNanos;
+            synchronized (this) {
+                final long now = System.nanoTime();
+                final long start = Math.max(now, this.nextFreeNanos);
+                this.nextFreeNanos = start + messages * this.nanosPerMessage;
+                waitNanos = start - now;
+            }
+            if (waitNanos > 0) {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            }
+        }
+    }
+}
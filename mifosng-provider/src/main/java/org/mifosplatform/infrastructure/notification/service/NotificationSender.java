@@ -0,0 +1,49 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.notification.service;
+
+import java.util.List;
+
+import org.mifosplatform.infrastructure.notification.data.NotificationDeliveryData;
+import org.mifosplatform.infrastructure.notification.data.NotificationOutboxData;
+import org.mifosplatform.infrastructure.notification.domain.NotificationType;
+
+/**
+ * Gateway the {@link NotificationOutboxService} hands the pending messages of
+ * one {@link NotificationType} to. Implementations are spring beans, they are
+ * picked up by type.
+ */
+public interface NotificationSender {
+
+    NotificationType getType();
+
+    /**
+     * @return messages the gateway of the current tenant accepts per second,
+     *         zero or less for no limit
+     */
+    int getMaxPerSecond();
+
+    /**
+     * @return messages the gateway of the current tenant still accepts today,
+     *         {@link Long#MAX_VALUE} for no limit
+     */
+    long getRemainingToday();
+
+    /**
+     * @return true when the messages can be sent in one request, which is
+     *         asked for every message added to a batch
+     */
+    boolean canBatch(NotificationOutboxData batched, NotificationOutboxData message, int batchSize);
+
+    /**
+     * Sends a batch in one request.
+     *
+     * @return what the gateway answered, in the order of the batch
+     * @throws RuntimeException
+     *             when nothing of the batch was accepted
+     */
+    List<NotificationDeliveryData> send(List<NotificationOutboxData> batch);
+}
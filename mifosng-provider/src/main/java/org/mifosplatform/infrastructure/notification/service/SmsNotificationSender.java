@@ -0,0 +1,147 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.notification.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import oneapi.client.impl.SMSClient;
+import oneapi.config.Configuration;
+import oneapi.model.SMSRequest;
+import oneapi.model.SendMessageResult;
+import oneapi.model.SendMessageResultItem;
+
+import org.mifosplatform.infrastructure.configuration.data.SmsCredentialsData;
+import org.mifosplatform.infrastructure.configuration.service.ExternalServicesReadPlatformService;
+import org.mifosplatform.infrastructure.core.service.RoutingDataSource;
+import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
+import org.mifosplatform.infrastructure.notification.data.NotificationDeliveryData;
+import org.mifosplatform.infrastructure.notification.data.NotificationOutboxData;
+import org.mifosplatform.infrastructure.notification.domain.NotificationType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Sends SMS through the OneAPI gateway configured in the
+ * <code>sms_*</code> external service properties of the tenant. Recipients of
+ * the same text are sent in one request.
+ */
+@Component
+public class SmsNotificationSender implements NotificationSender {
+
+    private static final int MAX_RECIPIENTS_PER_REQUEST = 100;
+    private static final long SETTINGS_TIME_TO_LIVE_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    private final ExternalServicesReadPlatformService externalServicesReadPlatformService;
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ConcurrentMap<String, SmsGateway> gateways = new ConcurrentHashMap<>();
+
+    @Autowired
+    public SmsNotificationSender(final ExternalServicesReadPlatformService externalServicesReadPlatformService,
+            final RoutingDataSource dataSource) {
+        this.externalServicesReadPlatformService = externalServicesReadPlatformService;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Override
+    public NotificationType getType() {
+        return NotificationType.SMS;
+    }
+
+    @Override
+    public int getMaxPerSecond() {
+        final Long maxPerSecond = gateway().credentials.getOutboundMaxPerSecond();
+        return maxPerSecond == null ? 0 : maxPerSecond.intValue();
+    }
+
+    @Override
+    public long getRemainingToday() {
+        final Long maxPerDay = gateway().credentials.getOutboundMaxPerDay();
+        if (maxPerDay == null || maxPerDay <= 0) { return Long.MAX_VALUE; }
+
+        final Long sentToday = this.jdbcTemplate.queryForObject(
+                "select count(*) from notification_log where type = ? and sent = 1 and sent_at = CURDATE()", Long.class,
+                NotificationType.SMS.name());
+        return Math.max(maxPerDay - sentToday, 0);
+    }
+
+    @Override
+    public boolean canBatch(final NotificationOutboxData batched, final NotificationOutboxData message, final int batchSize) {
+        return batchSize < MAX_RECIPIENTS_PER_REQUEST && batched.getMessage().equals(message.getMessage());
+    }
+
+    @Override
+    public List<NotificationDeliveryData> send(final List<NotificationOutboxData> batch) {
+        final SmsGateway gateway = gateway();
+        final SmsCredentialsData credentials = gateway.credentials;
+
+        final String[] recipients = new String[batch.size()];
+        for (int i = 0; i < batch.size(); i++) {
+            recipients[i] = batch.get(i).getRecipient();
+        }
+        final SMSRequest smsRequest = new SMSRequest(credentials.getSenderAddress(), batch.get(0).getMessage(), recipients);
+        smsRequest.setSenderName(credentials.getSenderName());
+        if (credentials.getNotifyUrl() != null && !"".equals(credentials.getNotifyUrl().trim())) {
+            smsRequest.setNotifyURL(credentials.getNotifyUrl());
+        }
+
+        final SendMessageResult result = gateway.smsClient.getSMSMessagingClient().sendSMS(smsRequest);
+        final SendMessageResultItem[] items = result == null ? null : result.getSendMessageResults();
+        if (items == null || items.length == 0) { throw new IllegalStateException("SMS gateway returned no result"); }
+
+        final List<NotificationDeliveryData> deliveries = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            // one result item per recipient, in request order
+            final SendMessageResultItem item = items[Math.min(i, items.length - 1)];
+            deliveries.add(new NotificationDeliveryData(item.getMessageId(), item.getMessageStatus()));
+        }
+        return deliveries;
+    }
+
+    /**
+     * @return the number the gateway of the current tenant expects for the
+     *         given mobile number
+     */
+    public String normalizeRecipient(final String mobileNo) {
+        final SmsCredentialsData credentials = gateway().credentials;
+        if (credentials.isDebug()) {
+            return credentials.getDebugPhone();
+        } else if (mobileNo.startsWith("0")) {
+            return "256" + mobileNo.substring(1);
+        } else if (mobileNo.startsWith("+")) { return mobileNo.substring(1); }
+
+        return mobileNo;
+    }
+
+    private SmsGateway gateway() {
+        final String tenantIdentifier = ThreadLocalContextUtil.getTenant().getTenantIdentifier();
+        SmsGateway gateway = this.gateways.get(tenantIdentifier);
+        if (gateway == null || gateway.loadedAt + SETTINGS_TIME_TO_LIVE_MILLIS < System.currentTimeMillis()) {
+            final SmsCredentialsData credentials = this.externalServicesReadPlatformService.getSmsCredentials();
+            gateway = new SmsGateway(credentials, new SMSClient(new Configuration(credentials.getAuthUsername(),
+                    credentials.getAuthPassword())));
+            this.gateways.put(tenantIdentifier, gateway);
+        }
+        return gateway;
+    }
+
+    private static final class SmsGateway {
+
+        private final SmsCredentialsData credentials;
+        private final SMSClient smsClient;
+        private final long loadedAt = System.currentTimeMillis();
+
+        SmsGateway(final SmsCredentialsData credentials, final SMSClient smsClient) {
+            this.credentials = credentials;
+            this.smsClient = smsClient;
+        }
+    }
+}
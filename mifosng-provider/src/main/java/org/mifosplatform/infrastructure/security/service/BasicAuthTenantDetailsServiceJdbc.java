@@ -7,14 +7,19 @@ package org.mifosplatform.infrastructure.security.service;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.sql.DataSource;
 
+import org.mifosplatform.infrastructure.cache.data.CacheStatisticsData;
+import org.mifosplatform.infrastructure.cache.service.CacheStatisticsProvider;
 import org.mifosplatform.infrastructure.core.domain.MifosPlatformTenant;
 import org.mifosplatform.infrastructure.security.exception.InvalidTenantIdentiferException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
@@ -23,12 +28,22 @@ import org.springframework.stereotype.Service;
 /**
  * A JDBC implementation of {@link BasicAuthTenantDetailsService} for loading a
  * tenants details by a <code>tenantIdentifier</code>.
+ * 
+ * As every API call looks up its tenant, tenants are kept in memory for a few
+ * minutes whether or not the platform cache is enabled; changes made to the
+ * tenants table show up once they expire.
  */
 @Service
-public class BasicAuthTenantDetailsServiceJdbc implements BasicAuthTenantDetailsService {
+public class BasicAuthTenantDetailsServiceJdbc implements BasicAuthTenantDetailsService, CacheStatisticsProvider {
+
+    private static final long TIME_TO_LIVE_MILLIS = TimeUnit.MINUTES.toMillis(5);
 
     private final JdbcTemplate jdbcTemplate;
 
+    private final ConcurrentMap<String, CachedTenant> tenants = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
     @Autowired
     public BasicAuthTenantDetailsServiceJdbc(@Qualifier("tenantDataSourceJndi") final DataSource dataSource) {
         this.jdbcTemplate = new JdbcTemplate(dataSource);
@@ -85,16 +100,45 @@ public class BasicAuthTenantDetailsServiceJdbc implements BasicAuthTenantDetails
     }
 
     @Override
-    @Cacheable(value = "tenantsById")
     public MifosPlatformTenant loadTenantById(final String tenantIdentifier) {
 
+        if (tenantIdentifier == null) { throw new InvalidTenantIdentiferException("The tenant identifier: null is not valid."); }
+
+        final CachedTenant cached = this.tenants.get(tenantIdentifier);
+        if (cached != null && cached.expiresAt > System.currentTimeMillis()) {
+            this.hits.incrementAndGet();
+            return cached.tenant;
+        }
+        this.misses.incrementAndGet();
+
         try {
             final TenantMapper rm = new TenantMapper();
             final String sql = "select  " + rm.schema() + " where t.identifier like ?";
 
-            return this.jdbcTemplate.queryForObject(sql, rm, new Object[] { tenantIdentifier });
+            final MifosPlatformTenant tenant = this.jdbcTemplate.queryForObject(sql, rm, new Object[] { tenantIdentifier });
+            // identifiers matched as a pattern are not kept, only real ones
+            if (tenantIdentifier.equals(tenant.getTenantIdentifier())) {
+                this.tenants.put(tenantIdentifier, new CachedTenant(tenant, System.currentTimeMillis() + TIME_TO_LIVE_MILLIS));
+            }
+            return tenant;
         } catch (final EmptyResultDataAccessException e) {
             throw new InvalidTenantIdentiferException("The tenant identifier: " + tenantIdentifier + " is not valid.");
         }
     }
+
+    @Override
+    public CacheStatisticsData retrieveCacheStatistics() {
+        return CacheStatisticsData.instance("tenantsByIdentifier", this.tenants.size(), this.hits.get(), this.misses.get());
+    }
+
+    private static final class CachedTenant {
+
+        private final MifosPlatformTenant tenant;
+        private final long expiresAt;
+
+        CachedTenant(final MifosPlatformTenant tenant, final long expiresAt) {
+            this.tenant = tenant;
+            this.expiresAt = expiresAt;
+        }
+    }
 }
\ No newline at end of file
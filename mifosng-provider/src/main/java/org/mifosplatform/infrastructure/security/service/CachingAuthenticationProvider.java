@@ -0,0 +1,180 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.security.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.xml.bind.DatatypeConverter;
+
+import org.mifosplatform.infrastructure.cache.data.CacheStatisticsData;
+import org.mifosplatform.infrastructure.cache.service.CacheStatisticsProvider;
+import org.mifosplatform.infrastructure.core.domain.MifosPlatformTenant;
+import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Used in securityContext.xml in front of the
+ * <code>customAuthenticationProvider</code> so that an API call made with the
+ * same basic auth credentials as a recent one skips loading the user and
+ * hashing the password again.
+ *
+ * Successful authentications are kept per tenant for a short while under a
+ * hash of the credentials and dropped through {@link #invalidate()} whenever a
+ * user, role or permission changes or a user gets locked.
+ */
+@Component(value = "cachingAuthenticationProvider")
+public class CachingAuthenticationProvider implements AuthenticationProvider, CacheStatisticsProvider {
+
+    private static final long TIME_TO_LIVE_MILLIS = TimeUnit.SECONDS.toMillis(60);
+    private static final int MAX_CACHED_PER_TENANT = 10000;
+
+    private final DaoAuthenticationProvider authenticationProvider;
+    private final long timeToLiveMillis;
+
+    private final ConcurrentMap<Long, ConcurrentMap<String, CachedAuthentication>> authentications = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    @Autowired
+    public CachingAuthenticationProvider(@Qualifier("customAuthenticationProvider") final DaoAuthenticationProvider authenticationProvider) {
+        this(authenticationProvider, TIME_TO_LIVE_MILLIS);
+    }
+
+    CachingAuthenticationProvider(final DaoAuthenticationProvider authenticationProvider, final long timeToLiveMillis) {
+        this.authenticationProvider = authenticationProvider;
+        this.timeToLiveMillis = timeToLiveMillis;
+    }
+
+    @Override
+    public Authentication authenticate(final Authentication authentication) throws AuthenticationException {
+        final MifosPlatformTenant tenant = ThreadLocalContextUtil.getTenant();
+        if (tenant == null || authentication.getCredentials() == null) { return this.authenticationProvider.authenticate(authentication); }
+
+        final String key = key(tenant, authentication);
+        ConcurrentMap<String, CachedAuthentication> cached = this.authentications.get(tenant.getId());
+        if (cached != null) {
+            final CachedAuthentication cachedAuthentication = cached.get(key);
+            if (cachedAuthentication != null && cachedAuthentication.expiresAt > System.currentTimeMillis()) {
+                this.hits.incrementAndGet();
+                return cachedAuthentication.authentication;
+            }
+            if (cachedAuthentication != null) {
+                cached.remove(key, cachedAuthentication);
+            }
+        }
+        this.misses.incrementAndGet();
+
+        final long generationAtLoad = this.generation.get();
+        final Authentication result = this.authenticationProvider.authenticate(authentication);
+
+        // do not cache a user that may have been read before an
+        // invalidation happened while it was loading
+        if (result != null && result.isAuthenticated() && this.generation.get() == generationAtLoad) {
+            if (cached == null) {
+                this.authentications.putIfAbsent(tenant.getId(), new ConcurrentHashMap<String, CachedAuthentication>());
+                cached = this.authentications.get(tenant.getId());
+            }
+            if (cached.size() >= MAX_CACHED_PER_TENANT) {
+                removeExpired(cached);
+            }
+            if (cached.size() < MAX_CACHED_PER_TENANT) {
+                cached.put(key, new CachedAuthentication(result, System.currentTimeMillis() + this.timeToLiveMillis));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public boolean supports(final Class<?> authentication) {
+        return this.authenticationProvider.supports(authentication);
+    }
+
+    /**
+     * Drops the authentications of the current tenant, again once the current
+     * transaction completes so that a user read by another thread before the
+     * commit does not stay cached.
+     */
+    public void invalidate() {
+        final MifosPlatformTenant tenant = ThreadLocalContextUtil.getTenant();
+        if (tenant == null) { return; }
+        final Long tenantId = tenant.getId();
+        evict(tenantId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+
+                @Override
+                public void afterCompletion(@SuppressWarnings("unused") final int status) {
+                    evict(tenantId);
+                }
+            });
+        }
+    }
+
+    @Override
+    public CacheStatisticsData retrieveCacheStatistics() {
+        long size = 0;
+        for (final Map<String, CachedAuthentication> cached : this.authentications.values()) {
+            size += cached.size();
+        }
+        return CacheStatisticsData.instance("authentications", size, this.hits.get(), this.misses.get());
+    }
+
+    private void evict(final Long tenantId) {
+        this.generation.incrementAndGet();
+        this.authentications.remove(tenantId);
+    }
+
+    private static void removeExpired(final Map<String, CachedAuthentication> cached) {
+        final long now = System.currentTimeMillis();
+        for (final Iterator<CachedAuthentication> iterator = cached.values().iterator(); iterator.hasNext();) {
+            if (iterator.next().expiresAt <= now) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Hash of the tenant and credentials, which keeps raw passwords out of
+     * the map keys.
+     */
+    private static String key(final MifosPlatformTenant tenant, final Authentication authentication) {
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            final String credentials = tenant.getId() + "\u0000" + authentication.getName() + "\u0000" + authentication.getCredentials();
+            return DatatypeConverter.printBase64Binary(digest.digest(credentials.getBytes(StandardCharsets.UTF_8)));
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class CachedAuthentication {
+
+        private final Authentication authentication;
+        private final long expiresAt;
+
+        CachedAuthentication(final Authentication authentication, final long expiresAt) {
+            this.authentication = authentication;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -32,14 +32,18 @@ public class JpaPlatformUserLoginFailureService implements PlatformUserLoginFail
 
     private final GlobalConfigurationRepository globalConfigurationRepository;
 
+    private final CachingAuthenticationProvider authenticationProvider;
+
     private String template = "You or someone has tried to login into the FINEM System with wrong credentials. After %s failed tries, your account has been locked.\n\nPlease Contact system administrator to reset your password.";
     private String subject = "FINEM Login Failure";
 
     @Autowired
-    public JpaPlatformUserLoginFailureService(final AppUserRepository appUserRepository, final ExternalServicesReadPlatformService externalServicesReadPlatformService, final GlobalConfigurationRepository globalConfigurationRepository) {
+    public JpaPlatformUserLoginFailureService(final AppUserRepository appUserRepository, final ExternalServicesReadPlatformService externalServicesReadPlatformService, final GlobalConfigurationRepository globalConfigurationRepository,
+            final CachingAuthenticationProvider authenticationProvider) {
         this.appUserRepository = appUserRepository;
         this.externalServicesReadPlatformService = externalServicesReadPlatformService;
         this.globalConfigurationRepository = globalConfigurationRepository;
+        this.authenticationProvider = authenticationProvider;
     }
 
     @Transactional
@@ -104,5 +108,6 @@ public class JpaPlatformUserLoginFailureService implements PlatformUserLoginFail
     @Transactional
     private void lock(String username) {
         appUserRepository.lockUser(username);
+        this.authenticationProvider.invalidate();
     }
 }
\ No newline at end of file
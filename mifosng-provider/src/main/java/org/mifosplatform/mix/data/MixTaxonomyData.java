@@ -12,7 +12,6 @@ public class MixTaxonomyData {
     public static final Integer INCOME = 2;
     public static final Integer EXPENSE = 3;
 
-    @SuppressWarnings("unused")
     private final Long id;
     private final String name;
     private final String namespace;
@@ -32,6 +31,10 @@ public class MixTaxonomyData {
         this.description = description;
     }
 
+    public Long getId() {
+        return this.id;
+    }
+
     public String getName() {
         return this.name;
     }
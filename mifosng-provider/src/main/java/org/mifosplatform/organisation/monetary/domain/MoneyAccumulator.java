@@ -0,0 +1,77 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.organisation.monetary.domain;
+
+import java.math.BigDecimal;
+
+/**
+ * Mutable running total for loops that sum many {@link Money} amounts, such
+ * as the charges of every installment of a schedule.
+ *
+ * Each addition is rounded exactly as {@link Money#plus(Money)} would round
+ * it, so {@link #toMoney()} returns the same amount as chaining
+ * <code>plus</code> calls, without creating an intermediate {@link Money}
+ * per step. Instances are not thread safe and should not outlive the method
+ * using them.
+ */
+public final class MoneyAccumulator {
+
+    private final String currencyCode;
+    private final int currencyDigitsAfterDecimal;
+    private final Integer inMultiplesOf;
+    private BigDecimal amount;
+
+    public static MoneyAccumulator zero(final MonetaryCurrency currency) {
+        return new MoneyAccumulator(currency.getCode(), currency.getDigitsAfterDecimal(), currency.getCurrencyInMultiplesOf());
+    }
+
+    private MoneyAccumulator(final String currencyCode, final int digitsAfterDecimal, final Integer inMultiplesOf) {
+        this.currencyCode = currencyCode;
+        this.currencyDigitsAfterDecimal = digitsAfterDecimal;
+        this.inMultiplesOf = inMultiplesOf;
+        this.amount = Money.normalize(BigDecimal.ZERO, digitsAfterDecimal, inMultiplesOf);
+    }
+
+    public MoneyAccumulator plus(final Money moneyToAdd) {
+        return plus(checkCurrencyEqual(moneyToAdd).getAmount());
+    }
+
+    public MoneyAccumulator plus(final BigDecimal amountToAdd) {
+        if (amountToAdd != null && amountToAdd.signum() != 0) {
+            this.amount = Money.normalize(this.amount.add(amountToAdd), this.currencyDigitsAfterDecimal, this.inMultiplesOf);
+        }
+        return this;
+    }
+
+    public MoneyAccumulator minus(final Money moneyToSubtract) {
+        return minus(checkCurrencyEqual(moneyToSubtract).getAmount());
+    }
+
+    public MoneyAccumulator minus(final BigDecimal amountToSubtract) {
+        if (amountToSubtract != null && amountToSubtract.signum() != 0) {
+            this.amount = Money.normalize(this.amount.subtract(amountToSubtract), this.currencyDigitsAfterDecimal, this.inMultiplesOf);
+        }
+        return this;
+    }
+
+    public boolean isGreaterThanZero() {
+        return this.amount.signum() > 0;
+    }
+
+    public BigDecimal getAmount() {
+        return this.amount;
+    }
+
+    public Money toMoney() {
+        return Money.of(new MonetaryCurrency(this.currencyCode, this.currencyDigitsAfterDecimal, this.inMultiplesOf), this.amount);
+    }
+
+    private Money checkCurrencyEqual(final Money money) {
+        if (this.currencyCode.equals(money.getCurrencyCode()) == false) { throw new UnsupportedOperationException(
+                "currencies are different."); }
+        return money;
+    }
+}
@@ -0,0 +1,236 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.portfolio.calendar.service;
+
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import net.fortuna.ical4j.model.Recur;
+import net.fortuna.ical4j.model.WeekDay;
+
+import org.joda.time.DateTimeConstants;
+import org.joda.time.Days;
+import org.joda.time.LocalDate;
+import org.joda.time.Months;
+import org.mifosplatform.portfolio.calendar.service.CalendarUtils.DayNameEnum;
+
+/**
+ * A recurring rule parsed once and shared through the cache of
+ * {@link CalendarUtils}.
+ *
+ * The rules this platform stores, daily, weekly and monthly ones with an
+ * interval and optionally the days of the week or of the month they fall on,
+ * are expanded here on joda dates the same way ical4j expands them. Any other
+ * rule is left to ical4j, see {@link #isExpandable(LocalDate)}.
+ */
+final class CalendarRecurrence {
+
+    /**
+     * ical4j gives up after this many periods in a row without a candidate
+     * date.
+     */
+    private static final int MAX_EMPTY_PERIODS = 1000;
+
+    private final Recur recur;
+    private final String frequency;
+    private final int interval;
+    private final boolean[] weekDays = new boolean[DateTimeConstants.SUNDAY + 1];
+    private final boolean[] monthDays = new boolean[32];
+    private final boolean hasWeekDays;
+    private final boolean hasMonthDays;
+    private final boolean expandable;
+
+    CalendarRecurrence(final Recur recur) {
+        this(recur, recur.getFrequency(), recur.getInterval());
+    }
+
+    private CalendarRecurrence(final Recur recur, final String frequency, final int interval) {
+        this.recur = recur;
+        this.frequency = frequency;
+        this.interval = interval;
+
+        boolean expandable = (Recur.DAILY.equals(frequency) || Recur.WEEKLY.equals(frequency) || Recur.MONTHLY.equals(frequency))
+                && recur.getCount() < 1 && recur.getUntil() == null && recur.getWeekStartDay() == null && recur.getSecondList().isEmpty()
+                && recur.getMinuteList().isEmpty() && recur.getHourList().isEmpty() && recur.getYearDayList().isEmpty()
+                && recur.getWeekNoList().isEmpty() && recur.getMonthList().isEmpty() && recur.getSetPosList().isEmpty();
+
+        // rules listing a day twice get the date twice from ical4j
+        for (final Object day : recur.getDayList()) {
+            final WeekDay weekDay = (WeekDay) day;
+            final int dayOfWeek = DayNameEnum.from(weekDay.getDay()).getValue();
+            expandable &= weekDay.getOffset() == 0 && !this.weekDays[dayOfWeek];
+            this.weekDays[dayOfWeek] = true;
+        }
+        for (final Object day : recur.getMonthDayList()) {
+            final int dayOfMonth = (Integer) day;
+            expandable &= Recur.MONTHLY.equals(frequency) && dayOfMonth >= 1 && dayOfMonth <= 31 && !this.monthDays[dayOfMonth];
+            if (expandable) {
+                this.monthDays[dayOfMonth] = true;
+            }
+        }
+        this.hasWeekDays = !recur.getDayList().isEmpty();
+        this.hasMonthDays = !recur.getMonthDayList().isEmpty();
+        this.expandable = expandable;
+    }
+
+    /**
+     * @return this recurrence with the interval and frequency of a loan
+     *         repaying on the meetings of its calendar
+     */
+    CalendarRecurrence withIntervalAndFrequency(final int interval, final String frequency) {
+        if (interval == this.interval && frequency != null && frequency.equals(this.frequency)) { return this; }
+        return new CalendarRecurrence(this.recur, frequency, interval);
+    }
+
+    String getFrequency() {
+        return this.frequency;
+    }
+
+    int getInterval() {
+        return this.interval;
+    }
+
+    /**
+     * @return the ical4j rule, which is shared and must not be modified
+     *         unless this recurrence changed its interval or frequency
+     */
+    Recur getRecur() {
+        if (this.interval == this.recur.getInterval() && this.frequency != null
+                && this.frequency.equals(this.recur.getFrequency())) { return this.recur; }
+        try {
+            final Recur recur = new Recur(this.recur.toString());
+            recur.setInterval(this.interval);
+            recur.setFrequency(this.frequency);
+            return recur;
+        } catch (final ParseException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Monthly rules without days take the day of their seed, which ical4j
+     * moves back for good in short months, so seeds past the 28th are left
+     * to it.
+     */
+    boolean isExpandable(final LocalDate seedDate) {
+        return this.expandable
+                && (this.hasWeekDays || this.hasMonthDays || !Recur.MONTHLY.equals(this.frequency) || seedDate.getDayOfMonth() <= 28);
+    }
+
+    /**
+     * Same as ical4j <code>Recur.getNextDate</code>: the first date after the
+     * start date.
+     */
+    LocalDate getNextDate(final LocalDate seedDate, final LocalDate startDate) {
+        final List<LocalDate> candidates = new ArrayList<>(31);
+        int emptyPeriods = 0;
+        for (int period = firstPeriod(seedDate, startDate);; period++) {
+            addCandidates(seedDate, period, candidates);
+            if (candidates.isEmpty()) {
+                if (++emptyPeriods > MAX_EMPTY_PERIODS) { return null; }
+                continue;
+            }
+            emptyPeriods = 0;
+            for (final LocalDate candidate : candidates) {
+                if (!candidate.isBefore(seedDate) && candidate.isAfter(startDate)) { return candidate; }
+            }
+        }
+    }
+
+    /**
+     * Same as ical4j <code>Recur.getDates</code>: the dates from the start
+     * date up to but excluding the end date. As with ical4j the count is only
+     * checked between periods, so a period with several dates may take the
+     * result past it.
+     */
+    Collection<LocalDate> getDates(final LocalDate seedDate, final LocalDate periodStartDate, final LocalDate periodEndDate,
+            final int maxCount) {
+        final Collection<LocalDate> dates = new ArrayList<>();
+        final List<LocalDate> candidates = new ArrayList<>(31);
+        LocalDate lastCandidate = null;
+        int emptyPeriods = 0;
+        for (int period = firstPeriod(seedDate, periodStartDate); maxCount < 0 || dates.size() < maxCount; period++) {
+            if (lastCandidate != null && lastCandidate.isAfter(periodEndDate)) {
+                break;
+            }
+            addCandidates(seedDate, period, candidates);
+            if (candidates.isEmpty()) {
+                if (++emptyPeriods > MAX_EMPTY_PERIODS) {
+                    break;
+                }
+                continue;
+            }
+            emptyPeriods = 0;
+            for (final LocalDate candidate : candidates) {
+                lastCandidate = candidate;
+                if (!candidate.isBefore(seedDate) && !candidate.isBefore(periodStartDate) && candidate.isBefore(periodEndDate)) {
+                    dates.add(candidate);
+                }
+            }
+        }
+        return dates;
+    }
+
+    private int step() {
+        return this.interval < 1 ? 1 : this.interval;
+    }
+
+    /**
+     * Skips the periods that end before the start date, like ical4j does for
+     * rules without a count. Starting a period early only costs a little.
+     */
+    private int firstPeriod(final LocalDate seedDate, final LocalDate startDate) {
+        if (!startDate.isAfter(seedDate)) { return 0; }
+        if (Recur.MONTHLY.equals(this.frequency)) {
+            final int months = Months.monthsBetween(seedDate.withDayOfMonth(1), startDate.withDayOfMonth(1)).getMonths();
+            return months < 1 ? 0 : (months - 1) / step();
+        }
+        final int days = Days.daysBetween(seedDate, startDate).getDays();
+        final int periodDays = Recur.WEEKLY.equals(this.frequency) ? 7 * step() : step();
+        return (days - 1) / periodDays;
+    }
+
+    /**
+     * Replaces the candidates with the dates of the period, in order.
+     */
+    private void addCandidates(final LocalDate seedDate, final int period, final List<LocalDate> candidates) {
+        candidates.clear();
+        if (Recur.DAILY.equals(this.frequency)) {
+            final LocalDate date = seedDate.plusDays(period * step());
+            if (!this.hasWeekDays || this.weekDays[date.getDayOfWeek()]) {
+                candidates.add(date);
+            }
+        } else if (Recur.WEEKLY.equals(this.frequency)) {
+            final LocalDate date = seedDate.plusWeeks(period * step());
+            if (!this.hasWeekDays) {
+                candidates.add(date);
+            } else {
+                final LocalDate monday = date.withDayOfWeek(DateTimeConstants.MONDAY);
+                for (int dayOfWeek = DateTimeConstants.MONDAY; dayOfWeek <= DateTimeConstants.SUNDAY; dayOfWeek++) {
+                    if (this.weekDays[dayOfWeek]) {
+                        candidates.add(monday.plusDays(dayOfWeek - DateTimeConstants.MONDAY));
+                    }
+                }
+            }
+        } else if (!this.hasWeekDays && !this.hasMonthDays) {
+            candidates.add(seedDate.plusMonths(period * step()));
+        } else {
+            final LocalDate firstOfMonth = seedDate.withDayOfMonth(1).plusMonths(period * step());
+            final int daysInMonth = firstOfMonth.dayOfMonth().getMaximumValue();
+            for (int dayOfMonth = 1; dayOfMonth <= daysInMonth; dayOfMonth++) {
+                if (this.hasMonthDays && !this.monthDays[dayOfMonth]) {
+                    continue;
+                }
+                final LocalDate date = firstOfMonth.withDayOfMonth(dayOfMonth);
+                if (!this.hasWeekDays || this.weekDays[date.getDayOfWeek()]) {
+                    candidates.add(date);
+                }
+            }
+        }
+    }
+}
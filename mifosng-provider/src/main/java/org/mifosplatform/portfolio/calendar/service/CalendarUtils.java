@@ -13,6 +13,8 @@ import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
 import java.util.StringTokenizer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import net.fortuna.ical4j.model.Date;
 import net.fortuna.ical4j.model.DateList;
@@ -42,13 +44,23 @@ public class CalendarUtils {
         System.setProperty("net.fortuna.ical4j.timezone.date.floating", "true");
     }
 
+    private static final int MAX_CACHED_RECURRENCES = 1000;
+
+    private static final ConcurrentMap<String, CalendarRecurrence> recurrences = new ConcurrentHashMap<>();
+
     public static LocalDate getNextRecurringDate(final String recurringRule, final LocalDate seedDate, final LocalDate startDate) {
-        final Recur recur = CalendarUtils.getICalRecur(recurringRule);
-        if (recur == null) { return null; }
-        return getNextRecurringDate(recur, seedDate, startDate);
+        final CalendarRecurrence recurrence = getRecurrence(recurringRule);
+        if (recurrence == null) { return null; }
+        return getNextRecurringDate(recurrence, seedDate, startDate);
+    }
+
+    private static LocalDate getNextRecurringDate(final CalendarRecurrence recurrence, final LocalDate seedDate,
+            final LocalDate startDate) {
+        if (recurrence.isExpandable(seedDate)) { return recurrence.getNextDate(seedDate, startDate); }
+        return getNextRecurringDate(recurrence.getRecur(), seedDate, startDate);
     }
 
-    private static LocalDate getNextRecurringDate(final Recur recur, final LocalDate seedDate, final LocalDate startDate) {
+    static LocalDate getNextRecurringDate(final Recur recur, final LocalDate seedDate, final LocalDate startDate) {
         final DateTime periodStart = new DateTime(startDate.toDate());
         final Date seed = convertToiCal4JCompatibleDate(seedDate);
         final Date nextRecDate = recur.getNextDate(seed, periodStart);
@@ -91,12 +103,19 @@ public class CalendarUtils {
     public static Collection<LocalDate> getRecurringDates(final String recurringRule, final LocalDate seedDate,
             final LocalDate periodStartDate, final LocalDate periodEndDate, final int maxCount) {
 
-        final Recur recur = CalendarUtils.getICalRecur(recurringRule);
+        final CalendarRecurrence recurrence = getRecurrence(recurringRule);
+        if (recurrence == null) { return null; }
 
-        return getRecurringDates(recur, seedDate, periodStartDate, periodEndDate, maxCount);
+        return getRecurringDates(recurrence, seedDate, periodStartDate, periodEndDate, maxCount);
     }
 
-    private static Collection<LocalDate> getRecurringDates(final Recur recur, final LocalDate seedDate, final LocalDate periodStartDate,
+    private static Collection<LocalDate> getRecurringDates(final CalendarRecurrence recurrence, final LocalDate seedDate,
+            final LocalDate periodStartDate, final LocalDate periodEndDate, final int maxCount) {
+        if (recurrence.isExpandable(seedDate)) { return recurrence.getDates(seedDate, periodStartDate, periodEndDate, maxCount); }
+        return getRecurringDates(recurrence.getRecur(), seedDate, periodStartDate, periodEndDate, maxCount);
+    }
+
+    static Collection<LocalDate> getRecurringDates(final Recur recur, final LocalDate seedDate, final LocalDate periodStartDate,
             final LocalDate periodEndDate, final int maxCount) {
         if (recur == null) { return null; }
         final Date seed = convertToiCal4JCompatibleDate(seedDate);
@@ -121,6 +140,24 @@ public class CalendarUtils {
         return recurringDates;
     }
 
+    /**
+     * Parsed rules are cached, the recurrence returned is shared between
+     * threads and not to be modified.
+     */
+    private static CalendarRecurrence getRecurrence(final String recurringRule) {
+        CalendarRecurrence recurrence = recurrences.get(recurringRule);
+        if (recurrence == null) {
+            final Recur recur = getICalRecur(recurringRule);
+            if (recur == null) { return null; }
+            recurrence = new CalendarRecurrence(recur);
+            if (recurrences.size() >= MAX_CACHED_RECURRENCES) {
+                recurrences.clear();
+            }
+            recurrences.put(recurringRule, recurrence);
+        }
+        return recurrence;
+    }
+
     public static Recur getICalRecur(final String recurringRule) {
 
         // Construct RRule
@@ -218,10 +255,16 @@ public class CalendarUtils {
 
     public static boolean isValidRedurringDate(final String recurringRule, final LocalDate seedDate, final LocalDate date) {
 
-        final Recur recur = CalendarUtils.getICalRecur(recurringRule);
-        if (recur == null) { return false; }
+        final CalendarRecurrence recurrence = getRecurrence(recurringRule);
+        if (recurrence == null) { return false; }
+
+        return isValidRecurringDate(recurrence, seedDate, date);
+    }
+
+    private static boolean isValidRecurringDate(final CalendarRecurrence recurrence, final LocalDate seedDate, final LocalDate date) {
 
-        return isValidRecurringDate(recur, seedDate, date);
+        final Collection<LocalDate> recurDate = getRecurringDates(recurrence, seedDate, date, date.plusDays(1), 1);
+        return !recurDate.isEmpty();
     }
 
     public static boolean isValidRecurringDate(final Recur recur, final LocalDate seedDate, final LocalDate date) {
@@ -258,7 +301,7 @@ public class CalendarUtils {
     }
 
     public static PeriodFrequencyType getMeetingPeriodFrequencyType(final String recurringRule) {
-        final Recur recur = CalendarUtils.getICalRecur(recurringRule);
+        final Recur recur = getRecurrence(recurringRule).getRecur();
         PeriodFrequencyType meetingFrequencyType = PeriodFrequencyType.INVALID;
         if (recur.getFrequency().equals(Recur.DAILY)) {
             meetingFrequencyType = PeriodFrequencyType.DAYS;
@@ -287,17 +330,15 @@ public class CalendarUtils {
     }
 
     public static int getInterval(final String recurringRule) {
-        final Recur recur = CalendarUtils.getICalRecur(recurringRule);
-        return recur.getInterval();
+        return getRecurrence(recurringRule).getInterval();
     }
 
     public static CalendarFrequencyType getFrequency(final String recurringRule) {
-        final Recur recur = CalendarUtils.getICalRecur(recurringRule);
-        return CalendarFrequencyType.fromString(recur.getFrequency());
+        return CalendarFrequencyType.fromString(getRecurrence(recurringRule).getFrequency());
     }
 
     public static CalendarWeekDaysType getRepeatsOnDay(final String recurringRule) {
-        final Recur recur = CalendarUtils.getICalRecur(recurringRule);
+        final Recur recur = getRecurrence(recurringRule).getRecur();
         final WeekDayList weekDays = recur.getDayList();
         if (weekDays.isEmpty()) return CalendarWeekDaysType.INVALID;
         // supports only one day
@@ -307,8 +348,8 @@ public class CalendarUtils {
 
     public static LocalDate getFirstRepaymentMeetingDate(final Calendar calendar, final LocalDate disbursementDate,
             final Integer loanRepaymentInterval, final String frequency) {
-        final Recur recur = CalendarUtils.getICalRecur(calendar.getRecurrence());
-        if (recur == null) { return null; }
+        final CalendarRecurrence recurrence = getRecurrence(calendar.getRecurrence());
+        if (recurrence == null) { return null; }
         LocalDate startDate = disbursementDate;
         final LocalDate seedDate = calendar.getStartDateLocalDate();
         if (isValidRedurringDate(calendar.getRecurrence(), seedDate, startDate)) {
@@ -320,38 +361,35 @@ public class CalendarUtils {
         // where as for loan product with fortnightly frequency interval is 2
         // to generate currect set of meeting dates reset interval same as loan
         // repayment interval.
-        recur.setInterval(loanRepaymentInterval);
-
+        //
         // Recurring dates should follow loanRepayment frequency.
         // e.g.
         // daily meeting frequency should support all loan products with any
         // frequency type.
         // to generate currect set of meeting dates reset frequency same as loan
         // repayment frequency.
-        if (recur.getFrequency().equals(Recur.DAILY)) {
-            recur.setFrequency(frequency);
-        }
+        final CalendarRecurrence repaymentRecurrence = withRepaymentIntervalAndFrequency(recurrence, loanRepaymentInterval, frequency);
 
-        final LocalDate firstRepaymentDate = getNextRecurringDate(recur, seedDate, startDate);
+        final LocalDate firstRepaymentDate = getNextRecurringDate(repaymentRecurrence, seedDate, startDate);
 
         return firstRepaymentDate;
     }
 
     public static LocalDate getNewRepaymentMeetingDate(final String recurringRule, final LocalDate seedDate,
             final LocalDate oldRepaymentDate, final Integer loanRepaymentInterval, final String frequency, final WorkingDays workingDays) {
-        final Recur recur = CalendarUtils.getICalRecur(recurringRule);
-        if (recur == null) { return null; }
-        if (isValidRecurringDate(recur, seedDate, oldRepaymentDate)) { return oldRepaymentDate; }
+        final CalendarRecurrence recurrence = getRecurrence(recurringRule);
+        if (recurrence == null) { return null; }
+        if (isValidRecurringDate(recurrence, seedDate, oldRepaymentDate)) { return oldRepaymentDate; }
         return getNextRepaymentMeetingDate(recurringRule, seedDate, oldRepaymentDate, loanRepaymentInterval, frequency, workingDays);
     }
 
     public static LocalDate getNextRepaymentMeetingDate(final String recurringRule, final LocalDate seedDate,
             final LocalDate repaymentDate, final Integer loanRepaymentInterval, final String frequency, final WorkingDays workingDays) {
 
-        final Recur recur = CalendarUtils.getICalRecur(recurringRule);
-        if (recur == null) { return null; }
+        final CalendarRecurrence recurrence = getRecurrence(recurringRule);
+        if (recurrence == null) { return null; }
         LocalDate tmpDate = repaymentDate;
-        if (isValidRecurringDate(recur, seedDate, repaymentDate)) {
+        if (isValidRecurringDate(recurrence, seedDate, repaymentDate)) {
             tmpDate = repaymentDate.plusDays(1);
         }
         /*
@@ -360,41 +398,44 @@ public class CalendarUtils {
          * e.g. The weekly meeting will have interval of 1, if the loan product
          * with fortnightly frequency will have interval of 2, to generate right
          * set of meeting dates reset interval same as loan repayment interval.
-         */
-        recur.setInterval(loanRepaymentInterval);
-
-        /*
+         * 
          * Recurring dates should follow loanRepayment frequency. //e.g. daily
          * meeting frequency should support all loan products with any type of
          * frequency. to generate right set of meeting dates reset frequency
          * same as loan repayment frequency.
          */
-        if (recur.getFrequency().equals(Recur.DAILY)) {
-            recur.setFrequency(frequency);
-        }
+        final CalendarRecurrence repaymentRecurrence = withRepaymentIntervalAndFrequency(recurrence, loanRepaymentInterval, frequency);
 
-        LocalDate newRepaymentDate = getNextRecurringDate(recur, seedDate, tmpDate);
-        final LocalDate nextRepaymentDate = getNextRecurringDate(recur, seedDate, newRepaymentDate);
+        LocalDate newRepaymentDate = getNextRecurringDate(repaymentRecurrence, seedDate, tmpDate);
+        final LocalDate nextRepaymentDate = getNextRecurringDate(repaymentRecurrence, seedDate, newRepaymentDate);
 
         newRepaymentDate = WorkingDaysUtil.getOffSetDateIfNonWorkingDay(newRepaymentDate, nextRepaymentDate, workingDays);
 
         return newRepaymentDate;
     }
 
+    private static CalendarRecurrence withRepaymentIntervalAndFrequency(final CalendarRecurrence recurrence,
+            final Integer loanRepaymentInterval, final String frequency) {
+        final String repaymentFrequency = Recur.DAILY.equals(recurrence.getFrequency()) ? frequency : recurrence.getFrequency();
+        return recurrence.withIntervalAndFrequency(loanRepaymentInterval, repaymentFrequency);
+    }
+
     public static boolean isFrequencySame(final String oldRRule, final String newRRule) {
-        final Recur oldRecur = getICalRecur(oldRRule);
-        final Recur newRecur = getICalRecur(newRRule);
+        final CalendarRecurrence oldRecurrence = getRecurrence(oldRRule);
+        final CalendarRecurrence newRecurrence = getRecurrence(newRRule);
 
-        if (oldRecur == null || oldRecur.getFrequency() == null || newRecur == null || newRecur.getFrequency() == null) { return false; }
-        return oldRecur.getFrequency().equals(newRecur.getFrequency());
+        if (oldRecurrence == null || oldRecurrence.getFrequency() == null || newRecurrence == null
+                || newRecurrence.getFrequency() == null) { return false; }
+        return oldRecurrence.getFrequency().equals(newRecurrence.getFrequency());
     }
 
     public static boolean isIntervalSame(final String oldRRule, final String newRRule) {
-        final Recur oldRecur = getICalRecur(oldRRule);
-        final Recur newRecur = getICalRecur(newRRule);
+        final CalendarRecurrence oldRecurrence = getRecurrence(oldRRule);
+        final CalendarRecurrence newRecurrence = getRecurrence(newRRule);
 
-        if (oldRecur == null || oldRecur.getFrequency() == null || newRecur == null || newRecur.getFrequency() == null) { return false; }
-        return (oldRecur.getInterval() == newRecur.getInterval());
+        if (oldRecurrence == null || oldRecurrence.getFrequency() == null || newRecurrence == null
+                || newRecurrence.getFrequency() == null) { return false; }
+        return (oldRecurrence.getInterval() == newRecurrence.getInterval());
     }
 
     public static List<Integer> createIntegerListFromQueryParameter(final String calendarTypeQuery) {
@@ -449,27 +490,27 @@ public class CalendarUtils {
 
     public static LocalDate getRecentEligibleMeetingDate(final String recurringRule, final LocalDate seedDate) {
         LocalDate currentDate = DateUtils.getLocalDateOfTenant();
-        final Recur recur = CalendarUtils.getICalRecur(recurringRule);
-        if (recur == null) { return null; }
-
-        if (isValidRecurringDate(recur, seedDate, currentDate)) { return currentDate; }
-
-        if (recur.getFrequency().equals(Recur.DAILY)) {
-            currentDate = currentDate.plusDays(recur.getInterval());
-        } else if (recur.getFrequency().equals(Recur.WEEKLY)) {
-            currentDate = currentDate.plusWeeks(recur.getInterval());
-        } else if (recur.getFrequency().equals(Recur.MONTHLY)) {
-            currentDate = currentDate.plusMonths(recur.getInterval());
-        } else if (recur.getFrequency().equals(Recur.YEARLY)) {
-            currentDate = currentDate.plusYears(recur.getInterval());
+        final CalendarRecurrence recurrence = getRecurrence(recurringRule);
+        if (recurrence == null) { return null; }
+
+        if (isValidRecurringDate(recurrence, seedDate, currentDate)) { return currentDate; }
+
+        if (recurrence.getFrequency().equals(Recur.DAILY)) {
+            currentDate = currentDate.plusDays(recurrence.getInterval());
+        } else if (recurrence.getFrequency().equals(Recur.WEEKLY)) {
+            currentDate = currentDate.plusWeeks(recurrence.getInterval());
+        } else if (recurrence.getFrequency().equals(Recur.MONTHLY)) {
+            currentDate = currentDate.plusMonths(recurrence.getInterval());
+        } else if (recurrence.getFrequency().equals(Recur.YEARLY)) {
+            currentDate = currentDate.plusYears(recurrence.getInterval());
         }
 
-        return getNextRecurringDate(recur, seedDate, currentDate);
+        return getNextRecurringDate(recurrence, seedDate, currentDate);
     }
 
     public static LocalDate getNextScheduleDate(final Calendar calendar, final LocalDate startDate) {
-        final Recur recur = CalendarUtils.getICalRecur(calendar.getRecurrence());
-        if (recur == null) { return null; }
+        final CalendarRecurrence recurrence = getRecurrence(calendar.getRecurrence());
+        if (recurrence == null) { return null; }
         LocalDate date = startDate;
         final LocalDate seedDate = calendar.getStartDateLocalDate();
         /**
@@ -477,7 +518,7 @@ public class CalendarUtils {
          * date = date.plusDays(1); }
          **/
 
-        final LocalDate scheduleDate = getNextRecurringDate(recur, seedDate, date);
+        final LocalDate scheduleDate = getNextRecurringDate(recurrence, seedDate, date);
 
         return scheduleDate;
     }
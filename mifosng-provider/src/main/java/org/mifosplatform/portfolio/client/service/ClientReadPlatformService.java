@@ -8,6 +8,7 @@ package org.mifosplatform.portfolio.client.service;
 import java.util.Collection;
 
 import org.mifosplatform.infrastructure.core.service.Page;
+import org.mifosplatform.infrastructure.core.service.StreamingPage;
 import org.mifosplatform.portfolio.client.data.ClientData;
 import org.mifosplatform.infrastructure.core.service.SearchParameters;
 
@@ -17,6 +18,8 @@ public interface ClientReadPlatformService {
 
     Page<ClientData> retrieveAll(SearchParameters searchParameters);
 
+    StreamingPage<ClientData> streamAll(SearchParameters searchParameters);
+
     ClientData retrieveOne(Long clientId);
 
     Collection<ClientData> retrieveAllForLookup(String extraCriteria);
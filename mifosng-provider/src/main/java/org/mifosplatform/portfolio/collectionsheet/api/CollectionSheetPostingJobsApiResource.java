@@ -0,0 +1,51 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.portfolio.collectionsheet.api;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+
+import org.mifosplatform.infrastructure.core.serialization.ToApiJsonSerializer;
+import org.mifosplatform.portfolio.collectionsheet.data.CollectionSheetPostingJobData;
+import org.mifosplatform.portfolio.collectionsheet.service.CollectionSheetPostingJobService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+
+/**
+ * Status of collection sheets saved with <code>async=true</code> on the
+ * centers or groups <code>saveCollectionSheet</code> command.
+ */
+@Path("/collectionsheetpostings")
+@Component
+@Scope("singleton")
+public class CollectionSheetPostingJobsApiResource {
+
+    private final CollectionSheetPostingJobService collectionSheetPostingJobService;
+    private final ToApiJsonSerializer<CollectionSheetPostingJobData> toApiJsonSerializer;
+
+    @Autowired
+    public CollectionSheetPostingJobsApiResource(final CollectionSheetPostingJobService collectionSheetPostingJobService,
+            final ToApiJsonSerializer<CollectionSheetPostingJobData> toApiJsonSerializer) {
+        this.collectionSheetPostingJobService = collectionSheetPostingJobService;
+        this.toApiJsonSerializer = toApiJsonSerializer;
+    }
+
+    @GET
+    @Path("{jobId}")
+    @Consumes({ MediaType.APPLICATION_JSON })
+    @Produces({ MediaType.APPLICATION_JSON })
+    public String retrieveOne(@PathParam("jobId") final String jobId) {
+
+        final CollectionSheetPostingJobData job = this.collectionSheetPostingJobService.retrieveOne(jobId);
+
+        return this.toApiJsonSerializer.serialize(job);
+    }
+}
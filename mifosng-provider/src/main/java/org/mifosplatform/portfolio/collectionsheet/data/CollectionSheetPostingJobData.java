@@ -0,0 +1,43 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.portfolio.collectionsheet.data;
+
+import java.util.Date;
+
+/**
+ * Immutable data object representing the state of a collection sheet
+ * submitted for asynchronous posting.
+ */
+public class CollectionSheetPostingJobData {
+
+    @SuppressWarnings("unused")
+    private final String jobId;
+    @SuppressWarnings("unused")
+    private final String status;
+    @SuppressWarnings("unused")
+    private final Date submittedOn;
+    @SuppressWarnings("unused")
+    private final Date completedOn;
+    @SuppressWarnings("unused")
+    private final Object result;
+    @SuppressWarnings("unused")
+    private final Object error;
+
+    public static CollectionSheetPostingJobData instance(final String jobId, final String status, final Date submittedOn,
+            final Date completedOn, final Object result, final Object error) {
+        return new CollectionSheetPostingJobData(jobId, status, submittedOn, completedOn, result, error);
+    }
+
+    private CollectionSheetPostingJobData(final String jobId, final String status, final Date submittedOn, final Date completedOn,
+            final Object result, final Object error) {
+        this.jobId = jobId;
+        this.status = status;
+        this.submittedOn = submittedOn;
+        this.completedOn = completedOn;
+        this.result = result;
+        this.error = error;
+    }
+}
@@ -0,0 +1,20 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.portfolio.collectionsheet.exception;
+
+import org.mifosplatform.infrastructure.core.exception.AbstractPlatformResourceNotFoundException;
+
+/**
+ * A {@link RuntimeException} thrown when a collection sheet posting job is
+ * not found, has expired or was submitted by another user.
+ */
+public class CollectionSheetPostingJobNotFoundException extends AbstractPlatformResourceNotFoundException {
+
+    public CollectionSheetPostingJobNotFoundException(final String jobId) {
+        super("error.msg.collectionsheet.posting.job.id.invalid", "Collection sheet posting job with identifier " + jobId
+                + " does not exist", jobId);
+    }
+}
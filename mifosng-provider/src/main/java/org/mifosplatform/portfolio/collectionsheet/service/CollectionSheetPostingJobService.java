@@ -0,0 +1,16 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.portfolio.collectionsheet.service;
+
+import org.mifosplatform.commands.domain.CommandWrapper;
+import org.mifosplatform.portfolio.collectionsheet.data.CollectionSheetPostingJobData;
+
+public interface CollectionSheetPostingJobService {
+
+    CollectionSheetPostingJobData submit(CommandWrapper commandRequest);
+
+    CollectionSheetPostingJobData retrieveOne(String jobId);
+}
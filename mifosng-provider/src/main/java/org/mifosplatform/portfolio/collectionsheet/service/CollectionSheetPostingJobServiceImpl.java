@@ -0,0 +1,214 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.portfolio.collectionsheet.service;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PreDestroy;
+
+import org.mifosplatform.commands.domain.CommandWrapper;
+import org.mifosplatform.commands.service.PortfolioCommandSourceWritePlatformService;
+import org.mifosplatform.infrastructure.core.data.ApiGlobalErrorResponse;
+import org.mifosplatform.infrastructure.core.data.CommandProcessingResult;
+import org.mifosplatform.infrastructure.core.exception.AbstractPlatformDomainRuleException;
+import org.mifosplatform.infrastructure.core.exception.AbstractPlatformResourceNotFoundException;
+import org.mifosplatform.infrastructure.core.exception.AbstractPlatformServiceUnavailableException;
+import org.mifosplatform.infrastructure.core.exception.PlatformApiDataValidationException;
+import org.mifosplatform.infrastructure.core.exception.PlatformDataIntegrityException;
+import org.mifosplatform.infrastructure.core.exception.PlatformServiceUnavailableException;
+import org.mifosplatform.infrastructure.core.exceptionmapper.PlatformApiDataValidationExceptionMapper;
+import org.mifosplatform.infrastructure.core.exceptionmapper.PlatformDataIntegrityExceptionMapper;
+import org.mifosplatform.infrastructure.core.exceptionmapper.PlatformDomainRuleExceptionMapper;
+import org.mifosplatform.infrastructure.core.exceptionmapper.PlatformResourceNotFoundExceptionMapper;
+import org.mifosplatform.infrastructure.core.exceptionmapper.PlatformServiceUnavailableExceptionMapper;
+import org.mifosplatform.infrastructure.core.serialization.CommandProcessingResultJsonSerializer;
+import org.mifosplatform.infrastructure.core.serialization.FromJsonHelper;
+import org.mifosplatform.infrastructure.core.service.RoutingDataSource;
+import org.mifosplatform.infrastructure.core.service.TenantAwareCallable;
+import org.mifosplatform.infrastructure.security.service.PlatformSecurityContext;
+import org.mifosplatform.portfolio.collectionsheet.data.CollectionSheetPostingJobData;
+import org.mifosplatform.portfolio.collectionsheet.exception.CollectionSheetPostingJobNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+
+/**
+ * Posts collection sheets on a small pool of background threads so clients on
+ * slow networks can submit a sheet and poll for its outcome instead of
+ * holding a request open while every account on it is posted.
+ *
+ * The sheet goes through the regular command pipeline, so it is checked,
+ * audited and posted exactly like a synchronous save. The state of each job is
+ * kept in <code>m_collection_sheet_posting_job</code> of the tenant, so it can
+ * be read from any node and after a restart, and is only visible to the user
+ * who submitted it; finished jobs are dropped after {@link #RETENTION_MILLIS}.
+ *
+ * The queue itself is in memory. When it is full the sheet is refused with a
+ * service unavailable error, and a job that was still queued or running when
+ * its node stopped is reported as failed once {@link #RETENTION_MILLIS} have
+ * passed, whether or not its sheet was posted.
+ */
+@Service
+public class CollectionSheetPostingJobServiceImpl implements CollectionSheetPostingJobService {
+
+    private final static Logger logger = LoggerFactory.getLogger(CollectionSheetPostingJobServiceImpl.class);
+
+    private static final int POSTING_THREADS = 2;
+    private static final int MAX_QUEUED_SHEETS = 100;
+    private static final long RETENTION_MILLIS = TimeUnit.HOURS.toMillis(1);
+    private static final long UNFINISHED_RETENTION_MILLIS = TimeUnit.DAYS.toMillis(1);
+
+    private static final String STATUS_QUEUED = "queued";
+    private static final String STATUS_RUNNING = "running";
+    private static final String STATUS_COMPLETED = "completed";
+    private static final String STATUS_FAILED = "failed";
+
+    private final PlatformSecurityContext context;
+    private final PortfolioCommandSourceWritePlatformService commandsSourceWritePlatformService;
+    private final JdbcTemplate jdbcTemplate;
+    private final CommandProcessingResultJsonSerializer jsonSerializer;
+    private final FromJsonHelper fromJsonHelper;
+    private final ThreadPoolExecutor postingExecutor;
+
+    @Autowired
+    public CollectionSheetPostingJobServiceImpl(final PlatformSecurityContext context,
+            final PortfolioCommandSourceWritePlatformService commandsSourceWritePlatformService, final RoutingDataSource dataSource,
+            final CommandProcessingResultJsonSerializer jsonSerializer, final FromJsonHelper fromJsonHelper) {
+        this.context = context;
+        this.commandsSourceWritePlatformService = commandsSourceWritePlatformService;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jsonSerializer = jsonSerializer;
+        this.fromJsonHelper = fromJsonHelper;
+        this.postingExecutor = new ThreadPoolExecutor(POSTING_THREADS, POSTING_THREADS, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(MAX_QUEUED_SHEETS));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        this.postingExecutor.shutdownNow();
+    }
+
+    @Override
+    public CollectionSheetPostingJobData submit(final CommandWrapper commandRequest) {
+
+        final Long userId = this.context.authenticatedUser().getId();
+
+        purgeFinishedJobs();
+
+        final String jobId = UUID.randomUUID().toString();
+        final Date submittedOn = new Date();
+        this.jdbcTemplate.update("insert into m_collection_sheet_posting_job (id, user_id, status, submitted_on) values (?, ?, ?, ?)",
+                jobId, userId, STATUS_QUEUED, submittedOn);
+        try {
+            this.postingExecutor.submit(new TenantAwareCallable<>(new Callable<Void>() {
+
+                @Override
+                public Void call() {
+                    post(jobId, commandRequest);
+                    return null;
+                }
+            }));
+        } catch (final RejectedExecutionException e) {
+            this.jdbcTemplate.update("delete from m_collection_sheet_posting_job where id = ?", jobId);
+            throw new PlatformServiceUnavailableException("error.msg.collectionsheet.posting.queue.full",
+                    "Too many collection sheets are waiting to be posted, please try again later.");
+        }
+        return CollectionSheetPostingJobData.instance(jobId, STATUS_QUEUED, submittedOn, null, null, null);
+    }
+
+    @Override
+    public CollectionSheetPostingJobData retrieveOne(final String jobId) {
+
+        final Long userId = this.context.authenticatedUser().getId();
+
+        final PostingJobMapper rm = new PostingJobMapper();
+        final List<CollectionSheetPostingJobData> jobs = this.jdbcTemplate.query("select " + rm.schema()
+                + " where job.id = ? and job.user_id = ?", rm, jobId, userId);
+        if (jobs.isEmpty()) { throw new CollectionSheetPostingJobNotFoundException(jobId); }
+        return jobs.get(0);
+    }
+
+    private void post(final String jobId, final CommandWrapper commandRequest) {
+        this.jdbcTemplate.update("update m_collection_sheet_posting_job set status = ? where id = ?", STATUS_RUNNING, jobId);
+        try {
+            final CommandProcessingResult result = this.commandsSourceWritePlatformService.logCommandSource(commandRequest);
+            finish(jobId, STATUS_COMPLETED, this.jsonSerializer.serialize(result), null);
+        } catch (final RuntimeException e) {
+            logger.warn("Posting collection sheet job " + jobId + " failed", e);
+            finish(jobId, STATUS_FAILED, null, this.jsonSerializer.serialize(errorOf(e)));
+        }
+    }
+
+    private void finish(final String jobId, final String status, final String resultJson, final String errorJson) {
+        this.jdbcTemplate.update("update m_collection_sheet_posting_job set status = ?, completed_on = ?, result_json = ?, "
+                + "error_json = ? where id = ?", status, new Date(), resultJson, errorJson, jobId);
+    }
+
+    private void purgeFinishedJobs() {
+        final long now = System.currentTimeMillis();
+        this.jdbcTemplate.update("delete from m_collection_sheet_posting_job where completed_on < ? or submitted_on < ?", new Date(now
+                - RETENTION_MILLIS), new Date(now - UNFINISHED_RETENTION_MILLIS));
+    }
+
+    private static Object errorOf(final RuntimeException e) {
+        if (e instanceof PlatformApiDataValidationException) {
+            return new PlatformApiDataValidationExceptionMapper().toResponse((PlatformApiDataValidationException) e).getEntity();
+        } else if (e instanceof AbstractPlatformDomainRuleException) {
+            return new PlatformDomainRuleExceptionMapper().toResponse((AbstractPlatformDomainRuleException) e).getEntity();
+        } else if (e instanceof AbstractPlatformResourceNotFoundException) {
+            return new PlatformResourceNotFoundExceptionMapper().toResponse((AbstractPlatformResourceNotFoundException) e).getEntity();
+        } else if (e instanceof PlatformDataIntegrityException) {
+            return new PlatformDataIntegrityExceptionMapper().toResponse((PlatformDataIntegrityException) e).getEntity();
+        } else if (e instanceof AbstractPlatformServiceUnavailableException) {
+            return new PlatformServiceUnavailableExceptionMapper().toResponse((AbstractPlatformServiceUnavailableException) e)
+                    .getEntity();
+        }
+        return ApiGlobalErrorResponse.serverSideError("error.msg.collectionsheet.posting.failed", "Posting the collection sheet failed.");
+    }
+
+    private final class PostingJobMapper implements RowMapper<CollectionSheetPostingJobData> {
+
+        public String schema() {
+            return " job.id as id, job.status as status, job.submitted_on as submittedOn, job.completed_on as completedOn, "
+                    + "job.result_json as resultJson, job.error_json as errorJson from m_collection_sheet_posting_job job";
+        }
+
+        @Override
+        public CollectionSheetPostingJobData mapRow(final ResultSet rs, @SuppressWarnings("unused") final int rowNum)
+                throws SQLException {
+
+            final String jobId = rs.getString("id");
+            final Date submittedOn = rs.getTimestamp("submittedOn");
+            final Date completedOn = rs.getTimestamp("completedOn");
+            final String resultJson = rs.getString("resultJson");
+            final String errorJson = rs.getString("errorJson");
+            String status = rs.getString("status");
+            Object error = errorJson == null ? null : CollectionSheetPostingJobServiceImpl.this.fromJsonHelper.parse(errorJson);
+
+            // the node that was posting the sheet has stopped
+            if (completedOn == null && submittedOn.getTime() < System.currentTimeMillis() - RETENTION_MILLIS) {
+                status = STATUS_FAILED;
+                error = ApiGlobalErrorResponse.serverSideError("error.msg.collectionsheet.posting.interrupted",
+                        "Posting the collection sheet was interrupted, check the collection sheet before saving it again.");
+            }
+
+            final Object result = resultJson == null ? null : CollectionSheetPostingJobServiceImpl.this.fromJsonHelper.parse(resultJson);
+            return CollectionSheetPostingJobData.instance(jobId, status, submittedOn, completedOn, result, error);
+        }
+    }
+}
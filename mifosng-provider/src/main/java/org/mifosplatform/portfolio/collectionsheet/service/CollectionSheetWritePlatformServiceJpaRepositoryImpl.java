@@ -5,11 +5,15 @@
  */
 package org.mifosplatform.portfolio.collectionsheet.service;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.apache.commons.lang.StringUtils;
+import org.mifosplatform.accounting.journalentry.service.JournalEntryBatchWriter;
 import org.mifosplatform.infrastructure.core.api.JsonCommand;
 import org.mifosplatform.infrastructure.core.data.CommandProcessingResult;
 import org.mifosplatform.infrastructure.core.data.CommandProcessingResultBuilder;
@@ -22,6 +26,7 @@ import org.mifosplatform.portfolio.loanaccount.service.LoanWritePlatformService;
 import org.mifosplatform.portfolio.meeting.service.MeetingWritePlatformService;
 import org.mifosplatform.portfolio.savings.data.SavingsAccountTransactionDTO;
 import org.mifosplatform.portfolio.savings.domain.DepositAccountAssembler;
+import org.mifosplatform.portfolio.savings.domain.SavingsAccountTransaction;
 import org.mifosplatform.portfolio.savings.service.DepositAccountWritePlatformService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -36,6 +41,7 @@ public class CollectionSheetWritePlatformServiceJpaRepositoryImpl implements Col
     private final MeetingWritePlatformService meetingWritePlatformService;
     private final DepositAccountAssembler accountAssembler;
     private final DepositAccountWritePlatformService accountWritePlatformService;
+    private final JournalEntryBatchWriter journalEntryBatchWriter;
 
     @Autowired
     public CollectionSheetWritePlatformServiceJpaRepositoryImpl(final LoanWritePlatformService loanWritePlatformService,
@@ -43,7 +49,7 @@ public class CollectionSheetWritePlatformServiceJpaRepositoryImpl implements Col
             final CollectionSheetBulkDisbursalCommandFromApiJsonDeserializer bulkDisbursalCommandFromApiJsonDeserializer,
             final CollectionSheetTransactionDataValidator transactionDataValidator,
             final MeetingWritePlatformService meetingWritePlatformService, final DepositAccountAssembler accountAssembler,
-            final DepositAccountWritePlatformService accountWritePlatformService) {
+            final DepositAccountWritePlatformService accountWritePlatformService, final JournalEntryBatchWriter journalEntryBatchWriter) {
         this.loanWritePlatformService = loanWritePlatformService;
         this.bulkRepaymentCommandFromApiJsonDeserializer = bulkRepaymentCommandFromApiJsonDeserializer;
         this.bulkDisbursalCommandFromApiJsonDeserializer = bulkDisbursalCommandFromApiJsonDeserializer;
@@ -51,6 +57,7 @@ public class CollectionSheetWritePlatformServiceJpaRepositoryImpl implements Col
         this.meetingWritePlatformService = meetingWritePlatformService;
         this.accountAssembler = accountAssembler;
         this.accountWritePlatformService = accountWritePlatformService;
+        this.journalEntryBatchWriter = journalEntryBatchWriter;
     }
 
     @Override
@@ -67,11 +74,20 @@ public class CollectionSheetWritePlatformServiceJpaRepositoryImpl implements Col
             changes.put("note", noteText);
         }
 
-        changes.putAll(updateBulkReapayments(command));
+        // the journal entries of every account on the sheet are inserted
+        // together once all transactions are posted
+        this.journalEntryBatchWriter.begin();
+        try {
+            changes.putAll(updateBulkReapayments(command));
 
-        changes.putAll(updateBulkDisbursals(command));
-        
-        changes.putAll(updateBulkMandatorySavingsDuePayments(command));
+            changes.putAll(updateBulkDisbursals(command));
+
+            changes.putAll(updateBulkMandatorySavingsDuePayments(command));
+
+            this.journalEntryBatchWriter.flush();
+        } finally {
+            this.journalEntryBatchWriter.end();
+        }
 
         this.meetingWritePlatformService.updateCollectionSheetAttendance(command);
 
@@ -101,17 +117,25 @@ public class CollectionSheetWritePlatformServiceJpaRepositoryImpl implements Col
     private Map<String, Object> updateBulkMandatorySavingsDuePayments(final JsonCommand command) {
         final Map<String, Object> changes = new HashMap<>();
         final Collection<SavingsAccountTransactionDTO> savingsTransactions = this.accountAssembler.assembleBulkMandatorySavingsAccountTransactionDTOs(command);
-        
-        for (SavingsAccountTransactionDTO savingsAccountTransactionDTO : savingsTransactions) {
-            try {
-                this.accountWritePlatformService.mandatorySavingsAccountDeposit(savingsAccountTransactionDTO);
-                changes.put("savingsAccountId", savingsAccountTransactionDTO.getSavingsAccountId());
-                changes.put("transationAmount", savingsAccountTransactionDTO.getTransactionAmount());
-            } catch (Exception e) {
-                // TODO: handle exception
-            }
+
+        // a failed deposit marks the shared transaction rollback only, so it
+        // is not swallowed here but fails the sheet with its own error
+        // instead of an unexpected rollback on commit
+        final List<Map<String, Object>> results = new ArrayList<>(savingsTransactions.size());
+        for (final SavingsAccountTransactionDTO savingsAccountTransactionDTO : savingsTransactions) {
+            final SavingsAccountTransaction deposit = this.accountWritePlatformService
+                    .mandatorySavingsAccountDeposit(savingsAccountTransactionDTO);
+            final Map<String, Object> result = new LinkedHashMap<>();
+            result.put("savingsAccountId", savingsAccountTransactionDTO.getSavingsAccountId());
+            result.put("transactionAmount", savingsAccountTransactionDTO.getTransactionAmount());
+            result.put("status", "posted");
+            result.put("transactionId", deposit.getId());
+            results.add(result);
+        }
+        if (!results.isEmpty()) {
+            changes.put("bulkSavingsDueTransactions", results);
         }
-        
+
         return changes;
     }
 }
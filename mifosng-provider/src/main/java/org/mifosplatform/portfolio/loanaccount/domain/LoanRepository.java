@@ -54,6 +54,9 @@ public interface LoanRepository extends JpaRepository<Loan, Long>, JpaSpecificat
 
     public static final String DOES_CLIENT_HAVE_NON_CLOSED_LOANS = "select case when (count (loan) > 0) then true else false end from Loan loan where loan.client.id = :clientId and loan.loanStatus in (100,200,300,303,304,800,900)";
 
+    public static final String FIND_LOANS_WITH_REPAYMENT_SCHEDULE = "select distinct loan from Loan loan "
+            + "left join fetch loan.repaymentScheduleInstallments where loan.id IN :ids";
+
     @Query(FIND_GROUP_LOANS_DISBURSED_AFTER)
     List<Loan> getGroupLoansDisbursedAfter(@Param("disbursementDate") Date disbursementDate, @Param("groupId") Long groupId,
             @Param("loanType") Integer loanType);
@@ -102,6 +105,15 @@ public interface LoanRepository extends JpaRepository<Loan, Long>, JpaSpecificat
     List<Loan> findByIdsAndLoanStatusAndLoanType(@Param("ids") Collection<Long> ids,
             @Param("loanStatuses") Collection<Integer> loanStatuses, @Param("loanTypes") Collection<Integer> loanTypes);
 
+    /**
+     * The loans of a collection sheet, with their repayment schedules fetched
+     * by the same query instead of one query per loan. The schedule is a bag,
+     * so no other collection may be fetch joined with it: every installment
+     * would be returned once per element of the other collection.
+     */
+    @Query(FIND_LOANS_WITH_REPAYMENT_SCHEDULE)
+    List<Loan> findByIdsWithRepaymentSchedule(@Param("ids") Collection<Long> ids);
+
     @Query("select loan.id from Loan loan where loan.actualDisbursementDate > :disbursalDate order by loan.actualDisbursementDate")
     List<Long> getLoansDisbursedAfter(@Param("disbursalDate") Date disbursalDate);
 
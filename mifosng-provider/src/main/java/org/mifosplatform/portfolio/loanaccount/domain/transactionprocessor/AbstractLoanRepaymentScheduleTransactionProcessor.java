@@ -17,6 +17,7 @@ import java.util.Set;
 import org.joda.time.LocalDate;
 import org.mifosplatform.organisation.monetary.domain.MonetaryCurrency;
 import org.mifosplatform.organisation.monetary.domain.Money;
+import org.mifosplatform.organisation.monetary.domain.MoneyAccumulator;
 import org.mifosplatform.portfolio.loanaccount.data.LoanChargePaidDetail;
 import org.mifosplatform.portfolio.loanaccount.domain.ChangedTransactionDetail;
 import org.mifosplatform.portfolio.loanaccount.domain.LoanCharge;
@@ -42,6 +43,14 @@ import org.mifosplatform.portfolio.loanaccount.loanschedule.domain.Recalculation
  */
 public abstract class AbstractLoanRepaymentScheduleTransactionProcessor implements LoanRepaymentScheduleTransactionProcessor {
 
+    private static final Comparator<LoanRepaymentScheduleInstallment> INSTALLMENT_BY_DUE_DATE = new Comparator<LoanRepaymentScheduleInstallment>() {
+
+        @Override
+        public int compare(final LoanRepaymentScheduleInstallment ord1, final LoanRepaymentScheduleInstallment ord2) {
+            return ord1.getDueDate().compareTo(ord2.getDueDate());
+        }
+    };
+
     /**
      * Provides support for passing all {@link LoanTransaction}'s so it will
      * completely re-process the entire loan schedule. This is required in cases
@@ -139,17 +148,16 @@ public abstract class AbstractLoanRepaymentScheduleTransactionProcessor implemen
             }
         }
 
+        // only a refund reorders the installments (latest first), so they are
+        // sorted by due date again only before the first transaction after
+        // one, instead of before every transaction
+        boolean installmentsSortedByDueDate = false;
         for (final LoanTransaction loanTransaction : transactionstoBeProcessed) {
-        	
-        	 if(!loanTransaction.getTypeOf().equals(LoanTransactionType.REFUND_FOR_ACTIVE_LOAN)) {
-                 final Comparator<LoanRepaymentScheduleInstallment> byDate = new Comparator<LoanRepaymentScheduleInstallment>() {
-                     @Override
-					public int compare(LoanRepaymentScheduleInstallment ord1, LoanRepaymentScheduleInstallment ord2) {
-                         return ord1.getDueDate().compareTo(ord2.getDueDate());
-                     }
-                 };
-                 Collections.sort(installments,byDate);
-             }
+
+            if (!installmentsSortedByDueDate && !loanTransaction.getTypeOf().equals(LoanTransactionType.REFUND_FOR_ACTIVE_LOAN)) {
+                Collections.sort(installments, INSTALLMENT_BY_DUE_DATE);
+                installmentsSortedByDueDate = true;
+            }
 
             if (loanTransaction.isRepayment() || loanTransaction.isInterestWaiver() ||
                     loanTransaction.isRecoveryRepayment() || loanTransaction.isFromUnidentified() ||
@@ -190,6 +198,7 @@ public abstract class AbstractLoanRepaymentScheduleTransactionProcessor implemen
                 loanTransaction.resetDerivedComponents();
       
                handleRefund(loanTransaction, currency, installments,charges);
+               installmentsSortedByDueDate = false;
            }
         }
         return changedTransactionDetail;
@@ -238,8 +247,6 @@ public abstract class AbstractLoanRepaymentScheduleTransactionProcessor implemen
         }
         Money transactionAmountUnprocessed = processTransaction(loanTransaction, currency, installments, chargeAmountToProcess);
 
-        final Set<LoanCharge> loanFees = extractFeeCharges(charges);
-        final Set<LoanCharge> loanPenalties = extractPenaltyCharges(charges);
         Integer installmentNumber = null;
         if (loanTransaction.isChargePayment() && installments.size() == 1) {
             installmentNumber = installments.get(0).getInstallmentNumber();
@@ -255,12 +262,14 @@ public abstract class AbstractLoanRepaymentScheduleTransactionProcessor implemen
                     penaltyCharges = chargeAmountToProcess;
                 }
             }
+            // most repayments pay no charges, only split the charges when some
+            // are paid
             if (feeCharges.isGreaterThanZero()) {
-                updateChargesPaidAmountBy(loanTransaction, feeCharges, loanFees, installmentNumber);
+                updateChargesPaidAmountBy(loanTransaction, feeCharges, extractFeeCharges(charges), installmentNumber);
             }
 
             if (penaltyCharges.isGreaterThanZero()) {
-                updateChargesPaidAmountBy(loanTransaction, penaltyCharges, loanPenalties, installmentNumber);
+                updateChargesPaidAmountBy(loanTransaction, penaltyCharges, extractPenaltyCharges(charges), installmentNumber);
             }
         }
         return transactionAmountUnprocessed;
@@ -391,25 +400,25 @@ public abstract class AbstractLoanRepaymentScheduleTransactionProcessor implemen
             final List<LoanRepaymentScheduleInstallment> installments) {
 
         final LocalDate transactionDate = loanTransaction.getTransactionDate();
-        Money principalPortion = Money.zero(currency);
-        Money interestPortion = Money.zero(currency);
-        Money feeChargesPortion = Money.zero(currency);
-        Money penaltychargesPortion = Money.zero(currency);
+        final MoneyAccumulator principalPortion = MoneyAccumulator.zero(currency);
+        final MoneyAccumulator interestPortion = MoneyAccumulator.zero(currency);
+        final MoneyAccumulator feeChargesPortion = MoneyAccumulator.zero(currency);
+        final MoneyAccumulator penaltychargesPortion = MoneyAccumulator.zero(currency);
 
         // determine how much is written off in total and breakdown for
         // principal, interest and charges
         for (final LoanRepaymentScheduleInstallment currentInstallment : installments) {
 
             if (currentInstallment.isNotFullyPaidOff()) {
-                principalPortion = principalPortion.plus(currentInstallment.writeOffOutstandingPrincipal(transactionDate, currency));
-                interestPortion = interestPortion.plus(currentInstallment.writeOffOutstandingInterest(transactionDate, currency));
-                feeChargesPortion = feeChargesPortion.plus(currentInstallment.writeOffOutstandingFeeCharges(transactionDate, currency));
-                penaltychargesPortion = penaltychargesPortion.plus(currentInstallment.writeOffOutstandingPenaltyCharges(transactionDate,
-                        currency));
+                principalPortion.plus(currentInstallment.writeOffOutstandingPrincipal(transactionDate, currency));
+                interestPortion.plus(currentInstallment.writeOffOutstandingInterest(transactionDate, currency));
+                feeChargesPortion.plus(currentInstallment.writeOffOutstandingFeeCharges(transactionDate, currency));
+                penaltychargesPortion.plus(currentInstallment.writeOffOutstandingPenaltyCharges(transactionDate, currency));
             }
         }
 
-        loanTransaction.updateComponentsAndTotal(principalPortion, interestPortion, feeChargesPortion, penaltychargesPortion);
+        loanTransaction.updateComponentsAndTotal(principalPortion.toMoney(), interestPortion.toMoney(), feeChargesPortion.toMoney(),
+                penaltychargesPortion.toMoney());
     }
 
     // abstract interface
@@ -100,6 +100,10 @@ public class LoanScheduleData {
         return this.periods;
     }
 
+    public Collection<LoanSchedulePeriodData> getFuturePeriods() {
+        return this.futurePeriods;
+    }
+
     public void updateFuturePeriods(Collection<LoanSchedulePeriodData> futurePeriods) {
         this.futurePeriods = futurePeriods;
     }
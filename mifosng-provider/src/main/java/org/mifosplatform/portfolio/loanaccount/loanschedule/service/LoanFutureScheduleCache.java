@@ -0,0 +1,137 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.portfolio.loanaccount.loanschedule.service;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.joda.time.LocalDate;
+import org.mifosplatform.infrastructure.cache.data.CacheStatisticsData;
+import org.mifosplatform.infrastructure.cache.service.CacheStatisticsProvider;
+import org.mifosplatform.infrastructure.core.service.RoutingDataSource;
+import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
+import org.mifosplatform.portfolio.loanaccount.loanschedule.data.LoanScheduleData;
+import org.mifosplatform.portfolio.loanaccount.loanschedule.data.LoanSchedulePeriodData;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the future schedule {@link LoanScheduleCalculationPlatformService}
+ * recalculates for loans with interest recalculation, so that showing the
+ * same loan again does not assemble and reprocess it again.
+ *
+ * Loans carry no version column, the cached schedule is instead tied to a
+ * version read in one query from the loan's status and totals, its
+ * transactions, installments, charges, term variations and reschedule
+ * requests, the holidays of its office, the working days and the
+ * configuration that decides how they move repayments, and to the current
+ * date the calculation depends on.
+ */
+@Component
+public class LoanFutureScheduleCache implements CacheStatisticsProvider {
+
+    private static final int MAX_CACHED_PER_TENANT = 10000;
+
+    private static final String LOAN_VERSION_SQL = "select concat_ws('|', l.loan_status_id, l.is_npa, l.total_expected_repayment_derived,"
+            + " l.total_repayment_derived, l.total_waived_derived, l.total_writtenoff_derived, l.total_outstanding_derived,"
+            + " (select concat_ws(':', count(*), max(t.id), sum(t.amount)) from m_loan_transaction t where t.loan_id = l.id and t.is_reversed = 0),"
+            + " (select concat_ws(':', count(*), max(s.id), sum(s.principal_amount), sum(s.interest_amount), sum(s.fee_charges_amount),"
+            + " sum(s.penalty_charges_amount), sum(s.completed_derived)) from m_loan_repayment_schedule s where s.loan_id = l.id),"
+            + " (select concat_ws(':', count(*), max(c.id), sum(c.amount_outstanding_derived)) from m_loan_charge c where c.loan_id = l.id and c.is_active = 1),"
+            + " (select concat_ws(':', count(*), sum(crc32(concat_ws(',', v.id, v.term_type, v.applicable_from, v.term_value)))) from m_loan_term_variations v where v.loan_id = l.id),"
+            + " (select concat_ws(':', count(*), sum(crc32(concat_ws(',', r.id, r.status_enum)))) from m_loan_reschedule_request r where r.loan_id = l.id),"
+            + " (select concat_ws(':', count(*), sum(crc32(concat_ws(',', h.id, h.from_date, h.to_date, h.repayments_rescheduled_to, h.status_enum))))"
+            + " from m_holiday h join m_holiday_office ho on ho.holiday_id = h.id where ho.office_id = coalesce("
+            + " (select lc.office_id from m_client lc where lc.id = l.client_id), (select lg.office_id from m_group lg where lg.id = l.group_id))),"
+            + " (select group_concat(w.recurrence, ':', w.repayment_rescheduling_enum) from m_working_days w),"
+            + " (select group_concat(cf.name, ':', cf.enabled order by cf.name) from c_configuration cf where cf.name in ('reschedule-future-repayments',"
+            + " 'reschedule-repayments-on-holidays', 'allow-transactions-on-holiday', 'allow-transactions-on-non_workingday')))"
+            + " as loanVersion from m_loan l where l.id = ?";
+
+    private final LoanScheduleCalculationPlatformService calculationPlatformService;
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ConcurrentMap<Long, ConcurrentMap<Long, CachedFutureSchedule>> futureSchedules = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    @Autowired
+    public LoanFutureScheduleCache(final LoanScheduleCalculationPlatformService calculationPlatformService,
+            final RoutingDataSource dataSource) {
+        this.calculationPlatformService = calculationPlatformService;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    /**
+     * Same as {@link LoanScheduleCalculationPlatformService#updateFutureSchedule}
+     * for an unchanged loan on the same day.
+     */
+    public void updateFutureSchedule(final LoanScheduleData loanScheduleData, final Long loanId) {
+        final Long tenantId = ThreadLocalContextUtil.getTenant().getId();
+        final String version = loanVersion(loanId) + "|" + new LocalDate();
+
+        ConcurrentMap<Long, CachedFutureSchedule> cached = this.futureSchedules.get(tenantId);
+        if (cached != null) {
+            final CachedFutureSchedule futureSchedule = cached.get(loanId);
+            if (futureSchedule != null && futureSchedule.version.equals(version)) {
+                this.hits.incrementAndGet();
+                if (futureSchedule.periods != null) {
+                    loanScheduleData.updateFuturePeriods(futureSchedule.periods);
+                }
+                return;
+            }
+        }
+        this.misses.incrementAndGet();
+
+        this.calculationPlatformService.updateFutureSchedule(loanScheduleData, loanId);
+
+        if (cached == null) {
+            this.futureSchedules.putIfAbsent(tenantId, new ConcurrentHashMap<Long, CachedFutureSchedule>());
+            cached = this.futureSchedules.get(tenantId);
+        }
+        if (cached.size() >= MAX_CACHED_PER_TENANT && !cached.containsKey(loanId)) {
+            cached.clear();
+        }
+        cached.put(loanId, new CachedFutureSchedule(version, loanScheduleData.getFuturePeriods()));
+    }
+
+    @Override
+    public CacheStatisticsData retrieveCacheStatistics() {
+        long size = 0;
+        for (final ConcurrentMap<Long, CachedFutureSchedule> cached : this.futureSchedules.values()) {
+            size += cached.size();
+        }
+        return CacheStatisticsData.instance("loanFutureSchedules", size, this.hits.get(), this.misses.get());
+    }
+
+    private String loanVersion(final Long loanId) {
+        final Collection<String> versions = this.jdbcTemplate.query(LOAN_VERSION_SQL, new RowMapper<String>() {
+
+            @Override
+            public String mapRow(final ResultSet rs, @SuppressWarnings("unused") final int rowNum) throws SQLException {
+                return rs.getString("loanVersion");
+            }
+        }, loanId);
+        return versions.isEmpty() ? "" : versions.iterator().next();
+    }
+
+    private static final class CachedFutureSchedule {
+
+        private final String version;
+        private final Collection<LoanSchedulePeriodData> periods;
+
+        CachedFutureSchedule(final String version, final Collection<LoanSchedulePeriodData> periods) {
+            this.version = version;
+            this.periods = periods;
+        }
+    }
+}
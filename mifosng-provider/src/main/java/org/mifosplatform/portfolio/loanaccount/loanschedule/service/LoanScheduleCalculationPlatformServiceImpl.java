@@ -97,7 +97,7 @@ public class LoanScheduleCalculationPlatformServiceImpl implements LoanScheduleC
          **/
         if (validateParams) {
             boolean isMeetingMandatoryForJLGLoans = configurationDomainService.isMeetingMandatoryForJLGLoans();
-            this.loanApiJsonDeserializer.validateForCreate(query.json(), isMeetingMandatoryForJLGLoans);
+            this.loanApiJsonDeserializer.validateForCreate(query.parsedJson(), isMeetingMandatoryForJLGLoans);
         }
         this.fromApiJsonDeserializer.validate(query.json());
 
@@ -194,7 +194,7 @@ public class LoanApplicationWritePlatformServiceJpaRepositoryImpl implements Loa
             final AppUser currentUser = getAppUserIfPresent();
             boolean isMeetingMandatoryForJLGLoans = configurationDomainService.isMeetingMandatoryForJLGLoans();
 
-            this.fromApiJsonDeserializer.validateForCreate(command.json(), isMeetingMandatoryForJLGLoans);
+            this.fromApiJsonDeserializer.validateForCreate(command, isMeetingMandatoryForJLGLoans);
 
             final List<ApiParameterError> dataValidationErrors = new ArrayList<>();
             final DataValidatorBuilder baseDataValidator = new DataValidatorBuilder(dataValidationErrors).resource("loan");
@@ -377,7 +377,7 @@ public class LoanApplicationWritePlatformServiceJpaRepositoryImpl implements Loa
         try {
             AppUser currentUser = getAppUserIfPresent();
 
-            this.fromApiJsonDeserializer.validateForModify(command.json());
+            this.fromApiJsonDeserializer.validateForModify(command);
 
             final Loan existingLoanApplication = retrieveLoanBy(loanId);
             checkClientOrGroupActive(existingLoanApplication);
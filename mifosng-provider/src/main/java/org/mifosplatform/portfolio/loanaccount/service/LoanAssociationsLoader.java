@@ -0,0 +1,411 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.portfolio.loanaccount.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PreDestroy;
+
+import org.mifosplatform.infrastructure.core.service.TenantAwareCallable;
+import org.mifosplatform.portfolio.account.data.PortfolioAccountData;
+import org.mifosplatform.portfolio.account.service.AccountAssociationsReadPlatformService;
+import org.mifosplatform.portfolio.calendar.data.CalendarData;
+import org.mifosplatform.portfolio.calendar.service.CalendarReadPlatformService;
+import org.mifosplatform.portfolio.charge.data.ChargeData;
+import org.mifosplatform.portfolio.charge.domain.ChargeTimeType;
+import org.mifosplatform.portfolio.charge.service.ChargeReadPlatformService;
+import org.mifosplatform.portfolio.collateral.data.CollateralData;
+import org.mifosplatform.portfolio.collateral.service.CollateralReadPlatformService;
+import org.mifosplatform.portfolio.loanaccount.data.DisbursementData;
+import org.mifosplatform.portfolio.loanaccount.data.LoanAccountData;
+import org.mifosplatform.portfolio.loanaccount.data.LoanChargeData;
+import org.mifosplatform.portfolio.loanaccount.data.LoanTermVariationsData;
+import org.mifosplatform.portfolio.loanaccount.data.LoanTransactionData;
+import org.mifosplatform.portfolio.loanaccount.data.PaidInAdvanceData;
+import org.mifosplatform.portfolio.loanaccount.domain.LoanTermVariationType;
+import org.mifosplatform.portfolio.loanaccount.guarantor.data.GuarantorData;
+import org.mifosplatform.portfolio.loanaccount.guarantor.service.GuarantorReadPlatformService;
+import org.mifosplatform.portfolio.loanaccount.loanschedule.data.LoanScheduleData;
+import org.mifosplatform.portfolio.loanaccount.loanschedule.service.LoanFutureScheduleCache;
+import org.mifosplatform.portfolio.loanaccount.loanschedule.service.LoanScheduleHistoryReadPlatformService;
+import org.mifosplatform.portfolio.note.data.NoteData;
+import org.mifosplatform.portfolio.note.domain.NoteType;
+import org.mifosplatform.portfolio.note.service.NoteReadPlatformService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.util.CollectionUtils;
+
+/**
+ * Reads the associations of a single loan for
+ * <code>GET /loans/{loanId}</code>. The associations do not depend on each
+ * other, so each one is read by its own task on a small pool shared by all
+ * tenants and the request only waits for the slowest. When the pool is busy
+ * the request thread runs the tasks itself.
+ */
+@Component
+public class LoanAssociationsLoader {
+
+    private static final int WORKER_THREADS = 16;
+    private static final int QUEUE_CAPACITY = 256;
+
+    private final LoanReadPlatformService loanReadPlatformService;
+    private final GuarantorReadPlatformService guarantorReadPlatformService;
+    private final LoanChargeReadPlatformService loanChargeReadPlatformService;
+    private final CollateralReadPlatformService collateralReadPlatformService;
+    private final CalendarReadPlatformService calendarReadPlatformService;
+    private final NoteReadPlatformService noteReadPlatformService;
+    private final AccountAssociationsReadPlatformService accountAssociationsReadPlatformService;
+    private final LoanScheduleHistoryReadPlatformService loanScheduleHistoryReadPlatformService;
+    private final ChargeReadPlatformService chargeReadPlatformService;
+    private final LoanFutureScheduleCache loanFutureScheduleCache;
+
+    private final ThreadPoolExecutor executor = new ThreadPoolExecutor(WORKER_THREADS, WORKER_THREADS, 60L, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<Runnable>(QUEUE_CAPACITY));
+
+    @Autowired
+    public LoanAssociationsLoader(final LoanReadPlatformService loanReadPlatformService,
+            final GuarantorReadPlatformService guarantorReadPlatformService,
+            final LoanChargeReadPlatformService loanChargeReadPlatformService,
+            final CollateralReadPlatformService collateralReadPlatformService,
+            final CalendarReadPlatformService calendarReadPlatformService, final NoteReadPlatformService noteReadPlatformService,
+            final AccountAssociationsReadPlatformService accountAssociationsReadPlatformService,
+            final LoanScheduleHistoryReadPlatformService loanScheduleHistoryReadPlatformService,
+            final ChargeReadPlatformService chargeReadPlatformService, final LoanFutureScheduleCache loanFutureScheduleCache) {
+        this.loanReadPlatformService = loanReadPlatformService;
+        this.guarantorReadPlatformService = guarantorReadPlatformService;
+        this.loanChargeReadPlatformService = loanChargeReadPlatformService;
+        this.collateralReadPlatformService = collateralReadPlatformService;
+        this.calendarReadPlatformService = calendarReadPlatformService;
+        this.noteReadPlatformService = noteReadPlatformService;
+        this.accountAssociationsReadPlatformService = accountAssociationsReadPlatformService;
+        this.loanScheduleHistoryReadPlatformService = loanScheduleHistoryReadPlatformService;
+        this.chargeReadPlatformService = chargeReadPlatformService;
+        this.loanFutureScheduleCache = loanFutureScheduleCache;
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        this.executor.shutdownNow();
+    }
+
+    /**
+     * Reads the given associations of the loan, along with its overdue
+     * charges and paid in advance amounts which are always shown.
+     */
+    public LoanAssociations load(final Long loanId, final LoanAccountData loan, final Set<String> associations) {
+
+        final List<Future<?>> pending = new ArrayList<>();
+
+        Future<Collection<GuarantorData>> guarantors = null;
+        if (associations.contains("guarantors")) {
+            guarantors = submit(pending, new Callable<Collection<GuarantorData>>() {
+
+                @Override
+                public Collection<GuarantorData> call() {
+                    return LoanAssociationsLoader.this.guarantorReadPlatformService.retrieveGuarantorsForLoan(loanId);
+                }
+            });
+        }
+
+        Future<Collection<LoanTransactionData>> transactions = null;
+        if (associations.contains("transactions")) {
+            transactions = submit(pending, new Callable<Collection<LoanTransactionData>>() {
+
+                @Override
+                public Collection<LoanTransactionData> call() {
+                    return LoanAssociationsLoader.this.loanReadPlatformService.retrieveLoanTransactions(loanId);
+                }
+            });
+        }
+
+        final boolean repaymentSchedule = associations.contains("repaymentSchedule");
+        final boolean futureSchedule = repaymentSchedule && associations.contains("futureSchedule")
+                && loan.isInterestRecalculationEnabled();
+        final boolean originalSchedule = repaymentSchedule && associations.contains("originalSchedule")
+                && loan.isInterestRecalculationEnabled() && loan.isActive();
+
+        // the repayment schedule is built from the disbursement details so
+        // both are read by the same task
+        Future<ScheduleResult> schedule = null;
+        if (associations.contains("multiDisburseDetails") || repaymentSchedule) {
+            schedule = submit(pending, new Callable<ScheduleResult>() {
+
+                @Override
+                public ScheduleResult call() {
+                    final Collection<DisbursementData> disbursementData = LoanAssociationsLoader.this.loanReadPlatformService
+                            .retrieveLoanDisbursementDetails(loanId);
+                    LoanScheduleData scheduleData = null;
+                    if (repaymentSchedule) {
+                        scheduleData = LoanAssociationsLoader.this.loanReadPlatformService.retrieveRepaymentSchedule(loanId,
+                                loan.repaymentScheduleRelatedData(), disbursementData, loan.isInterestRecalculationEnabled());
+                        if (futureSchedule) {
+                            LoanAssociationsLoader.this.loanFutureScheduleCache.updateFutureSchedule(scheduleData, loanId);
+                        }
+                    }
+                    return new ScheduleResult(disbursementData, scheduleData);
+                }
+            });
+        }
+
+        Future<LoanScheduleData> original = null;
+        if (originalSchedule) {
+            original = submit(pending, new Callable<LoanScheduleData>() {
+
+                @Override
+                public LoanScheduleData call() {
+                    final Collection<DisbursementData> disbursementData = LoanAssociationsLoader.this.loanReadPlatformService
+                            .retrieveLoanDisbursementDetails(loanId);
+                    return LoanAssociationsLoader.this.loanScheduleHistoryReadPlatformService.retrieveRepaymentArchiveSchedule(loanId,
+                            loan.repaymentScheduleRelatedData(), disbursementData);
+                }
+            });
+        }
+
+        Future<Collection<LoanTermVariationsData>> emiAmountVariations = null;
+        if (associations.contains("emiAmountVariations") || repaymentSchedule) {
+            emiAmountVariations = submit(pending, new Callable<Collection<LoanTermVariationsData>>() {
+
+                @Override
+                public Collection<LoanTermVariationsData> call() {
+                    return LoanAssociationsLoader.this.loanReadPlatformService.retrieveLoanTermVariations(loanId,
+                            LoanTermVariationType.EMI_AMOUNT.getValue());
+                }
+            });
+        }
+
+        Future<Collection<LoanChargeData>> charges = null;
+        if (associations.contains("charges")) {
+            charges = submit(pending, new Callable<Collection<LoanChargeData>>() {
+
+                @Override
+                public Collection<LoanChargeData> call() {
+                    return LoanAssociationsLoader.this.loanChargeReadPlatformService.retrieveLoanCharges(loanId);
+                }
+            });
+        }
+
+        Future<Collection<CollateralData>> collateral = null;
+        if (associations.contains("collateral")) {
+            collateral = submit(pending, new Callable<Collection<CollateralData>>() {
+
+                @Override
+                public Collection<CollateralData> call() {
+                    return LoanAssociationsLoader.this.collateralReadPlatformService.retrieveCollaterals(loanId);
+                }
+            });
+        }
+
+        Future<CalendarData> meeting = null;
+        if (associations.contains("meeting")) {
+            meeting = submit(pending, new Callable<CalendarData>() {
+
+                @Override
+                public CalendarData call() {
+                    return LoanAssociationsLoader.this.calendarReadPlatformService.retrieveLoanCalendar(loanId);
+                }
+            });
+        }
+
+        Future<Collection<NoteData>> notes = null;
+        if (associations.contains("notes")) {
+            notes = submit(pending, new Callable<Collection<NoteData>>() {
+
+                @Override
+                public Collection<NoteData> call() {
+                    return LoanAssociationsLoader.this.noteReadPlatformService.retrieveNotesByResource(loanId, NoteType.LOAN.getValue());
+                }
+            });
+        }
+
+        Future<PortfolioAccountData> linkedAccount = null;
+        if (associations.contains("linkedAccount")) {
+            linkedAccount = submit(pending, new Callable<PortfolioAccountData>() {
+
+                @Override
+                public PortfolioAccountData call() {
+                    return LoanAssociationsLoader.this.accountAssociationsReadPlatformService.retriveLoanLinkedAssociation(loanId);
+                }
+            });
+        }
+
+        final Future<Collection<ChargeData>> overdueCharges = submit(pending, new Callable<Collection<ChargeData>>() {
+
+            @Override
+            public Collection<ChargeData> call() {
+                return LoanAssociationsLoader.this.chargeReadPlatformService.retrieveLoanProductCharges(loan.loanProductId(),
+                        ChargeTimeType.OVERDUE_INSTALLMENT);
+            }
+        });
+
+        final Future<PaidInAdvanceData> paidInAdvance = submit(pending, new Callable<PaidInAdvanceData>() {
+
+            @Override
+            public PaidInAdvanceData call() {
+                return LoanAssociationsLoader.this.loanReadPlatformService.retrieveTotalPaidInAdvance(loanId);
+            }
+        });
+
+        try {
+            final LoanAssociations loaded = new LoanAssociations();
+            loaded.guarantors = nullIfEmpty(get(guarantors));
+            loaded.transactions = nullIfEmpty(get(transactions));
+            final ScheduleResult scheduleResult = get(schedule);
+            if (scheduleResult != null) {
+                loaded.disbursementData = scheduleResult.disbursementData;
+                loaded.repaymentSchedule = scheduleResult.repaymentSchedule;
+            }
+            loaded.originalSchedule = get(original);
+            loaded.emiAmountVariations = get(emiAmountVariations);
+            loaded.charges = nullIfEmpty(get(charges));
+            loaded.collateral = nullIfEmpty(get(collateral));
+            loaded.meeting = get(meeting);
+            loaded.notes = nullIfEmpty(get(notes));
+            loaded.linkedAccount = get(linkedAccount);
+            loaded.overdueCharges = get(overdueCharges);
+            loaded.paidInAdvance = get(paidInAdvance);
+            return loaded;
+        } finally {
+            // nothing left to wait for once one association failed
+            for (final Future<?> future : pending) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    private <T> Future<T> submit(final List<Future<?>> pending, final Callable<T> task) {
+        Future<T> future;
+        try {
+            future = this.executor.submit(new TenantAwareCallable<>(task));
+        } catch (final RejectedExecutionException e) {
+            // run on the request thread, without the wrapper that would clear
+            // its tenant afterwards
+            final FutureTask<T> inline = new FutureTask<>(task);
+            inline.run();
+            future = inline;
+        }
+        pending.add(future);
+        return future;
+    }
+
+    /**
+     * Waits for an association and rethrows what its read failed with, so
+     * that errors reach the API as if the read ran on the request thread.
+     */
+    private static <T> T get(final Future<T> future) {
+        if (future == null) { return null; }
+        try {
+            return future.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while loading loan associations", e);
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) { throw (RuntimeException) cause; }
+            if (cause instanceof Error) { throw (Error) cause; }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    private static <T> Collection<T> nullIfEmpty(final Collection<T> collection) {
+        return CollectionUtils.isEmpty(collection) ? null : collection;
+    }
+
+    private static final class ScheduleResult {
+
+        private final Collection<DisbursementData> disbursementData;
+        private final LoanScheduleData repaymentSchedule;
+
+        ScheduleResult(final Collection<DisbursementData> disbursementData, final LoanScheduleData repaymentSchedule) {
+            this.disbursementData = disbursementData;
+            this.repaymentSchedule = repaymentSchedule;
+        }
+    }
+
+    /**
+     * Associations read by {@link LoanAssociationsLoader#load}, null when not
+     * asked for or, for collections, when there are none.
+     */
+    public static final class LoanAssociations {
+
+        private Collection<GuarantorData> guarantors;
+        private Collection<LoanTransactionData> transactions;
+        private Collection<DisbursementData> disbursementData;
+        private LoanScheduleData repaymentSchedule;
+        private LoanScheduleData originalSchedule;
+        private Collection<LoanTermVariationsData> emiAmountVariations;
+        private Collection<LoanChargeData> charges;
+        private Collection<CollateralData> collateral;
+        private CalendarData meeting;
+        private Collection<NoteData> notes;
+        private PortfolioAccountData linkedAccount;
+        private Collection<ChargeData> overdueCharges;
+        private PaidInAdvanceData paidInAdvance;
+
+        public Collection<GuarantorData> getGuarantors() {
+            return this.guarantors;
+        }
+
+        public Collection<LoanTransactionData> getTransactions() {
+            return this.transactions;
+        }
+
+        public Collection<DisbursementData> getDisbursementData() {
+            return this.disbursementData;
+        }
+
+        public LoanScheduleData getRepaymentSchedule() {
+            return this.repaymentSchedule;
+        }
+
+        public LoanScheduleData getOriginalSchedule() {
+            return this.originalSchedule;
+        }
+
+        public Collection<LoanTermVariationsData> getEmiAmountVariations() {
+            return this.emiAmountVariations;
+        }
+
+        public Collection<LoanChargeData> getCharges() {
+            return this.charges;
+        }
+
+        public Collection<CollateralData> getCollateral() {
+            return this.collateral;
+        }
+
+        public CalendarData getMeeting() {
+            return this.meeting;
+        }
+
+        public Collection<NoteData> getNotes() {
+            return this.notes;
+        }
+
+        public PortfolioAccountData getLinkedAccount() {
+            return this.linkedAccount;
+        }
+
+        public Collection<ChargeData> getOverdueCharges() {
+            return this.overdueCharges;
+        }
+
+        public PaidInAdvanceData getPaidInAdvance() {
+            return this.paidInAdvance;
+        }
+    }
+}
@@ -10,6 +10,7 @@ import java.util.Date;
 
 import org.joda.time.LocalDate;
 import org.mifosplatform.infrastructure.core.service.Page;
+import org.mifosplatform.infrastructure.core.service.StreamingPage;
 import org.mifosplatform.infrastructure.core.service.SearchParameters;
 import org.mifosplatform.organisation.staff.data.StaffData;
 import org.mifosplatform.portfolio.calendar.data.CalendarData;
@@ -64,6 +65,8 @@ public interface LoanReadPlatformService {
 
     Page<LoanAccountData> retrieveAll(SearchParameters searchParameters);
 
+    StreamingPage<LoanAccountData> streamAll(SearchParameters searchParameters);
+
     Collection<StaffData> retrieveAllowedLoanOfficers(Long selectedOfficeId, boolean staffInSelectedOfficeOnly);
 
     /*
@@ -723,7 +723,7 @@ public class LoanWritePlatformServiceJpaRepositoryImpl implements LoanWritePlatf
     @Override
     public CommandProcessingResult makeLoanRepayment(final Long loanId, final JsonCommand command, final boolean isRecoveryRepayment) {
 
-        this.loanEventApiJsonValidator.validateNewRepaymentTransaction(command.json());
+        this.loanEventApiJsonValidator.validateNewRepaymentTransaction(command);
 
         final LocalDate transactionDate = command.localDateValueOfParameterNamed("transactionDate");
         final BigDecimal transactionAmount = command.bigDecimalValueOfParameterNamed("transactionAmount");
@@ -754,6 +754,13 @@ public class LoanWritePlatformServiceJpaRepositoryImpl implements LoanWritePlatf
                 .build();
     }
 
+    /**
+     * Posts the repayments of a collection sheet. All loans of the sheet are
+     * read up front with a single query that also fetches their schedules
+     * (charges and transactions still load per loan), loans that cannot take
+     * a repayment are left out and the outcome of every repayment is reported
+     * under <code>bulkTransactions</code>.
+     */
     @Transactional
     @Override
     public Map<String, Object> makeLoanBulkRepayment(final CollectionSheetBulkRepaymentCommand bulkRepaymentCommand) {
@@ -762,25 +769,61 @@ public class LoanWritePlatformServiceJpaRepositoryImpl implements LoanWritePlatf
         final Map<String, Object> changes = new LinkedHashMap<>();
         final boolean isRecoveryRepayment = false;
 
-        if (repaymentCommand == null) { return changes; }
-        boolean isAccountTransfer = false;
+        if (repaymentCommand == null || repaymentCommand.length == 0) { return changes; }
+
+        final Set<Long> loanIds = new HashSet<>();
         for (final SingleRepaymentCommand singleLoanRepaymentCommand : repaymentCommand) {
-            /****
-             * TODO Vishwas, have a re-look at this implementation, defaulting
-             * it to null for now
-             ***/
-            final Loan loan = this.loanAssembler.assembleFrom(singleLoanRepaymentCommand.getLoanId());
-            final PaymentDetail paymentDetail = null;
-            final CommandProcessingResultBuilder commandProcessingResultBuilder = new CommandProcessingResultBuilder();
-            this.loanAccountDomainService.makeRepayment(loan, commandProcessingResultBuilder, bulkRepaymentCommand.getTransactionDate(),
-                    singleLoanRepaymentCommand.getTransactionAmount(), paymentDetail, bulkRepaymentCommand.getNote(), null,
-                    isRecoveryRepayment, isAccountTransfer);
+            loanIds.add(singleLoanRepaymentCommand.getLoanId());
+        }
+        final Map<Long, Loan> loans = new HashMap<>();
+        for (final Loan loan : this.loanRepository.findByIdsWithRepaymentSchedule(loanIds)) {
+            this.loanAssembler.setHelpers(loan);
+            loans.put(loan.getId(), loan);
+        }
 
-            changes.put("bulkTransactions", singleLoanRepaymentCommand);
+        final List<Map<String, Object>> results = new ArrayList<>(repaymentCommand.length);
+        boolean isAccountTransfer = false;
+        for (final SingleRepaymentCommand singleLoanRepaymentCommand : repaymentCommand) {
+            final Long loanId = singleLoanRepaymentCommand.getLoanId();
+            final BigDecimal transactionAmount = singleLoanRepaymentCommand.getTransactionAmount();
+            final Map<String, Object> result = new LinkedHashMap<>();
+            result.put("loanId", loanId);
+            result.put("transactionAmount", transactionAmount);
+            results.add(result);
+
+            final Loan loan = loans.get(loanId);
+            if (loan == null) {
+                rejectBulkRepayment(result, "error.msg.loan.id.invalid", "Loan with identifier " + loanId + " does not exist");
+            } else if (!loan.status().isActive()) {
+                rejectBulkRepayment(result, "error.msg.loan.repayment.or.waiver.account.is.not.active",
+                        "Loan Repayment or Waiver is not allowed. Loan Account is not active.");
+            } else if (transactionAmount == null || transactionAmount.signum() <= 0) {
+                rejectBulkRepayment(result, "error.msg.loan.transaction.amount.not.greater.than.zero",
+                        "Transaction amount must be greater than zero.");
+            } else {
+                /****
+                 * TODO Vishwas, have a re-look at this implementation,
+                 * defaulting it to null for now
+                 ***/
+                final PaymentDetail paymentDetail = null;
+                final CommandProcessingResultBuilder commandProcessingResultBuilder = new CommandProcessingResultBuilder();
+                final LoanTransaction repayment = this.loanAccountDomainService.makeRepayment(loan, commandProcessingResultBuilder,
+                        bulkRepaymentCommand.getTransactionDate(), transactionAmount, paymentDetail, bulkRepaymentCommand.getNote(), null,
+                        isRecoveryRepayment, isAccountTransfer);
+                result.put("status", "posted");
+                result.put("transactionId", repayment.getId());
+            }
         }
+        changes.put("bulkTransactions", results);
         return changes;
     }
 
+    private static void rejectBulkRepayment(final Map<String, Object> result, final String errorCode, final String defaultUserMessage) {
+        result.put("status", "rejected");
+        result.put("errorCode", errorCode);
+        result.put("defaultUserMessage", defaultUserMessage);
+    }
+
     @Transactional
     @Override
     public CommandProcessingResult adjustLoanTransaction(final Long loanId, final Long transactionId, final JsonCommand command) {
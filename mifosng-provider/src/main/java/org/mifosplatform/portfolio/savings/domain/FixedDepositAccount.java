@@ -484,6 +484,7 @@ public class FixedDepositAccount extends SavingsAccount {
 
         boolean recalucateDailyBalanceDetails = false;
 
+        final Map<LocalDate, SavingsAccountTransaction> postingTransactions = findInterestPostingTransactionsByDate();
         for (final PostingPeriod interestPostingPeriod : postingPeriods) {
 
             LocalDate interestPostingTransactionDate = interestPostingPeriod.dateOfPostingTransaction();
@@ -495,11 +496,12 @@ public class FixedDepositAccount extends SavingsAccount {
 
             interestPostedToDate = interestPostedToDate.plus(interestEarnedToBePostedForPeriod);
 
-            final SavingsAccountTransaction postingTransaction = findInterestPostingTransactionFor(interestPostingTransactionDate);
+            final SavingsAccountTransaction postingTransaction = postingTransactions.get(interestPostingTransactionDate);
             if (postingTransaction == null) {
                 final SavingsAccountTransaction newPostingTransaction = SavingsAccountTransaction.interestPosting(this, office(),
                         interestPostingTransactionDate, interestEarnedToBePostedForPeriod);
                 this.transactions.add(newPostingTransaction);
+                postingTransactions.put(interestPostingTransactionDate, newPostingTransaction);
                 recalucateDailyBalanceDetails = true;
             } else {
                 final boolean correctionRequired = postingTransaction.hasNotAmount(interestEarnedToBePostedForPeriod);
@@ -508,6 +510,7 @@ public class FixedDepositAccount extends SavingsAccount {
                     final SavingsAccountTransaction newPostingTransaction = SavingsAccountTransaction.interestPosting(this, office(),
                             interestPostingTransactionDate, interestEarnedToBePostedForPeriod);
                     this.transactions.add(newPostingTransaction);
+                    postingTransactions.put(interestPostingTransactionDate, newPostingTransaction);
                     recalucateDailyBalanceDetails = true;
                 }
             }
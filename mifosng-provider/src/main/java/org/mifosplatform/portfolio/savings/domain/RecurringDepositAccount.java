@@ -575,6 +575,7 @@ public class RecurringDepositAccount extends SavingsAccount {
 
         boolean recalucateDailyBalanceDetails = false;
 
+        final Map<LocalDate, SavingsAccountTransaction> postingTransactions = findInterestPostingTransactionsByDate();
         for (final PostingPeriod interestPostingPeriod : postingPeriods) {
 
             LocalDate interestPostingTransactionDate = interestPostingPeriod.dateOfPostingTransaction();
@@ -584,11 +585,12 @@ public class RecurringDepositAccount extends SavingsAccount {
 
             interestPostedToDate = interestPostedToDate.plus(interestEarnedToBePostedForPeriod);
 
-            final SavingsAccountTransaction postingTransaction = findInterestPostingTransactionFor(interestPostingTransactionDate);
+            final SavingsAccountTransaction postingTransaction = postingTransactions.get(interestPostingTransactionDate);
             if (postingTransaction == null) {
                 final SavingsAccountTransaction newPostingTransaction = SavingsAccountTransaction.interestPosting(this, office(),
                         interestPostingTransactionDate, interestEarnedToBePostedForPeriod);
                 this.transactions.add(newPostingTransaction);
+                postingTransactions.put(interestPostingTransactionDate, newPostingTransaction);
                 recalucateDailyBalanceDetails = true;
             } else {
                 final boolean correctionRequired = postingTransaction.hasNotAmount(interestEarnedToBePostedForPeriod);
@@ -597,6 +599,7 @@ public class RecurringDepositAccount extends SavingsAccount {
                     final SavingsAccountTransaction newPostingTransaction = SavingsAccountTransaction.interestPosting(this, office(),
                             interestPostingTransactionDate, interestEarnedToBePostedForPeriod);
                     this.transactions.add(newPostingTransaction);
+                    postingTransactions.put(interestPostingTransactionDate, newPostingTransaction);
                     recalucateDailyBalanceDetails = true;
                 }
             }
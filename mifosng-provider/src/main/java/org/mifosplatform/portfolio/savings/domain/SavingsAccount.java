@@ -25,6 +25,7 @@ import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
@@ -276,12 +277,20 @@ public class SavingsAccount extends AbstractPersistable<Long> {
     @OneToMany(cascade = CascadeType.ALL, mappedBy = "savingsAccount", orphanRemoval = true)
     private Set<SavingsOfficerAssignmentHistory> savingsOfficerHistory;
 
+    @OneToMany(cascade = CascadeType.ALL, mappedBy = "savingsAccount", orphanRemoval = true)
+    private final List<SavingsAccountInterestCheckpoint> interestCheckpoints = new ArrayList<>();
+
     @Transient
     protected boolean accountNumberRequiresAutoGeneration = false;
     @Transient
     protected SavingsAccountTransactionSummaryWrapper savingsAccountTransactionSummaryWrapper;
     @Transient
     protected SavingsHelper savingsHelper;
+    /**
+     * The checkpoint the last interest calculation started from, if any.
+     */
+    @Transient
+    private SavingsAccountInterestCheckpoint interestCalculatedFromCheckpoint;
 
     @Column(name = "deposit_type_enum", insertable = false, updatable = false)
     private Integer depositType;
@@ -433,6 +442,7 @@ public class SavingsAccount extends AbstractPersistable<Long> {
 
         boolean recalucateDailyBalanceDetails = false;
 
+        final Map<LocalDate, SavingsAccountTransaction> postingTransactions = findInterestPostingTransactionsByDate();
         for (final PostingPeriod interestPostingPeriod : postingPeriods) {
 
             final LocalDate interestPostingTransactionDate = interestPostingPeriod.dateOfPostingTransaction();
@@ -442,11 +452,12 @@ public class SavingsAccount extends AbstractPersistable<Long> {
 
                 interestPostedToDate = interestPostedToDate.plus(interestEarnedToBePostedForPeriod);
 
-                final SavingsAccountTransaction postingTransaction = findInterestPostingTransactionFor(interestPostingTransactionDate);
+                final SavingsAccountTransaction postingTransaction = postingTransactions.get(interestPostingTransactionDate);
                 if (postingTransaction == null) {
                     final SavingsAccountTransaction newPostingTransaction = SavingsAccountTransaction.interestPosting(this, office(),
                             interestPostingTransactionDate, interestEarnedToBePostedForPeriod);
                     this.transactions.add(newPostingTransaction);
+                    postingTransactions.put(interestPostingTransactionDate, newPostingTransaction);
                     recalucateDailyBalanceDetails = true;
                 } else {
                     final boolean correctionRequired = postingTransaction.hasNotAmount(interestEarnedToBePostedForPeriod);
@@ -455,6 +466,7 @@ public class SavingsAccount extends AbstractPersistable<Long> {
                         final SavingsAccountTransaction newPostingTransaction = SavingsAccountTransaction.interestPosting(this, office(),
                                 interestPostingTransactionDate, interestEarnedToBePostedForPeriod);
                         this.transactions.add(newPostingTransaction);
+                        postingTransactions.put(interestPostingTransactionDate, newPostingTransaction);
                         recalucateDailyBalanceDetails = true;
                     }
                 }
@@ -468,25 +480,124 @@ public class SavingsAccount extends AbstractPersistable<Long> {
             final Money openingAccountBalance = Money.zero(this.currency);
 
             // update existing transactions so derived balance fields are
-            // correct.
-            recalculateDailyBalances(openingAccountBalance, interestPostingUpToDate);
+            // correct. postings are only added or corrected after the
+            // checkpoint the calculation started from.
+            final LocalDate checkpointDate = this.interestCalculatedFromCheckpoint == null ? null : this.interestCalculatedFromCheckpoint
+                    .getCheckpointDate();
+            recalculateDailyBalances(openingAccountBalance, interestPostingUpToDate, retreiveListOfTransactions(), checkpointDate);
         }
 
+        updateInterestCheckpoint(postingPeriods, interestPostingUpToDate,
+                interestCalculationParameters(isSavingsInterestPostingAtCurrentPeriodEnd, financialYearBeginningMonth));
+
         this.summary.updateSummary(this.currency, this.savingsAccountTransactionSummaryWrapper, this.transactions);
     }
 
-    protected SavingsAccountTransaction findInterestPostingTransactionFor(final LocalDate postingDate) {
+    /**
+     * Only savings accounts take checkpoints, the interest rate of fixed and
+     * recurring deposits depends on their balance and term.
+     */
+    private boolean isInterestCheckpointed() {
+        return depositAccountType().isSavingsDeposit();
+    }
 
-        SavingsAccountTransaction postingTransation = null;
+    /**
+     * Everything besides the transactions that the interest of a posting
+     * period depends on.
+     */
+    private String interestCalculationParameters(final boolean isSavingsInterestPostingAtCurrentPeriodEnd,
+            final Integer financialYearBeginningMonth) {
+        final String minBalanceForInterestCalculation = minBalanceForInterestCalculation() == null ? null
+                : minBalanceForInterestCalculation().stripTrailingZeros().toPlainString();
+        return new StringBuilder().append(this.nominalAnnualInterestRate.stripTrailingZeros().toPlainString()).append(';')
+                .append(this.interestCompoundingPeriodType).append(';').append(this.interestPostingPeriodType).append(';')
+                .append(this.interestCalculationType).append(';').append(this.interestCalculationDaysInYearType).append(';')
+                .append(minBalanceForInterestCalculation).append(';').append(this.currency.getCode()).append(';')
+                .append(this.currency.getDigitsAfterDecimal()).append(';')
+                .append(getStartInterestCalculationDate()).append(';').append(getLockedInUntilLocalDate()).append(';')
+                .append(isTransferInterestToOtherAccount()).append(';').append(isSavingsInterestPostingAtCurrentPeriodEnd).append(';')
+                .append(financialYearBeginningMonth).toString();
+    }
+
+    /**
+     * The latest checkpoint that is still valid and from which the posting
+     * periods up to the calculation date carry on. Checkpoints that are no
+     * longer valid are removed.
+     */
+    private SavingsAccountInterestCheckpoint findLatestValidInterestCheckpoint(
+            final List<SavingsAccountTransaction> accountTransactionsSorted, final List<LocalDateInterval> postingPeriodIntervals,
+            final LocalDate upToInterestCalculationDate, final String calculationParameters) {
+
+        if (!isInterestCheckpointed()) { return null; }
+
+        SavingsAccountInterestCheckpoint latestCheckpoint = null;
+        for (final Iterator<SavingsAccountInterestCheckpoint> iterator = this.interestCheckpoints.iterator(); iterator.hasNext();) {
+            final SavingsAccountInterestCheckpoint checkpoint = iterator.next();
+            if (!checkpoint.isValidFor(accountTransactionsSorted, calculationParameters)) {
+                iterator.remove();
+            } else if (checkpoint.getCheckpointDate().isBefore(upToInterestCalculationDate)
+                    && (latestCheckpoint == null || checkpoint.getCheckpointDate().isAfter(latestCheckpoint.getCheckpointDate()))) {
+                latestCheckpoint = checkpoint;
+            }
+        }
+
+        if (latestCheckpoint != null) {
+            final LocalDate dayAfterCheckpoint = latestCheckpoint.getCheckpointDate().plusDays(1);
+            for (final LocalDateInterval periodInterval : postingPeriodIntervals) {
+                if (periodInterval.startDate().isEqual(dayAfterCheckpoint)) { return latestCheckpoint; }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Takes a checkpoint at the end of the last posting period that is over
+     * and posted, replacing the earlier ones.
+     */
+    private void updateInterestCheckpoint(final List<PostingPeriod> postingPeriods, final LocalDate interestPostingUpToDate,
+            final String calculationParameters) {
+
+        if (!isInterestCheckpointed()) { return; }
+
+        Money totalInterestEarned = this.interestCalculatedFromCheckpoint == null ? Money.zero(this.currency)
+                : this.interestCalculatedFromCheckpoint.getTotalInterestEarned(this.currency);
+        PostingPeriod lastPostedPeriod = null;
+        Money totalInterestEarnedToLastPostedPeriod = null;
+        for (final PostingPeriod postingPeriod : postingPeriods) {
+            if (postingPeriod.interest() != null) {
+                totalInterestEarned = totalInterestEarned.plus(postingPeriod.interest());
+            }
+            if (postingPeriod.periodInterval().endDate().isBefore(interestPostingUpToDate)
+                    && !postingPeriod.dateOfPostingTransaction().isAfter(interestPostingUpToDate)) {
+                lastPostedPeriod = postingPeriod;
+                totalInterestEarnedToLastPostedPeriod = totalInterestEarned;
+            }
+        }
+
+        if (lastPostedPeriod == null) { return; }
+
+        this.interestCheckpoints.clear();
+        this.interestCheckpoints.add(SavingsAccountInterestCheckpoint.createFrom(this, lastPostedPeriod.periodInterval().endDate(),
+                lastPostedPeriod.closingBalance(), lastPostedPeriod.interestEarnedButNotPosted(), totalInterestEarnedToLastPostedPeriod,
+                retreiveListOfTransactions(), calculationParameters));
+    }
+
+    /**
+     * The first interest posting transaction that is not reversed of each
+     * date, looked up once instead of going through all transactions for each
+     * posting period.
+     */
+    protected Map<LocalDate, SavingsAccountTransaction> findInterestPostingTransactionsByDate() {
+
+        final Map<LocalDate, SavingsAccountTransaction> postingTransactions = new HashMap<>();
 
         for (final SavingsAccountTransaction transaction : this.transactions) {
-            if (transaction.isInterestPostingAndNotReversed() && transaction.occursOn(postingDate)) {
-                postingTransation = transaction;
-                break;
+            if (transaction.isInterestPostingAndNotReversed() && !postingTransactions.containsKey(transaction.transactionLocalDate())) {
+                postingTransactions.put(transaction.transactionLocalDate(), transaction);
             }
         }
 
-        return postingTransation;
+        return postingTransactions;
     }
 
     // Determine the last transaction for given day
@@ -508,7 +619,8 @@ public class SavingsAccount extends AbstractPersistable<Long> {
      * All interest calculation based on END-OF-DAY-BALANCE.
      * 
      * Interest calculation is performed on-the-fly over all account
-     * transactions.
+     * transactions, or over those after the latest valid checkpoint of a
+     * savings account, see {@link SavingsAccountInterestCheckpoint}.
      * 
      * 
      * 1. Calculate Interest From Beginning Of Account 1a. determine the
@@ -528,10 +640,6 @@ public class SavingsAccount extends AbstractPersistable<Long> {
         // for migrations.
         final Money openingAccountBalance = Money.zero(this.currency);
 
-        // update existing transactions so derived balance fields are
-        // correct.
-        recalculateDailyBalances(openingAccountBalance, upToInterestCalculationDate);
-
         // 1. default to calculate interest based on entire history OR
         // 2. determine latest 'posting period' and find interest credited to
         // that period
@@ -548,10 +656,24 @@ public class SavingsAccount extends AbstractPersistable<Long> {
         final List<LocalDateInterval> postingPeriodIntervals = this.savingsHelper.determineInterestPostingPeriods(
                 getStartInterestCalculationDate(), upToInterestCalculationDate, postingPeriodType, financialYearBeginningMonth);
 
+        // posting periods up to the checkpoint are not calculated again
+        final List<SavingsAccountTransaction> accountTransactionsSorted = retreiveListOfTransactions();
+        final SavingsAccountInterestCheckpoint checkpoint = findLatestValidInterestCheckpoint(accountTransactionsSorted,
+                postingPeriodIntervals, upToInterestCalculationDate,
+                interestCalculationParameters(isSavingsInterestPostingAtCurrentPeriodEnd, financialYearBeginningMonth));
+        this.interestCalculatedFromCheckpoint = checkpoint;
+        final LocalDate checkpointDate = checkpoint == null ? null : checkpoint.getCheckpointDate();
+
+        // update existing transactions so derived balance fields are
+        // correct.
+        recalculateDailyBalances(openingAccountBalance, upToInterestCalculationDate, accountTransactionsSorted, checkpointDate);
+
         final List<PostingPeriod> allPostingPeriods = new ArrayList<>();
 
         Money periodStartingBalance;
-        if (this.startInterestCalculationDate != null) {
+        if (checkpoint != null) {
+            periodStartingBalance = checkpoint.getClosingBalance(this.currency);
+        } else if (this.startInterestCalculationDate != null) {
             LocalDate startInterestCalculationDate = new LocalDate(this.startInterestCalculationDate);
             final SavingsAccountTransaction transaction = findLastTransaction(startInterestCalculationDate);
 
@@ -579,22 +701,54 @@ public class SavingsAccount extends AbstractPersistable<Long> {
         final Collection<Long> interestPostTransactions = this.savingsHelper.fetchPostInterestTransactionIds(getId());
         final Money minBalanceForInterestCalculation = Money.of(getCurrency(), minBalanceForInterestCalculation());
 
+        // each posting period only needs the transaction whose balance is
+        // carried into it and those up to the day after it ends, so walk the
+        // ordered transactions once instead of handing every period all of
+        // them
+        final List<SavingsAccountTransaction> orderedTransactions = retreiveOrderedNonInterestPostingTransactions(checkpointDate);
+        int periodTransactionsFrom = 0;
+        int periodTransactionsTo = 0;
         for (final LocalDateInterval periodInterval : postingPeriodIntervals) {
 
+            if (checkpointDate != null && !periodInterval.endDate().isAfter(checkpointDate)) {
+                continue;
+            }
+
+            final LocalDate dayAfterPeriod = periodInterval.endDate().plusDays(1);
+            periodTransactionsTo = Math.max(periodTransactionsTo, periodTransactionsFrom);
+            while (periodTransactionsTo < orderedTransactions.size()
+                    && !orderedTransactions.get(periodTransactionsTo).transactionLocalDate().isAfter(dayAfterPeriod)) {
+                periodTransactionsTo++;
+            }
+
             final PostingPeriod postingPeriod = PostingPeriod.createFrom(periodInterval, periodStartingBalance,
-                    retreiveOrderedNonInterestPostingTransactions(), this.currency, compoundingPeriodType, interestCalculationType,
-                    interestRateAsFraction, daysInYearType.getValue(), upToInterestCalculationDate, interestPostTransactions,
-                    isInterestTransfer, minBalanceForInterestCalculation, isSavingsInterestPostingAtCurrentPeriodEnd);
+                    orderedTransactions.subList(periodTransactionsFrom, periodTransactionsTo), this.currency, compoundingPeriodType,
+                    interestCalculationType, interestRateAsFraction, daysInYearType.getValue(), upToInterestCalculationDate,
+                    interestPostTransactions, isInterestTransfer, minBalanceForInterestCalculation,
+                    isSavingsInterestPostingAtCurrentPeriodEnd);
+
+            // balances of transactions before the last one on or before the
+            // end of this period end before the next period starts
+            while (periodTransactionsFrom + 1 < periodTransactionsTo
+                    && !orderedTransactions.get(periodTransactionsFrom + 1).transactionLocalDate().isAfter(periodInterval.endDate())) {
+                periodTransactionsFrom++;
+            }
 
             periodStartingBalance = postingPeriod.closingBalance();
 
             allPostingPeriods.add(postingPeriod);
         }
 
-        this.savingsHelper.calculateInterestForAllPostingPeriods(this.currency, allPostingPeriods, getLockedInUntilLocalDate(),
-                isTransferInterestToOtherAccount());
-
-        this.summary.updateFromInterestPeriodSummaries(this.currency, allPostingPeriods);
+        if (checkpoint == null) {
+            this.savingsHelper.calculateInterestForAllPostingPeriods(this.currency, allPostingPeriods, getLockedInUntilLocalDate(),
+                    isTransferInterestToOtherAccount());
+            this.summary.updateFromInterestPeriodSummaries(this.currency, allPostingPeriods);
+        } else {
+            this.savingsHelper.calculateInterestForAllPostingPeriods(this.currency, allPostingPeriods, getLockedInUntilLocalDate(),
+                    isTransferInterestToOtherAccount(), checkpoint.getInterestEarnedButNotPosted());
+            this.summary.updateFromInterestPeriodSummaries(this.currency, allPostingPeriods,
+                    checkpoint.getTotalInterestEarned(this.currency));
+        }
         this.summary.updateSummary(this.currency, this.savingsAccountTransactionSummaryWrapper, this.transactions);
 
         return allPostingPeriods;
@@ -606,11 +760,21 @@ public class SavingsAccount extends AbstractPersistable<Long> {
     }
 
     protected List<SavingsAccountTransaction> retreiveOrderedNonInterestPostingTransactions() {
+        return retreiveOrderedNonInterestPostingTransactions(null);
+    }
+
+    /**
+     * @param checkpointDate
+     *            leaves out the transactions whose balance ends on or before
+     *            this date when given
+     */
+    private List<SavingsAccountTransaction> retreiveOrderedNonInterestPostingTransactions(final LocalDate checkpointDate) {
         final List<SavingsAccountTransaction> listOfTransactionsSorted = retreiveListOfTransactions();
 
         final List<SavingsAccountTransaction> orderedNonInterestPostingTransactions = new ArrayList<>();
 
-        for (final SavingsAccountTransaction transaction : listOfTransactionsSorted) {
+        for (final SavingsAccountTransaction transaction : listOfTransactionsSorted.subList(
+                indexOfBalanceCarriedPast(listOfTransactionsSorted, checkpointDate), listOfTransactionsSorted.size())) {
             if (!transaction.isInterestPostingAndNotReversed() && transaction.isNotReversed()) {
                 orderedNonInterestPostingTransactions.add(transaction);
             }
@@ -619,6 +783,33 @@ public class SavingsAccount extends AbstractPersistable<Long> {
         return orderedNonInterestPostingTransactions;
     }
 
+    /**
+     * Index of the first of the ordered transactions after the date, found
+     * from the end so only the transactions after it are looked at.
+     */
+    private static int indexOfFirstTransactionAfter(final List<SavingsAccountTransaction> accountTransactionsSorted, final LocalDate date) {
+        if (date == null) { return 0; }
+        int index = accountTransactionsSorted.size();
+        while (index > 0 && accountTransactionsSorted.get(index - 1).transactionLocalDate().isAfter(date)) {
+            index--;
+        }
+        return index;
+    }
+
+    /**
+     * Index of the last of the ordered transactions on or before the date
+     * whose balance is carried past it, that is the last one that is not
+     * reversed and not an interest posting.
+     */
+    private static int indexOfBalanceCarriedPast(final List<SavingsAccountTransaction> accountTransactionsSorted, final LocalDate date) {
+        final int indexAfter = indexOfFirstTransactionAfter(accountTransactionsSorted, date);
+        for (int index = indexAfter - 1; index >= 0; index--) {
+            final SavingsAccountTransaction transaction = accountTransactionsSorted.get(index);
+            if (transaction.isNotReversed() && !transaction.isInterestPostingAndNotReversed()) { return index; }
+        }
+        return indexAfter;
+    }
+
     protected List<SavingsAccountTransaction> retreiveListOfTransactions() {
         final List<SavingsAccountTransaction> listOfTransactionsSorted = new ArrayList<>();
         listOfTransactionsSorted.addAll(this.transactions);
@@ -629,12 +820,31 @@ public class SavingsAccount extends AbstractPersistable<Long> {
     }
 
     protected void recalculateDailyBalances(final Money openingAccountBalance, final LocalDate interestPostingUpToDate) {
+        recalculateDailyBalances(openingAccountBalance, interestPostingUpToDate, retreiveListOfTransactions(), null);
+    }
+
+    /**
+     * @param checkpointDate
+     *            only the transactions after this date are recalculated when
+     *            given, starting from the balance of the last one before
+     */
+    private void recalculateDailyBalances(final Money openingAccountBalance, final LocalDate interestPostingUpToDate,
+            final List<SavingsAccountTransaction> transactionsSorted, final LocalDate checkpointDate) {
 
         Money runningBalance = openingAccountBalance.copy();
 
-        List<SavingsAccountTransaction> accountTransactionsSorted = retreiveListOfTransactions();
+        List<SavingsAccountTransaction> accountTransactionsSorted = transactionsSorted;
+        final int indexAfterCheckpoint = indexOfFirstTransactionAfter(accountTransactionsSorted, checkpointDate);
+        for (int index = indexAfterCheckpoint - 1; index >= 0; index--) {
+            if (accountTransactionsSorted.get(index).isNotReversed()) {
+                runningBalance = accountTransactionsSorted.get(index).getRunningBalance(this.currency);
+                break;
+            }
+        }
+
         boolean isTransactionsModified = false;
-        for (final SavingsAccountTransaction transaction : accountTransactionsSorted) {
+        for (final SavingsAccountTransaction transaction : accountTransactionsSorted.subList(indexAfterCheckpoint,
+                accountTransactionsSorted.size())) {
             if (transaction.isReversed()) {
                 transaction.zeroBalanceFields();
             } else {
@@ -681,7 +891,9 @@ public class SavingsAccount extends AbstractPersistable<Long> {
         if (isTransactionsModified) {
             accountTransactionsSorted = retreiveListOfTransactions();
         }
-        resetAccountTransactionsEndOfDayBalances(accountTransactionsSorted, interestPostingUpToDate);
+        resetAccountTransactionsEndOfDayBalances(accountTransactionsSorted.subList(
+                indexOfBalanceCarriedPast(accountTransactionsSorted, checkpointDate), accountTransactionsSorted.size()),
+                interestPostingUpToDate);
     }
 
     protected void resetAccountTransactionsEndOfDayBalances(final List<SavingsAccountTransaction> accountTransactionsSorted,
@@ -0,0 +1,141 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.portfolio.savings.domain;
+
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.List;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import javax.persistence.Table;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
+
+import org.joda.time.LocalDate;
+import org.mifosplatform.organisation.monetary.domain.MonetaryCurrency;
+import org.mifosplatform.organisation.monetary.domain.Money;
+import org.springframework.data.jpa.domain.AbstractPersistable;
+
+/**
+ * State of the interest calculation of a {@link SavingsAccount} at the end of
+ * a posting period.
+ *
+ * A checkpoint stays valid as long as the transactions up to it, and the
+ * interest posting of its period, are the ones it was taken with and the
+ * account still calculates interest the same way. This is checked through the
+ * number of those transactions, how many of them are reversed and the
+ * calculation parameters: transactions are only ever added or reversed.
+ */
+@Entity
+@Table(name = "m_savings_account_interest_checkpoint")
+public class SavingsAccountInterestCheckpoint extends AbstractPersistable<Long> {
+
+    @ManyToOne(optional = false)
+    @JoinColumn(name = "savings_account_id", nullable = false)
+    private SavingsAccount savingsAccount;
+
+    @Temporal(TemporalType.DATE)
+    @Column(name = "checkpoint_date", nullable = false)
+    private Date checkpointDate;
+
+    @Column(name = "closing_balance", scale = 6, precision = 19, nullable = false)
+    private BigDecimal closingBalance;
+
+    @Column(name = "interest_earned_not_posted", scale = 6, precision = 19, nullable = false)
+    private BigDecimal interestEarnedButNotPosted;
+
+    @Column(name = "total_interest_earned", scale = 6, precision = 19, nullable = false)
+    private BigDecimal totalInterestEarned;
+
+    @Column(name = "transaction_count", nullable = false)
+    private Integer transactionCount;
+
+    @Column(name = "reversed_transaction_count", nullable = false)
+    private Integer reversedTransactionCount;
+
+    @Column(name = "calculation_parameters", length = 500, nullable = false)
+    private String calculationParameters;
+
+    protected SavingsAccountInterestCheckpoint() {
+        //
+    }
+
+    /**
+     * @param accountTransactionsSorted
+     *            all transactions of the account, ordered
+     */
+    public static SavingsAccountInterestCheckpoint createFrom(final SavingsAccount savingsAccount, final LocalDate checkpointDate,
+            final Money closingBalance, final BigDecimal interestEarnedButNotPosted, final Money totalInterestEarned,
+            final List<SavingsAccountTransaction> accountTransactionsSorted, final String calculationParameters) {
+
+        final SavingsAccountInterestCheckpoint checkpoint = new SavingsAccountInterestCheckpoint();
+        checkpoint.savingsAccount = savingsAccount;
+        checkpoint.checkpointDate = checkpointDate.toDate();
+        checkpoint.closingBalance = closingBalance.getAmount();
+        checkpoint.interestEarnedButNotPosted = interestEarnedButNotPosted;
+        checkpoint.totalInterestEarned = totalInterestEarned.getAmount();
+        checkpoint.calculationParameters = calculationParameters;
+        final int[] transactionCounts = countTransactionsUpTo(accountTransactionsSorted, checkpointDate);
+        checkpoint.transactionCount = transactionCounts[0];
+        checkpoint.reversedTransactionCount = transactionCounts[1];
+        return checkpoint;
+    }
+
+    /**
+     * @param accountTransactionsSorted
+     *            all transactions of the account, ordered
+     */
+    public boolean isValidFor(final List<SavingsAccountTransaction> accountTransactionsSorted, final String calculationParameters) {
+        if (!this.calculationParameters.equals(calculationParameters)) { return false; }
+
+        final int[] transactionCounts = countTransactionsUpTo(accountTransactionsSorted, getCheckpointDate());
+        return transactionCounts[0] == this.transactionCount && transactionCounts[1] == this.reversedTransactionCount;
+    }
+
+    /**
+     * Counts the transactions on or before the checkpoint date and the
+     * interest postings of the day after it, which belong to the period that
+     * ends on the checkpoint date, and how many of them are reversed.
+     */
+    private static int[] countTransactionsUpTo(final List<SavingsAccountTransaction> accountTransactionsSorted,
+            final LocalDate checkpointDate) {
+        final LocalDate dayAfterCheckpoint = checkpointDate.plusDays(1);
+        final int[] transactionCounts = new int[2];
+        for (final SavingsAccountTransaction transaction : accountTransactionsSorted) {
+            final LocalDate transactionDate = transaction.transactionLocalDate();
+            if (transactionDate.isAfter(dayAfterCheckpoint)) {
+                break;
+            }
+            if (transactionDate.isAfter(checkpointDate) && !transaction.isInterestPosting()) {
+                continue;
+            }
+            transactionCounts[0]++;
+            if (transaction.isReversed()) {
+                transactionCounts[1]++;
+            }
+        }
+        return transactionCounts;
+    }
+
+    public LocalDate getCheckpointDate() {
+        return new LocalDate(this.checkpointDate);
+    }
+
+    public Money getClosingBalance(final MonetaryCurrency currency) {
+        return Money.of(currency, this.closingBalance);
+    }
+
+    public BigDecimal getInterestEarnedButNotPosted() {
+        return this.interestEarnedButNotPosted;
+    }
+
+    public Money getTotalInterestEarned(final MonetaryCurrency currency) {
+        return Money.of(currency, this.totalInterestEarned);
+    }
+}
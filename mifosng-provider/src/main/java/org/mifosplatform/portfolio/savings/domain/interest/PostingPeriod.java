@@ -21,7 +21,6 @@ import org.mifosplatform.portfolio.savings.domain.SavingsAccountTransaction;
 
 public class PostingPeriod {
 
-    @SuppressWarnings("unused")
     private final LocalDateInterval periodInterval;
     private final MonetaryCurrency currency;
     private final SavingsCompoundingInterestPeriodType interestCompoundingType;
@@ -34,6 +33,9 @@ public class PostingPeriod {
     private BigDecimal interestEarnedUnrounded;
     private Money interestEarnedRounded;
 
+    // interest up to the end of this period compounded in the next one
+    private BigDecimal interestEarnedButNotPosted;
+
     // opening/closing details
     private final Money openingBalance;
     private final Money closingBalance;
@@ -139,6 +141,10 @@ public class PostingPeriod {
         this.minBalanceForInterestCalculation = minBalanceForInterestCalculation;
     }
 
+    public LocalDateInterval periodInterval() {
+        return this.periodInterval;
+    }
+
     public Money interest() {
         return this.interestEarnedRounded;
     }
@@ -180,6 +186,14 @@ public class PostingPeriod {
         return this.interestEarnedRounded;
     }
 
+    public void updateInterestEarnedButNotPosted(final BigDecimal interestEarnedButNotPosted) {
+        this.interestEarnedButNotPosted = interestEarnedButNotPosted;
+    }
+
+    public BigDecimal interestEarnedButNotPosted() {
+        return this.interestEarnedButNotPosted;
+    }
+
     private static List<CompoundingPeriod> compoundingPeriodsInPostingPeriod(final LocalDateInterval postingPeriodInterval,
             final SavingsCompoundingInterestPeriodType interestPeriodType, final List<EndOfDayBalance> allEndOfDayBalances,
             final LocalDate upToInterestCalculationDate) {
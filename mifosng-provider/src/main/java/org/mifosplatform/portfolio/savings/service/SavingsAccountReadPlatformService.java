@@ -8,6 +8,7 @@ package org.mifosplatform.portfolio.savings.service;
 import java.util.Collection;
 
 import org.mifosplatform.infrastructure.core.service.Page;
+import org.mifosplatform.infrastructure.core.service.StreamingPage;
 import org.mifosplatform.infrastructure.core.service.SearchParameters;
 import org.mifosplatform.portfolio.savings.DepositAccountType;
 import org.mifosplatform.portfolio.savings.data.SavingsAccountData;
@@ -17,6 +18,8 @@ public interface SavingsAccountReadPlatformService {
 
     Page<SavingsAccountData> retrieveAll(SearchParameters searchParameters);
 
+    StreamingPage<SavingsAccountData> streamAll(SearchParameters searchParameters);
+
     Collection<SavingsAccountData> retrieveAllForLookup(Long clientId);
 
     Collection<SavingsAccountData> retrieveActiveForLookup(Long clientId, DepositAccountType depositAccountType);
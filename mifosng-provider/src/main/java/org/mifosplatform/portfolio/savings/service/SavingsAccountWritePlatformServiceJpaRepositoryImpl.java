@@ -37,8 +37,14 @@ import org.mifosplatform.infrastructure.core.data.DataValidatorBuilder;
 import org.mifosplatform.infrastructure.core.exception.PlatformApiDataValidationException;
 import org.mifosplatform.infrastructure.core.exception.PlatformServiceUnavailableException;
 import org.mifosplatform.infrastructure.core.service.DateUtils;
+import org.mifosplatform.infrastructure.core.service.RoutingDataSource;
 import org.mifosplatform.infrastructure.jobs.annotation.CronTarget;
+import org.mifosplatform.infrastructure.jobs.exception.JobExecutionException;
 import org.mifosplatform.infrastructure.jobs.service.JobName;
+import org.mifosplatform.infrastructure.jobs.service.JobRunMetrics;
+import org.mifosplatform.infrastructure.jobs.service.PartitionedJobRunner;
+import org.mifosplatform.infrastructure.jobs.service.PartitionedJobRunner.IdChunkReader;
+import org.mifosplatform.infrastructure.jobs.service.PartitionedJobRunner.IdProcessor;
 import org.mifosplatform.infrastructure.security.service.PlatformSecurityContext;
 import org.mifosplatform.organisation.holiday.service.HolidayWritePlatformService;
 import org.mifosplatform.organisation.monetary.domain.ApplicationCurrency;
@@ -86,8 +92,12 @@ import org.mifosplatform.portfolio.savings.exception.SavingsOfficerUnassignmentE
 import org.mifosplatform.portfolio.savings.exception.TransactionUpdateNotAllowedException;
 import org.mifosplatform.useradministration.domain.AppUser;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionStatus;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.CollectionUtils;
 
 @Service
@@ -114,6 +124,9 @@ public class SavingsAccountWritePlatformServiceJpaRepositoryImpl implements Savi
     private final HolidayWritePlatformService holidayWritePlatformService;
     private final WorkingDaysWritePlatformService workingDaysWritePlatformService;
     private final ConfigurationDomainService configurationDomainService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PartitionedJobRunner partitionedJobRunner;
 
     @Autowired
     public SavingsAccountWritePlatformServiceJpaRepositoryImpl(final PlatformSecurityContext context,
@@ -132,7 +145,9 @@ public class SavingsAccountWritePlatformServiceJpaRepositoryImpl implements Savi
             final HolidayWritePlatformService holidayWritePlatformService,
             final WorkingDaysWritePlatformService workingDaysWritePlatformService,
             final SavingsAccountDataValidator fromApiJsonDeserializer, final SavingsAccountRepositoryWrapper savingsRepository,
-            final StaffRepositoryWrapper staffRepository, final ConfigurationDomainService configurationDomainService) {
+            final StaffRepositoryWrapper staffRepository, final ConfigurationDomainService configurationDomainService,
+            final RoutingDataSource dataSource, final TransactionTemplate transactionTemplate,
+            final PartitionedJobRunner partitionedJobRunner) {
         this.context = context;
         this.savingAccountRepository = savingAccountRepository;
         this.savingsAccountTransactionRepository = savingsAccountTransactionRepository;
@@ -154,6 +169,9 @@ public class SavingsAccountWritePlatformServiceJpaRepositoryImpl implements Savi
         this.savingsRepository = savingsRepository;
         this.staffRepository = staffRepository;
         this.configurationDomainService = configurationDomainService;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = transactionTemplate;
+        this.partitionedJobRunner = partitionedJobRunner;
     }
 
     @Transactional
@@ -388,13 +406,34 @@ public class SavingsAccountWritePlatformServiceJpaRepositoryImpl implements Savi
 
     @CronTarget(jobName = JobName.POST_INTEREST_FOR_SAVINGS)
     @Override
-    public void postInterestForAccounts() {
-        final List<SavingsAccount> savingsAccounts = this.savingAccountRepository.findSavingAccountByStatus(SavingsAccountStatusType.ACTIVE
-                .getValue());
-        for (final SavingsAccount savingsAccount : savingsAccounts) {
-            this.savingAccountAssembler.assignSavingAccountHelpers(savingsAccount);
-            postInterest(savingsAccount);
-        }
+    public JobRunMetrics postInterestForAccounts() throws JobExecutionException {
+        final Integer activeStatus = SavingsAccountStatusType.ACTIVE.getValue();
+        final IdChunkReader reader = new IdChunkReader() {
+
+            @Override
+            public List<Long> readChunk(final Long lastId, final int chunkSize) {
+                final String sql = "select sa.id from m_savings_account sa where sa.status_enum = ? and sa.id > ? order by sa.id limit "
+                        + chunkSize;
+                return SavingsAccountWritePlatformServiceJpaRepositoryImpl.this.jdbcTemplate.queryForList(sql, Long.class, activeStatus,
+                        lastId);
+            }
+        };
+        final IdProcessor processor = new IdProcessor() {
+
+            @Override
+            public void process(final Long savingsId) {
+                SavingsAccountWritePlatformServiceJpaRepositoryImpl.this.transactionTemplate.execute(new TransactionCallbackWithoutResult() {
+
+                    @Override
+                    protected void doInTransactionWithoutResult(@SuppressWarnings("unused") final TransactionStatus status) {
+                        final SavingsAccount account = SavingsAccountWritePlatformServiceJpaRepositoryImpl.this.savingAccountAssembler
+                                .assembleFrom(savingsId);
+                        postInterest(account);
+                    }
+                });
+            }
+        };
+        return this.partitionedJobRunner.run(JobName.POST_INTEREST_FOR_SAVINGS, reader, processor);
     }
 
     @Override
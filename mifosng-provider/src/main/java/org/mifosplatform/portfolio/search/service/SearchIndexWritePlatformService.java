@@ -0,0 +1,25 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.portfolio.search.service;
+
+import org.mifosplatform.infrastructure.core.data.CommandProcessingResult;
+import org.mifosplatform.infrastructure.jobs.service.JobRunMetrics;
+
+public interface SearchIndexWritePlatformService {
+
+    /**
+     * Brings the search index entries of the clients, groups, loans, savings
+     * accounts and client identifiers a processed command refers to in line
+     * with their tables, as part of the current transaction.
+     */
+    void updateIndexFor(String entityName, CommandProcessingResult result);
+
+    /**
+     * Indexes every entity once after the index was created and from then on
+     * keeps walking through them to pick up changes made outside of commands.
+     */
+    JobRunMetrics updateSearchIndex();
+}
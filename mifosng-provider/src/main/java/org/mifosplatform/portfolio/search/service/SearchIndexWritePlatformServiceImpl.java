@@ -0,0 +1,435 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.portfolio.search.service;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang.StringUtils;
+import org.mifosplatform.infrastructure.core.data.CommandProcessingResult;
+import org.mifosplatform.infrastructure.core.domain.JdbcSupport;
+import org.mifosplatform.infrastructure.core.service.RoutingDataSource;
+import org.mifosplatform.infrastructure.jobs.annotation.CronTarget;
+import org.mifosplatform.infrastructure.jobs.service.JobName;
+import org.mifosplatform.infrastructure.jobs.service.JobRunMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Keeps <code>m_search_index_term</code> in line with the searchable columns
+ * of clients, groups, loans, savings accounts and client identifiers.
+ *
+ * Every searchable value is stored once as a whole and once for each of its
+ * suffixes of at least {@link #MIN_INFIX_LENGTH} characters, so that prefix
+ * and infix searches are both a range scan of the term index. Terms carry the
+ * office of the entity, or of its client, for the office hierarchy filter;
+ * everything else shown in search results is read from the entity tables.
+ * Entities are only rewritten when their terms or office changed.
+ *
+ * The terms of an entity are locked before its values are read and rewritten,
+ * so a command and the job, or two commands, updating the same entity cannot
+ * leave the terms of the one that read first.
+ */
+@Service
+public class SearchIndexWritePlatformServiceImpl implements SearchIndexWritePlatformService {
+
+    /**
+     * Shortest suffix indexed; shorter searches only match values starting
+     * with them.
+     */
+    public static final int MIN_INFIX_LENGTH = 3;
+    public static final int MAX_TERM_LENGTH = 100;
+
+    private static final int JOB_BATCH_SIZE = 1000;
+    private static final long JOB_TIME_BUDGET_MILLIS = TimeUnit.MINUTES.toMillis(2);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public SearchIndexWritePlatformServiceImpl(final RoutingDataSource dataSource, final TransactionTemplate transactionTemplate) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @Override
+    public void updateIndexFor(final String entityName, final CommandProcessingResult result) {
+        if (result == null) { return; }
+
+        Long clientId = result.getClientId();
+        Long groupId = result.getGroupId();
+        Long loanId = result.getLoanId();
+        Long savingsId = result.getSavingsId();
+        Long clientIdentifierId = null;
+
+        final String entity = entityName == null ? "" : entityName.toUpperCase(Locale.ENGLISH);
+        final Long resourceId = result.resourceId();
+        if (entity.equals("CLIENT") && clientId == null) {
+            clientId = resourceId;
+        } else if ((entity.equals("GROUP") || entity.equals("CENTER")) && groupId == null) {
+            groupId = resourceId;
+        } else if (entity.equals("LOAN") && loanId == null) {
+            loanId = resourceId;
+        } else if ((entity.equals("SAVINGSACCOUNT") || entity.equals("FIXEDDEPOSITACCOUNT") || entity.equals("RECURRINGDEPOSITACCOUNT"))
+                && savingsId == null) {
+            savingsId = resourceId;
+        } else if (entity.equals("CLIENTIDENTIFIER")) {
+            clientIdentifierId = resourceId;
+        }
+
+        if (clientId != null) {
+            final Set<Long> movedClientIds = synchronizeIds(IndexedEntity.CLIENT, Collections.singletonList(clientId));
+            if (!movedClientIds.isEmpty()) {
+                // terms of the accounts and identifiers of a client carry its
+                // office
+                for (final IndexedEntity child : IndexedEntity.CLIENT_CHILDREN) {
+                    synchronizeIds(child, retrieveIdsOfClient(child, clientId));
+                }
+            }
+        }
+        if (groupId != null) {
+            synchronizeIds(IndexedEntity.GROUP, Collections.singletonList(groupId));
+        }
+        if (loanId != null) {
+            synchronizeIds(IndexedEntity.LOAN, Collections.singletonList(loanId));
+        }
+        if (savingsId != null) {
+            synchronizeIds(IndexedEntity.SAVING, Collections.singletonList(savingsId));
+        }
+        if (clientIdentifierId != null) {
+            synchronizeIds(IndexedEntity.CLIENTIDENTIFIER, Collections.singletonList(clientIdentifierId));
+        }
+    }
+
+    @Override
+    @CronTarget(jobName = JobName.UPDATE_SEARCH_INDEX)
+    public JobRunMetrics updateSearchIndex() {
+        final JobRunMetrics metrics = new JobRunMetrics();
+        // every entity gets its share of the run so that a large one does not
+        // hold back the others
+        final long budgetPerEntity = JOB_TIME_BUDGET_MILLIS / IndexedEntity.values().length;
+        for (final IndexedEntity entity : IndexedEntity.values()) {
+            final long deadline = System.currentTimeMillis() + budgetPerEntity;
+            long lastId = this.jdbcTemplate.queryForObject(
+                    "select last_entity_id from m_search_index_backfill where entity_type = ?", Long.class, entity.name());
+            while (System.currentTimeMillis() < deadline) {
+                final String sql = "select " + entity.idColumn + " from " + entity.fromClause + " where " + entity.idColumn
+                        + " > ? order by " + entity.idColumn + " limit " + JOB_BATCH_SIZE;
+                final List<Long> ids = this.jdbcTemplate.queryForList(sql, Long.class, lastId);
+                if (ids.isEmpty()) {
+                    completeBackfill(entity, lastId);
+                    metrics.increment(entity.name().toLowerCase(Locale.ENGLISH) + "Passes");
+                    break;
+                }
+
+                final long fromId = lastId;
+                lastId = ids.get(ids.size() - 1);
+                synchronizeBatch(entity, fromId, lastId, ids);
+
+                metrics.add(entity.name().toLowerCase(Locale.ENGLISH) + "Checked", ids.size());
+            }
+        }
+        return metrics;
+    }
+
+    /**
+     * Drops the terms of entities deleted past the last one left, so the next
+     * run starts over.
+     */
+    private void completeBackfill(final IndexedEntity entity, final long lastId) {
+        this.transactionTemplate.execute(new TransactionCallbackWithoutResult() {
+
+            @Override
+            protected void doInTransactionWithoutResult(@SuppressWarnings("unused") final TransactionStatus status) {
+                SearchIndexWritePlatformServiceImpl.this.jdbcTemplate.update(
+                        "delete from m_search_index_term where entity_type = ? and entity_id > ?", entity.name(), lastId);
+                SearchIndexWritePlatformServiceImpl.this.jdbcTemplate.update(
+                        "update m_search_index_backfill set last_entity_id = 0, is_completed = 1, completed_on = now() where entity_type = ?",
+                        entity.name());
+            }
+        });
+    }
+
+    /**
+     * Rewrites the terms of the entities with ids in <code>(fromId,
+     * toId]</code> and moves the backfill past them in one transaction. The
+     * terms of the whole range are locked before the values of the entities
+     * are read, as a command rewriting the terms of one of them waits for it.
+     */
+    private void synchronizeBatch(final IndexedEntity entity, final long fromId, final long toId, final List<Long> ids) {
+        this.transactionTemplate.execute(new TransactionCallbackWithoutResult() {
+
+            @Override
+            protected void doInTransactionWithoutResult(@SuppressWarnings("unused") final TransactionStatus status) {
+                final MapSqlParameterSource params = new MapSqlParameterSource("type", entity.name()).addValue("fromId", fromId)
+                        .addValue("toId", toId).addValue("ids", ids);
+                SearchIndexWritePlatformServiceImpl.this.namedParameterJdbcTemplate.queryForList(
+                        "select entity_id from m_search_index_term where entity_type = :type and entity_id > :fromId"
+                                + " and entity_id <= :toId for update", params, Long.class);
+                // entities deleted in this range only have their terms left
+                SearchIndexWritePlatformServiceImpl.this.namedParameterJdbcTemplate.update(
+                        "delete from m_search_index_term where entity_type = :type"
+                                + " and entity_id > :fromId and entity_id < :toId and entity_id not in (:ids)", params);
+                synchronizeLockedIds(entity, ids);
+                SearchIndexWritePlatformServiceImpl.this.jdbcTemplate.update(
+                        "update m_search_index_backfill set last_entity_id = ? where entity_type = ?", toId, entity.name());
+            }
+        });
+    }
+
+    private List<Long> retrieveIdsOfClient(final IndexedEntity entity, final Long clientId) {
+        final String sql = "select " + entity.idColumn + " from " + entity.fromClause + " where " + entity.clientIdColumn + " = ?";
+        return this.jdbcTemplate.queryForList(sql, Long.class, clientId);
+    }
+
+    /**
+     * Runs in the transaction of the command, which holds the locks on the
+     * terms until it commits.
+     *
+     * @return ids of the entities whose terms were rewritten because they
+     *         moved to another office
+     */
+    private Set<Long> synchronizeIds(final IndexedEntity entity, final List<Long> ids) {
+        if (ids.isEmpty()) { return Collections.emptySet(); }
+        this.namedParameterJdbcTemplate.queryForList(
+                "select entity_id from m_search_index_term where entity_type = :type and entity_id in (:ids) for update",
+                new MapSqlParameterSource("type", entity.name()).addValue("ids", ids), Long.class);
+        return synchronizeLockedIds(entity, ids);
+    }
+
+    private Set<Long> synchronizeLockedIds(final IndexedEntity entity, final List<Long> ids) {
+        final MapSqlParameterSource params = new MapSqlParameterSource("ids", ids);
+        final List<IndexedValues> rows = this.namedParameterJdbcTemplate.query(entity.schema() + " where " + entity.idColumn
+                + " in (:ids)", params, new IndexedValuesMapper());
+
+        final Set<Long> missing = new HashSet<>(ids);
+        for (final IndexedValues row : rows) {
+            missing.remove(row.id);
+        }
+        if (!missing.isEmpty()) {
+            // deleted since
+            this.namedParameterJdbcTemplate.update("delete from m_search_index_term where entity_type = :type and entity_id in (:ids)",
+                    new MapSqlParameterSource("type", entity.name()).addValue("ids", missing));
+        }
+        return synchronizeRows(entity, rows);
+    }
+
+    /**
+     * @return ids of the entities whose office changed
+     */
+    private Set<Long> synchronizeRows(final IndexedEntity entity, final List<IndexedValues> rows) {
+        if (rows.isEmpty()) { return Collections.emptySet(); }
+
+        final List<Long> ids = new ArrayList<>(rows.size());
+        for (final IndexedValues row : rows) {
+            ids.add(row.id);
+        }
+        final Map<Long, IndexedTerms> existing = retrieveIndexedTerms(entity, ids);
+
+        final List<Long> changedIds = new ArrayList<>();
+        final List<Object[]> inserts = new ArrayList<>();
+        final Set<Long> movedIds = new HashSet<>();
+        for (final IndexedValues row : rows) {
+            final Set<String> fullValues = new LinkedHashSet<>();
+            final Set<String> suffixes = new LinkedHashSet<>();
+            for (final String value : row.values) {
+                addTerms(value, fullValues, suffixes);
+            }
+
+            if (row.officeId == null) {
+                fullValues.clear();
+                suffixes.clear();
+            }
+
+            final IndexedTerms current = existing.get(row.id);
+            if (current == null && fullValues.isEmpty()) {
+                continue;
+            }
+            if (current != null && current.officeId.equals(row.officeId) && current.fullValues.equals(fullValues)
+                    && current.suffixes.equals(suffixes)) {
+                continue;
+            }
+            if (current != null) {
+                changedIds.add(row.id);
+                if (row.officeId != null && !current.officeId.equals(row.officeId)) {
+                    movedIds.add(row.id);
+                }
+            }
+            for (final String term : fullValues) {
+                inserts.add(new Object[] { entity.name(), row.id, row.officeId, term, 1 });
+            }
+            for (final String term : suffixes) {
+                inserts.add(new Object[] { entity.name(), row.id, row.officeId, term, 0 });
+            }
+        }
+
+        if (!changedIds.isEmpty()) {
+            this.namedParameterJdbcTemplate.update("delete from m_search_index_term where entity_type = :type and entity_id in (:ids)",
+                    new MapSqlParameterSource("type", entity.name()).addValue("ids", changedIds));
+        }
+        if (!inserts.isEmpty()) {
+            insertTerms(inserts);
+        }
+        return movedIds;
+    }
+
+    private void insertTerms(final List<Object[]> inserts) {
+        final String sql = "insert into m_search_index_term (entity_type, entity_id, office_id, term, is_full_value) values (?, ?, ?, ?, ?)";
+        this.jdbcTemplate.batchUpdate(sql, new BatchPreparedStatementSetter() {
+
+            @Override
+            public void setValues(final PreparedStatement ps, final int i) throws SQLException {
+                final Object[] insert = inserts.get(i);
+                ps.setString(1, (String) insert[0]);
+                ps.setLong(2, (Long) insert[1]);
+                ps.setLong(3, (Long) insert[2]);
+                ps.setString(4, (String) insert[3]);
+                ps.setInt(5, (Integer) insert[4]);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return inserts.size();
+            }
+        });
+    }
+
+    private Map<Long, IndexedTerms> retrieveIndexedTerms(final IndexedEntity entity, final Collection<Long> ids) {
+        final Map<Long, IndexedTerms> terms = new HashMap<>();
+        final String sql = "select entity_id as entityId, office_id as officeId, term, is_full_value as isFullValue from m_search_index_term"
+                + " where entity_type = :type and entity_id in (:ids)";
+        this.namedParameterJdbcTemplate.query(sql, new MapSqlParameterSource("type", entity.name()).addValue("ids", ids),
+                new RowCallbackHandler() {
+
+                    @Override
+                    public void processRow(final ResultSet rs) throws SQLException {
+                        final Long entityId = rs.getLong("entityId");
+                        IndexedTerms indexed = terms.get(entityId);
+                        if (indexed == null) {
+                            indexed = new IndexedTerms(rs.getLong("officeId"));
+                            terms.put(entityId, indexed);
+                        }
+                        final String term = rs.getString("term").toLowerCase(Locale.ENGLISH);
+                        if (rs.getBoolean("isFullValue")) {
+                            indexed.fullValues.add(term);
+                        } else {
+                            indexed.suffixes.add(term);
+                        }
+                    }
+                });
+        return terms;
+    }
+
+    /**
+     * Terms are compared and stored lower cased, matching the case insensitive
+     * collation they are searched with.
+     */
+    private static void addTerms(final String value, final Set<String> fullValues, final Set<String> suffixes) {
+        if (StringUtils.isBlank(value)) { return; }
+        final String term = StringUtils.left(value.trim(), MAX_TERM_LENGTH).toLowerCase(Locale.ENGLISH);
+        fullValues.add(term);
+        for (int i = 1; i <= term.length() - MIN_INFIX_LENGTH; i++) {
+            final String suffix = term.substring(i);
+            if (!Character.isWhitespace(suffix.charAt(0))) {
+                suffixes.add(suffix);
+            }
+        }
+    }
+
+    private static enum IndexedEntity {
+
+        CLIENT("c.id", "c.office_id", "c.display_name", "c.account_no", "c.external_id", "m_client c", null), //
+        GROUP("g.id", "g.office_id", "g.display_name", "null", "g.external_id", "m_group g", null), //
+        LOAN("l.id", "c.office_id", "null", "l.account_no", "l.external_id", "m_loan l join m_client c on c.id = l.client_id", "l.client_id"), //
+        SAVING("s.id", "c.office_id", "null", "s.account_no", "s.external_id", "m_savings_account s join m_client c on c.id = s.client_id",
+                "s.client_id"), //
+        CLIENTIDENTIFIER("ci.id", "c.office_id", "ci.document_key", "null", "null",
+                "m_client_identifier ci join m_client c on c.id = ci.client_id", "ci.client_id");
+
+        private static final IndexedEntity[] CLIENT_CHILDREN = { LOAN, SAVING, CLIENTIDENTIFIER };
+
+        private final String idColumn;
+        private final String officeIdColumn;
+        private final String nameColumn;
+        private final String accountNoColumn;
+        private final String externalIdColumn;
+        private final String fromClause;
+        private final String clientIdColumn;
+
+        private IndexedEntity(final String idColumn, final String officeIdColumn, final String nameColumn, final String accountNoColumn,
+                final String externalIdColumn, final String fromClause, final String clientIdColumn) {
+            this.idColumn = idColumn;
+            this.officeIdColumn = officeIdColumn;
+            this.nameColumn = nameColumn;
+            this.accountNoColumn = accountNoColumn;
+            this.externalIdColumn = externalIdColumn;
+            this.fromClause = fromClause;
+            this.clientIdColumn = clientIdColumn;
+        }
+
+        String schema() {
+            return "select " + this.idColumn + " as id, " + this.officeIdColumn + " as officeId, " + this.nameColumn + " as name, "
+                    + this.accountNoColumn + " as accountNo, " + this.externalIdColumn + " as externalId from " + this.fromClause;
+        }
+    }
+
+    private static final class IndexedValuesMapper implements RowMapper<IndexedValues> {
+
+        @Override
+        public IndexedValues mapRow(final ResultSet rs, @SuppressWarnings("unused") final int rowNum) throws SQLException {
+            final Long id = rs.getLong("id");
+            final Long officeId = JdbcSupport.getLong(rs, "officeId");
+            return new IndexedValues(id, officeId, rs.getString("name"), rs.getString("accountNo"), rs.getString("externalId"));
+        }
+    }
+
+    private static final class IndexedValues {
+
+        private final Long id;
+        private final Long officeId;
+        private final String[] values;
+
+        IndexedValues(final Long id, final Long officeId, final String... values) {
+            this.id = id;
+            this.officeId = officeId;
+            this.values = values;
+        }
+    }
+
+    private static final class IndexedTerms {
+
+        private final Long officeId;
+        private final Set<String> fullValues = new HashSet<>();
+        private final Set<String> suffixes = new HashSet<>();
+
+        IndexedTerms(final Long officeId) {
+            this.officeId = officeId;
+        }
+    }
+}
@@ -9,12 +9,24 @@ import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.lang.StringUtils;
 import org.mifosplatform.infrastructure.core.data.EnumOptionData;
 import org.mifosplatform.infrastructure.core.domain.JdbcSupport;
 import org.mifosplatform.infrastructure.core.service.RoutingDataSource;
+import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
 import org.mifosplatform.infrastructure.security.service.PlatformSecurityContext;
 import org.mifosplatform.organisation.office.data.OfficeData;
 import org.mifosplatform.organisation.office.service.OfficeReadPlatformService;
@@ -31,6 +43,7 @@ import org.mifosplatform.portfolio.search.data.SearchConditions;
 import org.mifosplatform.portfolio.search.data.SearchData;
 import org.mifosplatform.useradministration.domain.AppUser;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
@@ -39,10 +52,24 @@ import org.springframework.stereotype.Service;
 @Service
 public class SearchReadPlatformServiceImpl implements SearchReadPlatformService {
 
+    /**
+     * Number of matching terms read from the search index, which bounds the
+     * number of results.
+     */
+    private static final int MAX_INDEX_MATCHES = 1000;
+
+    /**
+     * Time a completed backfill is trusted before it is checked again, so
+     * that restarting the backfill takes searches back to the tables.
+     */
+    private static final long SEARCH_INDEX_CHECK_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
     private final NamedParameterJdbcTemplate namedParameterjdbcTemplate;
     private final PlatformSecurityContext context;
     private final LoanProductReadPlatformService loanProductReadPlatformService;
     private final OfficeReadPlatformService officeReadPlatformService;
+    // tenant id to the time its backfill was last seen completed
+    private final ConcurrentMap<Long, Long> tenantsWithSearchIndex = new ConcurrentHashMap<>();
 
     @Autowired
     public SearchReadPlatformServiceImpl(final PlatformSecurityContext context, final RoutingDataSource dataSource,
@@ -58,6 +85,9 @@ public class SearchReadPlatformServiceImpl implements SearchReadPlatformService
         final AppUser currentUser = this.context.authenticatedUser();
         final String hierarchy = currentUser.getOffice().getHierarchy();
 
+        if (StringUtils.isNotBlank(searchConditions.getSearchQuery()) && isSearchIndexBuilt()) { return retrieveMatchingDataFromIndex(
+                searchConditions, hierarchy); }
+
         final SearchMapper rm = new SearchMapper();
 
         final MapSqlParameterSource params = new MapSqlParameterSource();
@@ -68,8 +98,153 @@ public class SearchReadPlatformServiceImpl implements SearchReadPlatformService
         return this.namedParameterjdbcTemplate.query(rm.searchSchema(searchConditions), params, rm);
     }
 
+    /**
+     * Looks the query up as the start of whole values or of their suffixes in
+     * <code>m_search_index_term</code> and ranks exact matches first, then
+     * values starting with the query, then values containing it.
+     */
+    private Collection<SearchData> retrieveMatchingDataFromIndex(final SearchConditions searchConditions, final String hierarchy) {
+        final List<String> entityTypes = new ArrayList<>();
+        if (searchConditions.isClientSearch()) {
+            entityTypes.add("CLIENT");
+        }
+        if (searchConditions.isLoanSeach()) {
+            entityTypes.add("LOAN");
+        }
+        if (searchConditions.isSavingSeach()) {
+            entityTypes.add("SAVING");
+        }
+        if (searchConditions.isClientIdentifierSearch()) {
+            entityTypes.add("CLIENTIDENTIFIER");
+        }
+        if (searchConditions.isGroupSearch()) {
+            entityTypes.add("GROUP");
+        }
+        if (entityTypes.isEmpty()) { return Collections.emptyList(); }
+
+        final String query = searchConditions.getSearchQuery().trim().toLowerCase(Locale.ENGLISH);
+        final MapSqlParameterSource params = new MapSqlParameterSource();
+        params.addValue("hierarchy", hierarchy + "%");
+        params.addValue("prefix", escapeLike(query) + "%");
+        params.addValue("entityTypes", entityTypes);
+
+        // the term index is read in order so the scan stops after the first
+        // matches, closest terms first
+        final String sql = "select t.entity_type as entityType, t.entity_id as entityId, t.term as term, t.is_full_value as isFullValue"
+                + " from m_search_index_term t join m_office o on o.id = t.office_id"
+                + " where t.term like :prefix and t.entity_type in (:entityTypes) and o.hierarchy like :hierarchy order by t.term limit "
+                + MAX_INDEX_MATCHES;
+
+        final Map<String, Integer> ranks = new LinkedHashMap<>();
+        final Map<String, List<Long>> idsByEntityType = new HashMap<>();
+        this.namedParameterjdbcTemplate.query(sql, params, new RowCallbackHandler() {
+
+            @Override
+            public void processRow(final ResultSet rs) throws SQLException {
+                final String entityType = rs.getString("entityType");
+                final Long entityId = rs.getLong("entityId");
+                final boolean fullValue = rs.getBoolean("isFullValue");
+                final int rank = !fullValue ? 2 : rs.getString("term").equalsIgnoreCase(query) ? 0 : 1;
+
+                final String key = entityType + ":" + entityId;
+                final Integer current = ranks.get(key);
+                if (current == null) {
+                    ranks.put(key, rank);
+                    List<Long> ids = idsByEntityType.get(entityType);
+                    if (ids == null) {
+                        ids = new ArrayList<>();
+                        idsByEntityType.put(entityType, ids);
+                    }
+                    ids.add(entityId);
+                } else if (rank < current) {
+                    ranks.put(key, rank);
+                }
+            }
+        });
+        if (ranks.isEmpty()) { return Collections.emptyList(); }
+
+        final SearchMapper rm = new SearchMapper();
+        final Map<String, SearchData> found = new HashMap<>();
+        for (final Map.Entry<String, List<Long>> ids : idsByEntityType.entrySet()) {
+            final MapSqlParameterSource idParams = new MapSqlParameterSource("ids", ids.getValue());
+            idParams.addValue("hierarchy", hierarchy + "%");
+            for (final SearchData data : this.namedParameterjdbcTemplate.query(rm.byIdSchema(ids.getKey()), idParams, rm)) {
+                found.put(ids.getKey() + ":" + data.getEntityId(), data);
+            }
+        }
+
+        final List<Map.Entry<String, Integer>> ranked = new ArrayList<>(ranks.entrySet());
+        // stable, keeps the term order within a rank
+        Collections.sort(ranked, new Comparator<Map.Entry<String, Integer>>() {
+
+            @Override
+            public int compare(final Map.Entry<String, Integer> first, final Map.Entry<String, Integer> second) {
+                return first.getValue().compareTo(second.getValue());
+            }
+        });
+        final List<SearchData> results = new ArrayList<>(ranked.size());
+        for (final Map.Entry<String, Integer> entry : ranked) {
+            final SearchData data = found.get(entry.getKey());
+            if (data != null) {
+                results.add(data);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * The index is used once the Update Search Index job went through every
+     * entity of the tenant, until then searches scan the tables.
+     */
+    private boolean isSearchIndexBuilt() {
+        final Long tenantId = ThreadLocalContextUtil.getTenant().getId();
+        final long now = System.currentTimeMillis();
+        final Long checkedOn = this.tenantsWithSearchIndex.get(tenantId);
+        if (checkedOn != null && now - checkedOn < SEARCH_INDEX_CHECK_MILLIS) { return true; }
+
+        final Integer incomplete = this.namedParameterjdbcTemplate.getJdbcOperations().queryForObject(
+                "select count(*) from m_search_index_backfill where is_completed = 0", Integer.class);
+        if (incomplete == 0) {
+            this.tenantsWithSearchIndex.put(tenantId, now);
+            return true;
+        }
+        this.tenantsWithSearchIndex.remove(tenantId);
+        return false;
+    }
+
+    private static String escapeLike(final String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
     private static final class SearchMapper implements RowMapper<SearchData> {
 
+        /**
+         * Same columns as {@link #searchSchema}, for the entities of an index
+         * entity type with the given <code>ids</code> that are still within
+         * the office <code>hierarchy</code>, as the terms of an entity that
+         * moved office carry the old one until they are rewritten.
+         */
+        public String byIdSchema(final String entityType) {
+            if ("CLIENT".equals(entityType)) { return " select 'CLIENT' as entityType, c.id as entityId, c.display_name as entityName, c.external_id as entityExternalId, c.account_no as entityAccountNo "
+                    + " , c.office_id as parentId, o.name as parentName, c.status_enum as entityStatusEnum "
+                    + " from m_client c join m_office o on o.id = c.office_id where c.id in (:ids) and o.hierarchy like :hierarchy "; }
+            if ("LOAN".equals(entityType)) { return " select 'LOAN' as entityType, l.id as entityId, pl.name as entityName, l.external_id as entityExternalId, l.account_no as entityAccountNo "
+                    + " , c.id as parentId, c.display_name as parentName, l.loan_status_id as entityStatusEnum "
+                    + " from m_loan l join m_client c on l.client_id = c.id join m_office o on o.id = c.office_id join m_product_loan pl on pl.id=l.product_id "
+                    + " where l.id in (:ids) and o.hierarchy like :hierarchy "; }
+            if ("SAVING".equals(entityType)) { return " select 'SAVING' as entityType, s.id as entityId, sp.name as entityName, s.external_id as entityExternalId, s.account_no as entityAccountNo "
+                    + " , c.id as parentId, c.display_name as parentName, s.status_enum as entityStatusEnum "
+                    + " from m_savings_account s join m_client c on s.client_id = c.id join m_office o on o.id = c.office_id join m_savings_product sp on sp.id=s.product_id "
+                    + " where s.id in (:ids) and o.hierarchy like :hierarchy "; }
+            if ("CLIENTIDENTIFIER".equals(entityType)) { return " select 'CLIENTIDENTIFIER' as entityType, ci.id as entityId, ci.document_key as entityName, "
+                    + " null as entityExternalId, null as entityAccountNo, c.id as parentId, c.display_name as parentName, c.status_enum as entityStatusEnum "
+                    + " from m_client_identifier ci join m_client c on ci.client_id=c.id join m_office o on o.id = c.office_id "
+                    + " where ci.id in (:ids) and o.hierarchy like :hierarchy "; }
+            return " select IF(g.level_id=1,'CENTER','GROUP') as entityType, g.id as entityId, g.display_name as entityName, g.external_id as entityExternalId, NULL as entityAccountNo "
+                    + " , g.office_id as parentId, o.name as parentName, g.status_enum as entityStatusEnum "
+                    + " from m_group g join m_office o on o.id = g.office_id where g.id in (:ids) and o.hierarchy like :hierarchy ";
+        }
+
         public String searchSchema(final SearchConditions searchConditions) {
 
             final String union = " union ";
@@ -6,10 +6,11 @@
 package org.mifosplatform.scheduledjobs.service;
 
 import org.mifosplatform.infrastructure.jobs.exception.JobExecutionException;
+import org.mifosplatform.infrastructure.jobs.service.JobRunMetrics;
 
 public interface ScheduledJobRunnerService {
 
-    void updateLoanSummaryDetails();
+    JobRunMetrics updateLoanSummaryDetails();
 
     void updateLoanArrearsAgeingDetails();
 
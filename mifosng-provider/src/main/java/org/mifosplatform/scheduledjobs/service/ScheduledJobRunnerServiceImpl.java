@@ -5,16 +5,24 @@
  */
 package org.mifosplatform.scheduledjobs.service;
 
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 
+import org.apache.commons.lang.StringUtils;
+
 import org.mifosplatform.infrastructure.core.data.ApiParameterError;
+import org.mifosplatform.infrastructure.core.domain.JdbcSupport;
 import org.mifosplatform.infrastructure.core.exception.PlatformApiDataValidationException;
+import org.mifosplatform.infrastructure.core.service.RoutingDataSource;
 import org.mifosplatform.infrastructure.core.service.RoutingDataSourceServiceFactory;
 import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
 import org.mifosplatform.infrastructure.jobs.annotation.CronTarget;
 import org.mifosplatform.infrastructure.jobs.exception.JobExecutionException;
 import org.mifosplatform.infrastructure.jobs.service.JobName;
+import org.mifosplatform.infrastructure.jobs.service.JobRunMetrics;
 import org.mifosplatform.portfolio.savings.DepositAccountType;
 import org.mifosplatform.portfolio.savings.data.DepositAccountData;
 import org.mifosplatform.portfolio.savings.data.SavingsAccountAnnualFeeData;
@@ -26,39 +34,126 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionStatus;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Service(value = "scheduledJobRunnerService")
 public class ScheduledJobRunnerServiceImpl implements ScheduledJobRunnerService {
 
     private final static Logger logger = LoggerFactory.getLogger(ScheduledJobRunnerServiceImpl.class);
 
+    private static final int LOAN_SUMMARY_CHUNK_SIZE = 500;
+
     private final RoutingDataSourceServiceFactory dataSourceServiceFactory;
+    private final JdbcTemplate jdbcTemplate;
     private final SavingsAccountWritePlatformService savingsAccountWritePlatformService;
     private final SavingsAccountChargeReadPlatformService savingsAccountChargeReadPlatformService;
     private final DepositAccountReadPlatformService depositAccountReadPlatformService;
     private final DepositAccountWritePlatformService depositAccountWritePlatformService;
+    private final TransactionTemplate transactionTemplate;
 
     @Autowired
-    public ScheduledJobRunnerServiceImpl(final RoutingDataSourceServiceFactory dataSourceServiceFactory,
+    public ScheduledJobRunnerServiceImpl(final RoutingDataSourceServiceFactory dataSourceServiceFactory, final RoutingDataSource dataSource,
             final SavingsAccountWritePlatformService savingsAccountWritePlatformService,
             final SavingsAccountChargeReadPlatformService savingsAccountChargeReadPlatformService,
             final DepositAccountReadPlatformService depositAccountReadPlatformService,
-            final DepositAccountWritePlatformService depositAccountWritePlatformService) {
+            final DepositAccountWritePlatformService depositAccountWritePlatformService, final TransactionTemplate transactionTemplate) {
         this.dataSourceServiceFactory = dataSourceServiceFactory;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
         this.savingsAccountWritePlatformService = savingsAccountWritePlatformService;
         this.savingsAccountChargeReadPlatformService = savingsAccountChargeReadPlatformService;
         this.depositAccountReadPlatformService = depositAccountReadPlatformService;
         this.depositAccountWritePlatformService = depositAccountWritePlatformService;
+        this.transactionTemplate = transactionTemplate;
     }
 
-    @Transactional
+    /**
+     * Refreshes the <code>*_derived</code> summary columns of
+     * <code>m_loan</code> in keyset paginated chunks of
+     * {@link #LOAN_SUMMARY_CHUNK_SIZE} loans, committing after every chunk.
+     * Only loans with repayment schedule installments modified since the
+     * previous successful run are picked up; when no watermark exists (first
+     * run, or after setting it back to null) every disbursed loan is
+     * refreshed. Progress is stored in
+     * <code>m_loan_summary_refresh_checkpoint</code> so a run that died half
+     * way resumes after the last committed loan.
+     * 
+     * The next watermark is the latest installment
+     * <code>lastmodified_date</code> seen when the run starts, not the
+     * database time: the modification dates are written from the application
+     * clock, so both sides of the comparison come from the same clock.
+     * 
+     * The statements go through the {@link RoutingDataSource} the transaction
+     * manager is bound to, so the summary update of a chunk and its checkpoint
+     * are committed together.
+     */
     @Override
     @CronTarget(jobName = JobName.UPDATE_LOAN_SUMMARY)
-    public void updateLoanSummaryDetails() {
+    public JobRunMetrics updateLoanSummaryDetails() {
+
+        final JdbcTemplate jdbcTemplate = this.jdbcTemplate;
+        final JobRunMetrics metrics = new JobRunMetrics();
+
+        final LoanSummaryCheckpointMapper checkpointMapper = new LoanSummaryCheckpointMapper();
+        final LoanSummaryCheckpoint checkpoint = jdbcTemplate.queryForObject(checkpointMapper.schema(), checkpointMapper);
+
+        Long lastLoanId = checkpoint.lastLoanId;
+        if (checkpoint.inProgress && lastLoanId != null) {
+            logger.info(ThreadLocalContextUtil.getTenant().getName() + ": Resuming loan summary refresh after loan id " + lastLoanId);
+            metrics.increment("resumed");
+        } else {
+            jdbcTemplate.update("update m_loan_summary_refresh_checkpoint set run_started_on = (select max(mr.lastmodified_date) from m_loan_repayment_schedule mr), "
+                    + "last_loan_id = 0, in_progress = 1 where id = 1");
+            lastLoanId = Long.valueOf(0);
+        }
 
-        final JdbcTemplate jdbcTemplate = new JdbcTemplate(this.dataSourceServiceFactory.determineDataSourceService().retrieveDataSource());
+        final Date watermark = checkpoint.watermark;
+        List<Long> loanIds = retrieveLoanSummaryChunk(jdbcTemplate, watermark, lastLoanId);
+        while (!loanIds.isEmpty()) {
+            final List<Long> chunk = loanIds;
+            final Long chunkLastLoanId = chunk.get(chunk.size() - 1);
+            final int result = this.transactionTemplate.execute(new TransactionCallback<Integer>() {
+
+                @Override
+                public Integer doInTransaction(@SuppressWarnings("unused") final TransactionStatus status) {
+                    final int updated = jdbcTemplate.update(loanSummaryUpdateSql(chunk));
+                    jdbcTemplate.update("update m_loan_summary_refresh_checkpoint set last_loan_id = ? where id = 1", chunkLastLoanId);
+                    return updated;
+                }
+            });
+
+            metrics.add("loansTouched", chunk.size());
+            metrics.add("rowsUpdated", result);
+            metrics.increment("chunks");
+            lastLoanId = chunkLastLoanId;
+            loanIds = retrieveLoanSummaryChunk(jdbcTemplate, watermark, lastLoanId);
+        }
+
+        jdbcTemplate
+                .update("update m_loan_summary_refresh_checkpoint set watermark = run_started_on, last_loan_id = null, in_progress = 0 where id = 1");
+
+        logger.info(ThreadLocalContextUtil.getTenant().getName() + ": Loan summary refresh finished: " + metrics);
+        return metrics;
+    }
+
+    private List<Long> retrieveLoanSummaryChunk(final JdbcTemplate jdbcTemplate, final Date watermark, final Long lastLoanId) {
+        if (watermark == null) {
+            final String sql = "select ml.id from m_loan ml where ml.disbursedon_date is not null and ml.id > ? order by ml.id limit "
+                    + LOAN_SUMMARY_CHUNK_SIZE;
+            return jdbcTemplate.queryForList(sql, Long.class, lastLoanId);
+        }
+        // walks the (loan_id, lastmodified_date) index from the last processed
+        // loan on, rather than every row modified since the watermark
+        final String sql = "select mr.loan_id from m_loan_repayment_schedule mr where mr.loan_id > ? and mr.lastmodified_date >= ? group by mr.loan_id order by mr.loan_id limit "
+                + LOAN_SUMMARY_CHUNK_SIZE;
+        return jdbcTemplate.queryForList(sql, Long.class, lastLoanId, watermark);
+    }
+
+    private static String loanSummaryUpdateSql(final List<Long> loanIds) {
 
         final StringBuilder updateSqlBuilder = new StringBuilder(900);
         updateSqlBuilder.append("update m_loan ");
@@ -86,6 +181,7 @@ public class ScheduledJobRunnerServiceImpl implements ScheduledJobRunnerService
         updateSqlBuilder.append(" FROM m_loan ml ");
         updateSqlBuilder.append("INNER JOIN m_loan_repayment_schedule mr on mr.loan_id = ml.id ");
         updateSqlBuilder.append("WHERE ml.disbursedon_date is not null ");
+        updateSqlBuilder.append("AND ml.id in (").append(StringUtils.join(loanIds, ',')).append(") ");
         updateSqlBuilder.append("GROUP BY ml.id ");
         updateSqlBuilder.append(") x on x.loanId = m_loan.id ");
 
@@ -133,9 +229,35 @@ public class ScheduledJobRunnerServiceImpl implements ScheduledJobRunnerService
         updateSqlBuilder
                 .append(" (x.penalty_charges_charged_derived - (x.penalty_charges_repaid_derived + x.penalty_charges_waived_derived + x.penalty_charges_writtenoff_derived))");
 
-        final int result = jdbcTemplate.update(updateSqlBuilder.toString());
+        return updateSqlBuilder.toString();
+    }
 
-        logger.info(ThreadLocalContextUtil.getTenant().getName() + ": Results affected by update: " + result);
+    private static final class LoanSummaryCheckpoint {
+
+        private final Date watermark;
+        private final Long lastLoanId;
+        private final boolean inProgress;
+
+        public LoanSummaryCheckpoint(final Date watermark, final Long lastLoanId, final boolean inProgress) {
+            this.watermark = watermark;
+            this.lastLoanId = lastLoanId;
+            this.inProgress = inProgress;
+        }
+    }
+
+    private static final class LoanSummaryCheckpointMapper implements RowMapper<LoanSummaryCheckpoint> {
+
+        public String schema() {
+            return "select cp.watermark as watermark, cp.last_loan_id as lastLoanId, cp.in_progress as inProgress from m_loan_summary_refresh_checkpoint cp where cp.id = 1";
+        }
+
+        @Override
+        public LoanSummaryCheckpoint mapRow(final ResultSet rs, @SuppressWarnings("unused") final int rowNum) throws SQLException {
+            final Date watermark = rs.getTimestamp("watermark");
+            final Long lastLoanId = JdbcSupport.getLong(rs, "lastLoanId");
+            final boolean inProgress = rs.getBoolean("inProgress");
+            return new LoanSummaryCheckpoint(watermark, lastLoanId, inProgress);
+        }
     }
 
     @Transactional
@@ -5,8 +5,13 @@
  */
 package org.mifosplatform.template.api;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.net.MalformedURLException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -28,6 +33,7 @@ import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.StreamingOutput;
 import javax.ws.rs.core.UriInfo;
 
 import org.codehaus.jackson.map.ObjectMapper;
@@ -59,6 +65,7 @@ public class TemplatesApiResource {
     private final Set<String> RESPONSE_TEMPLATES_DATA_PARAMETERS = new HashSet<>(Arrays.asList("id"));
     private final Set<String> RESPONSE_TEMPLATE_DATA_PARAMETERS = new HashSet<>(Arrays.asList("id", "entities", "types", "template"));
     private final String RESOURCE_NAME_FOR_PERMISSION = "template";
+    private static final String DOCUMENT_SEPARATOR = "<div style=\"page-break-after: always;\"></div>";
 
     private final PlatformSecurityContext context;
     private final DefaultToApiJsonSerializer<Template> toApiJsonSerializer;
@@ -182,6 +189,51 @@ public class TemplatesApiResource {
         @SuppressWarnings("unchecked")
         final HashMap<String, Object> result = new ObjectMapper().readValue(apiRequestBodyAsJson, HashMap.class);
 
+        final Map<String, Object> parametersMap = getParametersMap(uriInfo);
+        parametersMap.putAll(result);
+        return this.templateMergeService.compile(template, parametersMap);
+    }
+
+    /**
+     * Merges the template once for each object of the json array posted, with
+     * the fields of the object added to the query parameters, and streams the
+     * documents out as they are merged, separated by page breaks.
+     */
+    @POST
+    @Path("{templateId}/bulkmerge")
+    @Produces({ MediaType.TEXT_HTML })
+    public StreamingOutput bulkMergeTemplate(@PathParam("templateId") final Long templateId, @Context final UriInfo uriInfo,
+            final String apiRequestBodyAsJson) throws IOException {
+
+        this.context.authenticatedUser().validateHasReadPermission(this.RESOURCE_NAME_FOR_PERMISSION);
+
+        final Template template = this.templateService.findOneById(templateId);
+
+        @SuppressWarnings("unchecked")
+        final List<Map<String, Object>> entities = new ObjectMapper().readValue(apiRequestBodyAsJson, ArrayList.class);
+
+        final Map<String, Object> parametersMap = getParametersMap(uriInfo);
+
+        return new StreamingOutput() {
+
+            @Override
+            public void write(final OutputStream output) throws IOException {
+                final Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+                for (int i = 0; i < entities.size(); i++) {
+                    if (i > 0) {
+                        writer.write(DOCUMENT_SEPARATOR);
+                    }
+                    final Map<String, Object> scopes = new HashMap<>(parametersMap);
+                    scopes.putAll(entities.get(i));
+                    TemplatesApiResource.this.templateMergeService.merge(template, scopes, writer);
+                    writer.flush();
+                }
+            }
+        };
+    }
+
+    private static Map<String, Object> getParametersMap(final UriInfo uriInfo) {
+
         final MultivaluedMap<String, String> parameters = uriInfo.getQueryParameters();
         final Map<String, Object> parametersMap = new HashMap<>();
         for (final Map.Entry<String, List<String>> entry : parameters.entrySet()) {
@@ -194,7 +246,6 @@ public class TemplatesApiResource {
         }
 
         parametersMap.put("BASE_URI", uriInfo.getBaseUri());
-        parametersMap.putAll(result);
-        return this.templateMergeService.compile(template, parametersMap);
+        return parametersMap;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,213 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.template.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.xml.bind.DatatypeConverter;
+
+import org.apache.commons.lang3.StringUtils;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationContext;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+
+import com.sun.jersey.api.uri.UriComponent;
+
+/**
+ * Resolves the urls of template mappers into the data they point to.
+ *
+ * Urls of this platform's api are dispatched in process to the
+ * <code>GET</code> method of the api resource serving them, on the thread
+ * merging the template and so with the user and tenant of that request. Only
+ * urls of other servers and the odd url no resource method can be matched to
+ * are still fetched over http, with the credentials of the user only for
+ * urls of the api.
+ */
+@Service
+public class TemplateMapperResolver {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final ApplicationContext applicationContext;
+
+    private volatile Map<String, List<TemplateMapperRoute>> routes;
+
+    @Autowired
+    public TemplateMapperResolver(final ApplicationContext applicationContext) {
+        this.applicationContext = applicationContext;
+    }
+
+    /**
+     * @param url
+     *            absolute url or one relative to the base uri of the api
+     * @param baseUri
+     *            base uri of the api the template is merged through
+     */
+    public Map<String, Object> resolve(final String url, final String baseUri) throws IOException {
+
+        String relativeUrl = null;
+        if (!url.startsWith("http")) {
+            relativeUrl = url;
+        } else if (baseUri != null && url.startsWith(baseUri)) {
+            relativeUrl = url.substring(baseUri.length());
+        }
+
+        if (relativeUrl == null) { return fetch(url, baseUri); }
+
+        final Map<String, Object> result = dispatch(relativeUrl, baseUri);
+        if (result != null) { return result; }
+
+        if (baseUri == null) { throw new MalformedURLException("No base uri to resolve " + url + " against"); }
+        return fetch(baseUri + relativeUrl, baseUri);
+    }
+
+    /**
+     * @return null when no api resource serves the url
+     */
+    private Map<String, Object> dispatch(final String relativeUrl, final String baseUri) throws IOException {
+
+        final int queryStart = relativeUrl.indexOf('?');
+        final String path = StringUtils.stripStart(queryStart < 0 ? relativeUrl : relativeUrl.substring(0, queryStart), "/");
+        final String query = queryStart < 0 ? null : relativeUrl.substring(queryStart + 1);
+
+        final String[] segments = TemplateMapperRoute.split(path);
+        if (segments.length == 0) { return null; }
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = UriComponent.decode(segments[i], UriComponent.Type.PATH_SEGMENT);
+        }
+
+        final List<TemplateMapperRoute> candidates = routes().get(segments[0]);
+        if (candidates == null) { return null; }
+
+        // like Jersey prefer literal segments over parameters, so that
+        // loans/template is not taken for the loan with id 'template'
+        TemplateMapperRoute route = null;
+        MultivaluedMap<String, String> pathParameters = null;
+        for (final TemplateMapperRoute candidate : candidates) {
+            final MultivaluedMap<String, String> candidatePathParameters = candidate.match(segments);
+            if (candidatePathParameters != null && (route == null || candidate.literalSegments() > route.literalSegments())) {
+                route = candidate;
+                pathParameters = candidatePathParameters;
+            }
+        }
+        if (route == null) { return null; }
+
+        final TemplateMapperUriInfo uriInfo = new TemplateMapperUriInfo(URI.create(baseUri == null ? "/" : baseUri), path, query,
+                pathParameters, route.resource());
+        try {
+            return toMap(route.invoke(pathParameters, uriInfo), route.isPlainText());
+        } catch (final InvocationTargetException e) {
+            throw new IOException("Failed to retrieve " + relativeUrl, e.getCause());
+        } catch (final IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Map<String, List<TemplateMapperRoute>> routes() {
+        Map<String, List<TemplateMapperRoute>> routes = this.routes;
+        if (routes == null) {
+            routes = new HashMap<>();
+            for (final Object resource : this.applicationContext.getBeansWithAnnotation(Path.class).values()) {
+                final Class<?> resourceClass = AopUtils.getTargetClass(resource);
+                if (!resourceClass.isAnnotationPresent(Path.class)) {
+                    continue;
+                }
+                for (final Method method : resourceClass.getMethods()) {
+                    if (!method.isAnnotationPresent(GET.class) || !String.class.equals(method.getReturnType())) {
+                        continue;
+                    }
+                    final TemplateMapperRoute route = TemplateMapperRoute.from(resource, resourceClass, method);
+                    if (route == null) {
+                        continue;
+                    }
+                    List<TemplateMapperRoute> rootRoutes = routes.get(route.root());
+                    if (rootRoutes == null) {
+                        rootRoutes = new ArrayList<>();
+                        routes.put(route.root(), rootRoutes);
+                    }
+                    rootRoutes.add(route);
+                }
+            }
+            this.routes = routes;
+        }
+        return routes;
+    }
+
+    /**
+     * Only urls of the api itself get the credentials of the user and, as the
+     * api may run with a self signed certificate, relaxed certificate checks;
+     * urls of other servers are fetched anonymously with the usual checks.
+     */
+    private Map<String, Object> fetch(final String url, final String baseUri) throws IOException {
+
+        final boolean apiUrl = baseUri != null && url.startsWith(baseUri);
+        final HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        if (apiUrl) {
+            try {
+                TrustModifier.relaxHostChecking(connection);
+            } catch (final GeneralSecurityException e) {
+                throw new IOException(e);
+            }
+        }
+        connection.setDoInput(true);
+
+        // per connection rather than through Authenticator.setDefault, which
+        // would hand these credentials to every connection of the jvm
+        final Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (apiUrl && authentication != null && authentication.getCredentials() != null) {
+            final String credentials = authentication.getName() + ":" + authentication.getCredentials();
+            connection.setRequestProperty("Authorization",
+                    "Basic " + DatatypeConverter.printBase64Binary(credentials.getBytes(StandardCharsets.UTF_8)));
+        }
+
+        final String response = getStringFromInputStream(connection.getInputStream());
+        return toMap(response, "text/plain".equals(connection.getContentType()));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> toMap(final String response, final boolean plainText) throws IOException {
+        if (plainText) {
+            final Map<String, Object> result = new HashMap<>();
+            result.put("src", response);
+            return result;
+        }
+        return objectMapper.readValue(response, HashMap.class);
+    }
+
+    private static String getStringFromInputStream(final InputStream is) throws IOException {
+
+        final StringBuilder sb = new StringBuilder();
+        try (BufferedReader br = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                sb.append(line);
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,204 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.template.service;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.ws.rs.DefaultValue;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.UriInfo;
+
+import org.apache.commons.lang3.ClassUtils;
+import org.apache.commons.lang3.StringUtils;
+
+import com.sun.jersey.core.util.MultivaluedMapImpl;
+
+/**
+ * A <code>GET</code> method of an api resource returning its response as a
+ * string, matched against template mapper urls the way Jersey would match it
+ * against request paths and invoked with the parameters it declares.
+ */
+final class TemplateMapperRoute {
+
+    private final Object resource;
+    private final Method method;
+    private final String[] segments;
+    private final int literalSegments;
+    private final boolean plainText;
+
+    /**
+     * @return the route or null when the path of the method uses regular
+     *         expressions or templates inside of segments, which mapper urls
+     *         are not dispatched to
+     */
+    static TemplateMapperRoute from(final Object resource, final Class<?> resourceClass, final Method method) {
+        final String classPath = resourceClass.getAnnotation(Path.class).value();
+        final Path methodPath = method.getAnnotation(Path.class);
+        final String path = methodPath == null ? classPath : classPath + "/" + methodPath.value();
+
+        // parameters are kept by their name and literal segments prefixed
+        // with a slash, which a parameter name can not start with
+        final String[] segments = split(path);
+        int literalSegments = 0;
+        for (int i = 0; i < segments.length; i++) {
+            final String segment = segments[i];
+            if (segment.startsWith("{") && segment.endsWith("}") && segment.indexOf(':') < 0) {
+                segments[i] = segment.substring(1, segment.length() - 1).trim();
+            } else if (segment.indexOf('{') >= 0) {
+                return null;
+            } else {
+                segments[i] = "/" + segment;
+                literalSegments++;
+            }
+        }
+
+        Produces produces = method.getAnnotation(Produces.class);
+        if (produces == null) {
+            produces = resourceClass.getAnnotation(Produces.class);
+        }
+        final boolean plainText = produces != null && Arrays.asList(produces.value()).contains(MediaType.TEXT_PLAIN);
+
+        return new TemplateMapperRoute(resource, method, segments, literalSegments, plainText);
+    }
+
+    static String[] split(final String path) {
+        final String trimmed = StringUtils.strip(path, "/");
+        if (trimmed.isEmpty()) { return new String[0]; }
+        return trimmed.split("/+");
+    }
+
+    private TemplateMapperRoute(final Object resource, final Method method, final String[] segments, final int literalSegments,
+            final boolean plainText) {
+        this.resource = resource;
+        this.method = method;
+        this.segments = segments;
+        this.literalSegments = literalSegments;
+        this.plainText = plainText;
+    }
+
+    /**
+     * First segment of the path, which is always a literal one as resources
+     * are mounted under their own name.
+     */
+    String root() {
+        return this.segments.length == 0 ? "" : this.segments[0].substring(1);
+    }
+
+    int literalSegments() {
+        return this.literalSegments;
+    }
+
+    boolean isPlainText() {
+        return this.plainText;
+    }
+
+    Object resource() {
+        return this.resource;
+    }
+
+    /**
+     * @return the values of the path parameters or null when the path does not
+     *         belong to this route
+     */
+    MultivaluedMap<String, String> match(final String[] pathSegments) {
+        if (pathSegments.length != this.segments.length) { return null; }
+
+        final MultivaluedMap<String, String> pathParameters = new MultivaluedMapImpl();
+        for (int i = 0; i < pathSegments.length; i++) {
+            final String segment = this.segments[i];
+            if (segment.startsWith("/")) {
+                if (!segment.equals("/" + pathSegments[i])) { return null; }
+            } else {
+                pathParameters.add(segment, pathSegments[i]);
+            }
+        }
+        return pathParameters;
+    }
+
+    String invoke(final MultivaluedMap<String, String> pathParameters, final UriInfo uriInfo) throws InvocationTargetException,
+            IllegalAccessException {
+
+        final MultivaluedMap<String, String> queryParameters = uriInfo.getQueryParameters();
+        final Class<?>[] types = this.method.getParameterTypes();
+        final Annotation[][] annotations = this.method.getParameterAnnotations();
+        final Object[] arguments = new Object[types.length];
+
+        for (int i = 0; i < types.length; i++) {
+            String defaultValue = null;
+            List<String> values = null;
+            boolean context = false;
+            for (final Annotation annotation : annotations[i]) {
+                if (annotation instanceof PathParam) {
+                    values = pathParameters.get(((PathParam) annotation).value());
+                } else if (annotation instanceof QueryParam) {
+                    values = queryParameters.get(((QueryParam) annotation).value());
+                } else if (annotation instanceof DefaultValue) {
+                    defaultValue = ((DefaultValue) annotation).value();
+                } else if (annotation instanceof Context) {
+                    context = true;
+                }
+            }
+
+            if (context) {
+                arguments[i] = UriInfo.class.equals(types[i]) ? uriInfo : null;
+            } else {
+                if ((values == null || values.isEmpty()) && defaultValue != null) {
+                    values = Arrays.asList(defaultValue);
+                }
+                arguments[i] = convertValues(types[i], values);
+            }
+        }
+
+        return (String) this.method.invoke(this.resource, arguments);
+    }
+
+    private static Object convertValues(final Class<?> type, final List<String> values) {
+        final List<String> all = values == null ? new ArrayList<String>() : values;
+        if (Set.class.isAssignableFrom(type)) { return new LinkedHashSet<>(all); }
+        if (Collection.class.isAssignableFrom(type)) { return new ArrayList<>(all); }
+
+        final String value = values == null || values.isEmpty() ? null : values.get(0);
+        if (type.isPrimitive()) {
+            if (value == null) { return boolean.class.equals(type) ? Boolean.FALSE : convertValue(ClassUtils.primitiveToWrapper(type), "0"); }
+            return convertValue(ClassUtils.primitiveToWrapper(type), value);
+        }
+        if (value == null) { return null; }
+        return convertValue(type, value);
+    }
+
+    /**
+     * Converts the way Jersey does for parameter types with a static
+     * <code>valueOf(String)</code> method or a constructor taking a string.
+     */
+    private static Object convertValue(final Class<?> type, final String value) {
+        if (String.class.equals(type)) { return value; }
+        try {
+            try {
+                return type.getMethod("valueOf", String.class).invoke(null, value);
+            } catch (final NoSuchMethodException e) {
+                return type.getConstructor(String.class).newInstance(value);
+            }
+        } catch (final InvocationTargetException e) {
+            throw new IllegalArgumentException("Value '" + value + "' is not a valid " + type.getSimpleName(), e.getCause());
+        } catch (final ReflectiveOperationException e) {
+            throw new IllegalArgumentException("Parameters of type " + type.getName() + " are not supported", e);
+        }
+    }
+}
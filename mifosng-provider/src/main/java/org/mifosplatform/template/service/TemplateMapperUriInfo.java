@@ -0,0 +1,126 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.template.service;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.List;
+
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.PathSegment;
+import javax.ws.rs.core.UriBuilder;
+import javax.ws.rs.core.UriInfo;
+
+import com.sun.jersey.api.uri.UriComponent;
+import com.sun.jersey.core.util.MultivaluedMapImpl;
+
+/**
+ * {@link UriInfo} of a template mapper url handed to the api resource it is
+ * dispatched to in process.
+ */
+final class TemplateMapperUriInfo implements UriInfo {
+
+    private final URI baseUri;
+    private final String path;
+    private final String query;
+    private final MultivaluedMap<String, String> pathParameters;
+    private final Object resource;
+
+    TemplateMapperUriInfo(final URI baseUri, final String path, final String query, final MultivaluedMap<String, String> pathParameters,
+            final Object resource) {
+        this.baseUri = baseUri;
+        this.path = path;
+        this.query = query;
+        this.pathParameters = pathParameters;
+        this.resource = resource;
+    }
+
+    @Override
+    public String getPath() {
+        return getPath(true);
+    }
+
+    @Override
+    public String getPath(final boolean decode) {
+        return decode ? UriComponent.decode(this.path, UriComponent.Type.PATH) : this.path;
+    }
+
+    @Override
+    public List<PathSegment> getPathSegments() {
+        return getPathSegments(true);
+    }
+
+    @Override
+    public List<PathSegment> getPathSegments(final boolean decode) {
+        return UriComponent.decodePath(this.path, decode);
+    }
+
+    @Override
+    public URI getRequestUri() {
+        return getRequestUriBuilder().build();
+    }
+
+    @Override
+    public UriBuilder getRequestUriBuilder() {
+        return getAbsolutePathBuilder().replaceQuery(this.query);
+    }
+
+    @Override
+    public URI getAbsolutePath() {
+        return getAbsolutePathBuilder().build();
+    }
+
+    @Override
+    public UriBuilder getAbsolutePathBuilder() {
+        return getBaseUriBuilder().path(this.path);
+    }
+
+    @Override
+    public URI getBaseUri() {
+        return this.baseUri;
+    }
+
+    @Override
+    public UriBuilder getBaseUriBuilder() {
+        return UriBuilder.fromUri(this.baseUri);
+    }
+
+    @Override
+    public MultivaluedMap<String, String> getPathParameters() {
+        return this.pathParameters;
+    }
+
+    @Override
+    public MultivaluedMap<String, String> getPathParameters(@SuppressWarnings("unused") final boolean decode) {
+        return this.pathParameters;
+    }
+
+    @Override
+    public MultivaluedMap<String, String> getQueryParameters() {
+        return getQueryParameters(true);
+    }
+
+    @Override
+    public MultivaluedMap<String, String> getQueryParameters(final boolean decode) {
+        if (this.query == null) { return new MultivaluedMapImpl(); }
+        return UriComponent.decodeQuery(this.query, decode);
+    }
+
+    @Override
+    public List<String> getMatchedURIs() {
+        return getMatchedURIs(true);
+    }
+
+    @Override
+    public List<String> getMatchedURIs(final boolean decode) {
+        return Collections.singletonList(getPath(decode));
+    }
+
+    @Override
+    public List<Object> getMatchedResources() {
+        return Collections.singletonList(this.resource);
+    }
+}
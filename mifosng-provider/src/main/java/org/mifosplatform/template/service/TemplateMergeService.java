@@ -5,163 +5,156 @@
  */
 package org.mifosplatform.template.service;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.io.StringReader;
 import java.io.StringWriter;
-import java.net.Authenticator;
-import java.net.HttpURLConnection;
+import java.io.Writer;
 import java.net.MalformedURLException;
-import java.net.PasswordAuthentication;
-import java.net.URL;
-import java.security.KeyManagementException;
-import java.security.KeyStoreException;
-import java.security.NoSuchAlgorithmException;
-import java.util.HashMap;
 import java.util.Map;
-
-import org.codehaus.jackson.map.ObjectMapper;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.mifosplatform.infrastructure.cache.data.CacheStatisticsData;
+import org.mifosplatform.infrastructure.cache.service.CacheStatisticsProvider;
+import org.mifosplatform.infrastructure.core.domain.MifosPlatformTenant;
+import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
 import org.mifosplatform.template.domain.Template;
 import org.mifosplatform.template.domain.TemplateFunctions;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import com.github.mustachejava.DefaultMustacheFactory;
 import com.github.mustachejava.Mustache;
 import com.github.mustachejava.MustacheFactory;
 
+/**
+ * Merges templates with the data of their mappers.
+ *
+ * Compiled templates are kept per tenant and template id together with the
+ * text they were compiled from, so that an updated template is compiled again
+ * the first time it is merged after the update.
+ */
 @Service
-public class TemplateMergeService {
+public class TemplateMergeService implements CacheStatisticsProvider {
 
-//    private final FromJsonHelper fromApiJsonHelper;
-    private Map<String, Object> scopes;
+    private final static Logger logger = LoggerFactory.getLogger(TemplateMergeService.class);
 
-//    @Autowired
-//    public TemplateMergeService(final FromJsonHelper fromApiJsonHelper) {
-//        this.fromApiJsonHelper = fromApiJsonHelper;
-//    }
+    private static final int MAX_CACHED_MAPPERS = 1000;
 
-    public String compile(final Template template, final Map<String, Object> scopes) throws MalformedURLException, IOException {
-
-        this.scopes = scopes;
-        this.scopes.put("static", new TemplateFunctions());
+    private final TemplateMapperResolver templateMapperResolver;
+    private final MustacheFactory mustacheFactory = new DefaultMustacheFactory();
 
-        final MustacheFactory mf = new DefaultMustacheFactory();
-        final Mustache mustache = mf.compile(new StringReader(template.getText()), template.getName());
+    private final ConcurrentMap<String, CompiledTemplate> compiledTemplates = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Mustache> compiledMappers = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
 
-        final Map<String, Object> mappers = getCompiledMapFromMappers(template.getMappersAsMap());
-        this.scopes.putAll(mappers);
+    @Autowired
+    public TemplateMergeService(final TemplateMapperResolver templateMapperResolver) {
+        this.templateMapperResolver = templateMapperResolver;
+    }
 
+    public String compile(final Template template, final Map<String, Object> scopes) throws MalformedURLException, IOException {
         final StringWriter stringWriter = new StringWriter();
-        mustache.execute(stringWriter, this.scopes);
-
+        merge(template, scopes, stringWriter);
         return stringWriter.toString();
     }
 
-    private Map<String, Object> getCompiledMapFromMappers(final Map<String, String> data) {
-
-        final MustacheFactory mf = new DefaultMustacheFactory();
+    /**
+     * Writes the merged template to the writer, after adding the data of its
+     * mappers to the scopes.
+     */
+    public void merge(final Template template, final Map<String, Object> scopes, final Writer writer) {
 
-        if (data != null) {
-            for (final Map.Entry<String, String> entry : data.entrySet()) {
+        scopes.put("static", new TemplateFunctions());
 
-                final Mustache mappersMustache = mf.compile(new StringReader(entry.getValue()), "");
-                final StringWriter stringWriter = new StringWriter();
+        final Mustache mustache = compiledTemplate(template);
 
-                mappersMustache.execute(stringWriter, this.scopes);
-                String url = stringWriter.toString();
-                if (!url.startsWith("http")) {
-                    url = this.scopes.get("BASE_URI") + url;
-                }
-                try {
-                    this.scopes.put(entry.getKey(), getMapFromUrl(url));
-                } catch (final MalformedURLException e) {
-                    e.printStackTrace();
-                } catch (final IOException e) {
-                    e.printStackTrace();
-                }
-            }
+        if (template.getMappers() != null) {
+            resolveMappers(template.getMappersAsMap(), scopes);
         }
-        return this.scopes;
+
+        mustache.execute(writer, scopes);
     }
 
-    @SuppressWarnings("unchecked")
-    private Map<String, Object> getMapFromUrl(final String url) throws MalformedURLException, IOException {
+    /**
+     * Mappers are resolved in their order, a mapper url may use data of the
+     * mappers before it.
+     */
+    private void resolveMappers(final Map<String, String> mappers, final Map<String, Object> scopes) {
+
+        final Object baseUri = scopes.get("BASE_URI");
 
-        final HttpURLConnection connection = getConnection(url);
+        for (final Map.Entry<String, String> entry : mappers.entrySet()) {
 
-        final String response = getStringFromInputStream(connection.getInputStream());
-        HashMap<String, Object> result = new HashMap<>();
-        if (connection.getContentType().equals("text/plain")) {
-            result.put("src", response);
-        } else {
-            result = new ObjectMapper().readValue(response, HashMap.class);
+            final StringWriter stringWriter = new StringWriter();
+            compiledMapper(entry.getValue()).execute(stringWriter, scopes);
+            final String url = stringWriter.toString();
+
+            try {
+                scopes.put(entry.getKey(), this.templateMapperResolver.resolve(url, baseUri == null ? null : baseUri.toString()));
+            } catch (final IOException e) {
+                logger.warn("Template mapper " + entry.getKey() + " could not be resolved", e);
+            }
         }
-        return result;
     }
 
-    private HttpURLConnection getConnection(final String url) {
+    private Mustache compiledTemplate(final Template template) {
 
-        final String name = SecurityContextHolder.getContext().getAuthentication().getName();
-        final String password = SecurityContextHolder.getContext().getAuthentication().getCredentials().toString();
+        if (template.getId() == null) {
+            this.misses.incrementAndGet();
+            return this.mustacheFactory.compile(new StringReader(template.getText()), template.getName());
+        }
 
-        Authenticator.setDefault(new Authenticator() {
+        final MifosPlatformTenant tenant = ThreadLocalContextUtil.getTenant();
+        final String key = (tenant == null ? "" : tenant.getTenantIdentifier()) + ":" + template.getId();
 
-            @Override
-            protected PasswordAuthentication getPasswordAuthentication() {
-                return new PasswordAuthentication(name, password.toCharArray());
-            }
-        });
-
-        HttpURLConnection connection = null;
-        try {
-            connection = (HttpURLConnection) new URL(url).openConnection();
-            TrustModifier.relaxHostChecking(connection);
-
-            connection.setDoInput(true);
-
-        } catch (final MalformedURLException e) {
-            e.printStackTrace();
-        } catch (final IOException e) {
-            e.printStackTrace();
-        } catch (final KeyManagementException e) {
-            e.printStackTrace();
-        } catch (final NoSuchAlgorithmException e) {
-            e.printStackTrace();
-        } catch (final KeyStoreException e) {
-            e.printStackTrace();
+        final CompiledTemplate compiledTemplate = this.compiledTemplates.get(key);
+        if (compiledTemplate != null && compiledTemplate.isCompiledFrom(template)) {
+            this.hits.incrementAndGet();
+            return compiledTemplate.mustache;
         }
+        this.misses.incrementAndGet();
 
-        return connection;
+        final Mustache mustache = this.mustacheFactory.compile(new StringReader(template.getText()), template.getName());
+        this.compiledTemplates.put(key, new CompiledTemplate(template.getName(), template.getText(), mustache));
+        return mustache;
     }
 
-    private static String getStringFromInputStream(final InputStream is) {
+    private Mustache compiledMapper(final String mapper) {
+        Mustache mustache = this.compiledMappers.get(mapper);
+        if (mustache == null) {
+            mustache = this.mustacheFactory.compile(new StringReader(mapper), "");
+            if (this.compiledMappers.size() >= MAX_CACHED_MAPPERS) {
+                this.compiledMappers.clear();
+            }
+            this.compiledMappers.put(mapper, mustache);
+        }
+        return mustache;
+    }
 
-        BufferedReader br = null;
-        final StringBuilder sb = new StringBuilder();
+    @Override
+    public CacheStatisticsData retrieveCacheStatistics() {
+        return CacheStatisticsData.instance("templates", this.compiledTemplates.size(), this.hits.get(), this.misses.get());
+    }
 
-        String line;
-        try {
+    private static final class CompiledTemplate {
 
-            br = new BufferedReader(new InputStreamReader(is));
-            while ((line = br.readLine()) != null) {
-                sb.append(line);
-            }
+        private final String name;
+        private final String text;
+        private final Mustache mustache;
 
-        } catch (final IOException e) {
-            // FIXME - HANDLE THIS CASE
-        } finally {
-            if (br != null) {
-                try {
-                    br.close();
-                } catch (final IOException e) {
-                    e.printStackTrace();
-                }
-            }
+        CompiledTemplate(final String name, final String text, final Mustache mustache) {
+            this.name = name;
+            this.text = text;
+            this.mustache = mustache;
         }
 
-        return sb.toString();
+        boolean isCompiledFrom(final Template template) {
+            return this.text.equals(template.getText()) && this.name.equals(template.getName());
+        }
     }
 }
@@ -18,6 +18,7 @@ import org.mifosplatform.infrastructure.core.service.PlatformEmailSendException;
 import org.mifosplatform.infrastructure.core.service.PlatformEmailService;
 import org.mifosplatform.infrastructure.security.domain.BasicPasswordEncodablePlatformUser;
 import org.mifosplatform.infrastructure.security.domain.PlatformUser;
+import org.mifosplatform.infrastructure.security.service.CachingAuthenticationProvider;
 import org.mifosplatform.infrastructure.security.service.PlatformPasswordEncoder;
 import org.mifosplatform.infrastructure.security.service.PlatformSecurityContext;
 import org.mifosplatform.organisation.office.domain.Office;
@@ -60,13 +61,14 @@ public class AppUserWritePlatformServiceJpaRepositoryImpl implements AppUserWrit
     private final StaffRepositoryWrapper staffRepositoryWrapper;
     private final PlatformPasswordEncoder applicationPasswordEncoder;
     private final PlatformEmailService emailService;
+    private final CachingAuthenticationProvider authenticationProvider;
 
     @Autowired
     public AppUserWritePlatformServiceJpaRepositoryImpl(final PlatformSecurityContext context, final AppUserRepository appUserRepository,
             final UserDomainService userDomainService, final OfficeRepository officeRepository, final RoleRepository roleRepository,
             final PlatformPasswordEncoder platformPasswordEncoder, final UserDataValidator fromApiJsonDeserializer,
             final AppUserPreviousPasswordRepository appUserPreviewPasswordRepository, final StaffRepositoryWrapper staffRepositoryWrapper, final PlatformPasswordEncoder applicationPasswordEncoder,
-                                                        final PlatformEmailService emailService) {
+                                                        final PlatformEmailService emailService, final CachingAuthenticationProvider authenticationProvider) {
         this.context = context;
         this.appUserRepository = appUserRepository;
         this.userDomainService = userDomainService;
@@ -78,6 +80,7 @@ public class AppUserWritePlatformServiceJpaRepositoryImpl implements AppUserWrit
         this.staffRepositoryWrapper = staffRepositoryWrapper;
         this.applicationPasswordEncoder = applicationPasswordEncoder;
         this.emailService = emailService;
+        this.authenticationProvider = authenticationProvider;
     }
 
     @Transactional
@@ -149,6 +152,7 @@ public class AppUserWritePlatformServiceJpaRepositoryImpl implements AppUserWrit
             final AppUser userToUpdate = this.appUserRepository.findOne(userId);
 
             if (userToUpdate == null) { throw new UserNotFoundException(userId); }
+            this.authenticationProvider.invalidate();
 
             final Boolean resetPassword = command.booleanObjectValueOfParameterNamed("resetPassword");
 
@@ -275,6 +279,7 @@ public class AppUserWritePlatformServiceJpaRepositoryImpl implements AppUserWrit
 
         final AppUser user = this.appUserRepository.findOne(userId);
         if (user == null || user.isDeleted()) { throw new UserNotFoundException(userId); }
+        this.authenticationProvider.invalidate();
 
         user.delete();
         this.appUserRepository.save(user);
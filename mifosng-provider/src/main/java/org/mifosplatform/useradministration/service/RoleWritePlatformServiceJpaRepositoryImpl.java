@@ -13,6 +13,7 @@ import org.mifosplatform.infrastructure.core.api.JsonCommand;
 import org.mifosplatform.infrastructure.core.data.CommandProcessingResult;
 import org.mifosplatform.infrastructure.core.data.CommandProcessingResultBuilder;
 import org.mifosplatform.infrastructure.core.exception.PlatformDataIntegrityException;
+import org.mifosplatform.infrastructure.security.service.CachingAuthenticationProvider;
 import org.mifosplatform.infrastructure.security.service.PlatformSecurityContext;
 import org.mifosplatform.useradministration.command.PermissionExpressionsCommand;
 import org.mifosplatform.useradministration.command.PermissionsCommand;
@@ -43,18 +44,21 @@ public class RoleWritePlatformServiceJpaRepositoryImpl implements RoleWritePlatf
     private final RoleDataValidator roleCommandFromApiJsonDeserializer;
     private final PermissionsCommandFromApiJsonDeserializer permissionsFromApiJsonDeserializer;
     private final PermissionExpressionsCommandFromApiJsonDeserializer permissionExpressionsFromApiJsonDeserializer;
+    private final CachingAuthenticationProvider authenticationProvider;
 
     @Autowired
     public RoleWritePlatformServiceJpaRepositoryImpl(final PlatformSecurityContext context, final RoleRepository roleRepository,
             final PermissionRepository permissionRepository, final RoleDataValidator roleCommandFromApiJsonDeserializer,
             final PermissionsCommandFromApiJsonDeserializer fromApiJsonDeserializer,
-            final PermissionExpressionsCommandFromApiJsonDeserializer expressionsFromApiJsonDeserializer) {
+            final PermissionExpressionsCommandFromApiJsonDeserializer expressionsFromApiJsonDeserializer,
+            final CachingAuthenticationProvider authenticationProvider) {
         this.context = context;
         this.roleRepository = roleRepository;
         this.permissionRepository = permissionRepository;
         this.roleCommandFromApiJsonDeserializer = roleCommandFromApiJsonDeserializer;
         this.permissionsFromApiJsonDeserializer = fromApiJsonDeserializer;
         this.permissionExpressionsFromApiJsonDeserializer = expressionsFromApiJsonDeserializer;
+        this.authenticationProvider = authenticationProvider;
     }
 
     @Transactional
@@ -113,6 +117,7 @@ public class RoleWritePlatformServiceJpaRepositoryImpl implements RoleWritePlatf
 
             final Role role = this.roleRepository.findOne(roleId);
             if (role == null) { throw new RoleNotFoundException(roleId); }
+            this.authenticationProvider.invalidate();
 
             final Map<String, Object> changes = role.update(command);
             if (!changes.isEmpty()) {
@@ -140,6 +145,7 @@ public class RoleWritePlatformServiceJpaRepositoryImpl implements RoleWritePlatf
 
         final Role role = this.roleRepository.findOne(roleId);
         if (role == null) { throw new RoleNotFoundException(roleId); }
+        this.authenticationProvider.invalidate();
 
         final Collection<Permission> allPermissions = this.permissionRepository.findAll();
 
@@ -178,6 +184,7 @@ public class RoleWritePlatformServiceJpaRepositoryImpl implements RoleWritePlatf
 
         final Role role = this.roleRepository.findOne(roleId);
         if (role == null) { throw new RoleNotFoundException(roleId); }
+        this.authenticationProvider.invalidate();
 
         final Collection<Permission> allPermissions = this.permissionRepository.findAll();
 
@@ -0,0 +1,16 @@
+CREATE TABLE `m_loan_summary_refresh_checkpoint` (
+  `id` BIGINT(20) NOT NULL AUTO_INCREMENT,
+  `watermark` DATETIME NULL DEFAULT NULL,
+  `run_started_on` DATETIME NULL DEFAULT NULL,
+  `last_loan_id` BIGINT(20) NULL DEFAULT NULL,
+  `in_progress` TINYINT(1) NOT NULL DEFAULT '0',
+  PRIMARY KEY (`id`)
+)
+COLLATE='utf8_general_ci'
+ENGINE=InnoDB;
+
+INSERT INTO `m_loan_summary_refresh_checkpoint` (`id`, `watermark`, `run_started_on`, `last_loan_id`, `in_progress`) VALUES (1, NULL, NULL, NULL, 0);
+
+ALTER TABLE `m_loan_repayment_schedule` ADD INDEX `IDX_loan_id_lastmodified_date` (`loan_id`, `lastmodified_date`);
+
+ALTER TABLE `job_run_history` ADD COLUMN `run_metrics` VARCHAR(500) NULL DEFAULT NULL AFTER `error_log`;
@@ -0,0 +1,5 @@
+ALTER TABLE `job`
+	ADD COLUMN `chunk_size` INT(11) NULL DEFAULT NULL AFTER `is_misfired`,
+	ADD COLUMN `thread_count` INT(11) NULL DEFAULT NULL AFTER `chunk_size`;
+
+UPDATE `job` SET `chunk_size`=100, `thread_count`=4 WHERE `name`='Post Interest For Savings';
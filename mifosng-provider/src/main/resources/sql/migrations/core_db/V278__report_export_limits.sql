@@ -0,0 +1,5 @@
+INSERT INTO `c_configuration` (`id`, `name`, `value`, `enabled`, `description`)
+VALUES (NULL, 'report-export-max-rows', '1000000', '0', "Maximum number of rows a streamed report export (CSV or stream=true) writes before it is aborted. Disabled by default, so reports of any size are exported.");
+
+INSERT INTO `c_configuration` (`id`, `name`, `value`, `enabled`, `description`)
+VALUES (NULL, 'report-export-timeout-seconds', '900', '0', "Number of seconds after which a streamed report export (CSV or stream=true) is aborted. Disabled by default, so exports run until they complete.");
@@ -0,0 +1,27 @@
+-- -----------------------------------------------------
+-- Table `m_hook_event_outbox`
+-- -----------------------------------------------------
+CREATE TABLE IF NOT EXISTS `m_hook_event_outbox` (
+  `id` BIGINT(20) NOT NULL AUTO_INCREMENT,
+  `hook_id` BIGINT(20) NOT NULL,
+  `entity_name` VARCHAR(45) NOT NULL,
+  `action_name` VARCHAR(45) NOT NULL,
+  `payload` LONGTEXT NOT NULL,
+  `appuser_id` BIGINT(20) NULL DEFAULT NULL,
+  `status_enum` SMALLINT(5) NOT NULL,
+  `attempts` INT(11) NOT NULL DEFAULT 0,
+  `next_attempt_on` DATETIME NOT NULL,
+  `claim_token` VARCHAR(36) NULL DEFAULT NULL,
+  `last_error` VARCHAR(500) NULL DEFAULT NULL,
+  `created_on` DATETIME NOT NULL,
+  `delivered_on` DATETIME NULL DEFAULT NULL,
+  PRIMARY KEY (`id`),
+  INDEX `IDX_status_next_attempt` (`status_enum`, `next_attempt_on`),
+  INDEX `fk_hook_id_outbox_idx` (`hook_id` ASC),
+  CONSTRAINT `fk_hook_id_outbox`
+    FOREIGN KEY (`hook_id`)
+    REFERENCES `m_hook` (`id`)
+    ON DELETE CASCADE)
+ENGINE = InnoDB DEFAULT CHARSET=utf8;
+
+INSERT INTO `job` (`name`, `display_name`, `cron_expression`, `create_time`, `task_priority`, `group_name`, `previous_run_start_time`, `next_run_time`, `job_key`, `initializing_errorlog`, `is_active`, `currently_running`, `updates_allowed`, `scheduler_group`, `is_misfired`) VALUES ('Deliver Hook Events', 'Deliver Hook Events', '0 0/1 * 1/1 * ? *', now(), 5, NULL, NULL, NULL, NULL, NULL, 1, 0, 1, 0, 0);
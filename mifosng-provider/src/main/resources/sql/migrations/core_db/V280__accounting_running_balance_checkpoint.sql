@@ -0,0 +1,21 @@
+-- last calculated journal entry and its running balance for every office and
+-- gl account, rows with office_id 0 hold the organization running balance
+CREATE TABLE `acc_gl_running_balance_checkpoint` (
+  `office_id` BIGINT(20) NOT NULL,
+  `account_id` BIGINT(20) NOT NULL,
+  `last_entry_date` DATE NOT NULL,
+  `last_entry_id` BIGINT(20) NOT NULL,
+  `running_balance` DECIMAL(19,6) NOT NULL,
+  PRIMARY KEY (`office_id`, `account_id`),
+  INDEX `IDX_account_id` (`account_id`)
+)
+COLLATE='utf8_general_ci'
+ENGINE=InnoDB;
+
+ALTER TABLE `acc_gl_journal_entry`
+	ADD INDEX `IDX_running_balance_calculated` (`is_running_balance_calculated`, `entry_date`, `id`),
+	ADD INDEX `IDX_account_entry_date` (`account_id`, `entry_date`, `id`),
+	ADD INDEX `IDX_office_account_entry_date` (`office_id`, `account_id`, `entry_date`, `id`);
+
+UPDATE `job` SET `chunk_size`=1000 WHERE `name`='Update Accounting Running Balances';
+UPDATE `job` SET `cron_expression`='0 0/5 * 1/1 * ? *' WHERE `name`='Update Accounting Running Balances' AND `cron_expression`='0 1 0 1/1 * ? *';
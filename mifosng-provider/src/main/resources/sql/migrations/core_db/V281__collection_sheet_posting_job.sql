@@ -0,0 +1,15 @@
+-- collection sheets saved with async=true, so their outcome can be read from
+-- any node and after a restart
+CREATE TABLE `m_collection_sheet_posting_job` (
+  `id` VARCHAR(36) NOT NULL,
+  `user_id` BIGINT(20) NOT NULL,
+  `status` VARCHAR(20) NOT NULL,
+  `submitted_on` DATETIME NOT NULL,
+  `completed_on` DATETIME NULL DEFAULT NULL,
+  `result_json` TEXT NULL,
+  `error_json` TEXT NULL,
+  PRIMARY KEY (`id`),
+  INDEX `IDX_submitted_on` (`submitted_on`)
+)
+COLLATE='utf8_general_ci'
+ENGINE=InnoDB;
@@ -0,0 +1,32 @@
+-- whole values and suffixes of the searchable columns of clients, groups,
+-- loans, savings accounts and client identifiers, see
+-- SearchIndexWritePlatformServiceImpl
+CREATE TABLE `m_search_index_term` (
+  `id` BIGINT(20) NOT NULL AUTO_INCREMENT,
+  `entity_type` VARCHAR(20) NOT NULL,
+  `entity_id` BIGINT(20) NOT NULL,
+  `office_id` BIGINT(20) NOT NULL,
+  `term` VARCHAR(100) NOT NULL,
+  `is_full_value` TINYINT(1) NOT NULL,
+  PRIMARY KEY (`id`),
+  INDEX `IDX_term` (`term`, `entity_type`, `entity_id`, `office_id`, `is_full_value`),
+  INDEX `IDX_entity` (`entity_type`, `entity_id`)
+)
+COLLATE='utf8_general_ci'
+ENGINE=InnoDB;
+
+-- progress of the Update Search Index job through each entity, search uses
+-- the index once every entity was indexed completely
+CREATE TABLE `m_search_index_backfill` (
+  `entity_type` VARCHAR(20) NOT NULL,
+  `last_entity_id` BIGINT(20) NOT NULL DEFAULT 0,
+  `is_completed` TINYINT(1) NOT NULL DEFAULT 0,
+  `completed_on` DATETIME NULL DEFAULT NULL,
+  PRIMARY KEY (`entity_type`)
+)
+COLLATE='utf8_general_ci'
+ENGINE=InnoDB;
+
+INSERT INTO `m_search_index_backfill` (`entity_type`) VALUES ('CLIENT'), ('GROUP'), ('LOAN'), ('SAVING'), ('CLIENTIDENTIFIER');
+
+INSERT INTO `job` (`name`, `display_name`, `cron_expression`, `create_time`, `task_priority`, `group_name`, `previous_run_start_time`, `next_run_time`, `job_key`, `initializing_errorlog`, `is_active`, `currently_running`, `updates_allowed`, `scheduler_group`, `is_misfired`) VALUES ('Update Search Index', 'Update Search Index', '0 0/5 * 1/1 * ? *', now(), 5, NULL, NULL, NULL, NULL, NULL, 1, 0, 1, 0, 0);
@@ -0,0 +1,31 @@
+-- -----------------------------------------------------
+-- Table `notification_outbox`
+-- -----------------------------------------------------
+CREATE TABLE IF NOT EXISTS `notification_outbox` (
+  `id` BIGINT(20) NOT NULL AUTO_INCREMENT,
+  `type` VARCHAR(20) NOT NULL,
+  `recipient` VARCHAR(255) NOT NULL,
+  `message` VARCHAR(1000) NOT NULL,
+  `entity_name` VARCHAR(100) NOT NULL,
+  `entity_id` BIGINT(20) NOT NULL,
+  `scheduled_on` DATE NOT NULL,
+  `status_enum` SMALLINT(5) NOT NULL,
+  `attempts` INT(11) NOT NULL DEFAULT 0,
+  `next_attempt_on` DATETIME NOT NULL,
+  `claim_token` VARCHAR(36) NULL DEFAULT NULL,
+  `last_error` VARCHAR(500) NULL DEFAULT NULL,
+  `created_on` DATETIME NOT NULL,
+  `sent_on` DATETIME NULL DEFAULT NULL,
+  PRIMARY KEY (`id`),
+  UNIQUE INDEX `UQ_type_entity_scheduled_on` (`type`, `entity_name`, `entity_id`, `scheduled_on`),
+  INDEX `IDX_status_next_attempt` (`status_enum`, `type`, `next_attempt_on`),
+  INDEX `IDX_claim_token` (`claim_token`),
+  INDEX `IDX_entity` (`entity_name`, `entity_id`, `status_enum`))
+ENGINE = InnoDB DEFAULT CHARSET=utf8;
+
+-- reminder queries anti-join the log on the entity
+ALTER TABLE `notification_log` ADD INDEX `IDX_entity_sent_at` (`entity_name`(100), `entity_id`, `sent_at`);
+
+INSERT IGNORE INTO c_external_service (name, value) VALUES ('sms_outbound_max_per_second', '10');
+
+INSERT INTO `job` (`name`, `display_name`, `cron_expression`, `create_time`, `task_priority`, `group_name`, `previous_run_start_time`, `next_run_time`, `job_key`, `initializing_errorlog`, `is_active`, `currently_running`, `updates_allowed`, `scheduler_group`, `is_misfired`) VALUES ('Send Notifications', 'Send Notifications', '0 0/1 * 1/1 * ? *', now(), 5, NULL, NULL, NULL, NULL, NULL, 1, 0, 1, 0, 0);
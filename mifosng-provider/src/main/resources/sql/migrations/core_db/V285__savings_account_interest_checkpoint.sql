@@ -0,0 +1,19 @@
+-- state of the interest calculation of a savings account at the end of a
+-- posting period, recalculation starts from the latest one that is still
+-- valid instead of from activation
+CREATE TABLE `m_savings_account_interest_checkpoint` (
+  `id` BIGINT(20) NOT NULL AUTO_INCREMENT,
+  `savings_account_id` BIGINT(20) NOT NULL,
+  `checkpoint_date` DATE NOT NULL,
+  `closing_balance` DECIMAL(19,6) NOT NULL,
+  `interest_earned_not_posted` DECIMAL(19,6) NOT NULL,
+  `total_interest_earned` DECIMAL(19,6) NOT NULL,
+  `transaction_count` INT(11) NOT NULL,
+  `reversed_transaction_count` INT(11) NOT NULL,
+  `calculation_parameters` VARCHAR(500) NOT NULL,
+  PRIMARY KEY (`id`),
+  INDEX `FK_savings_interest_checkpoint_savings_account` (`savings_account_id`),
+  CONSTRAINT `FK_savings_interest_checkpoint_savings_account` FOREIGN KEY (`savings_account_id`) REFERENCES `m_savings_account` (`id`)
+)
+COLLATE='utf8_general_ci'
+ENGINE=InnoDB;
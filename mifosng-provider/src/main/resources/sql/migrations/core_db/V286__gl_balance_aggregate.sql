@@ -0,0 +1,25 @@
+-- debits and credits of every gl account, office, currency and entry date,
+-- summed up from the journal entries by the 'Update GL Balance Aggregates'
+-- job, which flags the entries it has added; the base amounts are converted
+-- with the exchange rate of each entry, as the trial balance and income
+-- statement reports sum them
+CREATE TABLE `acc_gl_balance_aggregate` (
+  `account_id` BIGINT(20) NOT NULL,
+  `office_id` BIGINT(20) NOT NULL,
+  `currency_code` VARCHAR(3) NOT NULL,
+  `entry_date` DATE NOT NULL,
+  `debit_amount` DECIMAL(19,6) NOT NULL,
+  `credit_amount` DECIMAL(19,6) NOT NULL,
+  `base_debit_amount` DECIMAL(35,16) NOT NULL,
+  `base_credit_amount` DECIMAL(35,16) NOT NULL,
+  PRIMARY KEY (`account_id`, `office_id`, `currency_code`, `entry_date`),
+  INDEX `IDX_entry_date` (`entry_date`)
+)
+COLLATE='utf8_general_ci'
+ENGINE=InnoDB;
+
+ALTER TABLE `acc_gl_journal_entry`
+	ADD COLUMN `is_aggregated` TINYINT(1) NOT NULL DEFAULT '0',
+	ADD INDEX `IDX_aggregated` (`is_aggregated`, `id`);
+
+INSERT INTO `job` (`name`, `display_name`, `cron_expression`, `create_time`, `task_priority`, `group_name`, `previous_run_start_time`, `next_run_time`, `job_key`, `initializing_errorlog`, `is_active`, `currently_running`, `updates_allowed`, `scheduler_group`, `is_misfired`, `chunk_size`) VALUES ('Update GL Balance Aggregates', 'Update GL Balance Aggregates', '0 0/5 * 1/1 * ? *', now(), 5, NULL, NULL, NULL, NULL, NULL, 1, 0, 1, 0, 0, 10000);
@@ -0,0 +1,271 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.accounting.journalentry.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.joda.time.LocalDate;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mifosplatform.accounting.journalentry.domain.JournalEntryType;
+import org.mifosplatform.common.MockedDatabase;
+import org.mifosplatform.infrastructure.core.service.RoutingDataSource;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+/**
+ * Runs {@link GLBalanceAggregateReadPlatformServiceImpl} against in memory
+ * aggregates, journal entries and offices, binding each parameter of the
+ * statement to the condition it appears in, and checks that balances are the
+ * aggregates plus the entries not aggregated yet, within the dates and office
+ * hierarchy asked for.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class GLBalanceAggregateReadPlatformServiceImplTest {
+
+    private static final Pattern CONDITION = Pattern.compile("([\\w.]+) (<=|>|=) $");
+    private static final LocalDate DAY = new LocalDate(2014, 10, 17);
+    private static final long CASH = 10;
+    private static final long INCOME = 20;
+    private static final long HEAD_OFFICE = 1;
+    private static final long BRANCH = 2;
+    private static final long SUB_BRANCH = 3;
+    private static final long OTHER_BRANCH = 4;
+
+    @Mock
+    private RoutingDataSource dataSource;
+
+    private final Map<Long, String> glCodes = new HashMap<>();
+    private final Map<Long, String> officeHierarchies = new HashMap<>();
+    private final List<Row> aggregates = new ArrayList<>();
+    private final List<Row> journal = new ArrayList<>();
+
+    private GLBalanceAggregateReadPlatformServiceImpl service;
+
+    @Before
+    public void setUp() throws Exception {
+        this.glCodes.put(CASH, "1001");
+        this.glCodes.put(INCOME, "4001");
+        this.officeHierarchies.put(HEAD_OFFICE, ".");
+        this.officeHierarchies.put(BRANCH, ".2.");
+        this.officeHierarchies.put(SUB_BRANCH, ".2.3.");
+        this.officeHierarchies.put(OTHER_BRANCH, ".4.");
+
+        new BalanceDatabase().connect(this.dataSource);
+
+        this.service = new GLBalanceAggregateReadPlatformServiceImpl(this.dataSource);
+    }
+
+    @Test
+    public void balancesShouldAddEntriesNotAggregatedToAggregates() {
+        aggregated(BRANCH, DAY, "100");
+        pending(BRANCH, DAY, "30");
+
+        final Map<String, BigDecimal> balances = this.service.retrieveBalancesByGLCode(null, DAY, null);
+
+        assertBalances(balances, "130");
+    }
+
+    @Test
+    public void balancesShouldOnlyAddPendingEntriesWhenNothingIsAggregated() {
+        pending(BRANCH, DAY, "30");
+        pending(OTHER_BRANCH, DAY.minusDays(3), "12.5");
+
+        final Map<String, BigDecimal> balances = this.service.retrieveBalancesByGLCode(null, DAY, null);
+
+        assertBalances(balances, "42.5");
+    }
+
+    @Test
+    public void balancesShouldIncludeEndDateAndExcludeStartDate() {
+        aggregated(BRANCH, DAY.minusDays(1), "1000");
+        aggregated(BRANCH, DAY, "100");
+        aggregated(BRANCH, DAY.plusDays(1), "2000");
+        pending(BRANCH, DAY.minusDays(1), "3000");
+        pending(BRANCH, DAY, "30");
+        pending(BRANCH, DAY.plusDays(1), "4000");
+
+        assertBalances(this.service.retrieveBalancesByGLCode(DAY.minusDays(1), DAY, null), "130");
+        assertBalances(this.service.retrieveBalancesByGLCode(null, DAY, null), "4130");
+    }
+
+    @Test
+    public void officeShouldIncludeOfficesBelowIt() {
+        aggregated(HEAD_OFFICE, DAY, "1");
+        aggregated(BRANCH, DAY, "10");
+        pending(SUB_BRANCH, DAY, "100");
+        aggregated(OTHER_BRANCH, DAY, "1000");
+        pending(OTHER_BRANCH, DAY, "10000");
+
+        assertBalances(this.service.retrieveBalancesByGLCode(null, DAY, BRANCH), "110");
+        assertBalances(this.service.retrieveBalancesByGLCode(null, DAY, SUB_BRANCH), "100");
+        assertBalances(this.service.retrieveBalancesByGLCode(null, DAY, OTHER_BRANCH), "11000");
+        assertBalances(this.service.retrieveBalancesByGLCode(null, DAY, HEAD_OFFICE), "11111");
+    }
+
+    @Test
+    public void accountsWithoutEntriesShouldNotBeListed() {
+        final Map<String, BigDecimal> balances = this.service.retrieveBalancesByGLCode(null, DAY, BRANCH);
+
+        assertTrue(balances.isEmpty());
+    }
+
+    /**
+     * Cash was debited and income credited by the amount.
+     */
+    private static void assertBalances(final Map<String, BigDecimal> balances, final String amount) {
+        final Map<String, BigDecimal> expected = new TreeMap<>();
+        expected.put("1001", new BigDecimal(amount));
+        expected.put("4001", new BigDecimal(amount).negate());
+        final Map<String, BigDecimal> actual = new TreeMap<>();
+        for (final Map.Entry<String, BigDecimal> balance : balances.entrySet()) {
+            actual.put(balance.getKey(), balance.getValue().stripTrailingZeros());
+        }
+        for (final Map.Entry<String, BigDecimal> balance : expected.entrySet()) {
+            balance.setValue(balance.getValue().stripTrailingZeros());
+        }
+        assertEquals(expected, actual);
+    }
+
+    /**
+     * Aggregates a debit to cash and a credit to income, keeping the entries
+     * they were aggregated from in the journal as the job does.
+     */
+    private void aggregated(final long officeId, final LocalDate date, final String amount) {
+        this.aggregates.add(new Row(CASH, officeId, date, JournalEntryType.DEBIT, amount));
+        this.aggregates.add(new Row(INCOME, officeId, date, JournalEntryType.CREDIT, amount));
+        this.journal.add(new Row(CASH, officeId, date, JournalEntryType.DEBIT, amount).aggregated());
+        this.journal.add(new Row(INCOME, officeId, date, JournalEntryType.CREDIT, amount).aggregated());
+    }
+
+    /**
+     * Posts a debit to cash and a credit to income the job has not reached
+     * yet.
+     */
+    private void pending(final long officeId, final LocalDate date, final String amount) {
+        this.journal.add(new Row(CASH, officeId, date, JournalEntryType.DEBIT, amount));
+        this.journal.add(new Row(INCOME, officeId, date, JournalEntryType.CREDIT, amount));
+    }
+
+    private static final class Row {
+
+        private final long accountId;
+        private final long officeId;
+        private final java.sql.Date entryDate;
+        private final JournalEntryType type;
+        private final BigDecimal amount;
+        private boolean aggregated;
+
+        Row(final long accountId, final long officeId, final LocalDate entryDate, final JournalEntryType type, final String amount) {
+            this.accountId = accountId;
+            this.officeId = officeId;
+            this.entryDate = new java.sql.Date(entryDate.toDate().getTime());
+            this.type = type;
+            this.amount = new BigDecimal(amount);
+        }
+
+        Row aggregated() {
+            this.aggregated = true;
+            return this;
+        }
+
+        BigDecimal balance() {
+            return this.type == JournalEntryType.DEBIT ? this.amount : this.amount.negate();
+        }
+    }
+
+    /**
+     * Answers the balance query from the in memory tables. Each parameter is
+     * applied to the condition in front of its placeholder, so a parameter
+     * bound to the wrong placeholder changes the result.
+     */
+    private final class BalanceDatabase extends MockedDatabase {
+
+        @Override
+        protected List<Map<String, Object>> query(final String sql, final List<Object> parameters) {
+            assertTrue(sql, sql.startsWith("select gl.gl_code as glCode, sum(b.debit_amount) - sum(b.credit_amount) as balance from ("));
+            assertTrue(sql, sql.contains(" from acc_gl_balance_aggregate a where "));
+            assertTrue(sql, sql.contains(" union all select je.account_id, je.office_id, "));
+            assertTrue(sql, sql.contains(" from acc_gl_journal_entry je where je.is_aggregated = 0 and "));
+            assertTrue(sql, sql.endsWith("group by gl.gl_code"));
+
+            final Map<String, Object> conditions = conditions(sql, parameters);
+            final List<Row> rows = new ArrayList<>();
+            for (final Row aggregate : GLBalanceAggregateReadPlatformServiceImplTest.this.aggregates) {
+                if (matches(aggregate, "a", conditions)) {
+                    rows.add(aggregate);
+                }
+            }
+            for (final Row entry : GLBalanceAggregateReadPlatformServiceImplTest.this.journal) {
+                if (!entry.aggregated && matches(entry, "je", conditions)) {
+                    rows.add(entry);
+                }
+            }
+
+            final Map<String, BigDecimal> balances = new TreeMap<>();
+            for (final Row row : rows) {
+                if (!inOffice(row, conditions)) {
+                    continue;
+                }
+                final String glCode = GLBalanceAggregateReadPlatformServiceImplTest.this.glCodes.get(row.accountId);
+                final BigDecimal balance = balances.get(glCode);
+                balances.put(glCode, balance == null ? row.balance() : balance.add(row.balance()));
+            }
+
+            final List<Map<String, Object>> result = new ArrayList<>();
+            for (final Map.Entry<String, BigDecimal> balance : balances.entrySet()) {
+                result.add(row("glCode", balance.getKey(), "balance", balance.getValue()));
+            }
+            return result;
+        }
+
+        /**
+         * The value bound to each condition, by column and operator.
+         */
+        private Map<String, Object> conditions(final String sql, final List<Object> parameters) {
+            final Map<String, Object> conditions = new HashMap<>();
+            int parameterIndex = 0;
+            for (int i = sql.indexOf('?'); i >= 0; i = sql.indexOf('?', i + 1)) {
+                final Matcher condition = CONDITION.matcher(sql.substring(0, i));
+                assertTrue(sql, condition.find());
+                final String key = condition.group(1) + " " + condition.group(2);
+                assertTrue(sql, parameterIndex < parameters.size());
+                conditions.put(key, parameters.get(parameterIndex++));
+            }
+            assertEquals(parameters.size(), parameterIndex);
+            if (conditions.containsKey("parent.id =")) {
+                assertTrue(sql, sql.contains("join m_office o on o.id = b.office_id"));
+                assertTrue(sql, sql.contains("o.hierarchy like concat(parent.hierarchy, '%')"));
+            }
+            return conditions;
+        }
+
+        private boolean matches(final Row row, final String alias, final Map<String, Object> conditions) {
+            final java.sql.Date endDate = (java.sql.Date) conditions.get(alias + ".entry_date <=");
+            final java.sql.Date startDate = (java.sql.Date) conditions.get(alias + ".entry_date >");
+            assertTrue(conditions.toString(), endDate != null);
+            return !row.entryDate.after(endDate) && (startDate == null || row.entryDate.after(startDate));
+        }
+
+        private boolean inOffice(final Row row, final Map<String, Object> conditions) {
+            final Long parentId = (Long) conditions.get("parent.id =");
+            if (parentId == null) { return true; }
+            final Map<Long, String> hierarchies = GLBalanceAggregateReadPlatformServiceImplTest.this.officeHierarchies;
+            return hierarchies.get(row.officeId).startsWith(hierarchies.get(parentId));
+        }
+    }
+}
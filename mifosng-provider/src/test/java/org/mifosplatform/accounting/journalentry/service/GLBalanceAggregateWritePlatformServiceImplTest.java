@@ -0,0 +1,413 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.accounting.journalentry.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.joda.time.LocalDate;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mifosplatform.accounting.journalentry.domain.JournalEntryType;
+import org.mifosplatform.common.MockedDatabase;
+import org.mifosplatform.infrastructure.core.domain.MifosPlatformTenant;
+import org.mifosplatform.infrastructure.core.service.RoutingDataSource;
+import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
+import org.mifosplatform.infrastructure.jobs.domain.ScheduledJobDetail;
+import org.mifosplatform.infrastructure.jobs.domain.ScheduledJobDetailRepository;
+import org.mifosplatform.infrastructure.jobs.service.JobName;
+import org.mifosplatform.infrastructure.jobs.service.JobRunMetrics;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Runs {@link GLBalanceAggregateWritePlatformServiceImpl} against an in memory
+ * journal and aggregate table, answering the statements it sends the way
+ * MySQL would, and checks after postings, reversals and deletions that the
+ * aggregates together with the entries not aggregated yet add up to the
+ * journal.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class GLBalanceAggregateWritePlatformServiceImplTest {
+
+    private static final Pattern ENTRY_IDS = Pattern.compile("(?:je\\.)?id in \\(([\\d,]+)\\)");
+    private static final Pattern LIMIT = Pattern.compile("limit (\\d+)");
+    private static final LocalDate DAY = new LocalDate(2014, 10, 17);
+    private static final BigDecimal RATE = new BigDecimal("1.2500000000");
+
+    @Mock
+    private RoutingDataSource dataSource;
+    @Mock
+    private ScheduledJobDetailRepository scheduledJobDetailRepository;
+    @Mock
+    private ScheduledJobDetail jobDetail;
+    @Mock
+    private TransactionTemplate transactionTemplate;
+    @Mock
+    private MifosPlatformTenant tenant;
+
+    private final List<Entry> journal = new ArrayList<>();
+    private final Map<String, BigDecimal[]> aggregates = new TreeMap<>();
+    private long nextEntryId = 1;
+
+    private GLBalanceAggregateWritePlatformServiceImpl service;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() throws Exception {
+        when(this.tenant.getName()).thenReturn("default");
+        ThreadLocalContextUtil.setTenant(this.tenant);
+        when(this.scheduledJobDetailRepository.findByJobName(JobName.UPDATE_GL_BALANCE_AGGREGATES.toString())).thenReturn(
+                this.jobDetail);
+        when(this.jobDetail.getChunkSize()).thenReturn(2);
+        when(this.transactionTemplate.execute(any(TransactionCallback.class))).thenAnswer(new Answer<Object>() {
+
+            @Override
+            public Object answer(final InvocationOnMock invocation) {
+                return ((TransactionCallback<Object>) invocation.getArguments()[0]).doInTransaction(null);
+            }
+        });
+        new JournalDatabase().connect(this.dataSource);
+
+        this.service = new GLBalanceAggregateWritePlatformServiceImpl(this.dataSource, this.scheduledJobDetailRepository,
+                this.transactionTemplate);
+    }
+
+    @After
+    public void tearDown() {
+        ThreadLocalContextUtil.clearTenant();
+    }
+
+    @Test
+    public void jobShouldAggregateAllEntriesInChunks() {
+        post(1, 1, DAY, "100", RATE);
+        post(1, 2, DAY, "40", RATE);
+        post(2, 1, DAY.plusDays(1), "15.5", null);
+        assertEquals(6, this.journal.size());
+
+        final JobRunMetrics metrics = this.service.updateBalanceAggregates();
+
+        assertEquals(Long.valueOf(6), metrics.get("entriesAggregated"));
+        assertEquals(Long.valueOf(3), metrics.get("chunks"));
+        assertAggregatesMatchJournal();
+    }
+
+    @Test
+    public void reversalsShouldKeepAggregatesConsistent() {
+        final List<Entry> disbursement = post(1, 1, DAY, "100", RATE);
+        post(1, 1, DAY, "30", RATE);
+        this.service.updateBalanceAggregates();
+
+        reverse(disbursement, DAY.plusDays(2));
+        assertConsistentWithPendingEntries();
+
+        this.service.updateBalanceAggregates();
+        assertAggregatesMatchJournal();
+        // the reversal nets out over both days
+        assertEquals(0, aggregatedBalance("10|1|").compareTo(new BigDecimal("30")));
+        assertEquals(0, aggregatedBalance("20|1|").compareTo(new BigDecimal("-30")));
+    }
+
+    @Test
+    public void deletionsShouldKeepAggregatesConsistent() {
+        final List<Entry> aggregated = post(1, 1, DAY, "100", RATE);
+        final List<Entry> kept = post(1, 1, DAY, "25", RATE);
+        final List<Entry> alone = post(1, 2, DAY, "60", null);
+        this.service.updateBalanceAggregates();
+        final List<Entry> pending = post(1, 1, DAY, "7", RATE);
+
+        delete(aggregated);
+        delete(pending);
+        assertConsistentWithPendingEntries();
+        delete(alone);
+        assertConsistentWithPendingEntries();
+
+        this.service.updateBalanceAggregates();
+        assertAggregatesMatchJournal();
+        assertTrue(this.aggregates.containsKey(kept.get(0).key()));
+        // office 2 has no entries left, so it has no aggregates either
+        for (final String key : this.aggregates.keySet()) {
+            assertTrue(key, key.split("\\|")[1].equals("1"));
+        }
+    }
+
+    @Test
+    public void deletingEntriesNotAggregatedShouldNotChangeAggregates() {
+        post(1, 1, DAY, "100", RATE);
+        this.service.updateBalanceAggregates();
+        final Map<String, List<BigDecimal>> before = aggregatesCopy();
+
+        delete(post(1, 1, DAY, "50", RATE));
+
+        assertEquals(before, aggregatesCopy());
+        assertAggregatesMatchJournal();
+    }
+
+    /**
+     * Posts a debit to gl account 10 and a credit to gl account 20.
+     */
+    private List<Entry> post(final long officeOffset, final long officeId, final LocalDate date, final String amount,
+            final BigDecimal exchangeRate) {
+        final List<Entry> entries = new ArrayList<>();
+        entries.add(new Entry(this.nextEntryId++, 10 * officeOffset, officeId, new java.sql.Date(date.toDate().getTime()),
+                JournalEntryType.DEBIT, new BigDecimal(amount), exchangeRate));
+        entries.add(new Entry(this.nextEntryId++, 20 * officeOffset, officeId, new java.sql.Date(date.toDate().getTime()),
+                JournalEntryType.CREDIT, new BigDecimal(amount), exchangeRate));
+        this.journal.addAll(entries);
+        return entries;
+    }
+
+    /**
+     * Posts the opposite entries, as reversing a transaction does.
+     */
+    private void reverse(final List<Entry> entries, final LocalDate date) {
+        for (final Entry entry : entries) {
+            this.journal.add(new Entry(this.nextEntryId++, entry.accountId, entry.officeId, new java.sql.Date(date.toDate().getTime()),
+                    entry.type == JournalEntryType.DEBIT ? JournalEntryType.CREDIT : JournalEntryType.DEBIT, entry.amount,
+                    entry.exchangeRate));
+        }
+    }
+
+    /**
+     * Deletes entries the way deleting a manual journal entry does.
+     */
+    private void delete(final List<Entry> entries) {
+        final List<Long> ids = new ArrayList<>();
+        for (final Entry entry : entries) {
+            ids.add(entry.id);
+        }
+        this.service.removeFromBalanceAggregates(ids);
+        this.journal.removeAll(entries);
+    }
+
+    /**
+     * Debits less credits of the aggregates whose key starts with the prefix.
+     */
+    private BigDecimal aggregatedBalance(final String keyPrefix) {
+        BigDecimal balance = BigDecimal.ZERO;
+        for (final Map.Entry<String, BigDecimal[]> aggregate : this.aggregates.entrySet()) {
+            if (aggregate.getKey().startsWith(keyPrefix)) {
+                balance = balance.add(aggregate.getValue()[0]).subtract(aggregate.getValue()[1]);
+            }
+        }
+        return balance;
+    }
+
+    private void assertAggregatesMatchJournal() {
+        for (final Entry entry : this.journal) {
+            assertTrue("Entry " + entry.id + " was not aggregated", entry.aggregated);
+        }
+        assertEquals(normalized(sums(this.journal)), aggregatesCopy());
+    }
+
+    /**
+     * What the reports read: the aggregates plus the entries not aggregated.
+     */
+    private void assertConsistentWithPendingEntries() {
+        final List<Entry> pending = new ArrayList<>();
+        for (final Entry entry : this.journal) {
+            if (!entry.aggregated) {
+                pending.add(entry);
+            }
+        }
+        final Map<String, BigDecimal[]> read = new TreeMap<>();
+        for (final Map.Entry<String, BigDecimal[]> aggregate : this.aggregates.entrySet()) {
+            read.put(aggregate.getKey(), aggregate.getValue().clone());
+        }
+        for (final Map.Entry<String, BigDecimal[]> sum : sums(pending).entrySet()) {
+            add(read, sum.getKey(), sum.getValue(), false);
+        }
+        assertEquals(normalized(sums(this.journal)), normalized(read));
+    }
+
+    private Map<String, List<BigDecimal>> aggregatesCopy() {
+        return normalized(this.aggregates);
+    }
+
+    private static Map<String, List<BigDecimal>> normalized(final Map<String, BigDecimal[]> amounts) {
+        final Map<String, List<BigDecimal>> normalized = new TreeMap<>();
+        for (final Map.Entry<String, BigDecimal[]> amount : amounts.entrySet()) {
+            final List<BigDecimal> values = new ArrayList<>();
+            boolean empty = true;
+            for (final BigDecimal value : amount.getValue()) {
+                values.add(value.setScale(16));
+                empty &= value.signum() == 0;
+            }
+            if (!empty) {
+                normalized.put(amount.getKey(), values);
+            }
+        }
+        return normalized;
+    }
+
+    private static Map<String, BigDecimal[]> sums(final Collection<Entry> entries) {
+        final Map<String, BigDecimal[]> sums = new TreeMap<>();
+        for (final Entry entry : entries) {
+            add(sums, entry.key(), entry.amounts(), false);
+        }
+        return sums;
+    }
+
+    private static void add(final Map<String, BigDecimal[]> amounts, final String key, final BigDecimal[] values, final boolean negate) {
+        BigDecimal[] existing = amounts.get(key);
+        if (existing == null) {
+            existing = new BigDecimal[] { BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO };
+            amounts.put(key, existing);
+        }
+        for (int i = 0; i < existing.length; i++) {
+            existing[i] = existing[i].add(negate ? values[i].negate() : values[i]);
+        }
+    }
+
+    private static final class Entry {
+
+        private final long id;
+        private final long accountId;
+        private final long officeId;
+        private final java.sql.Date entryDate;
+        private final JournalEntryType type;
+        private final BigDecimal amount;
+        private final BigDecimal exchangeRate;
+        private boolean aggregated;
+
+        Entry(final long id, final long accountId, final long officeId, final java.sql.Date entryDate, final JournalEntryType type,
+                final BigDecimal amount, final BigDecimal exchangeRate) {
+            this.id = id;
+            this.accountId = accountId;
+            this.officeId = officeId;
+            this.entryDate = entryDate;
+            this.type = type;
+            this.amount = amount;
+            this.exchangeRate = exchangeRate;
+        }
+
+        String key() {
+            return this.accountId + "|" + this.officeId + "|USD|" + this.entryDate;
+        }
+
+        /**
+         * Debit, credit, base debit and base credit, as the aggregates keep
+         * them.
+         */
+        BigDecimal[] amounts() {
+            final BigDecimal base = this.exchangeRate == null ? BigDecimal.ZERO : this.amount.multiply(this.exchangeRate);
+            final boolean debit = this.type == JournalEntryType.DEBIT;
+            return new BigDecimal[] { debit ? this.amount : BigDecimal.ZERO, debit ? BigDecimal.ZERO : this.amount,
+                    debit ? base : BigDecimal.ZERO, debit ? BigDecimal.ZERO : base };
+        }
+    }
+
+    /**
+     * Answers the statements of the service from the in memory journal and
+     * aggregates.
+     */
+    private final class JournalDatabase extends MockedDatabase {
+
+        @Override
+        protected List<Map<String, Object>> query(final String sql, @SuppressWarnings("unused") final List<Object> parameters) {
+            final List<Map<String, Object>> rows = new ArrayList<>();
+            if (sql.startsWith("select j.id from job j")) {
+                // the job lock, no row is needed
+            } else if (sql.startsWith("select je.id from acc_gl_journal_entry je where je.is_aggregated = 0")) {
+                final Matcher limit = LIMIT.matcher(sql);
+                assertTrue(sql, limit.find());
+                for (final Entry entry : GLBalanceAggregateWritePlatformServiceImplTest.this.journal) {
+                    if (!entry.aggregated && rows.size() < Integer.parseInt(limit.group(1))) {
+                        rows.add(row("id", entry.id));
+                    }
+                }
+            } else {
+                assertTrue(sql, sql.contains("sum(if(je.type_enum = "));
+                final Set<Long> ids = entryIds(sql);
+                final boolean onlyAggregated = sql.contains("je.is_aggregated = 1 and");
+                if (onlyAggregated) {
+                    // the aggregated entries are read past the snapshot of the command
+                    assertTrue(sql, sql.endsWith(" for update"));
+                }
+                final List<Entry> entries = new ArrayList<>();
+                for (final Entry entry : GLBalanceAggregateWritePlatformServiceImplTest.this.journal) {
+                    if (ids.contains(entry.id) && (entry.aggregated || !onlyAggregated)) {
+                        entries.add(entry);
+                    }
+                }
+                final Map<String, Entry> firstOfKey = new HashMap<>();
+                for (final Entry entry : entries) {
+                    if (!firstOfKey.containsKey(entry.key())) {
+                        firstOfKey.put(entry.key(), entry);
+                    }
+                }
+                for (final Map.Entry<String, BigDecimal[]> sum : sums(entries).entrySet()) {
+                    final Entry entry = firstOfKey.get(sum.getKey());
+                    rows.add(row("accountId", entry.accountId, "officeId", entry.officeId, "currencyCode", "USD", "entryDate",
+                            entry.entryDate, "debitAmount", sum.getValue()[0], "creditAmount", sum.getValue()[1], "baseDebitAmount",
+                            sum.getValue()[2], "baseCreditAmount", sum.getValue()[3]));
+                }
+            }
+            return rows;
+        }
+
+        @Override
+        protected int update(final String sql, final List<Object> parameters) {
+            final Map<String, BigDecimal[]> aggregates = GLBalanceAggregateWritePlatformServiceImplTest.this.aggregates;
+            if (sql.startsWith("update acc_gl_journal_entry set is_aggregated = 1")) {
+                final Set<Long> ids = entryIds(sql);
+                int updated = 0;
+                for (final Entry entry : GLBalanceAggregateWritePlatformServiceImplTest.this.journal) {
+                    if (ids.contains(entry.id)) {
+                        entry.aggregated = true;
+                        updated++;
+                    }
+                }
+                return updated;
+            }
+            final String key = parameters.get(0) + "|" + parameters.get(1) + "|" + parameters.get(2) + "|" + parameters.get(3);
+            if (sql.startsWith("insert into acc_gl_balance_aggregate")) {
+                add(aggregates, key, new BigDecimal[] { (BigDecimal) parameters.get(4), (BigDecimal) parameters.get(5),
+                        (BigDecimal) parameters.get(6), (BigDecimal) parameters.get(7) }, false);
+                return 1;
+            }
+            assertTrue(sql, sql.startsWith("delete from acc_gl_balance_aggregate")
+                    && sql.endsWith("debit_amount = 0 and credit_amount = 0"));
+            final BigDecimal[] aggregate = aggregates.get(key);
+            if (aggregate != null && aggregate[0].signum() == 0 && aggregate[1].signum() == 0) {
+                aggregates.remove(key);
+                return 1;
+            }
+            return 0;
+        }
+
+        private Set<Long> entryIds(final String sql) {
+            final Matcher matcher = ENTRY_IDS.matcher(sql);
+            assertTrue(sql, matcher.find());
+            final Set<Long> ids = new HashSet<>();
+            for (final String id : Arrays.asList(matcher.group(1).split(","))) {
+                ids.add(Long.valueOf(id));
+            }
+            return ids;
+        }
+    }
+}
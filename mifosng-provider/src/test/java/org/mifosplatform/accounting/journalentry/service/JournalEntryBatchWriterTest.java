@@ -0,0 +1,332 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.accounting.journalentry.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.Serializable;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.persistence.Column;
+import javax.persistence.JoinColumn;
+
+import org.joda.time.DateTime;
+import org.joda.time.LocalDate;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mifosplatform.accounting.glaccount.domain.GLAccount;
+import org.mifosplatform.accounting.journalentry.domain.JournalEntry;
+import org.mifosplatform.accounting.journalentry.domain.JournalEntryRepository;
+import org.mifosplatform.accounting.journalentry.domain.JournalEntryType;
+import org.mifosplatform.accounting.producttoaccountmapping.domain.PortfolioProductType;
+import org.mifosplatform.infrastructure.core.service.RoutingDataSource;
+import org.mifosplatform.organisation.office.domain.Office;
+import org.mifosplatform.portfolio.loanaccount.domain.Loan;
+import org.mifosplatform.portfolio.loanaccount.domain.LoanTransaction;
+import org.mifosplatform.portfolio.loanaccount.domain.LoanTransactionRepository;
+import org.mifosplatform.portfolio.loanaccount.domain.LoanTransactionType;
+import org.mifosplatform.portfolio.savings.domain.SavingsAccountTransaction;
+import org.mifosplatform.portfolio.savings.domain.SavingsAccountTransactionRepository;
+import org.mifosplatform.useradministration.domain.AppUser;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.data.jpa.domain.AbstractPersistable;
+
+/**
+ * Captures the rows {@link JournalEntryBatchWriter} inserts and compares them,
+ * column by column, with the columns of the {@link JournalEntry} the accounting
+ * bridge used to save through JPA for the same leg.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class JournalEntryBatchWriterTest {
+
+    private static final Long OFFICE_ID = Long.valueOf(3);
+    private static final Long GL_ACCOUNT_ID = Long.valueOf(11);
+    private static final Long USER_ID = Long.valueOf(5);
+    private static final Long LOAN_ID = Long.valueOf(21);
+    private static final Long SAVINGS_ID = Long.valueOf(22);
+    private static final Date TRANSACTION_DATE = new LocalDate(2014, 10, 17).toDate();
+    private static final BigDecimal AMOUNT = new BigDecimal("125.500000");
+    private static final List<String> AUDIT_DATE_COLUMNS = Arrays.asList("created_date", "lastmodified_date");
+
+    @Mock
+    private RoutingDataSource dataSource;
+    @Mock
+    private Connection connection;
+    @Mock
+    private DatabaseMetaData databaseMetaData;
+    @Mock
+    private JournalEntryRepository journalEntryRepository;
+    @Mock
+    private LoanTransactionRepository loanTransactionRepository;
+    @Mock
+    private SavingsAccountTransactionRepository savingsAccountTransactionRepository;
+    @Mock
+    private AuditorAware<AppUser> auditorAware;
+    @Mock
+    private Office office;
+    @Mock
+    private GLAccount glAccount;
+    @Mock
+    private AppUser user;
+
+    private final List<String> statements = new ArrayList<>();
+    private final List<Map<Integer, Object>> rows = new ArrayList<>();
+
+    private JournalEntryBatchWriter writer;
+
+    @Before
+    public void setUp() throws Exception {
+        when(this.office.getId()).thenReturn(OFFICE_ID);
+        when(this.glAccount.getId()).thenReturn(GL_ACCOUNT_ID);
+        when(this.user.getId()).thenReturn(USER_ID);
+        when(this.auditorAware.getCurrentAuditor()).thenReturn(this.user);
+        when(this.dataSource.getConnection()).thenReturn(this.connection);
+        when(this.connection.getMetaData()).thenReturn(this.databaseMetaData);
+        when(this.databaseMetaData.supportsBatchUpdates()).thenReturn(true);
+        when(this.connection.prepareStatement(anyString())).thenAnswer(new Answer<PreparedStatement>() {
+
+            @Override
+            public PreparedStatement answer(final InvocationOnMock invocation) {
+                JournalEntryBatchWriterTest.this.statements.add((String) invocation.getArguments()[0]);
+                return recordingStatement();
+            }
+        });
+
+        this.writer = new JournalEntryBatchWriter(this.dataSource, this.journalEntryRepository, this.loanTransactionRepository,
+                this.savingsAccountTransactionRepository, this.auditorAware);
+    }
+
+    @Test
+    public void loanLegsShouldMatchJournalEntryEntity() throws Exception {
+        final LoanTransaction loanTransaction = loanRepayment(42L, "000000021");
+        when(this.loanTransactionRepository.findOne(42L)).thenReturn(loanTransaction);
+
+        this.writer.begin();
+        try {
+            this.writer.addLoanEntry(OFFICE_ID, GL_ACCOUNT_ID, "USD", LOAN_ID, "42", TRANSACTION_DATE, JournalEntryType.DEBIT, AMOUNT);
+            this.writer.addLoanEntry(OFFICE_ID, GL_ACCOUNT_ID, "USD", LOAN_ID, "42", TRANSACTION_DATE, JournalEntryType.CREDIT, AMOUNT);
+            this.writer.flush();
+        } finally {
+            this.writer.end();
+        }
+
+        assertEquals(1, this.statements.size());
+        assertEquals(2, this.rows.size());
+        final String description = "Loan Repayment (#000000021)";
+        assertSameColumns(jpaEntry("L42", JournalEntryType.DEBIT, description, PortfolioProductType.LOAN, LOAN_ID, loanTransaction, null),
+                batchRow(0));
+        assertSameColumns(jpaEntry("L42", JournalEntryType.CREDIT, description, PortfolioProductType.LOAN, LOAN_ID, loanTransaction, null),
+                batchRow(1));
+        verify(this.loanTransactionRepository, times(1)).findOne(42L);
+    }
+
+    @Test
+    public void savingsLegsShouldMatchJournalEntryEntity() throws Exception {
+        final SavingsAccountTransaction savingsTransaction = newEntity(SavingsAccountTransaction.class, 43L);
+        when(this.savingsAccountTransactionRepository.findOne(43L)).thenReturn(savingsTransaction);
+
+        this.writer.begin();
+        try {
+            this.writer.addSavingsEntry(OFFICE_ID, GL_ACCOUNT_ID, "USD", SAVINGS_ID, "43", TRANSACTION_DATE, JournalEntryType.DEBIT,
+                    AMOUNT);
+            this.writer.addSavingsEntry(OFFICE_ID, GL_ACCOUNT_ID, "USD", SAVINGS_ID, "43", TRANSACTION_DATE, JournalEntryType.CREDIT,
+                    AMOUNT);
+            this.writer.flush();
+        } finally {
+            this.writer.end();
+        }
+
+        assertEquals(2, this.rows.size());
+        assertSameColumns(jpaEntry("S43", JournalEntryType.DEBIT, null, PortfolioProductType.SAVING, SAVINGS_ID, null, savingsTransaction),
+                batchRow(0));
+        assertSameColumns(jpaEntry("S43", JournalEntryType.CREDIT, null, PortfolioProductType.SAVING, SAVINGS_ID, null, savingsTransaction),
+                batchRow(1));
+        verify(this.savingsAccountTransactionRepository, times(1)).findOne(43L);
+    }
+
+    @Test
+    public void missingTransactionsShouldNotBeReferenced() throws Exception {
+        this.writer.addSavingsEntry(OFFICE_ID, GL_ACCOUNT_ID, "USD", SAVINGS_ID, "44", TRANSACTION_DATE, JournalEntryType.DEBIT, AMOUNT);
+        this.writer.addLoanEntry(OFFICE_ID, GL_ACCOUNT_ID, "USD", LOAN_ID, "45", TRANSACTION_DATE, JournalEntryType.CREDIT, AMOUNT);
+
+        // outside of a batch every leg is written on its own
+        assertEquals(2, this.statements.size());
+        assertSameColumns(jpaEntry("S44", JournalEntryType.DEBIT, null, PortfolioProductType.SAVING, SAVINGS_ID, null, null), batchRow(0));
+        assertSameColumns(jpaEntry("L45", JournalEntryType.CREDIT, null, PortfolioProductType.LOAN, LOAN_ID, null, null), batchRow(1));
+    }
+
+    private JournalEntry jpaEntry(final String transactionId, final JournalEntryType type, final String description,
+            final PortfolioProductType entityType, final Long entityId, final LoanTransaction loanTransaction,
+            final SavingsAccountTransaction savingsTransaction) {
+        final JournalEntry entry = JournalEntry.createNew(this.office, null, this.glAccount, "USD", transactionId, false, TRANSACTION_DATE,
+                type, AMOUNT, description, entityType.getValue(), entityId, null, loanTransaction, savingsTransaction);
+        // what the auditing entity listener sets when the entity is saved
+        entry.setCreatedBy(this.user);
+        entry.setLastModifiedBy(this.user);
+        entry.setCreatedDate(new DateTime());
+        entry.setLastModifiedDate(new DateTime());
+        return entry;
+    }
+
+    /**
+     * Every column the entity maps must be written with the same value, or
+     * left to its default when the entity holds null, and the batch must not
+     * write anything the entity does not map, such as the running balance
+     * columns, which both leave to their defaults for the running balance
+     * job.
+     */
+    private static void assertSameColumns(final JournalEntry entry, final Map<String, Object> row) throws Exception {
+        final Map<String, Object> expected = entityColumns(entry);
+        for (final String column : row.keySet()) {
+            assertTrue("batch writes unmapped column " + column, expected.containsKey(column));
+        }
+        for (final Map.Entry<String, Object> column : expected.entrySet()) {
+            if (AUDIT_DATE_COLUMNS.contains(column.getKey())) {
+                // both are the time of the save
+                assertNotNull(column.getKey(), column.getValue());
+                assertNotNull(column.getKey(), row.get(column.getKey()));
+            } else {
+                assertEquals(column.getKey(), column.getValue(), row.get(column.getKey()));
+            }
+        }
+        assertFalse(row.containsKey("is_running_balance_calculated"));
+        assertFalse(row.containsKey("office_running_balance"));
+        assertFalse(row.containsKey("organization_running_balance"));
+    }
+
+    private static Map<String, Object> entityColumns(final JournalEntry entry) throws Exception {
+        final Map<String, Object> columns = new LinkedHashMap<>();
+        for (Class<?> type = JournalEntry.class; type != Object.class; type = type.getSuperclass()) {
+            for (final Field field : type.getDeclaredFields()) {
+                final Column column = field.getAnnotation(Column.class);
+                final JoinColumn joinColumn = field.getAnnotation(JoinColumn.class);
+                if (column == null && joinColumn == null) {
+                    continue;
+                }
+                field.setAccessible(true);
+                Object value = field.get(entry);
+                if (value instanceof AbstractPersistable) {
+                    value = ((AbstractPersistable<?>) value).getId();
+                }
+                columns.put(column == null ? joinColumn.name() : column.name(), normalize(value));
+            }
+        }
+        return columns;
+    }
+
+    /**
+     * The captured row keyed by column name, with the literal values of the
+     * insert statement.
+     */
+    private Map<String, Object> batchRow(final int index) {
+        final String sql = this.statements.get(this.statements.size() == 1 ? 0 : index);
+        final String[] names = sql.substring(sql.indexOf('(') + 1, sql.indexOf(')')).split(",");
+        final String valuesPart = sql.substring(sql.lastIndexOf('(') + 1, sql.lastIndexOf(')'));
+        final String[] values = valuesPart.split(",");
+        assertEquals(names.length, values.length);
+
+        final Map<Integer, Object> parameters = this.rows.get(index);
+        final Map<String, Object> row = new HashMap<>();
+        int parameterIndex = 0;
+        for (int i = 0; i < names.length; i++) {
+            final String value = values[i].trim();
+            if ("?".equals(value)) {
+                parameterIndex++;
+                assertTrue("parameter " + parameterIndex + " was not set", parameters.containsKey(parameterIndex));
+                row.put(names[i].trim(), normalize(parameters.get(parameterIndex)));
+            } else {
+                row.put(names[i].trim(), Integer.valueOf(value));
+            }
+        }
+        assertEquals(parameterIndex, parameters.size());
+        return row;
+    }
+
+    /**
+     * Booleans as the 0 and 1 literals of the insert, dates as their time so
+     * java.util and java.sql dates compare.
+     */
+    private static Object normalize(final Object value) {
+        if (value instanceof Boolean) { return ((Boolean) value) ? 1 : 0; }
+        if (value instanceof Date) { return ((Date) value).getTime(); }
+        return value;
+    }
+
+    private PreparedStatement recordingStatement() {
+        return Mockito.mock(PreparedStatement.class, new Answer<Object>() {
+
+            private Map<Integer, Object> parameters = new HashMap<>();
+
+            @Override
+            public Object answer(final InvocationOnMock invocation) throws Throwable {
+                final String name = invocation.getMethod().getName();
+                final Object[] arguments = invocation.getArguments();
+                if (name.startsWith("set") && arguments.length == 2 && arguments[0] instanceof Integer) {
+                    this.parameters.put((Integer) arguments[0], "setNull".equals(name) ? null : arguments[1]);
+                    return null;
+                }
+                if ("getConnection".equals(name)) { return JournalEntryBatchWriterTest.this.connection; }
+                if ("executeUpdate".equals(name) || "addBatch".equals(name)) {
+                    JournalEntryBatchWriterTest.this.rows.add(this.parameters);
+                    this.parameters = new HashMap<>();
+                    return "executeUpdate".equals(name) ? 1 : null;
+                }
+                return Mockito.RETURNS_DEFAULTS.answer(invocation);
+            }
+        });
+    }
+
+    private static LoanTransaction loanRepayment(final Long id, final String loanAccountNumber) throws Exception {
+        final LoanTransaction loanTransaction = newEntity(LoanTransaction.class, id);
+        final Loan loan = Mockito.mock(Loan.class);
+        when(loan.getAccountNumber()).thenReturn(loanAccountNumber);
+        setField(loanTransaction, "loan", loan);
+        setField(loanTransaction, "typeOf", LoanTransactionType.REPAYMENT.getValue());
+        return loanTransaction;
+    }
+
+    private static <T extends AbstractPersistable<Long>> T newEntity(final Class<T> type, final Long id) throws Exception {
+        final Constructor<T> constructor = type.getDeclaredConstructor();
+        constructor.setAccessible(true);
+        final T entity = constructor.newInstance();
+        final Method setId = AbstractPersistable.class.getDeclaredMethod("setId", Serializable.class);
+        setId.setAccessible(true);
+        setId.invoke(entity, id);
+        return entity;
+    }
+
+    private static void setField(final Object target, final String name, final Object value) throws Exception {
+        final Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+}
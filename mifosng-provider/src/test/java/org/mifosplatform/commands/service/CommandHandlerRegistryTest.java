@@ -0,0 +1,274 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.commands.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+import org.mifosplatform.commands.annotation.CommandType;
+import org.mifosplatform.commands.domain.CommandWrapper;
+import org.mifosplatform.commands.exception.UnsupportedCommandException;
+import org.mifosplatform.commands.handler.NewCommandSourceHandler;
+import org.mifosplatform.infrastructure.configuration.domain.ConfigurationDomainService;
+import org.mifosplatform.infrastructure.core.api.JsonCommand;
+import org.mifosplatform.infrastructure.core.data.CommandProcessingResult;
+import org.mifosplatform.portfolio.loanaccount.rescheduleloan.RescheduleLoansApiConstants;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.support.AbstractBeanDefinition;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.AnnotationBeanNameGenerator;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.core.type.filter.AnnotationTypeFilter;
+import org.springframework.core.type.filter.RegexPatternTypeFilter;
+
+/**
+ * Registers the bean definitions of every {@link CommandType} handler of the
+ * platform, without creating the handlers, and checks that each entity and
+ * action is dispatched to the one handler claiming it.
+ */
+public class CommandHandlerRegistryTest {
+
+    /**
+     * The entities a note command takes from the resource it is attached to,
+     * as set by NotesApiResource.
+     */
+    private static final String[] NOTE_ENTITIES = { "CLIENTNOTE", "LOANNOTE", "LOANTRANSACTIONNOTE", "SAVINGNOTE", "GROUPNOTE" };
+
+    /**
+     * Commands the builder can produce that never had a handler: annual fees
+     * are applied by the scheduler job only.
+     */
+    private static final Set<String> COMMANDS_WITHOUT_HANDLER = new HashSet<>(Arrays.asList("APPLYANNUALFEE_SAVINGSACCOUNT"));
+
+    /**
+     * Handlers the dispatcher already had for fixed deposit commands that no
+     * API builds.
+     */
+    private static final Set<String> HANDLERS_WITHOUT_COMMAND = new HashSet<>(Arrays.asList("ADJUSTTRANSACTION_FIXEDDEPOSITACCOUNT",
+            "UNDOTRANSACTION_FIXEDDEPOSITACCOUNT"));
+
+    @Test
+    public void everyEntityAndActionShouldHaveOneHandler() {
+        final GenericApplicationContext context = platformHandlers();
+
+        final CommandHandlerRegistry registry = new CommandHandlerRegistry(context);
+        registry.registerHandlers();
+
+        final Map<String, String> handlerNames = new HashMap<>();
+        for (final String beanName : context.getBeanNamesForAnnotation(CommandType.class)) {
+            assertTrue(beanName, NewCommandSourceHandler.class.isAssignableFrom(context.getType(beanName)));
+            final CommandType commandType = context.findAnnotationOnBean(beanName, CommandType.class);
+            for (final String entity : commandType.entity()) {
+                final String key = commandType.action().toUpperCase(Locale.ENGLISH) + "_" + entity.toUpperCase(Locale.ENGLISH);
+                final String other = handlerNames.put(key, beanName);
+                assertNull(key + " is claimed by " + other + " and " + beanName, other);
+
+                assertEquals(key, beanName, registry.findHandlerName(entity, commandType.action()));
+                assertEquals(key, beanName,
+                        registry.findHandlerName(entity.toLowerCase(Locale.ENGLISH), commandType.action().toLowerCase(Locale.ENGLISH)));
+            }
+        }
+        // the dispatcher the registry replaced had about 250 branches
+        assertTrue("Only " + handlerNames.size() + " commands have a handler", handlerNames.size() > 200);
+        context.close();
+    }
+
+    @Test
+    public void handlersShouldMatchTheCommandsTheBuilderProduces() throws Exception {
+        final Set<String> builtCommands = commandsBuiltByCommandWrapperBuilder();
+        final GenericApplicationContext context = platformHandlers();
+        final CommandHandlerRegistry registry = new CommandHandlerRegistry(context);
+        registry.registerHandlers();
+
+        final Set<String> unhandledCommands = new TreeSet<>();
+        for (final String command : builtCommands) {
+            final String[] actionAndEntity = command.split("_", 2);
+            if (registry.findHandlerName(actionAndEntity[1], actionAndEntity[0]) == null) {
+                unhandledCommands.add(command);
+            }
+        }
+        assertEquals(new TreeSet<>(COMMANDS_WITHOUT_HANDLER), unhandledCommands);
+
+        final Set<String> unreachableCommands = new TreeSet<>();
+        for (final String beanName : context.getBeanNamesForAnnotation(CommandType.class)) {
+            final CommandType commandType = context.findAnnotationOnBean(beanName, CommandType.class);
+            for (final String entity : commandType.entity()) {
+                final String command = commandType.action().toUpperCase(Locale.ENGLISH) + "_" + entity.toUpperCase(Locale.ENGLISH);
+                if (!builtCommands.contains(command)) {
+                    unreachableCommands.add(command);
+                }
+            }
+        }
+        assertEquals(new TreeSet<>(HANDLERS_WITHOUT_COMMAND), unreachableCommands);
+        context.close();
+    }
+
+    @Test
+    public void unknownCommandsShouldHaveNoHandler() {
+        final CommandHandlerRegistry registry = registryOf(FirstClientCreateHandler.class);
+
+        assertEquals("firstClientCreateHandler", registry.findHandlerName("CLIENT", "CREATE"));
+        assertNull(registry.findHandlerName("CLIENT", "DELETE"));
+        assertNull(registry.findHandlerName("NOSUCHENTITY", "CREATE"));
+        assertNull(registry.findHandlerName(null, "CREATE"));
+        assertNull(registry.findHandlerName("CLIENT", null));
+    }
+
+    @Test
+    public void unknownCommandShouldBeRejectedBeforeLookingUpAHandler() {
+        final ApplicationContext applicationContext = Mockito.mock(ApplicationContext.class);
+        final ConfigurationDomainService configurationDomainService = Mockito.mock(ConfigurationDomainService.class);
+        final CommandHandlerRegistry registry = Mockito.mock(CommandHandlerRegistry.class);
+        when(registry.findHandlerName(anyString(), anyString())).thenReturn(null);
+
+        final SynchronousCommandProcessingService service = new SynchronousCommandProcessingService(null, applicationContext, null, null,
+                null, configurationDomainService, null, null, registry, null, null);
+        final CommandWrapper wrapper = new CommandWrapperBuilder().createClient().build();
+        try {
+            service.processAndLogCommand(wrapper, null, false);
+            fail("Command without handler was processed");
+        } catch (final UnsupportedCommandException e) {
+            // expected
+        }
+        verify(registry).findHandlerName(wrapper.entityName(), wrapper.actionName());
+        verify(applicationContext, never()).getBean(anyString(), Mockito.eq(NewCommandSourceHandler.class));
+    }
+
+    @Test
+    public void twoHandlersForOneCommandShouldFailAtStartup() {
+        try {
+            registryOf(FirstClientCreateHandler.class, SecondClientCreateHandler.class);
+            fail("Two handlers for CREATE_CLIENT were registered");
+        } catch (final IllegalStateException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("CREATE_CLIENT"));
+        }
+    }
+
+    @Test
+    public void annotatedBeanThatIsNotAHandlerShouldFailAtStartup() {
+        try {
+            registryOf(NotAHandler.class);
+            fail("A bean that is not a handler was registered");
+        } catch (final IllegalStateException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("notAHandler"));
+        }
+    }
+
+    /**
+     * The bean definitions of every {@link CommandType} handler of the
+     * platform, registered lazily so that no handler is created.
+     */
+    private static GenericApplicationContext platformHandlers() {
+        final GenericApplicationContext context = new GenericApplicationContext();
+        final ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false);
+        scanner.addIncludeFilter(new AnnotationTypeFilter(CommandType.class));
+        scanner.addExcludeFilter(new RegexPatternTypeFilter(Pattern.compile(Pattern.quote(CommandHandlerRegistryTest.class.getName())
+                + "\\$.*")));
+        final AnnotationBeanNameGenerator beanNameGenerator = new AnnotationBeanNameGenerator();
+        for (final BeanDefinition beanDefinition : scanner.findCandidateComponents("org.mifosplatform")) {
+            ((AbstractBeanDefinition) beanDefinition).setLazyInit(true);
+            context.registerBeanDefinition(beanNameGenerator.generateBeanName(beanDefinition, context), beanDefinition);
+        }
+        context.refresh();
+        return context;
+    }
+
+    /**
+     * Calls every command method of {@link CommandWrapperBuilder} and collects
+     * the <code>ACTION_ENTITY</code> of the wrappers built. Datatable and
+     * survey commands are left out as they are dispatched on their href.
+     */
+    private static Set<String> commandsBuiltByCommandWrapperBuilder() throws Exception {
+        final Set<String> commands = new HashSet<>();
+        for (final Method method : CommandWrapperBuilder.class.getDeclaredMethods()) {
+            if (!Modifier.isPublic(method.getModifiers()) || !CommandWrapperBuilder.class.equals(method.getReturnType())
+                    || method.getName().matches("with[A-Z].*")) {
+                continue;
+            }
+            final Class<?>[] parameterTypes = method.getParameterTypes();
+            final boolean takesResource = Arrays.asList(parameterTypes).contains(CommandWrapper.class);
+            for (final String resourceEntity : takesResource ? NOTE_ENTITIES : new String[] { null }) {
+                final Object[] arguments = new Object[parameterTypes.length];
+                for (int i = 0; i < parameterTypes.length; i++) {
+                    if (Long.class.equals(parameterTypes[i])) {
+                        arguments[i] = Long.valueOf(1);
+                    } else if (String.class.equals(parameterTypes[i])) {
+                        // loan reschedule requests are the only commands
+                        // whose entity is passed in as a string
+                        arguments[i] = RescheduleLoansApiConstants.ENTITY_NAME;
+                    } else if (CommandWrapper.class.equals(parameterTypes[i])) {
+                        arguments[i] = new CommandWrapperBuilder().withEntityName(resourceEntity).build();
+                    } else {
+                        fail("No argument for " + parameterTypes[i] + " of " + method);
+                    }
+                }
+                final CommandWrapper wrapper = ((CommandWrapperBuilder) method.invoke(new CommandWrapperBuilder(), arguments)).build();
+                if (!wrapper.isDatatableResource() && !wrapper.isSurveyResource()) {
+                    commands.add(wrapper.actionName().toUpperCase(Locale.ENGLISH) + "_"
+                            + wrapper.entityName().toUpperCase(Locale.ENGLISH));
+                }
+            }
+        }
+        return commands;
+    }
+
+    private static CommandHandlerRegistry registryOf(final Class<?>... beanClasses) {
+        final GenericApplicationContext context = new GenericApplicationContext();
+        for (final Class<?> beanClass : beanClasses) {
+            final String simpleName = beanClass.getSimpleName();
+            context.registerBeanDefinition(Character.toLowerCase(simpleName.charAt(0)) + simpleName.substring(1),
+                    new RootBeanDefinition(beanClass));
+        }
+        context.refresh();
+        final CommandHandlerRegistry registry = new CommandHandlerRegistry(context);
+        registry.registerHandlers();
+        return registry;
+    }
+
+    @CommandType(entity = "CLIENT", action = "CREATE")
+    public static class FirstClientCreateHandler implements NewCommandSourceHandler {
+
+        @Override
+        public CommandProcessingResult processCommand(@SuppressWarnings("unused") final JsonCommand command) {
+            return null;
+        }
+    }
+
+    @CommandType(entity = "client", action = "create")
+    public static class SecondClientCreateHandler implements NewCommandSourceHandler {
+
+        @Override
+        public CommandProcessingResult processCommand(@SuppressWarnings("unused") final JsonCommand command) {
+            return null;
+        }
+    }
+
+    @CommandType(entity = "CLIENT", action = "DELETE")
+    public static class NotAHandler {
+        //
+    }
+}
@@ -0,0 +1,133 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.commands.service;
+
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mifosplatform.commands.domain.CommandSourceRepository;
+import org.mifosplatform.commands.domain.CommandWrapper;
+import org.mifosplatform.commands.exception.RollbackTransactionAsCommandIsNotApprovedByCheckerException;
+import org.mifosplatform.commands.handler.NewCommandSourceHandler;
+import org.mifosplatform.infrastructure.configuration.domain.ConfigurationDomainService;
+import org.mifosplatform.infrastructure.core.api.JsonCommand;
+import org.mifosplatform.infrastructure.core.data.CommandProcessingResult;
+import org.mifosplatform.infrastructure.core.data.CommandProcessingResultBuilder;
+import org.mifosplatform.infrastructure.hooks.service.HookRegistryCache;
+import org.mifosplatform.infrastructure.security.service.PlatformSecurityContext;
+import org.mifosplatform.portfolio.search.service.SearchIndexWritePlatformService;
+import org.mifosplatform.useradministration.domain.AppUser;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.context.ApplicationContext;
+
+/**
+ * Checks that a processed command brings the search index entries of what it
+ * changed up to date, and leaves them alone when the command is rolled back.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class SynchronousCommandProcessingServiceTest {
+
+    private static final String HANDLER_NAME = "createClientCommandHandler";
+
+    @Mock
+    private PlatformSecurityContext context;
+    @Mock
+    private ApplicationContext applicationContext;
+    @Mock
+    private CommandSourceRepository commandSourceRepository;
+    @Mock
+    private ConfigurationDomainService configurationDomainService;
+    @Mock
+    private HookRegistryCache hookRegistryCache;
+    @Mock
+    private CommandHandlerRegistry commandHandlerRegistry;
+    @Mock
+    private CommandHandlerMetrics commandHandlerMetrics;
+    @Mock
+    private SearchIndexWritePlatformService searchIndexWritePlatformService;
+    @Mock
+    private NewCommandSourceHandler handler;
+    @Mock
+    private AppUser maker;
+
+    private final CommandWrapper wrapper = new CommandWrapperBuilder().createClient().build();
+    private final JsonCommand command = JsonCommand.from("{}", null, null, "CLIENT", null, null, null, null, null, null, null, "/clients",
+            null);
+    private final CommandProcessingResult result = new CommandProcessingResultBuilder().withEntityId(7L).withClientId(7L).build();
+
+    private SynchronousCommandProcessingService service;
+
+    @Before
+    public void setUp() {
+        when(this.commandHandlerRegistry.findHandlerName(this.wrapper.entityName(), this.wrapper.actionName())).thenReturn(HANDLER_NAME);
+        when(this.applicationContext.getBean(HANDLER_NAME, NewCommandSourceHandler.class)).thenReturn(this.handler);
+        when(this.context.authenticatedUser(this.wrapper)).thenReturn(this.maker);
+
+        this.service = new SynchronousCommandProcessingService(this.context, this.applicationContext, null, null,
+                this.commandSourceRepository, this.configurationDomainService, null, this.hookRegistryCache, this.commandHandlerRegistry,
+                this.commandHandlerMetrics, this.searchIndexWritePlatformService);
+    }
+
+    @Test
+    public void processedCommandShouldUpdateTheSearchIndex() {
+        when(this.handler.processCommand(this.command)).thenReturn(this.result);
+
+        assertSame(this.result, this.service.processAndLogCommand(this.wrapper, this.command, false));
+
+        verify(this.searchIndexWritePlatformService).updateIndexFor(this.wrapper.entityName(), this.result);
+    }
+
+    @Test
+    public void commandAwaitingTheCheckerShouldNotUpdateTheSearchIndex() {
+        when(this.configurationDomainService.isMakerCheckerEnabledForTask(anyString())).thenReturn(true);
+        when(this.handler.processCommand(this.command)).thenReturn(this.result);
+
+        try {
+            this.service.processAndLogCommand(this.wrapper, this.command, false);
+            fail("Command needing a checker was not rolled back");
+        } catch (final RollbackTransactionAsCommandIsNotApprovedByCheckerException e) {
+            // expected
+        }
+
+        verify(this.searchIndexWritePlatformService, never()).updateIndexFor(anyString(), any(CommandProcessingResult.class));
+    }
+
+    @Test
+    public void commandApprovedByTheCheckerShouldUpdateTheSearchIndex() {
+        when(this.configurationDomainService.isMakerCheckerEnabledForTask(anyString())).thenReturn(true);
+        when(this.handler.processCommand(this.command)).thenReturn(this.result);
+
+        this.service.processAndLogCommand(this.wrapper, this.command, true);
+
+        verify(this.searchIndexWritePlatformService).updateIndexFor(this.wrapper.entityName(), this.result);
+    }
+
+    @Test
+    public void failedCommandShouldNotUpdateTheSearchIndex() {
+        when(this.handler.processCommand(this.command)).thenThrow(new IllegalStateException("handler failed"));
+
+        try {
+            this.service.processAndLogCommand(this.wrapper, this.command, false);
+            fail("Failed command was processed");
+        } catch (final IllegalStateException e) {
+            // expected
+        }
+
+        verify(this.commandHandlerMetrics).record(anyString(), anyLong(), eq(false));
+        verify(this.searchIndexWritePlatformService, never()).updateIndexFor(anyString(), any(CommandProcessingResult.class));
+    }
+}
@@ -0,0 +1,184 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.common;
+
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.sql.DataSource;
+
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+/**
+ * Answers the statements a JDBC service sends through a mocked data source
+ * from in memory tables, so a test only has to say which rows a query
+ * returns and what an update changes. Subclasses override
+ * {@link #query(String, List)} and {@link #update(String, List)}, any
+ * statement they do not answer fails the test.
+ */
+public abstract class MockedDatabase {
+
+    private Connection connection;
+
+    /**
+     * Makes the data source hand out a mocked connection whose statements are
+     * answered by this database.
+     */
+    public Connection connect(final DataSource dataSource) throws SQLException {
+        this.connection = Mockito.mock(Connection.class);
+        when(dataSource.getConnection()).thenReturn(this.connection);
+        when(this.connection.createStatement()).thenAnswer(new Answer<Statement>() {
+
+            @Override
+            public Statement answer(@SuppressWarnings("unused") final InvocationOnMock invocation) {
+                return Mockito.mock(Statement.class, new StatementAnswer(null));
+            }
+        });
+        final Answer<PreparedStatement> prepare = new Answer<PreparedStatement>() {
+
+            @Override
+            public PreparedStatement answer(final InvocationOnMock invocation) {
+                return Mockito.mock(PreparedStatement.class, new StatementAnswer((String) invocation.getArguments()[0]));
+            }
+        };
+        when(this.connection.prepareStatement(anyString())).thenAnswer(prepare);
+        when(this.connection.prepareStatement(anyString(), anyInt(), anyInt())).thenAnswer(prepare);
+        return this.connection;
+    }
+
+    /**
+     * The rows of a query, the parameters in the order of their placeholders.
+     */
+    protected List<Map<String, Object>> query(final String sql, @SuppressWarnings("unused") final List<Object> parameters)
+            throws SQLException {
+        throw new AssertionError("Unexpected query: " + sql);
+    }
+
+    /**
+     * The number of rows an update changed, the parameters in the order of
+     * their placeholders.
+     */
+    protected int update(final String sql, @SuppressWarnings("unused") final List<Object> parameters) throws SQLException {
+        throw new AssertionError("Unexpected update: " + sql);
+    }
+
+    /**
+     * A row of the given column labels and values, in that order.
+     */
+    public static Map<String, Object> row(final Object... labelsAndValues) {
+        final Map<String, Object> row = new LinkedHashMap<>();
+        for (int i = 0; i < labelsAndValues.length; i += 2) {
+            row.put((String) labelsAndValues[i], labelsAndValues[i + 1]);
+        }
+        return row;
+    }
+
+    /**
+     * Records the parameters bound to a statement and sends its execution to
+     * the database, everything else gets Mockito defaults.
+     */
+    private final class StatementAnswer implements Answer<Object> {
+
+        private final String preparedSql;
+        private final Map<Integer, Object> parameters = new TreeMap<>();
+
+        StatementAnswer(final String preparedSql) {
+            this.preparedSql = preparedSql;
+        }
+
+        @Override
+        public Object answer(final InvocationOnMock invocation) throws Throwable {
+            final String method = invocation.getMethod().getName();
+            final Object[] arguments = invocation.getArguments();
+            if (method.equals("setNull")) {
+                this.parameters.put((Integer) arguments[0], null);
+                return null;
+            }
+            if (method.startsWith("set") && arguments.length >= 2 && arguments[0] instanceof Integer) {
+                this.parameters.put((Integer) arguments[0], arguments[1]);
+                return null;
+            }
+            if (method.equals("getConnection")) { return MockedDatabase.this.connection; }
+            if (method.equals("executeQuery")) { return resultSet(query(sql(arguments), new ArrayList<>(this.parameters.values()))); }
+            if (method.equals("executeUpdate")) { return update(sql(arguments), new ArrayList<>(this.parameters.values())); }
+            return Mockito.RETURNS_DEFAULTS.answer(invocation);
+        }
+
+        /**
+         * The prepared statement, or the one a plain statement executes.
+         */
+        private String sql(final Object[] arguments) {
+            return arguments.length == 0 ? this.preparedSql : (String) arguments[0];
+        }
+    }
+
+    private static ResultSet resultSet(final List<Map<String, Object>> rows) throws SQLException {
+        final List<String> labels = rows.isEmpty() ? Collections.<String> emptyList() : new ArrayList<>(rows.get(0).keySet());
+        final ResultSetMetaData metaData = Mockito.mock(ResultSetMetaData.class);
+        when(metaData.getColumnCount()).thenReturn(labels.size());
+        when(metaData.getColumnLabel(anyInt())).thenAnswer(new Answer<String>() {
+
+            @Override
+            public String answer(final InvocationOnMock invocation) {
+                return labels.get((Integer) invocation.getArguments()[0] - 1);
+            }
+        });
+        final Iterator<Map<String, Object>> iterator = rows.iterator();
+        return Mockito.mock(ResultSet.class, new Answer<Object>() {
+
+            private Map<String, Object> current;
+            private boolean wasNull;
+
+            @Override
+            public Object answer(final InvocationOnMock invocation) throws Throwable {
+                final String method = invocation.getMethod().getName();
+                final Object[] arguments = invocation.getArguments();
+                if (method.equals("next")) {
+                    this.current = iterator.hasNext() ? iterator.next() : null;
+                    return this.current != null;
+                }
+                if (method.equals("getMetaData")) { return metaData; }
+                if (method.equals("wasNull")) { return this.wasNull; }
+                if (method.equals("findColumn")) { return labels.indexOf(arguments[0]) + 1; }
+                if (method.startsWith("get") && arguments.length == 1) {
+                    final String label = arguments[0] instanceof Integer ? labels.get((Integer) arguments[0] - 1) : (String) arguments[0];
+                    if (!this.current.containsKey(label)) { throw new SQLException("Column '" + label + "' not found."); }
+                    final Object value = this.current.get(label);
+                    this.wasNull = value == null;
+                    return convert(method, value);
+                }
+                return Mockito.RETURNS_DEFAULTS.answer(invocation);
+            }
+        });
+    }
+
+    private static Object convert(final String method, final Object value) {
+        if (method.equals("getLong")) { return value == null ? 0L : ((Number) value).longValue(); }
+        if (method.equals("getInt")) { return value == null ? 0 : ((Number) value).intValue(); }
+        if (method.equals("getBoolean")) { return value != null && (Boolean) value; }
+        if (method.equals("getBigDecimal") && value instanceof Number) { return new BigDecimal(value.toString()); }
+        if (method.equals("getString") && value != null) { return value.toString(); }
+        return value;
+    }
+}
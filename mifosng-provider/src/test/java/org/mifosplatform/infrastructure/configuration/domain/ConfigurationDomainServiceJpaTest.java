@@ -0,0 +1,113 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.configuration.domain;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mifosplatform.infrastructure.cache.domain.PlatformCache;
+import org.mifosplatform.infrastructure.cache.domain.PlatformCacheRepository;
+import org.mifosplatform.infrastructure.core.domain.MifosPlatformTenant;
+import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
+import org.mifosplatform.useradministration.domain.Permission;
+import org.mifosplatform.useradministration.domain.PermissionRepository;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Reads the ehcache flag through {@link ConfigurationDomainServiceJpa} and
+ * checks in which transaction, and how often, the snapshot is loaded.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class ConfigurationDomainServiceJpaTest {
+
+    @Mock
+    private PermissionRepository permissionRepository;
+    @Mock
+    private GlobalConfigurationRepositoryWrapper globalConfigurationRepository;
+    @Mock
+    private PlatformCacheRepository cacheTypeRepository;
+    @Mock
+    private PlatformCache platformCache;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @Mock
+    private MifosPlatformTenant tenant;
+
+    private ConfigurationDomainServiceJpa service;
+
+    @Before
+    public void setUp() {
+        when(this.tenant.getId()).thenReturn(1L);
+        when(this.globalConfigurationRepository.findAll()).thenReturn(Collections.<GlobalConfigurationProperty> emptyList());
+        when(this.permissionRepository.findAll()).thenReturn(Collections.<Permission> emptyList());
+        when(this.cacheTypeRepository.findOne(1L)).thenReturn(this.platformCache);
+        this.service = new ConfigurationDomainServiceJpa(this.permissionRepository, this.globalConfigurationRepository,
+                this.cacheTypeRepository, this.transactionManager);
+        ThreadLocalContextUtil.setTenant(this.tenant);
+    }
+
+    @After
+    public void tearDown() {
+        ThreadLocalContextUtil.clearTenant();
+        TransactionSynchronizationManager.unbindResourceIfPossible(this.service);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    public void snapshotShouldBeLoadedOnceInItsOwnReadCommittedTransaction() {
+        this.service.isEhcacheEnabled();
+        this.service.isEhcacheEnabled();
+
+        verify(this.cacheTypeRepository, times(1)).findOne(1L);
+        final ArgumentCaptor<TransactionDefinition> definition = ArgumentCaptor.forClass(TransactionDefinition.class);
+        verify(this.transactionManager, times(1)).getTransaction(definition.capture());
+        assertEquals(TransactionDefinition.PROPAGATION_REQUIRES_NEW, definition.getValue().getPropagationBehavior());
+        assertEquals(TransactionDefinition.ISOLATION_READ_COMMITTED, definition.getValue().getIsolationLevel());
+    }
+
+    @Test
+    public void transactionThatChangedTheConfigurationShouldReadItsOwnChanges() {
+        assertFalse(this.service.isEhcacheEnabled());
+
+        TransactionSynchronizationManager.initSynchronization();
+        this.service.invalidateConfigurationCache();
+        when(this.platformCache.isEhcacheEnabled()).thenReturn(true);
+
+        assertTrue(this.service.isEhcacheEnabled());
+        assertTrue(this.service.isEhcacheEnabled());
+        verify(this.cacheTypeRepository, times(3)).findOne(1L);
+        verify(this.transactionManager, times(1)).getTransaction(any(TransactionDefinition.class));
+
+        for (final TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        }
+        TransactionSynchronizationManager.clearSynchronization();
+
+        assertTrue(this.service.isEhcacheEnabled());
+        assertTrue(this.service.isEhcacheEnabled());
+        verify(this.cacheTypeRepository, times(4)).findOne(1L);
+        verify(this.transactionManager, times(2)).getTransaction(any(TransactionDefinition.class));
+    }
+}
@@ -0,0 +1,58 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.core.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import javax.xml.bind.DatatypeConverter;
+
+import org.junit.Test;
+import org.mifosplatform.infrastructure.core.exception.PlatformApiDataValidationException;
+
+/**
+ * Encodes and decodes the <code>nextCursor</code> of keyset paginated lists.
+ */
+public class PageCursorTest {
+
+    @Test
+    public void decodedCursorShouldBeTheEncodedKey() {
+        for (final long key : Arrays.asList(0L, 1L, 42L, 1000000007L, Long.MAX_VALUE)) {
+            assertEquals(key, PageCursor.decode(PageCursor.encode(key)));
+        }
+    }
+
+    @Test
+    public void cursorShouldBeUrlSafe() {
+        for (long key = 0; key < 2000; key++) {
+            final String cursor = PageCursor.encode(key);
+            assertTrue(cursor, cursor.matches("[A-Za-z0-9_-]+"));
+        }
+        assertTrue(PageCursor.encode(Long.MAX_VALUE).matches("[A-Za-z0-9_-]+"));
+    }
+
+    @Test
+    public void valuesNotHandedOutAsCursorShouldBeRejected() {
+        for (final String cursor : Arrays.asList("", "not a cursor", "%%%", base64("42"), base64("k1:"), base64("k1:forty-two"),
+                base64("k2:42"))) {
+            try {
+                PageCursor.decode(cursor);
+                fail("expected " + cursor + " to be rejected");
+            } catch (final PlatformApiDataValidationException e) {
+                assertEquals("validation.msg.cursor.invalid", e.getErrors().get(0).getUserMessageGlobalisationCode());
+                assertEquals("cursor", e.getErrors().get(0).getParameterName());
+            }
+        }
+    }
+
+    private static String base64(final String value) {
+        return DatatypeConverter.printBase64Binary(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,238 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.core.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.sql.DataSource;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mifosplatform.common.MockedDatabase;
+import org.mifosplatform.infrastructure.core.exception.PlatformApiDataValidationException;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+/**
+ * Pages through an in memory table of staff with
+ * {@link PaginationHelper#streamPage(JdbcTemplate, String, Object[], String, SearchParameters, RowMapper)}
+ * and checks the keyset queries it builds, the cursor of each page and the
+ * total worked out by the count query.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class PaginationHelperTest {
+
+    private static final String SQL = "select s.id as id, s.display_name as displayName from m_staff s where s.office_id = ?";
+    private static final Pattern LIMIT = Pattern.compile(" order by s\\.id limit (\\d+)$");
+    private static final Long OFFICE = 1L;
+
+    @Mock
+    private DataSource dataSource;
+
+    /** display name by id */
+    private final Map<Long, String> staff = new TreeMap<>();
+    private final List<String> statements = new ArrayList<>();
+
+    private JdbcTemplate jdbcTemplate;
+    private final PaginationHelper<Long> paginationHelper = new PaginationHelper<>();
+
+    @Before
+    public void setUp() throws SQLException {
+        new StaffDatabase().connect(this.dataSource);
+        this.jdbcTemplate = new JdbcTemplate(this.dataSource);
+    }
+
+    @Test
+    public void fromOfTheOuterQueryShouldBeFound() {
+        final String sql = "select c.id, c.valid_from, (select count(*) from m_loan l where l.client_id = c.id) as loans, "
+                + "c.fromdate, c.date_from_ FROM m_client c where c.office_id = ?";
+
+        assertEquals(sql.indexOf("FROM m_client"), PaginationHelper.indexOfFrom(sql));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void queryWithoutFromShouldBeRejected() {
+        PaginationHelper.indexOfFrom("select (select 1 from dual) as fromValue");
+    }
+
+    @Test
+    public void firstPageShouldEndWithCursorOfItsLastRow() {
+        add(5);
+
+        final Page<Long> page = page(2, null);
+
+        assertEquals(Arrays.asList(1L, 2L), page.getPageItems());
+        assertEquals(PageCursor.encode(2L), page.getNextCursor());
+        assertEquals(Integer.valueOf(5), page.getTotalFilteredRecords());
+        // one more row than the page holds tells there is a next page
+        assertTrue(this.statements.get(0), this.statements.get(0).endsWith(" order by s.id limit 3"));
+        assertEquals("select count(*) from m_staff s where s.office_id = ?", this.statements.get(1));
+    }
+
+    @Test
+    public void cursorShouldSeekPastItsKey() {
+        add(5);
+
+        final Page<Long> page = page(2, PageCursor.encode(2L));
+
+        assertEquals(Arrays.asList(3L, 4L), page.getPageItems());
+        assertEquals(PageCursor.encode(4L), page.getNextCursor());
+        assertEquals(SQL + " and s.id > ? order by s.id limit 3", this.statements.get(0));
+        // the total is the one of the whole list, not of the rows after the cursor
+        assertEquals(Integer.valueOf(5), page.getTotalFilteredRecords());
+    }
+
+    @Test
+    public void lastPageShouldHaveNoCursor() {
+        add(5);
+
+        final Page<Long> page = page(2, PageCursor.encode(4L));
+
+        assertEquals(Arrays.asList(5L), page.getPageItems());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    public void fullLastPageShouldHaveNoCursor() {
+        add(4);
+
+        final Page<Long> page = page(2, PageCursor.encode(2L));
+
+        assertEquals(Arrays.asList(3L, 4L), page.getPageItems());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    public void emptyPageShouldHaveNoCursor() {
+        final Page<Long> empty = page(2, null);
+
+        assertTrue(empty.getPageItems().isEmpty());
+        assertNull(empty.getNextCursor());
+        assertEquals(Integer.valueOf(0), empty.getTotalFilteredRecords());
+
+        add(2);
+        final Page<Long> pastTheEnd = page(2, PageCursor.encode(2L));
+
+        assertTrue(pastTheEnd.getPageItems().isEmpty());
+        assertNull(pastTheEnd.getNextCursor());
+    }
+
+    @Test
+    public void rowsWithEqualValuesShouldEachBeReturnedOnce() {
+        for (final long id : Arrays.asList(9L, 3L, 7L, 1L, 4L, 8L, 2L)) {
+            this.staff.put(id, "Smith");
+        }
+
+        final List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            final Page<Long> page = page(3, cursor);
+            seen.addAll(page.getPageItems());
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(Arrays.asList(1L, 2L, 3L, 4L, 7L, 8L, 9L), seen);
+        assertEquals(3, pages);
+    }
+
+    @Test
+    public void cursorShouldNotBeCombinedWithOrderOrOffset() {
+        add(5);
+        final String cursor = PageCursor.encode(2L);
+
+        for (final SearchParameters searchParameters : Arrays.asList(SearchParameters.forPagination(null, 2, "displayName", null),
+                SearchParameters.forPagination(2, 2, null, null), SearchParameters.forPagination(null, -1, null, null))) {
+            try {
+                this.paginationHelper.streamPage(this.jdbcTemplate, SQL, new Object[] { OFFICE }, "s.id",
+                        searchParameters.withCursorAndCount(cursor, null), new IdMapper());
+                fail("expected the cursor to be rejected");
+            } catch (final PlatformApiDataValidationException e) {
+                assertEquals("validation.msg.cursor.cannot.be.combined", e.getErrors().get(0).getUserMessageGlobalisationCode());
+            }
+        }
+    }
+
+    @Test
+    public void pageShouldNotBeCountedWhenNotAsked() {
+        add(5);
+
+        final Page<Long> page = this.paginationHelper.streamPage(this.jdbcTemplate, SQL, new Object[] { OFFICE }, "s.id",
+                SearchParameters.forPagination(null, 2, null, null).withCursorAndCount(null, "none"), new IdMapper()).fetch();
+
+        assertEquals(Arrays.asList(1L, 2L), page.getPageItems());
+        assertNull(page.getTotalFilteredRecords());
+        assertEquals(1, this.statements.size());
+    }
+
+    private void add(final int count) {
+        for (long id = 1; id <= count; id++) {
+            this.staff.put(id, "staff " + id);
+        }
+    }
+
+    private Page<Long> page(final int limit, final String cursor) {
+        this.statements.clear();
+        return this.paginationHelper.streamPage(this.jdbcTemplate, SQL, new Object[] { OFFICE }, "s.id",
+                SearchParameters.forPagination(null, limit, null, null).withCursorAndCount(cursor, null), new IdMapper()).fetch();
+    }
+
+    private static final class IdMapper implements RowMapper<Long> {
+
+        @Override
+        public Long mapRow(final ResultSet rs, @SuppressWarnings("unused") final int rowNum) throws SQLException {
+            return rs.getLong("id");
+        }
+    }
+
+    /**
+     * Answers the page and count queries from {@link #staff}, all of it in
+     * the one office.
+     */
+    private final class StaffDatabase extends MockedDatabase {
+
+        @Override
+        protected List<Map<String, Object>> query(final String sql, final List<Object> parameters) {
+            PaginationHelperTest.this.statements.add(sql);
+            assertEquals(OFFICE, parameters.get(0));
+            if (sql.startsWith("select count(*) ")) {
+                return Collections.singletonList(row("count(*)", PaginationHelperTest.this.staff.size()));
+            }
+
+            assertTrue(sql, sql.startsWith(SQL));
+            final Matcher limit = LIMIT.matcher(sql);
+            assertTrue(sql, limit.find());
+            final boolean afterKey = sql.contains(" and s.id > ?");
+            assertEquals(afterKey ? 2 : 1, parameters.size());
+
+            final List<Map<String, Object>> rows = new ArrayList<>();
+            for (final Map.Entry<Long, String> member : PaginationHelperTest.this.staff.entrySet()) {
+                if ((!afterKey || member.getKey() > (Long) parameters.get(1)) && rows.size() < Integer.parseInt(limit.group(1))) {
+                    rows.add(row("id", member.getKey(), "displayName", member.getValue()));
+                }
+            }
+            return rows;
+        }
+    }
+}
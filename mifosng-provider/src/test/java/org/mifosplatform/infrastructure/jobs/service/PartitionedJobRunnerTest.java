@@ -0,0 +1,107 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.jobs.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mifosplatform.infrastructure.core.domain.MifosPlatformTenant;
+import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
+import org.mifosplatform.infrastructure.jobs.domain.ScheduledJobDetailRepository;
+import org.mifosplatform.infrastructure.jobs.exception.JobExecutionException;
+import org.mifosplatform.infrastructure.jobs.service.PartitionedJobRunner.IdChunkReader;
+import org.mifosplatform.infrastructure.jobs.service.PartitionedJobRunner.IdProcessor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+/**
+ * Runs ids 1 to 10 through {@link PartitionedJobRunner} with the default
+ * chunk size and thread count, the job having no scheduler row.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class PartitionedJobRunnerTest {
+
+    @Mock
+    private ScheduledJobDetailRepository scheduledJobDetailRepository;
+    @Mock
+    private MifosPlatformTenant tenant;
+
+    private PartitionedJobRunner runner;
+
+    @Before
+    public void setUp() {
+        this.runner = new PartitionedJobRunner(this.scheduledJobDetailRepository);
+        ThreadLocalContextUtil.setTenant(this.tenant);
+    }
+
+    @After
+    public void tearDown() {
+        ThreadLocalContextUtil.clearTenant();
+    }
+
+    @Test
+    public void everyIdShouldBeProcessed() throws JobExecutionException {
+        final List<Long> processed = Collections.synchronizedList(new ArrayList<Long>());
+
+        final JobRunMetrics metrics = this.runner.run(JobName.POST_INTEREST_FOR_SAVINGS, new IdRangeReader(10), new IdProcessor() {
+
+            @Override
+            public void process(final Long id) {
+                processed.add(id);
+            }
+        });
+
+        assertEquals(10, processed.size());
+        assertEquals(Long.valueOf(10), metrics.get("processed"));
+        assertEquals(Long.valueOf(1), metrics.get("chunks"));
+    }
+
+    @Test
+    public void failedIdsShouldNotDropTheMetricsOfTheOthers() {
+        try {
+            this.runner.run(JobName.POST_INTEREST_FOR_SAVINGS, new IdRangeReader(10), new IdProcessor() {
+
+                @Override
+                public void process(final Long id) {
+                    if (id % 5 == 0) { throw new IllegalStateException("no interest for " + id); }
+                }
+            });
+            fail("expected the run to fail");
+        } catch (final JobExecutionException e) {
+            final JobRunMetrics metrics = e.getRunMetrics();
+            assertNotNull(metrics);
+            assertEquals(Long.valueOf(8), metrics.get("processed"));
+            assertEquals(Long.valueOf(2), metrics.get("failed"));
+        }
+    }
+
+    private static final class IdRangeReader implements IdChunkReader {
+
+        private final long lastId;
+
+        public IdRangeReader(final long lastId) {
+            this.lastId = lastId;
+        }
+
+        @Override
+        public List<Long> readChunk(final Long afterId, final int chunkSize) {
+            final List<Long> ids = new ArrayList<>();
+            for (long id = afterId + 1; id <= this.lastId && ids.size() < chunkSize; id++) {
+                ids.add(id);
+            }
+            return ids;
+        }
+    }
+}
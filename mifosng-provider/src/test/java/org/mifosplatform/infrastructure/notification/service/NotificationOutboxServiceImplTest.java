@@ -0,0 +1,470 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.notification.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.when;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mifosplatform.common.MockedDatabase;
+import org.mifosplatform.infrastructure.core.domain.MifosPlatformTenant;
+import org.mifosplatform.infrastructure.core.service.RoutingDataSource;
+import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
+import org.mifosplatform.infrastructure.jobs.service.JobRunMetrics;
+import org.mifosplatform.infrastructure.notification.data.NotificationDeliveryData;
+import org.mifosplatform.infrastructure.notification.data.NotificationOutboxData;
+import org.mifosplatform.infrastructure.notification.domain.NotificationOutboxStatus;
+import org.mifosplatform.infrastructure.notification.domain.NotificationType;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+/**
+ * Runs {@link NotificationOutboxServiceImpl} against an in memory
+ * <code>notification_outbox</code> and <code>notification_log</code>,
+ * answering the statements it sends the way MySQL would, and checks how
+ * messages are claimed, sent, written back, retried and throttled.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class NotificationOutboxServiceImplTest {
+
+    private static final Pattern LIMIT = Pattern.compile("limit (\\d+)");
+    private static final long TOLERANCE_MILLIS = TimeUnit.SECONDS.toMillis(10);
+
+    @Mock
+    private RoutingDataSource dataSource;
+    @Mock
+    private MifosPlatformTenant tenant;
+
+    private final List<Row> outbox = new ArrayList<>();
+    private final List<Object[]> log = new ArrayList<>();
+    private final Set<Long> failingRenewals = new HashSet<>();
+    private long nextId = 1;
+
+    private TestSender sender;
+    private NotificationOutboxServiceImpl service;
+
+    @Before
+    public void setUp() throws Exception {
+        when(this.tenant.getTenantIdentifier()).thenReturn("default");
+        ThreadLocalContextUtil.setTenant(this.tenant);
+        new OutboxDatabase().connect(this.dataSource);
+
+        this.sender = new TestSender();
+        this.service = new NotificationOutboxServiceImpl(this.dataSource, Arrays.<NotificationSender> asList(this.sender));
+    }
+
+    @After
+    public void tearDown() {
+        ThreadLocalContextUtil.clearTenant();
+    }
+
+    @Test
+    public void queuedMessagesShouldBeSentOnceAndLogged() {
+        final int queued = this.service.enqueue(NotificationType.SMS, Arrays.asList(message(1L), message(2L), message(3L)));
+        assertEquals(3, queued);
+        // the same reminder is queued once a day
+        assertEquals(0, this.service.enqueue(NotificationType.SMS, Arrays.asList(message(2L))));
+
+        final JobRunMetrics metrics = this.service.sendPendingNotifications();
+
+        assertEquals(Long.valueOf(3), metrics.get("sent"));
+        assertEquals(Arrays.asList(1L, 2L, 3L), this.sender.sentIds());
+        for (final Row row : this.outbox) {
+            assertEquals(NotificationOutboxStatus.SENT.getValue(), row.status);
+            assertEquals(1, row.attempts);
+            assertNull(row.claimToken);
+            assertNotNull(row.sentOn);
+        }
+        assertEquals(3, this.log.size());
+        assertEquals(Boolean.TRUE, this.log.get(0)[5]);
+        assertEquals("gateway-1", this.log.get(0)[7]);
+
+        this.service.sendPendingNotifications();
+        assertEquals(3, this.sender.sentIds().size());
+    }
+
+    @Test
+    public void messagesClaimedByAnotherRunShouldWaitForTheirLease() {
+        final Row row = pending(0, new Date(System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(5)));
+        row.claimToken = "other-run";
+
+        this.service.sendPendingNotifications();
+        assertTrue(this.sender.sentIds().isEmpty());
+
+        // the other run stopped and its lease ran out
+        row.nextAttemptOn = new Date(System.currentTimeMillis() - 1000);
+        this.service.sendPendingNotifications();
+
+        assertEquals(Arrays.asList(row.id), this.sender.sentIds());
+        assertEquals(NotificationOutboxStatus.SENT.getValue(), row.status);
+        assertNull(row.claimToken);
+    }
+
+    @Test
+    public void outcomeShouldNotBeWrittenBackForMessagesTakenOverMeanwhile() {
+        final Row row = pending(0, new Date());
+        this.sender.whileSending = new Runnable() {
+
+            @Override
+            public void run() {
+                // the lease ran out during the send and another run claimed it
+                row.claimToken = "other-run";
+            }
+        };
+
+        final JobRunMetrics metrics = this.service.sendPendingNotifications();
+
+        assertEquals(Long.valueOf(1), metrics.get("takenOver"));
+        assertEquals(NotificationOutboxStatus.PENDING.getValue(), row.status);
+        assertEquals("other-run", row.claimToken);
+        assertEquals(0, row.attempts);
+        assertTrue(this.log.isEmpty());
+    }
+
+    @Test
+    public void failedSendsShouldBeRetriedWithBackoffUntilMaxAttempts() {
+        final Row first = pending(0, new Date());
+        final Row third = pending(2, new Date());
+        final Row last = pending(4, new Date());
+        this.sender.failure = new IllegalStateException("gateway down");
+
+        final long before = System.currentTimeMillis();
+        final JobRunMetrics metrics = this.service.sendPendingNotifications();
+
+        assertEquals(Long.valueOf(2), metrics.get("retried"));
+        assertEquals(Long.valueOf(1), metrics.get("abandoned"));
+
+        assertRetried(first, 1, before + TimeUnit.MINUTES.toMillis(1));
+        assertRetried(third, 3, before + TimeUnit.MINUTES.toMillis(4));
+
+        assertEquals(NotificationOutboxStatus.FAILED.getValue(), last.status);
+        assertEquals(5, last.attempts);
+        assertNull(last.claimToken);
+        assertEquals(1, this.log.size());
+        assertEquals(Boolean.FALSE, this.log.get(0)[5]);
+        assertEquals("gateway down", this.log.get(0)[6]);
+
+        // nothing is due again before its backoff
+        this.sender.failure = null;
+        this.service.sendPendingNotifications();
+        assertTrue(this.sender.sentIds().isEmpty());
+    }
+
+    @Test
+    public void sendsShouldBeThrottledToTheGatewayRate() {
+        for (int i = 0; i < 10; i++) {
+            pending(0, new Date());
+        }
+        this.sender.maxPerSecond = 20;
+
+        final long started = System.nanoTime();
+        this.service.sendPendingNotifications();
+        final long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+
+        assertEquals(10, this.sender.sentIds().size());
+        // ten single message batches leave 50 ms apart
+        assertTrue(elapsedMillis + " ms", elapsedMillis >= 400);
+    }
+
+    @Test
+    public void dailyLimitShouldBoundTheMessagesClaimed() {
+        for (int i = 0; i < 5; i++) {
+            pending(0, new Date());
+        }
+        this.sender.remainingToday = 3;
+
+        this.service.sendPendingNotifications();
+
+        assertEquals(Arrays.asList(1L, 2L, 3L), this.sender.sentIds());
+        assertEquals(NotificationOutboxStatus.PENDING.getValue(), this.outbox.get(3).status);
+        assertNull(this.outbox.get(3).claimToken);
+    }
+
+    @Test
+    public void failedBatchShouldNotHoldBackTheRestOfItsBlock() {
+        for (int i = 0; i < 4; i++) {
+            pending(0, new Date());
+        }
+        this.failingRenewals.add(3L);
+
+        final long before = System.currentTimeMillis();
+        final JobRunMetrics metrics = this.service.sendPendingNotifications();
+
+        assertEquals(Long.valueOf(3), metrics.get("sent"));
+        assertEquals(Long.valueOf(1), metrics.get("retried"));
+        assertEquals(Arrays.asList(1L, 2L, 4L), this.sender.sentIds());
+        for (final Row row : this.outbox) {
+            if (row.id == 3L) {
+                assertRetried(row, 1, before + TimeUnit.MINUTES.toMillis(1));
+            } else {
+                assertEquals(NotificationOutboxStatus.SENT.getValue(), row.status);
+                assertNull(row.claimToken);
+            }
+        }
+        assertEquals(3, this.log.size());
+
+        // the delivered messages are not sent again once the lease is over
+        for (final Row row : this.outbox) {
+            row.nextAttemptOn = new Date(before - 1000);
+        }
+        this.failingRenewals.clear();
+        this.service.sendPendingNotifications();
+        assertEquals(Arrays.asList(1L, 2L, 3L, 4L), this.sender.sentIds());
+    }
+
+    private void assertRetried(final Row row, final int attempts, final long expectedNextAttempt) {
+        assertEquals(NotificationOutboxStatus.PENDING.getValue(), row.status);
+        assertEquals(attempts, row.attempts);
+        assertNull(row.claimToken);
+        assertNotNull(row.lastError);
+        final long nextAttempt = row.nextAttemptOn.getTime();
+        assertTrue(row.nextAttemptOn.toString(), nextAttempt >= expectedNextAttempt
+                && nextAttempt <= expectedNextAttempt + TOLERANCE_MILLIS);
+    }
+
+    private static NotificationOutboxData message(final Long loanId) {
+        return NotificationOutboxData.newMessage("+25670000000" + loanId, "Your repayment is due", "loan", loanId);
+    }
+
+    private Row pending(final int attempts, final Date nextAttemptOn) {
+        synchronized (this.outbox) {
+            final Row row = new Row(this.nextId++, NotificationType.SMS.name(), "+2567000000", "Your repayment is due", "loan");
+            row.entityId = row.id;
+            row.attempts = attempts;
+            row.nextAttemptOn = nextAttemptOn;
+            this.outbox.add(row);
+            return row;
+        }
+    }
+
+    private static final class Row {
+
+        private final Long id;
+        private final String type;
+        private final String recipient;
+        private final String message;
+        private final String entityName;
+        private Long entityId;
+        private Integer status = NotificationOutboxStatus.PENDING.getValue();
+        private int attempts;
+        private Date nextAttemptOn;
+        private String claimToken;
+        private String lastError;
+        private Date sentOn;
+
+        Row(final Long id, final String type, final String recipient, final String message, final String entityName) {
+            this.id = id;
+            this.type = type;
+            this.recipient = recipient;
+            this.message = message;
+            this.entityName = entityName;
+        }
+    }
+
+    /**
+     * Delivers every message it is given, one message per batch, unless told
+     * to fail.
+     */
+    private static final class TestSender implements NotificationSender {
+
+        private final List<Long> sent = new ArrayList<>();
+        private int maxPerSecond;
+        private long remainingToday = Long.MAX_VALUE;
+        private RuntimeException failure;
+        private Runnable whileSending;
+
+        @Override
+        public NotificationType getType() {
+            return NotificationType.SMS;
+        }
+
+        @Override
+        public int getMaxPerSecond() {
+            return this.maxPerSecond;
+        }
+
+        @Override
+        public long getRemainingToday() {
+            return this.remainingToday;
+        }
+
+        @Override
+        public boolean canBatch(@SuppressWarnings("unused") final NotificationOutboxData batched,
+                @SuppressWarnings("unused") final NotificationOutboxData message, @SuppressWarnings("unused") final int batchSize) {
+            return false;
+        }
+
+        @Override
+        public List<NotificationDeliveryData> send(final List<NotificationOutboxData> batch) {
+            if (this.failure != null) { throw this.failure; }
+            if (this.whileSending != null) {
+                this.whileSending.run();
+            }
+            final List<NotificationDeliveryData> deliveries = new ArrayList<>();
+            synchronized (this.sent) {
+                for (final NotificationOutboxData message : batch) {
+                    this.sent.add(message.getId());
+                    deliveries.add(new NotificationDeliveryData("gateway-" + message.getId(), "queued"));
+                }
+            }
+            return deliveries;
+        }
+
+        List<Long> sentIds() {
+            synchronized (this.sent) {
+                final List<Long> ids = new ArrayList<>(this.sent);
+                Collections.sort(ids);
+                return ids;
+            }
+        }
+    }
+
+    /**
+     * Answers the statements of the outbox from {@link #outbox} and
+     * {@link #log}, failing on any statement it does not know.
+     */
+    private final class OutboxDatabase extends MockedDatabase {
+
+        @Override
+        protected int update(final String sql, final List<Object> parameters) throws SQLException {
+            synchronized (NotificationOutboxServiceImplTest.this.outbox) {
+                return updateOutbox(sql, parameters);
+            }
+        }
+
+        @Override
+        protected List<Map<String, Object>> query(final String sql, final List<Object> parameters) {
+            synchronized (NotificationOutboxServiceImplTest.this.outbox) {
+                return claimedMessages(sql, parameters);
+            }
+        }
+
+        private int updateOutbox(final String sql, final List<Object> values) throws SQLException {
+            final List<Row> outbox = NotificationOutboxServiceImplTest.this.outbox;
+            if (sql.startsWith("insert ignore into notification_outbox")) {
+                // UQ_type_entity_scheduled_on, every message is scheduled today
+                for (final Row row : outbox) {
+                    if (row.type.equals(values.get(0)) && row.entityName.equals(values.get(3)) && row.entityId.equals(values.get(4))) {
+                        return 0;
+                    }
+                }
+                final Row row = new Row(NotificationOutboxServiceImplTest.this.nextId++, (String) values.get(0), (String) values.get(1),
+                        (String) values.get(2), (String) values.get(3));
+                row.entityId = (Long) values.get(4);
+                row.status = (Integer) values.get(5);
+                row.nextAttemptOn = (Date) values.get(6);
+                outbox.add(row);
+                return 1;
+            }
+            if (sql.startsWith("insert into notification_log")) {
+                NotificationOutboxServiceImplTest.this.log.add(values.toArray());
+                return 1;
+            }
+            if (sql.contains("set claim_token = ?, next_attempt_on = ? where status_enum = ? and type = ?")) { return claim(sql, values); }
+
+            final Row row = claimedRow(sql, values);
+            if (row == null) { return 0; }
+            if (sql.contains("set next_attempt_on = ? where id = ?")) {
+                if (NotificationOutboxServiceImplTest.this.failingRenewals.contains(row.id)) { throw new SQLException("Lost connection"); }
+                row.nextAttemptOn = (Date) values.get(0);
+            } else if (sql.contains("set status_enum = ?, sent_on = ?")) {
+                row.status = (Integer) values.get(0);
+                row.sentOn = (Date) values.get(1);
+                row.claimToken = null;
+                row.lastError = null;
+                row.attempts++;
+            } else if (sql.contains("set next_attempt_on = ?, last_error = ?")) {
+                row.nextAttemptOn = (Date) values.get(0);
+                row.lastError = (String) values.get(1);
+                row.claimToken = null;
+                row.attempts++;
+            } else if (sql.contains("set status_enum = ?, last_error = ?")) {
+                row.status = (Integer) values.get(0);
+                row.lastError = (String) values.get(1);
+                row.claimToken = null;
+                row.attempts++;
+            } else {
+                fail(sql);
+            }
+            return 1;
+        }
+
+        /**
+         * The row of an update ending in <code>where id = ? and claim_token =
+         * ?</code>, optionally followed by <code>and status_enum = ?</code>.
+         */
+        private Row claimedRow(final String sql, final List<Object> values) {
+            final boolean withStatus = sql.endsWith("and status_enum = ?");
+            final int idIndex = values.size() - (withStatus ? 3 : 2);
+            for (final Row row : NotificationOutboxServiceImplTest.this.outbox) {
+                if (row.id.equals(values.get(idIndex)) && values.get(idIndex + 1).equals(row.claimToken)
+                        && (!withStatus || row.status.equals(values.get(idIndex + 2)))) { return row; }
+            }
+            return null;
+        }
+
+        private int claim(final String sql, final List<Object> values) {
+            final Date now = (Date) values.get(4);
+            final List<Row> due = new ArrayList<>();
+            for (final Row row : NotificationOutboxServiceImplTest.this.outbox) {
+                if (row.status.equals(values.get(2)) && row.type.equals(values.get(3)) && !row.nextAttemptOn.after(now)) {
+                    due.add(row);
+                }
+            }
+            Collections.sort(due, new Comparator<Row>() {
+
+                @Override
+                public int compare(final Row first, final Row second) {
+                    final int byTime = first.nextAttemptOn.compareTo(second.nextAttemptOn);
+                    return byTime != 0 ? byTime : first.id.compareTo(second.id);
+                }
+            });
+            final Matcher limit = LIMIT.matcher(sql);
+            assertTrue(sql, limit.find());
+            final List<Row> claimed = due.subList(0, Math.min(due.size(), Integer.parseInt(limit.group(1))));
+            for (final Row row : claimed) {
+                row.claimToken = (String) values.get(0);
+                row.nextAttemptOn = (Date) values.get(1);
+            }
+            return claimed.size();
+        }
+
+        private List<Map<String, Object>> claimedMessages(final String sql, final List<Object> values) {
+            assertTrue(sql, sql.contains("from notification_outbox where claim_token = ? and status_enum = ?"));
+            final List<Map<String, Object>> rows = new ArrayList<>();
+            for (final Row queued : NotificationOutboxServiceImplTest.this.outbox) {
+                if (values.get(0).equals(queued.claimToken) && queued.status.equals(values.get(1))) {
+                    rows.add(row("id", queued.id, "recipient", queued.recipient, "message", queued.message, "entity_name",
+                            queued.entityName, "entity_id", queued.entityId, "attempts", queued.attempts));
+                }
+            }
+            assertFalse(rows.isEmpty());
+            return rows;
+        }
+    }
+}
@@ -0,0 +1,215 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.security.service;
+
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mifosplatform.infrastructure.core.api.JsonCommand;
+import org.mifosplatform.infrastructure.core.domain.MifosPlatformTenant;
+import org.mifosplatform.infrastructure.core.serialization.FromJsonHelper;
+import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
+import org.mifosplatform.organisation.office.domain.Office;
+import org.mifosplatform.useradministration.domain.AppUser;
+import org.mifosplatform.useradministration.domain.AppUserRepository;
+import org.mifosplatform.useradministration.domain.Role;
+import org.mifosplatform.useradministration.domain.RoleRepository;
+import org.mifosplatform.useradministration.service.AppUserWritePlatformServiceJpaRepositoryImpl;
+import org.mifosplatform.useradministration.service.RoleDataValidator;
+import org.mifosplatform.useradministration.service.RoleWritePlatformServiceJpaRepositoryImpl;
+import org.mifosplatform.useradministration.service.UserDataValidator;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Runs basic auth requests through {@link CachingAuthenticationProvider} in
+ * front of a mocked DAO provider and counts how often the DAO provider still
+ * has to load the user.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class CachingAuthenticationProviderTest {
+
+    private static final long TIME_TO_LIVE_MILLIS = 60000L;
+
+    @Mock
+    private DaoAuthenticationProvider daoAuthenticationProvider;
+    @Mock
+    private MifosPlatformTenant tenant;
+    @Mock
+    private MifosPlatformTenant otherTenant;
+
+    private final FromJsonHelper fromJsonHelper = new FromJsonHelper();
+    private final Authentication request = new UsernamePasswordAuthenticationToken("mifos", "password");
+    private final Authentication authenticated = new UsernamePasswordAuthenticationToken("mifos", "password",
+            Arrays.<GrantedAuthority> asList(new SimpleGrantedAuthority("ALL_FUNCTIONS")));
+
+    private CachingAuthenticationProvider provider;
+
+    @Before
+    public void setUp() {
+        when(this.tenant.getId()).thenReturn(1L);
+        when(this.otherTenant.getId()).thenReturn(2L);
+        when(this.daoAuthenticationProvider.authenticate(any(Authentication.class))).thenReturn(this.authenticated);
+        this.provider = new CachingAuthenticationProvider(this.daoAuthenticationProvider, TIME_TO_LIVE_MILLIS);
+        ThreadLocalContextUtil.setTenant(this.tenant);
+    }
+
+    @After
+    public void tearDown() {
+        ThreadLocalContextUtil.clearTenant();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    public void repeatedCredentialsShouldBeAuthenticatedOnce() {
+        assertSame(this.authenticated, this.provider.authenticate(this.request));
+        assertSame(this.authenticated, this.provider.authenticate(new UsernamePasswordAuthenticationToken("mifos", "password")));
+
+        verify(this.daoAuthenticationProvider, times(1)).authenticate(any(Authentication.class));
+    }
+
+    @Test
+    public void otherCredentialsShouldBeAuthenticatedAgain() {
+        this.provider.authenticate(this.request);
+        this.provider.authenticate(new UsernamePasswordAuthenticationToken("mifos", "another password"));
+        this.provider.authenticate(new UsernamePasswordAuthenticationToken("another user", "password"));
+
+        verify(this.daoAuthenticationProvider, times(3)).authenticate(any(Authentication.class));
+    }
+
+    @Test
+    public void failedAuthenticationShouldNotBeCached() {
+        when(this.daoAuthenticationProvider.authenticate(any(Authentication.class))).thenThrow(new BadCredentialsException("wrong"));
+
+        for (int i = 0; i < 2; i++) {
+            try {
+                this.provider.authenticate(this.request);
+                fail("Wrong credentials were authenticated");
+            } catch (final BadCredentialsException e) {
+                // expected
+            }
+        }
+        verify(this.daoAuthenticationProvider, times(2)).authenticate(any(Authentication.class));
+    }
+
+    @Test
+    public void expiredAuthenticationShouldBeAuthenticatedAgain() {
+        final CachingAuthenticationProvider expiringProvider = new CachingAuthenticationProvider(this.daoAuthenticationProvider, 0L);
+
+        expiringProvider.authenticate(this.request);
+        expiringProvider.authenticate(this.request);
+
+        verify(this.daoAuthenticationProvider, times(2)).authenticate(any(Authentication.class));
+    }
+
+    @Test
+    public void invalidateShouldOnlyEvictTheCurrentTenant() {
+        this.provider.authenticate(this.request);
+        ThreadLocalContextUtil.setTenant(this.otherTenant);
+        this.provider.authenticate(this.request);
+        verify(this.daoAuthenticationProvider, times(2)).authenticate(any(Authentication.class));
+
+        ThreadLocalContextUtil.setTenant(this.tenant);
+        this.provider.invalidate();
+
+        ThreadLocalContextUtil.setTenant(this.otherTenant);
+        this.provider.authenticate(this.request);
+        verify(this.daoAuthenticationProvider, times(2)).authenticate(any(Authentication.class));
+
+        ThreadLocalContextUtil.setTenant(this.tenant);
+        this.provider.authenticate(this.request);
+        verify(this.daoAuthenticationProvider, times(3)).authenticate(any(Authentication.class));
+    }
+
+    @Test
+    public void authenticationCachedBeforeTheCommitShouldBeEvictedAfterIt() {
+        TransactionSynchronizationManager.initSynchronization();
+        this.provider.invalidate();
+
+        // another request reads the user before the change is committed
+        this.provider.authenticate(this.request);
+        this.provider.authenticate(this.request);
+        verify(this.daoAuthenticationProvider, times(1)).authenticate(any(Authentication.class));
+
+        for (final TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        }
+        TransactionSynchronizationManager.clearSynchronization();
+
+        this.provider.authenticate(this.request);
+        verify(this.daoAuthenticationProvider, times(2)).authenticate(any(Authentication.class));
+    }
+
+    @Test
+    public void passwordChangeShouldEvictAuthentications() {
+        final AppUserRepository appUserRepository = mock(AppUserRepository.class);
+        final AppUser user = mock(AppUser.class);
+        final Office office = mock(Office.class);
+        final Map<String, Object> changes = new HashMap<>();
+        changes.put("passwordEncoded", "encoded");
+        when(appUserRepository.findOne(3L)).thenReturn(user);
+        when(user.update(any(JsonCommand.class), any(PlatformPasswordEncoder.class))).thenReturn(changes);
+        when(user.getOffice()).thenReturn(office);
+
+        final AppUserWritePlatformServiceJpaRepositoryImpl service = new AppUserWritePlatformServiceJpaRepositoryImpl(
+                mock(PlatformSecurityContext.class), appUserRepository, null, null, null,
+                mock(PlatformPasswordEncoder.class), new UserDataValidator(this.fromJsonHelper), null, null, null,
+                null, this.provider);
+
+        this.provider.authenticate(this.request);
+        service.updateUser(3L, command("USER", 3L, "{\"password\":\"changed\",\"repeatPassword\":\"changed\"}"));
+        this.provider.authenticate(this.request);
+
+        verify(this.daoAuthenticationProvider, times(2)).authenticate(any(Authentication.class));
+    }
+
+    @Test
+    public void roleChangeShouldEvictAuthentications() {
+        final RoleRepository roleRepository = mock(RoleRepository.class);
+        final Role role = mock(Role.class);
+        when(roleRepository.findOne(4L)).thenReturn(role);
+        when(role.update(any(JsonCommand.class))).thenReturn(Collections.<String, Object> emptyMap());
+
+        final RoleWritePlatformServiceJpaRepositoryImpl service = new RoleWritePlatformServiceJpaRepositoryImpl(
+                mock(PlatformSecurityContext.class), roleRepository, null, new RoleDataValidator(this.fromJsonHelper),
+                null, null, this.provider);
+
+        this.provider.authenticate(this.request);
+        service.updateRole(4L, command("ROLE", 4L, "{\"description\":\"Tellers\"}"));
+        this.provider.authenticate(this.request);
+
+        verify(this.daoAuthenticationProvider, times(2)).authenticate(any(Authentication.class));
+    }
+
+    private JsonCommand command(final String entityName, final Long resourceId, final String json) {
+        return JsonCommand.from(json, this.fromJsonHelper.parse(json), this.fromJsonHelper, entityName, resourceId, null, null, null,
+                null, null, null, null, null);
+    }
+}
@@ -12,7 +12,9 @@ import java.util.ArrayList;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
-import org.mifosplatform.infrastructure.core.service.RoutingDataSource;
+import org.mifosplatform.accounting.journalentry.service.GLBalanceAggregateReadPlatformService;
+import org.mifosplatform.mix.service.MixTaxonomyMappingReadPlatformService;
+import org.mifosplatform.mix.service.MixTaxonomyReadPlatformService;
 import org.mifosplatform.mix.service.XBRLResultServiceImpl;
 import org.mockito.Mockito;
 import org.mockito.runners.MockitoJUnitRunner;
@@ -24,8 +26,8 @@ public class ReadTaxonomyMappingServiceImplTest {
 
     @Before
     public void setUp() throws Exception {
-        final RoutingDataSource dataSource = Mockito.mock(RoutingDataSource.class);
-        this.readService = new XBRLResultServiceImpl(dataSource, null, null);
+        this.readService = new XBRLResultServiceImpl(Mockito.mock(MixTaxonomyMappingReadPlatformService.class),
+                Mockito.mock(MixTaxonomyReadPlatformService.class), Mockito.mock(GLBalanceAggregateReadPlatformService.class));
 
     }
 
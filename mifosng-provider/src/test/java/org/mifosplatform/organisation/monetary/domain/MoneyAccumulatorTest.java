@@ -0,0 +1,241 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.organisation.monetary.domain;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Runs random sequences of additions and subtractions through
+ * {@link MoneyAccumulator} and through chained {@link Money} calls, and random
+ * multiplications, divisions and negations through {@link Money}, and checks
+ * the results against the rounding {@link Money} did before it was moved into
+ * {@link Money#normalize(BigDecimal, int, Integer)}.
+ */
+public class MoneyAccumulatorTest {
+
+    private static final Integer[] MULTIPLES = { null, 0, 1, 5, 20, 50, 100 };
+    private static final int SEQUENCES = 2000;
+    private static final int STEPS = 40;
+
+    private final Random random = new Random(20141017L);
+
+    @Test
+    public void accumulatorShouldMatchChainedPlusAndMinus() {
+        for (int i = 0; i < SEQUENCES; i++) {
+            final MonetaryCurrency currency = randomCurrency();
+            final MoneyAccumulator accumulator = MoneyAccumulator.zero(currency);
+            Money chained = Money.zero(currency);
+            BigDecimal expected = previousNormalize(BigDecimal.ZERO, currency);
+
+            for (int step = 0; step < STEPS; step++) {
+                final BigDecimal amount = randomAmount();
+                final String message = currency.getDigitsAfterDecimal() + " digits, multiples of " + currency.getCurrencyInMultiplesOf()
+                        + ", sequence " + i + " step " + step + " amount " + amount;
+                final int operation = this.random.nextInt(4);
+                if (operation == 0) {
+                    accumulator.plus(amount);
+                    chained = chained.plus(amount);
+                    expected = previousNormalize(expected.add(amount), currency);
+                } else if (operation == 1) {
+                    accumulator.minus(amount);
+                    chained = chained.minus(amount);
+                    expected = previousNormalize(expected.subtract(amount), currency);
+                } else if (operation == 2) {
+                    final Money money = Money.of(currency, amount);
+                    accumulator.plus(money);
+                    chained = chained.plus(money);
+                    expected = previousNormalize(expected.add(previousNormalize(amount, currency)), currency);
+                } else {
+                    final Money money = Money.of(currency, amount);
+                    accumulator.minus(money);
+                    chained = chained.minus(money);
+                    expected = previousNormalize(expected.subtract(previousNormalize(amount, currency)), currency);
+                }
+
+                assertEquals(message, expected, chained.getAmount());
+                assertEquals(message, chained.getAmount(), accumulator.getAmount());
+                assertEquals(message, chained.isGreaterThanZero(), accumulator.isGreaterThanZero());
+            }
+
+            final Money total = accumulator.toMoney();
+            assertEquals(chained.getAmount(), total.getAmount());
+            assertEquals(chained.getCurrencyCode(), total.getCurrencyCode());
+            assertEquals(true, chained.isSameCurrency(total));
+        }
+    }
+
+    @Test
+    public void multiplyDivideAndNegateShouldMatchPreviousMoney() {
+        final RoundingMode[] roundingModes = { RoundingMode.HALF_EVEN, RoundingMode.HALF_UP, RoundingMode.DOWN, RoundingMode.CEILING };
+        for (int i = 0; i < SEQUENCES * STEPS; i++) {
+            final MonetaryCurrency currency = randomCurrency();
+            final Money money = Money.of(currency, randomAmount());
+            final BigDecimal amount = money.getAmount();
+            final BigDecimal factor = randomFactor();
+            final long longFactor = this.random.nextInt(24) + 1L;
+            final RoundingMode roundingMode = roundingModes[this.random.nextInt(roundingModes.length)];
+            final String message = money + " with " + currency.getDigitsAfterDecimal() + " digits, multiples of "
+                    + currency.getCurrencyInMultiplesOf() + ", factor " + factor + ", " + longFactor + ", " + roundingMode;
+
+            assertEquals(message, previousNormalize(amount.multiply(factor), currency), money.multipliedBy(factor).getAmount());
+            assertEquals(message, previousNormalize(amount.multiply(BigDecimal.valueOf(factor.doubleValue())), currency),
+                    money.multipliedBy(factor.doubleValue()).getAmount());
+            assertEquals(message, previousNormalize(amount.multiply(BigDecimal.valueOf(longFactor)), currency),
+                    money.multipliedBy(longFactor).getAmount());
+            assertEquals(message,
+                    previousNormalize(amount.multiply(factor).setScale(currency.getDigitsAfterDecimal(), roundingMode), currency),
+                    money.multiplyRetainScale(factor, roundingMode).getAmount());
+
+            assertEquals(message, previousNormalize(amount.divide(factor, roundingMode), currency), money.dividedBy(factor, roundingMode)
+                    .getAmount());
+            assertEquals(message, previousNormalize(amount.divide(BigDecimal.valueOf(factor.doubleValue()), roundingMode), currency), money
+                    .dividedBy(factor.doubleValue(), roundingMode).getAmount());
+            assertEquals(message, previousNormalize(amount.divide(BigDecimal.valueOf(longFactor), roundingMode), currency), money
+                    .dividedBy(longFactor, roundingMode).getAmount());
+
+            final Money negated = money.negated();
+            assertEquals(message, previousNormalize(amount.negate(), currency), negated.getAmount());
+            assertEquals(message, money.isGreaterThanZero(), negated.isLessThanZero());
+            assertEquals(message, previousNormalize(amount.abs(), currency), money.abs().getAmount());
+            assertEquals(message, money.getCurrencyCode(), negated.getCurrencyCode());
+            assertEquals(message, currency.getCurrencyInMultiplesOf(), negated.getCurrencyInMultiplesOf());
+        }
+    }
+
+    @Test
+    public void multiplyAndDivideShouldRoundIntoMultiplesOfTheCurrency() {
+        final MonetaryCurrency multiplesOfFifty = new MonetaryCurrency("UGX", 0, 50);
+        final Money money = Money.of(multiplesOfFifty, BigDecimal.valueOf(120));
+
+        assertEquals(BigDecimal.valueOf(100), money.getAmount());
+        assertEquals(BigDecimal.valueOf(150), money.multipliedBy(BigDecimal.valueOf(1.3)).getAmount());
+        assertEquals(BigDecimal.valueOf(100), money.multipliedBy(1.2).getAmount());
+        assertEquals(BigDecimal.valueOf(300), money.multipliedBy(3L).getAmount());
+        assertEquals(BigDecimal.valueOf(50), money.dividedBy(3L, RoundingMode.HALF_EVEN).getAmount());
+        assertEquals(BigDecimal.ZERO, money.dividedBy(BigDecimal.valueOf(6), RoundingMode.HALF_EVEN).getAmount());
+        assertEquals(BigDecimal.valueOf(50), money.multiplyRetainScale(0.3, RoundingMode.HALF_EVEN).getAmount());
+
+        // only positive amounts are rounded into multiples
+        assertEquals(BigDecimal.valueOf(-100), money.negated().getAmount());
+        assertEquals(BigDecimal.valueOf(-30), money.negated().dividedBy(3.3, RoundingMode.HALF_EVEN).getAmount());
+    }
+
+    @Test
+    public void normalizeShouldMatchPreviousRounding() {
+        for (int i = 0; i < SEQUENCES * STEPS; i++) {
+            final MonetaryCurrency currency = randomCurrency();
+            final BigDecimal amount = randomAmount();
+            final String message = amount + " with " + currency.getDigitsAfterDecimal() + " digits, multiples of "
+                    + currency.getCurrencyInMultiplesOf();
+            assertEquals(message, previousNormalize(amount, currency),
+                    Money.normalize(amount, currency.getDigitsAfterDecimal(), currency.getCurrencyInMultiplesOf()));
+        }
+        assertEquals(BigDecimal.ZERO.setScale(2), Money.normalize(null, 2, null));
+    }
+
+    @Test
+    public void accumulatorShouldRejectAnotherCurrency() {
+        final MoneyAccumulator accumulator = MoneyAccumulator.zero(new MonetaryCurrency("USD", 2, null));
+        final Money euros = Money.of(new MonetaryCurrency("EUR", 2, null), BigDecimal.TEN);
+
+        try {
+            accumulator.plus(euros);
+            fail("plus accepted another currency");
+        } catch (final UnsupportedOperationException e) {
+            // expected, as with Money.plus
+        }
+        try {
+            accumulator.minus(euros);
+            fail("minus accepted another currency");
+        } catch (final UnsupportedOperationException e) {
+            // expected, as with Money.minus
+        }
+        try {
+            Money.zero(new MonetaryCurrency("USD", 2, null)).plus(euros);
+            fail("Money.plus accepted another currency");
+        } catch (final UnsupportedOperationException e) {
+            // expected
+        }
+        final Money dollars = Money.of(new MonetaryCurrency("USD", 2, null), BigDecimal.ONE);
+        try {
+            dollars.minus(euros);
+            fail("Money.minus accepted another currency");
+        } catch (final UnsupportedOperationException e) {
+            // expected
+        }
+        try {
+            dollars.plus(Arrays.asList(dollars, euros));
+            fail("Money.plus accepted a list with another currency");
+        } catch (final UnsupportedOperationException e) {
+            // expected
+        }
+        try {
+            dollars.isGreaterThan(euros);
+            fail("Money.isGreaterThan compared another currency");
+        } catch (final UnsupportedOperationException e) {
+            // expected
+        }
+        assertEquals(BigDecimal.ZERO.setScale(2), accumulator.getAmount());
+    }
+
+    private MonetaryCurrency randomCurrency() {
+        final int digitsAfterDecimal = this.random.nextInt(4);
+        final Integer inMultiplesOf = digitsAfterDecimal == 0 ? MULTIPLES[this.random.nextInt(MULTIPLES.length)] : null;
+        return new MonetaryCurrency("XTS", digitsAfterDecimal, inMultiplesOf);
+    }
+
+    /**
+     * A multiplier or divisor that is never zero, with up to four decimal
+     * places, and sometimes exactly one, which Money returns unchanged.
+     */
+    private BigDecimal randomFactor() {
+        if (this.random.nextInt(20) == 0) { return BigDecimal.ONE; }
+        final BigDecimal factor = BigDecimal.valueOf(this.random.nextInt(400000) + 1L, this.random.nextInt(5));
+        return this.random.nextInt(10) == 0 ? factor.negate() : factor;
+    }
+
+    /**
+     * Mostly small amounts with up to six decimal places, some of them zero
+     * or negative, which the accumulator and Money skip or round differently.
+     */
+    private BigDecimal randomAmount() {
+        if (this.random.nextInt(20) == 0) { return BigDecimal.ZERO; }
+        final long unscaled = (long) (this.random.nextDouble() * (this.random.nextBoolean() ? 1000000000L : 100000L));
+        final BigDecimal amount = BigDecimal.valueOf(unscaled, this.random.nextInt(7));
+        return this.random.nextInt(5) == 0 ? amount.negate() : amount;
+    }
+
+    /**
+     * The rounding of the Money constructor as it was before
+     * {@link Money#normalize(BigDecimal, int, Integer)}.
+     */
+    private static BigDecimal previousNormalize(final BigDecimal amount, final MonetaryCurrency currency) {
+        final int digitsAfterDecimal = currency.getDigitsAfterDecimal();
+        final Integer inMultiplesOf = currency.getCurrencyInMultiplesOf();
+
+        final BigDecimal amountZeroed = amount == null ? BigDecimal.ZERO : amount;
+        BigDecimal amountScaled = amountZeroed.stripTrailingZeros();
+        if (inMultiplesOf != null && digitsAfterDecimal == 0 && inMultiplesOf > 0 && amountScaled.doubleValue() > 0) {
+            final double existingVal = amountScaled.doubleValue();
+            final double ceilingOfValue = Money.ceiling(existingVal, inMultiplesOf);
+            final double floorOfValue = Money.floor(existingVal, inMultiplesOf);
+            if (ceilingOfValue - existingVal > existingVal - floorOfValue) {
+                amountScaled = BigDecimal.valueOf(floorOfValue);
+            } else {
+                amountScaled = BigDecimal.valueOf(ceilingOfValue);
+            }
+        }
+        return amountScaled.setScale(digitsAfterDecimal, RoundingMode.HALF_EVEN);
+    }
+}
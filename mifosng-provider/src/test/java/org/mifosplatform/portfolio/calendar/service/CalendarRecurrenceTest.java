@@ -0,0 +1,100 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.portfolio.calendar.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Random;
+
+import org.joda.time.LocalDate;
+import org.junit.Test;
+
+/**
+ * Expands randomly generated rules of the kind the platform stores both
+ * natively and with ical4j and expects the same dates from both.
+ */
+public class CalendarRecurrenceTest {
+
+    private static final String[] FREQUENCIES = { "DAILY", "WEEKLY", "MONTHLY" };
+    private static final String[] DAYS = { "MO", "TU", "WE", "TH", "FR", "SA", "SU" };
+    private static final int RULES = 2000;
+
+    private final Random random = new Random(20141017L);
+
+    @Test
+    public void nativeExpansionShouldMatchICal4J() {
+
+        int expanded = 0;
+        for (int i = 0; i < RULES; i++) {
+            final String rule = randomRule();
+            final CalendarRecurrence recurrence = new CalendarRecurrence(CalendarUtils.getICalRecur(rule));
+            final LocalDate seedDate = new LocalDate(2012, 1, 1).plusDays(this.random.nextInt(3650));
+            if (!recurrence.isExpandable(seedDate)) {
+                continue;
+            }
+            expanded++;
+
+            final LocalDate periodStartDate = seedDate.plusDays(this.random.nextInt(460) - 60);
+            final LocalDate periodEndDate = periodStartDate.plusDays(1 + this.random.nextInt(400));
+            final int maxCount = this.random.nextBoolean() ? 10 : 1 + this.random.nextInt(60);
+            final String message = rule + " seed " + seedDate + " from " + periodStartDate + " to " + periodEndDate;
+
+            assertEquals(message, new ArrayList<>(CalendarUtils.getRecurringDates(recurrence.getRecur(), seedDate, periodStartDate,
+                    periodEndDate, maxCount)), new ArrayList<>(recurrence.getDates(seedDate, periodStartDate, periodEndDate, maxCount)));
+
+            assertEquals(message, CalendarUtils.getNextRecurringDate(recurrence.getRecur(), seedDate, periodStartDate),
+                    recurrence.getNextDate(seedDate, periodStartDate));
+
+            final CalendarRecurrence repaymentRecurrence = recurrence.withIntervalAndFrequency(1 + this.random.nextInt(4),
+                    FREQUENCIES[this.random.nextInt(FREQUENCIES.length)]);
+            if (repaymentRecurrence.isExpandable(seedDate)) {
+                assertEquals(message, CalendarUtils.getNextRecurringDate(repaymentRecurrence.getRecur(), seedDate, periodStartDate),
+                        repaymentRecurrence.getNextDate(seedDate, periodStartDate));
+            }
+
+            for (LocalDate date = periodStartDate; date.isBefore(periodStartDate.plusDays(14)); date = date.plusDays(1)) {
+                final Collection<LocalDate> expected = CalendarUtils.getRecurringDates(recurrence.getRecur(), seedDate, date,
+                        date.plusDays(1), 1);
+                assertEquals(message + " on " + date, new ArrayList<>(expected),
+                        new ArrayList<>(recurrence.getDates(seedDate, date, date.plusDays(1), 1)));
+            }
+        }
+        assertTrue("Only " + expanded + " rules were expanded", expanded > RULES / 2);
+    }
+
+    private String randomRule() {
+        final String frequency = FREQUENCIES[this.random.nextInt(FREQUENCIES.length)];
+        final StringBuilder rule = new StringBuilder("FREQ=").append(frequency);
+        if (this.random.nextBoolean()) {
+            rule.append(";INTERVAL=").append(1 + this.random.nextInt(4));
+        }
+        if (this.random.nextInt(3) > 0 && (!"MONTHLY".equals(frequency) || this.random.nextBoolean())) {
+            rule.append(";BYDAY=").append(randomList(DAYS));
+        }
+        if ("MONTHLY".equals(frequency) && this.random.nextBoolean()) {
+            final String[] monthDays = new String[31];
+            for (int day = 1; day <= 31; day++) {
+                monthDays[day - 1] = String.valueOf(day);
+            }
+            rule.append(";BYMONTHDAY=").append(randomList(monthDays));
+        }
+        return rule.toString();
+    }
+
+    private String randomList(final String[] values) {
+        final StringBuilder list = new StringBuilder();
+        final int size = 1 + this.random.nextInt(this.random.nextBoolean() ? 1 : 4);
+        for (final String value : values) {
+            if (this.random.nextInt(values.length) < size) {
+                list.append(list.length() == 0 ? "" : ",").append(value);
+            }
+        }
+        return list.length() == 0 ? values[this.random.nextInt(values.length)] : list.toString();
+    }
+}
@@ -0,0 +1,278 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.portfolio.savings.domain;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.when;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.joda.time.LocalDate;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mifosplatform.organisation.monetary.domain.MonetaryCurrency;
+import org.mifosplatform.organisation.monetary.domain.Money;
+import org.mifosplatform.portfolio.account.service.AccountTransfersReadPlatformService;
+import org.mifosplatform.portfolio.accountdetails.domain.AccountType;
+import org.mifosplatform.portfolio.client.domain.Client;
+import org.mifosplatform.portfolio.savings.DepositAccountType;
+import org.mifosplatform.portfolio.savings.SavingsCompoundingInterestPeriodType;
+import org.mifosplatform.portfolio.savings.SavingsInterestCalculationDaysInYearType;
+import org.mifosplatform.portfolio.savings.SavingsInterestCalculationType;
+import org.mifosplatform.portfolio.savings.SavingsPostingInterestPeriodType;
+import org.mifosplatform.portfolio.savings.domain.interest.PostingPeriod;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+/**
+ * Runs the same transactions on two savings accounts, one calculating interest
+ * from its latest checkpoint and one replaying its whole history each time, and
+ * compares the interest, postings and balances they end up with.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class SavingsAccountInterestCheckpointTest {
+
+    private static final MonetaryCurrency CURRENCY = new MonetaryCurrency("USD", 2, null);
+    private static final MathContext MC = new MathContext(15, RoundingMode.HALF_EVEN);
+    private static final Integer FINANCIAL_YEAR_BEGINNING_MONTH = 1;
+    private static final LocalDate ACTIVATION_DATE = new LocalDate(2014, 1, 1);
+    private static final LocalDate FIRST_POSTING_UP_TO_DATE = new LocalDate(2014, 4, 15);
+    private static final LocalDate CHECKPOINT_DATE = new LocalDate(2014, 3, 31);
+    private static final LocalDate SECOND_POSTING_UP_TO_DATE = new LocalDate(2014, 6, 15);
+
+    @Mock
+    private AccountTransfersReadPlatformService accountTransfersReadPlatformService;
+    @Mock
+    private SavingsProduct product;
+
+    private Client client;
+    private SavingsAccount checkpointed;
+    private SavingsAccount replayed;
+
+    @Before
+    public void setUp() throws Exception {
+        when(this.product.currency()).thenReturn(CURRENCY);
+        final Constructor<Client> clientConstructor = Client.class.getDeclaredConstructor();
+        clientConstructor.setAccessible(true);
+        this.client = clientConstructor.newInstance();
+
+        this.checkpointed = newActiveAccount();
+        this.replayed = newActiveAccount();
+        for (final SavingsAccount account : accounts()) {
+            deposit(account, ACTIVATION_DATE, "1000");
+            deposit(account, new LocalDate(2014, 2, 10), "500");
+            withdraw(account, new LocalDate(2014, 3, 15), "200");
+        }
+        postInterest(FIRST_POSTING_UP_TO_DATE);
+    }
+
+    @Test
+    public void checkpointShouldBeTakenAtTheEndOfTheLastPostedPeriod() throws Exception {
+        final List<SavingsAccountInterestCheckpoint> checkpoints = interestCheckpoints(this.checkpointed);
+
+        assertEquals(1, checkpoints.size());
+        assertEquals(CHECKPOINT_DATE, checkpoints.get(0).getCheckpointDate());
+        assertSameInterest();
+    }
+
+    @Test
+    public void calculationFromCheckpointShouldMatchFullReplay() throws Exception {
+        for (final SavingsAccount account : accounts()) {
+            deposit(account, new LocalDate(2014, 4, 20), "300");
+        }
+
+        final List<PostingPeriod> postingPeriods = calculateInterest(this.checkpointed);
+
+        final SavingsAccountInterestCheckpoint usedCheckpoint = interestCalculatedFromCheckpoint(this.checkpointed);
+        assertNotNull(usedCheckpoint);
+        assertEquals(CHECKPOINT_DATE, usedCheckpoint.getCheckpointDate());
+        assertEquals(CHECKPOINT_DATE.plusDays(1), postingPeriods.get(0).periodInterval().startDate());
+
+        postInterest(SECOND_POSTING_UP_TO_DATE);
+        assertSameInterest();
+        assertEquals(new LocalDate(2014, 5, 31), interestCheckpoints(this.checkpointed).get(0).getCheckpointDate());
+    }
+
+    @Test
+    public void backdatedTransactionShouldInvalidateCheckpoint() throws Exception {
+        final BigDecimal interestBefore = totalInterestEarned(this.checkpointed);
+        for (final SavingsAccount account : accounts()) {
+            deposit(account, new LocalDate(2014, 2, 20), "400");
+        }
+
+        assertCheckpointDropped();
+
+        postInterest(SECOND_POSTING_UP_TO_DATE);
+        assertSameInterest();
+        assertNotEquals(interestBefore, totalInterestEarned(this.checkpointed));
+    }
+
+    @Test
+    public void reversalShouldInvalidateCheckpoint() throws Exception {
+        final BigDecimal interestBefore = totalInterestEarned(this.checkpointed);
+        for (final SavingsAccount account : accounts()) {
+            findTransaction(account, new LocalDate(2014, 2, 10), false).reverse();
+        }
+
+        assertCheckpointDropped();
+
+        postInterest(SECOND_POSTING_UP_TO_DATE);
+        assertSameInterest();
+        assertNotEquals(interestBefore, totalInterestEarned(this.checkpointed));
+    }
+
+    @Test
+    public void reversedInterestPostingOfCheckpointPeriodShouldInvalidateCheckpoint() throws Exception {
+        for (final SavingsAccount account : accounts()) {
+            findTransaction(account, CHECKPOINT_DATE.plusDays(1), true).reverse();
+        }
+
+        assertCheckpointDropped();
+
+        postInterest(SECOND_POSTING_UP_TO_DATE);
+        assertSameInterest();
+    }
+
+    @Test
+    public void interestRateChangeShouldInvalidateCheckpoint() throws Exception {
+        final BigDecimal interestBefore = totalInterestEarned(this.checkpointed);
+        for (final SavingsAccount account : accounts()) {
+            setField(account, "nominalAnnualInterestRate", BigDecimal.valueOf(12));
+        }
+
+        assertCheckpointDropped();
+
+        postInterest(SECOND_POSTING_UP_TO_DATE);
+        assertSameInterest();
+        assertNotEquals(interestBefore, totalInterestEarned(this.checkpointed));
+    }
+
+    @Test
+    public void interestCalculationTypeChangeShouldInvalidateCheckpoint() throws Exception {
+        for (final SavingsAccount account : accounts()) {
+            setField(account, "interestCalculationType", SavingsInterestCalculationType.AVERAGE_DAILY_BALANCE.getValue());
+        }
+
+        assertCheckpointDropped();
+
+        postInterest(SECOND_POSTING_UP_TO_DATE);
+        assertSameInterest();
+    }
+
+    private void assertCheckpointDropped() throws Exception {
+        calculateInterest(this.checkpointed);
+
+        assertNull(interestCalculatedFromCheckpoint(this.checkpointed));
+        assertTrue(interestCheckpoints(this.checkpointed).isEmpty());
+    }
+
+    private void assertSameInterest() throws Exception {
+        assertEquals(totalInterestEarned(this.replayed), totalInterestEarned(this.checkpointed));
+        assertEquals(this.replayed.getAccountBalance(), this.checkpointed.getAccountBalance());
+        assertEquals(describeTransactions(this.replayed), describeTransactions(this.checkpointed));
+    }
+
+    private List<PostingPeriod> calculateInterest(final SavingsAccount account) {
+        return account.calculateInterestUsing(MC, SECOND_POSTING_UP_TO_DATE, false, false, FINANCIAL_YEAR_BEGINNING_MONTH);
+    }
+
+    /**
+     * Posts interest on both accounts, the replayed one starting without a
+     * checkpoint each time.
+     */
+    private void postInterest(final LocalDate upToDate) throws Exception {
+        interestCheckpoints(this.replayed).clear();
+        this.replayed.postInterest(MC, upToDate, false, false, FINANCIAL_YEAR_BEGINNING_MONTH);
+        this.checkpointed.postInterest(MC, upToDate, false, false, FINANCIAL_YEAR_BEGINNING_MONTH);
+    }
+
+    private List<SavingsAccount> accounts() {
+        final List<SavingsAccount> accounts = new ArrayList<>();
+        accounts.add(this.checkpointed);
+        accounts.add(this.replayed);
+        return accounts;
+    }
+
+    private SavingsAccount newActiveAccount() throws Exception {
+        final SavingsAccount account = SavingsAccount.createNewApplicationForSubmittal(this.client, null, this.product, null, "000000001",
+                null, AccountType.INDIVIDUAL, ACTIVATION_DATE, null, BigDecimal.valueOf(10), SavingsCompoundingInterestPeriodType.DAILY,
+                SavingsPostingInterestPeriodType.MONTHLY, SavingsInterestCalculationType.DAILY_BALANCE,
+                SavingsInterestCalculationDaysInYearType.DAYS_365, null, null, null, false, null, false, null, false, null);
+        setField(account, "status", SavingsAccountStatusType.ACTIVE.getValue());
+        setField(account, "activatedOnDate", ACTIVATION_DATE.toDate());
+        setField(account, "depositType", DepositAccountType.SAVINGS_DEPOSIT.getValue());
+        account.setHelpers(new SavingsAccountTransactionSummaryWrapper(), new SavingsHelper(this.accountTransfersReadPlatformService));
+        return account;
+    }
+
+    private static void deposit(final SavingsAccount account, final LocalDate date, final String amount) {
+        account.transactions.add(SavingsAccountTransaction.deposit(account, null, null, date, Money.of(CURRENCY, new BigDecimal(amount)),
+                new Date(), null));
+    }
+
+    private static void withdraw(final SavingsAccount account, final LocalDate date, final String amount) {
+        account.transactions.add(SavingsAccountTransaction.withdrawal(account, null, null, date,
+                Money.of(CURRENCY, new BigDecimal(amount)), new Date(), null));
+    }
+
+    private static SavingsAccountTransaction findTransaction(final SavingsAccount account, final LocalDate date,
+            final boolean interestPosting) {
+        for (final SavingsAccountTransaction transaction : account.transactions) {
+            if (transaction.occursOn(date) && transaction.isNotReversed() && transaction.isInterestPosting() == interestPosting) {
+                return transaction;
+            }
+        }
+        throw new AssertionError("no transaction on " + date);
+    }
+
+    private static List<String> describeTransactions(final SavingsAccount account) {
+        final List<String> descriptions = new ArrayList<>();
+        for (final SavingsAccountTransaction transaction : account.retreiveListOfTransactions()) {
+            if (transaction.isNotReversed()) {
+                descriptions.add(transaction.transactionLocalDate() + (transaction.isInterestPosting() ? " interest " : " ")
+                        + transaction.getAmount(CURRENCY) + " balance " + transaction.getRunningBalance(CURRENCY));
+            }
+        }
+        return descriptions;
+    }
+
+    private static BigDecimal totalInterestEarned(final SavingsAccount account) throws Exception {
+        return (BigDecimal) getField(getField(account, "summary"), "totalInterestEarned");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<SavingsAccountInterestCheckpoint> interestCheckpoints(final SavingsAccount account) throws Exception {
+        return (List<SavingsAccountInterestCheckpoint>) getField(account, "interestCheckpoints");
+    }
+
+    private static SavingsAccountInterestCheckpoint interestCalculatedFromCheckpoint(final SavingsAccount account) throws Exception {
+        return (SavingsAccountInterestCheckpoint) getField(account, "interestCalculatedFromCheckpoint");
+    }
+
+    private static Object getField(final Object target, final String name) throws Exception {
+        final Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        return field.get(target);
+    }
+
+    private static void setField(final Object target, final String name, final Object value) throws Exception {
+        final Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+}
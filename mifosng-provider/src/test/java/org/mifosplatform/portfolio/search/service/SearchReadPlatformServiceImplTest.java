@@ -0,0 +1,298 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.portfolio.search.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mifosplatform.common.MockedDatabase;
+import org.mifosplatform.infrastructure.core.domain.MifosPlatformTenant;
+import org.mifosplatform.infrastructure.core.service.RoutingDataSource;
+import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
+import org.mifosplatform.infrastructure.security.service.PlatformSecurityContext;
+import org.mifosplatform.organisation.office.domain.Office;
+import org.mifosplatform.organisation.office.service.OfficeReadPlatformService;
+import org.mifosplatform.portfolio.loanproduct.service.LoanProductReadPlatformService;
+import org.mifosplatform.portfolio.search.data.SearchConditions;
+import org.mifosplatform.portfolio.search.data.SearchData;
+import org.mifosplatform.useradministration.domain.AppUser;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+/**
+ * Searches an in memory <code>m_search_index_term</code>, answered behind a
+ * {@link MockedDatabase} the way MySQL would, and checks the ranking of the
+ * results, the office hierarchy filter and when the index is used at all.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class SearchReadPlatformServiceImplTest {
+
+    private static final String USER_HIERARCHY = ".1.2.";
+
+    @Mock
+    private PlatformSecurityContext context;
+    @Mock
+    private RoutingDataSource dataSource;
+    @Mock
+    private LoanProductReadPlatformService loanProductReadPlatformService;
+    @Mock
+    private OfficeReadPlatformService officeReadPlatformService;
+    @Mock
+    private MifosPlatformTenant tenant;
+    @Mock
+    private AppUser user;
+    @Mock
+    private Office office;
+
+    private final List<Term> terms = new ArrayList<>();
+    // office hierarchy of each entity now, by entity type and id
+    private final Map<String, String> officeHierarchies = new HashMap<>();
+    private final List<String> statements = new ArrayList<>();
+    private int incompleteBackfills;
+
+    private SearchReadPlatformServiceImpl service;
+
+    @Before
+    public void setUp() throws Exception {
+        when(this.tenant.getId()).thenReturn(1L);
+        ThreadLocalContextUtil.setTenant(this.tenant);
+        when(this.office.getHierarchy()).thenReturn(USER_HIERARCHY);
+        when(this.user.getOffice()).thenReturn(this.office);
+        when(this.context.authenticatedUser()).thenReturn(this.user);
+        new SearchDatabase().connect(this.dataSource);
+
+        this.service = new SearchReadPlatformServiceImpl(this.context, this.dataSource, this.loanProductReadPlatformService,
+                this.officeReadPlatformService);
+    }
+
+    @After
+    public void tearDown() {
+        ThreadLocalContextUtil.clearTenant();
+    }
+
+    @Test
+    public void resultsShouldBeRankedExactThenPrefixThenInfix() {
+        index("CLIENT", 1L, "joanna", ".1.2.");
+        index("CLIENT", 2L, "annabel", ".1.2.");
+        index("CLIENT", 3L, "anna", ".1.2.");
+        index("LOAN", 4L, "000annaz", ".1.2.");
+        // matches as a whole value and as a suffix, the better rank wins
+        index("GROUP", 5L, "anna annabel", ".1.2.");
+
+        final List<SearchData> results = search("Anna", null);
+
+        // term order within a rank
+        assertEquals(Arrays.asList("CLIENT:3", "GROUP:5", "CLIENT:2", "CLIENT:1", "LOAN:4"), keys(results));
+    }
+
+    @Test
+    public void hierarchyFilterShouldApplyToEveryEntityType() {
+        for (final String entityType : Arrays.asList("CLIENT", "GROUP", "LOAN", "SAVING", "CLIENTIDENTIFIER")) {
+            index(entityType, 10L, "smith", ".1.2.");
+            index(entityType, 11L, "smithers", ".1.2.7.");
+            index(entityType, 12L, "smith", ".1.3.");
+            index(entityType, 13L, "smith", ".1.");
+        }
+
+        final List<SearchData> results = search("smith", null);
+
+        assertEquals(10, results.size());
+        for (final SearchData data : results) {
+            assertTrue(key(data), data.getEntityId() == 10L || data.getEntityId() == 11L);
+        }
+    }
+
+    @Test
+    public void searchShouldOnlyCoverRequestedEntityTypes() {
+        index("CLIENT", 1L, "smith", ".1.2.");
+        index("LOAN", 2L, "smith", ".1.2.");
+        index("SAVING", 3L, "smith", ".1.2.");
+
+        assertEquals(Arrays.asList("LOAN:2"), keys(search("smith", "loans")));
+    }
+
+    @Test
+    public void likeWildcardsShouldBeMatchedLiterally() {
+        index("CLIENT", 1L, "50% off", ".1.2.");
+        index("CLIENT", 2L, "500 off", ".1.2.");
+        index("CLIENT", 3L, "a_b", ".1.2.");
+        index("CLIENT", 4L, "axb", ".1.2.");
+
+        assertEquals(Arrays.asList("CLIENT:1"), keys(search("50%", null)));
+        assertEquals(Arrays.asList("CLIENT:3"), keys(search("a_b", null)));
+    }
+
+    @Test
+    public void tablesShouldBeSearchedUntilBackfillCompletes() {
+        index("CLIENT", 1L, "smith", ".1.2.");
+        this.incompleteBackfills = 1;
+
+        assertEquals(0, search("smith", null).size());
+        assertTrue(lastStatement(), lastStatement().contains(" union "));
+
+        this.incompleteBackfills = 0;
+        assertEquals(Arrays.asList("CLIENT:1"), keys(search("smith", null)));
+        assertEquals(Arrays.asList("CLIENT:1"), keys(search("smith", null)));
+
+        // a completed backfill is not checked again on every search
+        int backfillChecks = 0;
+        for (final String statement : this.statements) {
+            if (statement.contains("m_search_index_backfill")) {
+                backfillChecks++;
+            }
+        }
+        assertEquals(2, backfillChecks);
+    }
+
+    @Test
+    public void entitiesMovedOutOfTheOfficesOfTheUserShouldBeDropped() {
+        index("CLIENT", 1L, "smith", ".1.2.");
+        index("CLIENT", 2L, "smith", ".1.2.");
+        index("LOAN", 3L, "smith", ".1.2.");
+        // moved to another branch, the index still has the old office
+        this.officeHierarchies.put("CLIENT:2", ".1.3.");
+        this.officeHierarchies.put("LOAN:3", ".1.3.");
+
+        assertEquals(Arrays.asList("CLIENT:1"), keys(search("smith", null)));
+    }
+
+    private void index(final String entityType, final Long entityId, final String value, final String officeHierarchy) {
+        this.officeHierarchies.put(entityType + ":" + entityId, officeHierarchy);
+        this.terms.add(new Term(entityType, entityId, value, true, officeHierarchy));
+        for (int start = 1; start <= value.length() - SearchIndexWritePlatformServiceImpl.MIN_INFIX_LENGTH; start++) {
+            this.terms.add(new Term(entityType, entityId, value.substring(start), false, officeHierarchy));
+        }
+    }
+
+    private List<SearchData> search(final String query, final String resource) {
+        return new ArrayList<>(this.service.retriveMatchingData(new SearchConditions(query, resource)));
+    }
+
+    private String lastStatement() {
+        return this.statements.get(this.statements.size() - 1);
+    }
+
+    private static List<String> keys(final Collection<SearchData> results) {
+        final List<String> keys = new ArrayList<>();
+        for (final SearchData data : results) {
+            keys.add(key(data));
+        }
+        return keys;
+    }
+
+    private static String key(final SearchData data) {
+        return data.getEntityType() + ":" + data.getEntityId();
+    }
+
+    private static final class Term {
+
+        private final String entityType;
+        private final Long entityId;
+        private final String term;
+        private final boolean fullValue;
+        private final String officeHierarchy;
+
+        Term(final String entityType, final Long entityId, final String term, final boolean fullValue, final String officeHierarchy) {
+            this.entityType = entityType;
+            this.entityId = entityId;
+            this.term = term;
+            this.fullValue = fullValue;
+            this.officeHierarchy = officeHierarchy;
+        }
+    }
+
+    /**
+     * Answers the term query from the in memory index, the queries by id with
+     * one row per id within the office hierarchy, the backfill check with {@link #incompleteBackfills}
+     * and anything else with no rows.
+     */
+    private final class SearchDatabase extends MockedDatabase {
+
+        @Override
+        protected List<Map<String, Object>> query(final String sql, final List<Object> parameters) {
+            SearchReadPlatformServiceImplTest.this.statements.add(sql);
+            final List<Map<String, Object>> rows = new ArrayList<>();
+            if (sql.contains("m_search_index_backfill")) {
+                rows.add(row("count(*)", SearchReadPlatformServiceImplTest.this.incompleteBackfills));
+            } else if (sql.contains(" union ")) {
+                // the table scan used until the backfill completes
+            } else if (sql.contains("from m_search_index_term")) {
+                rows.addAll(matchingTerms(sql, parameters));
+            } else if (sql.contains("in (")) {
+                assertTrue(sql, sql.endsWith(" and o.hierarchy like ? "));
+                final String hierarchy = like((String) parameters.get(parameters.size() - 1));
+                for (final Object id : parameters.subList(0, parameters.size() - 1)) {
+                    if (!SearchReadPlatformServiceImplTest.this.officeHierarchies.get(entityTypeOf(sql) + ":" + id).startsWith(hierarchy)) {
+                        continue;
+                    }
+                    rows.add(row("entityType", entityTypeOf(sql), "entityId", id, "entityName", "name " + id, "entityExternalId", null,
+                            "entityAccountNo", null, "parentId", 1L, "parentName", "parent", "entityStatusEnum", 300));
+                }
+            }
+            return rows;
+        }
+
+        /**
+         * The term, entity type and office hierarchy criteria in the order
+         * their parameters are bound.
+         */
+        private List<Map<String, Object>> matchingTerms(final String sql, final List<Object> parameters) {
+            final String prefix = like((String) parameters.get(0));
+            final List<Object> entityTypes = parameters.subList(1, parameters.size() - 1);
+            final String hierarchy = like((String) parameters.get(parameters.size() - 1));
+            assertTrue(sql, sql.contains("join m_office o on o.id = t.office_id"));
+
+            final List<Term> matching = new ArrayList<>();
+            for (final Term term : SearchReadPlatformServiceImplTest.this.terms) {
+                if (term.term.startsWith(prefix) && entityTypes.contains(term.entityType) && term.officeHierarchy.startsWith(hierarchy)) {
+                    matching.add(term);
+                }
+            }
+            Collections.sort(matching, new Comparator<Term>() {
+
+                @Override
+                public int compare(final Term first, final Term second) {
+                    return first.term.compareTo(second.term);
+                }
+            });
+            final List<Map<String, Object>> rows = new ArrayList<>();
+            for (final Term term : matching) {
+                rows.add(row("entityType", term.entityType, "entityId", term.entityId, "term", term.term, "isFullValue", term.fullValue));
+            }
+            return rows;
+        }
+
+        /**
+         * The literal prefix of a <code>like</code> pattern ending in %.
+         */
+        private String like(final String pattern) {
+            assertTrue(pattern, pattern.endsWith("%") && !pattern.endsWith("\\%"));
+            final String literal = pattern.substring(0, pattern.length() - 1);
+            return literal.replace("\\%", "%").replace("\\_", "_").replace("\\\\", "\\");
+        }
+
+        private String entityTypeOf(final String sql) {
+            for (final String entityType : Arrays.asList("CLIENTIDENTIFIER", "CLIENT", "LOAN", "SAVING")) {
+                if (sql.contains("'" + entityType + "' as entityType")) { return entityType; }
+            }
+            return "GROUP";
+        }
+    }
+}
@@ -23,6 +23,7 @@ import org.mifosplatform.portfolio.loanaccount.LoanScheduleTestDataHelper;
 import org.mifosplatform.portfolio.loanaccount.MonetaryCurrencyBuilder;
 import org.mifosplatform.portfolio.loanaccount.domain.LoanRepaymentScheduleInstallment;
 import org.mifosplatform.template.domain.Template;
+import org.mifosplatform.template.service.TemplateMapperResolver;
 import org.mifosplatform.template.service.TemplateMergeService;
 
 public class TemplateMergeServiceTest {
@@ -33,9 +34,7 @@ public class TemplateMergeServiceTest {
 
     @BeforeClass
     public static void init() {
-        tms = new TemplateMergeService(
-//                new FromJsonHelper()
-                );
+        tms = new TemplateMergeService(new TemplateMapperResolver(null));
     }
 
     @Ignore
@@ -0,0 +1,207 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.template.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.ws.rs.DefaultValue;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.UriInfo;
+import javax.xml.bind.DatatypeConverter;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.context.ApplicationContext;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Resolves mapper urls against a stub api resource and, for urls no resource
+ * serves, against a local http server.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class TemplateMapperResolverTest {
+
+    @Mock
+    private ApplicationContext applicationContext;
+
+    private TemplateMapperResolver resolver;
+    private HttpServer server;
+    private String baseUri;
+    private final List<String> fetchedUris = new ArrayList<>();
+    private final List<String> fetchedAuthorizations = new ArrayList<>();
+
+    @Before
+    public void setUp() throws IOException {
+        final Map<String, Object> resources = new HashMap<>();
+        resources.put("clientsApiResource", new ClientsStubResource());
+        when(this.applicationContext.getBeansWithAnnotation(Path.class)).thenReturn(resources);
+        this.resolver = new TemplateMapperResolver(this.applicationContext);
+
+        this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        this.server.createContext("/", new HttpHandler() {
+
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException {
+                TemplateMapperResolverTest.this.fetchedUris.add(exchange.getRequestURI().toString());
+                TemplateMapperResolverTest.this.fetchedAuthorizations.add(exchange.getRequestHeaders().getFirst("Authorization"));
+                final byte[] body = "{\"fetched\":true}".getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("Content-Type", MediaType.APPLICATION_JSON);
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream output = exchange.getResponseBody()) {
+                    output.write(body);
+                }
+            }
+        });
+        this.server.start();
+        this.baseUri = "http://localhost:" + this.server.getAddress().getPort() + "/mifosng-provider/api/v1/";
+    }
+
+    @After
+    public void tearDown() {
+        this.server.stop(0);
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    public void matchedRouteShouldBeInvokedWithPathAndQueryParameters() throws IOException {
+        final Map<String, Object> result = this.resolver.resolve(
+                this.baseUri + "clients/12?fields=displayName&staffInSelectedOfficeOnly=true", this.baseUri);
+
+        assertEquals(12, result.get("clientId"));
+        assertEquals("displayName", result.get("fields"));
+        assertEquals(Boolean.TRUE, result.get("staffInSelectedOfficeOnly"));
+        assertEquals("clients/12", result.get("path"));
+        assertEquals("displayName", result.get("queryFields"));
+        assertEquals(0, this.fetchedUris.size());
+    }
+
+    @Test
+    public void relativeUrlShouldBeDispatchedLikeAbsoluteOne() throws IOException {
+        final Map<String, Object> result = this.resolver.resolve("clients/12", this.baseUri);
+
+        assertEquals(12, result.get("clientId"));
+        assertNull(result.get("fields"));
+        assertEquals(Boolean.FALSE, result.get("staffInSelectedOfficeOnly"));
+        assertEquals(0, this.fetchedUris.size());
+    }
+
+    @Test
+    public void literalSegmentShouldWinOverPathParameter() throws IOException {
+        final Map<String, Object> result = this.resolver.resolve("clients/template", this.baseUri);
+
+        assertEquals("template", result.get("src"));
+    }
+
+    @Test
+    public void collectionRouteShouldUseDefaultValues() throws IOException {
+        final Map<String, Object> result = this.resolver.resolve("clients?officeId=3", this.baseUri);
+
+        assertEquals(3, result.get("officeId"));
+        assertEquals(200, result.get("limit"));
+    }
+
+    @Test
+    public void unknownQueryParameterShouldBeIgnoredByTheResourceMethod() throws IOException {
+        final Map<String, Object> result = this.resolver.resolve("clients/12?unknownParameter=1", this.baseUri);
+
+        assertEquals(12, result.get("clientId"));
+        assertNull(result.get("fields"));
+        assertEquals(0, this.fetchedUris.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidPathParameterValueShouldBeRejected() throws IOException {
+        this.resolver.resolve("clients/twelve/accounts", this.baseUri);
+    }
+
+    @Test
+    public void unmatchedUrlShouldFallBackToHttp() throws IOException {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken("mifos", "password"));
+
+        final Map<String, Object> result = this.resolver.resolve("loans/5?associations=repaymentSchedule", this.baseUri);
+
+        assertEquals(Boolean.TRUE, result.get("fetched"));
+        assertEquals(1, this.fetchedUris.size());
+        assertEquals("/mifosng-provider/api/v1/loans/5?associations=repaymentSchedule", this.fetchedUris.get(0));
+        assertEquals("Basic " + DatatypeConverter.printBase64Binary("mifos:password".getBytes(StandardCharsets.UTF_8)),
+                this.fetchedAuthorizations.get(0));
+    }
+
+    @Test
+    public void urlOfOtherServerShouldBeFetchedOverHttpWithoutCredentials() throws IOException {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken("mifos", "password"));
+        final String otherBaseUri = "https://localhost:8443/mifosng-provider/api/v1/";
+        final Map<String, Object> result = this.resolver.resolve(this.baseUri + "clients/12", otherBaseUri);
+
+        assertEquals(Boolean.TRUE, result.get("fetched"));
+        assertEquals("/mifosng-provider/api/v1/clients/12", this.fetchedUris.get(0));
+        assertNull(this.fetchedAuthorizations.get(0));
+    }
+
+    @Path("/clients")
+    @Produces({ MediaType.APPLICATION_JSON })
+    public static class ClientsStubResource {
+
+        @GET
+        public String retrieveAll(@QueryParam("officeId") final Long officeId,
+                @QueryParam("limit") @DefaultValue("200") final Integer limit) {
+            return "{\"officeId\":" + officeId + ",\"limit\":" + limit + "}";
+        }
+
+        @GET
+        @Path("{clientId}")
+        public String retrieveOne(@PathParam("clientId") final Long clientId, @QueryParam("fields") final String fields,
+                @QueryParam("staffInSelectedOfficeOnly") @DefaultValue("false") final boolean staffInSelectedOfficeOnly,
+                @Context final UriInfo uriInfo) {
+            return "{\"clientId\":" + clientId + ",\"fields\":" + quote(fields) + ",\"staffInSelectedOfficeOnly\":"
+                    + staffInSelectedOfficeOnly + ",\"path\":" + quote(uriInfo.getPath()) + ",\"queryFields\":"
+                    + quote(uriInfo.getQueryParameters().getFirst("fields")) + "}";
+        }
+
+        @GET
+        @Path("{clientId}/accounts")
+        public String retrieveAccounts(@PathParam("clientId") final Long clientId) {
+            return "{\"clientId\":" + clientId + "}";
+        }
+
+        @GET
+        @Path("template")
+        @Produces({ MediaType.TEXT_PLAIN })
+        public String template() {
+            return "template";
+        }
+
+        private static String quote(final String value) {
+            return value == null ? "null" : "\"" + value + "\"";
+        }
+    }
+}
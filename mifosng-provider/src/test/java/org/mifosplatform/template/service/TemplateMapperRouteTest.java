@@ -0,0 +1,95 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.template.service;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+
+import org.junit.Test;
+
+public class TemplateMapperRouteTest {
+
+    @Test
+    public void routeShouldMatchLiteralAndParameterSegments() throws Exception {
+        final TemplateMapperRoute route = route("retrieveCharge", Long.class, Long.class);
+
+        assertEquals("loans", route.root());
+        assertEquals(2, route.literalSegments());
+        assertFalse(route.isPlainText());
+
+        final MultivaluedMap<String, String> pathParameters = route.match(new String[] { "loans", "7", "charges", "9" });
+        assertNotNull(pathParameters);
+        assertEquals(Arrays.asList("7"), pathParameters.get("loanId"));
+        assertEquals(Arrays.asList("9"), pathParameters.get("chargeId"));
+    }
+
+    @Test
+    public void routeShouldNotMatchOtherPaths() throws Exception {
+        final TemplateMapperRoute route = route("retrieveCharge", Long.class, Long.class);
+
+        assertNull(route.match(new String[] { "loans", "7", "charges" }));
+        assertNull(route.match(new String[] { "loans", "7", "transactions", "9" }));
+        assertNull(route.match(new String[] { "savingsaccounts", "7", "charges", "9" }));
+    }
+
+    @Test
+    public void plainTextShouldBeTakenFromMethodProduces() throws Exception {
+        assertTrue(route("retrieveDocument", Long.class).isPlainText());
+    }
+
+    @Test
+    public void pathWithRegularExpressionShouldNotBeRouted() throws Exception {
+        assertNull(route("retrieveByRegularExpression", Long.class));
+    }
+
+    @Test
+    public void pathShouldBeSplitIntoNonEmptySegments() {
+        assertArrayEquals(new String[] { "loans", "7" }, TemplateMapperRoute.split("/loans//7/"));
+        assertEquals(0, TemplateMapperRoute.split("/").length);
+    }
+
+    private static TemplateMapperRoute route(final String methodName, final Class<?>... parameterTypes) throws Exception {
+        return TemplateMapperRoute.from(new LoansStubResource(), LoansStubResource.class,
+                LoansStubResource.class.getMethod(methodName, parameterTypes));
+    }
+
+    @Path("/loans")
+    @Produces({ MediaType.APPLICATION_JSON })
+    public static class LoansStubResource {
+
+        @GET
+        @Path("{loanId}/charges/{chargeId}")
+        public String retrieveCharge(@PathParam("loanId") final Long loanId, @PathParam("chargeId") final Long chargeId) {
+            return "{}";
+        }
+
+        @GET
+        @Path("{loanId}/document")
+        @Produces({ MediaType.TEXT_PLAIN })
+        public String retrieveDocument(@PathParam("loanId") final Long loanId) {
+            return "";
+        }
+
+        @GET
+        @Path("{loanId: [0-9]+}")
+        public String retrieveByRegularExpression(@PathParam("loanId") final Long loanId) {
+            return "{}";
+        }
+    }
+}